@@ -0,0 +1,181 @@
+package com.example.stssdk.bench;
+
+import com.example.stssdk.state.SnapshotPublisher;
+import com.megacrit.cardcrawl.actions.GameActionManager;
+import com.megacrit.cardcrawl.cards.AbstractCard;
+import com.megacrit.cardcrawl.cards.CardGroup;
+import com.megacrit.cardcrawl.characters.AbstractPlayer;
+import com.megacrit.cardcrawl.core.AbstractCreature;
+import com.megacrit.cardcrawl.core.EnergyManager;
+import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
+import com.megacrit.cardcrawl.monsters.AbstractMonster;
+import com.megacrit.cardcrawl.monsters.MonsterGroup;
+import com.megacrit.cardcrawl.potions.AbstractPotion;
+import com.megacrit.cardcrawl.potions.PotionSlot;
+import com.megacrit.cardcrawl.powers.AbstractPower;
+import com.megacrit.cardcrawl.relics.AbstractRelic;
+import com.megacrit.cardcrawl.rooms.AbstractRoom;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * 基准测试用的战斗场景，用替身类搭出一场进行中的战斗
+ * 卡牌按手牌最多10张、其余依次放入抽牌堆、弃牌堆和消耗堆的顺序分配，
+ * 同样的参数总是生成同样的场景，便于不同版本之间对比
+ */
+public final class CombatFixture {
+    private static final String[] CARD_IDS = {"Strike_R", "Defend_R", "Bash", "Anger", "Cleave", "Shrug It Off", "Inflame", "Wound"};
+    private static final String[] MONSTER_IDS = {"JawWorm", "Cultist", "FuzzyLouseNormal", "GremlinFat", "SlaverRed"};
+
+    public final AbstractPlayer player;
+    public final MonsterGroup monsters;
+    // 全部卡牌，按生成顺序
+    public final ArrayList<AbstractCard> cards = new ArrayList<>();
+
+    private CombatFixture(AbstractPlayer player, MonsterGroup monsters) {
+        this.player = player;
+        this.monsters = monsters;
+    }
+
+    /**
+     * 搭建战斗场景并写入AbstractDungeon的静态字段，然后发布一次快照
+     * @param cardCount 卡牌总数
+     * @param monsterCount 怪物数量
+     * @return 场景
+     */
+    public static CombatFixture install(int cardCount, int monsterCount) {
+        Random rng = new Random(cardCount * 31L + monsterCount);
+        AbstractPlayer p = new AbstractPlayer() {
+        };
+        p.id = "Ironclad";
+        p.name = "Ironclad";
+        p.isPlayer = true;
+        p.currentHealth = 72;
+        p.maxHealth = 80;
+        p.currentBlock = 5;
+        p.gold = 99;
+        p.chosenClass = AbstractPlayer.PlayerClass.IRONCLAD;
+        p.energy = new EnergyManager();
+        p.energy.energy = 3;
+        p.energy.energyMaster = 3;
+        p.hand = new CardGroup();
+        p.drawPile = new CardGroup();
+        p.discardPile = new CardGroup();
+        p.exhaustPile = new CardGroup();
+        p.masterDeck = new CardGroup();
+        p.limbo = new CardGroup();
+        p.relics = new ArrayList<>();
+        p.relics.add(relic("Burning Blood", -1));
+        p.relics.add(relic("Pen Nib", 4));
+        p.potions = new ArrayList<>();
+        p.potions.add(potion("Fire Potion", true));
+        p.potions.add(potion("Block Potion", false));
+        p.potions.add(new PotionSlot(2));
+        p.potionSlots = 3;
+        p.powers.add(power("Strength", 2, p));
+
+        CombatFixture fixture = new CombatFixture(p, new MonsterGroup());
+        CardGroup[] piles = {p.drawPile, p.discardPile, p.exhaustPile};
+        for (int i = 0; i < cardCount; i++) {
+            AbstractCard c = card(CARD_IDS[rng.nextInt(CARD_IDS.length)], rng);
+            fixture.cards.add(c);
+            p.masterDeck.group.add(c);
+            if (p.hand.size() < 10) {
+                p.hand.group.add(c);
+            } else {
+                piles[i % piles.length].group.add(c);
+            }
+        }
+        for (int i = 0; i < monsterCount; i++) {
+            fixture.monsters.monsters.add(monster(MONSTER_IDS[i % MONSTER_IDS.length], rng));
+        }
+
+        AbstractRoom room = new AbstractRoom() {
+        };
+        room.phase = AbstractRoom.RoomPhase.COMBAT;
+        room.monsters = fixture.monsters;
+        AbstractDungeon.currRoom = room;
+        AbstractDungeon.player = p;
+        AbstractDungeon.actionManager = new GameActionManager();
+        AbstractDungeon.actionManager.turn = 2;
+        AbstractDungeon.screen = AbstractDungeon.CurrentScreen.NONE;
+        AbstractDungeon.floorNum = 6;
+        AbstractDungeon.actNum = 1;
+        SnapshotPublisher.publish();
+        return fixture;
+    }
+
+    private static AbstractCard card(String id, Random rng) {
+        AbstractCard c = new AbstractCard() {
+            @Override
+            public void use(AbstractPlayer p, AbstractMonster m) {
+            }
+        };
+        c.uuid = new UUID(rng.nextLong(), rng.nextLong());
+        c.cardID = id;
+        c.name = id;
+        c.rawDescription = "Deal !D! damage.";
+        c.cost = rng.nextInt(3);
+        c.costForTurn = c.cost;
+        c.baseDamage = 6;
+        c.damage = 6 + rng.nextInt(3);
+        c.baseBlock = 5;
+        c.block = 5;
+        c.upgraded = rng.nextInt(4) == 0;
+        c.type = id.startsWith("Defend") || id.startsWith("Shrug") ? AbstractCard.CardType.SKILL : AbstractCard.CardType.ATTACK;
+        c.rarity = AbstractCard.CardRarity.COMMON;
+        c.target = c.type == AbstractCard.CardType.ATTACK ? AbstractCard.CardTarget.ENEMY : AbstractCard.CardTarget.SELF;
+        c.color = AbstractCard.CardColor.RED;
+        return c;
+    }
+
+    private static AbstractMonster monster(String id, Random rng) {
+        AbstractMonster m = new AbstractMonster() {
+        };
+        m.id = id;
+        m.name = id;
+        m.maxHealth = 40 + rng.nextInt(20);
+        m.currentHealth = m.maxHealth - rng.nextInt(10);
+        m.intent = AbstractMonster.Intent.ATTACK;
+        m.nextMove = 1;
+        m.type = AbstractMonster.EnemyType.NORMAL;
+        m.powers.add(power("Vulnerable", 1, m));
+        return m;
+    }
+
+    private static AbstractRelic relic(String id, int counter) {
+        AbstractRelic r = new AbstractRelic() {
+        };
+        r.relicId = id;
+        r.name = id;
+        r.counter = counter;
+        r.tier = AbstractRelic.RelicTier.COMMON;
+        return r;
+    }
+
+    private static AbstractPotion potion(String id, boolean targetRequired) {
+        AbstractPotion potion = new AbstractPotion() {
+            @Override
+            public void use(AbstractCreature target) {
+            }
+        };
+        potion.ID = id;
+        potion.name = id;
+        potion.targetRequired = targetRequired;
+        potion.rarity = AbstractPotion.PotionRarity.COMMON;
+        return potion;
+    }
+
+    private static AbstractPower power(String id, int amount, AbstractCreature owner) {
+        AbstractPower power = new AbstractPower() {
+        };
+        power.ID = id;
+        power.name = id;
+        power.amount = amount;
+        power.owner = owner;
+        power.type = AbstractPower.PowerType.BUFF;
+        return power;
+    }
+}
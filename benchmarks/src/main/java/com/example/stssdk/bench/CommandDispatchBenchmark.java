@@ -0,0 +1,104 @@
+package com.example.stssdk.bench;
+
+import com.example.stssdk.core.CommandExecutor;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 命令分发基准：请求体解析和CommandExecutor.execute
+ * 只使用不需要游戏主线程的只读命令，测到的是解析、分发、序列化和指标记录本身的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandDispatchBenchmark {
+    private static final String PLAY_CARD_BODY =
+            "{\"cmd\":\"play_card\",\"uuid\":\"3f2a8c1e-6b7d-4e9f-a0b1-c2d3e4f5a6b7\",\"targetHandle\":1,\"wait\":true,\"timeoutMs\":2000}";
+
+    @Param({"10", "100"})
+    public int cardCount;
+
+    private final CommandExecutor executor = new CommandExecutor();
+    private JsonObject getState;
+    private JsonObject getLeanState;
+    private JsonObject getLegalActions;
+    private JsonObject unknown;
+    private String batchBody;
+
+    @Setup
+    public void setup() {
+        CombatFixture.install(cardCount, 3);
+        getState = command("get_state");
+        getLeanState = command("get_state");
+        getLeanState.addProperty("lean", true);
+        getLegalActions = command("get_legal_actions");
+        getLegalActions.addProperty("mask", true);
+        unknown = command("no_such_command");
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 10; i++) {
+            sb.append(i == 0 ? "" : ",").append(PLAY_CARD_BODY);
+        }
+        batchBody = sb.append(']').toString();
+    }
+
+    private static JsonObject command(String cmd) {
+        JsonObject req = new JsonObject();
+        req.addProperty("cmd", cmd);
+        return req;
+    }
+
+    @Benchmark
+    public JsonElement parseCommand() {
+        return JsonParser.parseString(PLAY_CARD_BODY);
+    }
+
+    @Benchmark
+    public JsonElement parseBatch() {
+        return JsonParser.parseString(batchBody);
+    }
+
+    @Benchmark
+    public JsonObject dispatchUnknown() {
+        return executor.execute(unknown);
+    }
+
+    @Benchmark
+    public JsonObject dispatchGetState() {
+        return executor.execute(getState);
+    }
+
+    @Benchmark
+    public JsonObject dispatchGetLeanState() {
+        return executor.execute(getLeanState);
+    }
+
+    @Benchmark
+    public JsonObject dispatchGetLegalActions() {
+        return executor.execute(getLegalActions);
+    }
+
+    /**
+     * 与SDKServer处理POST请求的路径相同：解析请求体、执行、序列化结果
+     */
+    @Benchmark
+    public String parseDispatchSerialize() {
+        return executor.execute(JsonParser.parseString("{\"cmd\":\"get_state\",\"lean\":true}").getAsJsonObject()).toString();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.stssdk.bench;
+
+import com.example.stssdk.server.SDKServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 端到端HTTP吞吐基准，在本机回环地址上启动真实的SDKServer
+ * 客户端使用HttpURLConnection，JDK会复用keep-alive连接；并发数用-t参数调整
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Threads(4)
+@Fork(1)
+public class HttpThroughputBenchmark {
+    private static final byte[] GET_STATE_BODY = "{\"cmd\":\"get_state\",\"lean\":true}".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"10", "100"})
+    public int cardCount;
+
+    private SDKServer server;
+    private String base;
+
+    @Setup
+    public void setup() throws IOException {
+        CombatFixture.install(cardCount, 3);
+        server = SDKServer.startOnFreePort("127.0.0.1", 18080, 10);
+        base = "http://127.0.0.1:" + server.getListeningPort();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public int getState() throws IOException {
+        return get("/api/state");
+    }
+
+    @Benchmark
+    public int getHand() throws IOException {
+        return get("/api/hand");
+    }
+
+    @Benchmark
+    public int getLegalActions() throws IOException {
+        return get("/api/legal_actions");
+    }
+
+    @Benchmark
+    public int postGetState() throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(base + "/").openConnection();
+        conn.setRequestMethod("POST");
+        conn.setDoOutput(true);
+        conn.setRequestProperty("Content-Type", "application/json");
+        conn.setFixedLengthStreamingMode(GET_STATE_BODY.length);
+        try (OutputStream out = conn.getOutputStream()) {
+            out.write(GET_STATE_BODY);
+        }
+        return drain(conn);
+    }
+
+    private int get(String path) throws IOException {
+        return drain((HttpURLConnection) new URL(base + path).openConnection());
+    }
+
+    // 读完整个响应体，连接才会被放回keep-alive池
+    private static int drain(HttpURLConnection conn) throws IOException {
+        int status = conn.getResponseCode();
+        InputStream in = status < 400 ? conn.getInputStream() : conn.getErrorStream();
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int n;
+        while ((n = in.read(chunk)) > 0) {
+            buf.write(chunk, 0, n);
+        }
+        in.close();
+        if (status != 200) {
+            throw new IOException("HTTP " + status + ": " + buf.toString("UTF-8"));
+        }
+        return buf.size();
+    }
+}
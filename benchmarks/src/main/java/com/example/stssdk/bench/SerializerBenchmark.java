@@ -0,0 +1,76 @@
+package com.example.stssdk.bench;
+
+import com.example.stssdk.core.Serializer;
+import com.example.stssdk.state.GameSnapshot;
+import com.example.stssdk.state.SnapshotPublisher;
+import com.google.gson.JsonArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 序列化基准：游戏对象直接转JSON、快照转JSON以及完整状态转字符串
+ * cardCount是场景中卡牌的总数，手牌最多10张，其余分散在各个牌堆中
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializerBenchmark {
+    @Param({"10", "50", "100", "200"})
+    public int cardCount;
+
+    @Param({"3"})
+    public int monsterCount;
+
+    private CombatFixture fixture;
+    private GameSnapshot snapshot;
+
+    @Setup
+    public void setup() {
+        fixture = CombatFixture.install(cardCount, monsterCount);
+        snapshot = SnapshotPublisher.latest();
+    }
+
+    @Benchmark
+    public JsonArray cardsToJson() {
+        return Serializer.cardsToJson(fixture.cards);
+    }
+
+    @Benchmark
+    public JsonArray monstersToJson() {
+        return Serializer.monstersToJson(fixture.monsters);
+    }
+
+    @Benchmark
+    public JsonArray cardSnapshotsToJson() {
+        return Serializer.cardSnapshotsToJson(snapshot.drawPile);
+    }
+
+    @Benchmark
+    public GameSnapshot captureSnapshot() {
+        return GameSnapshot.capture(snapshot.version + 1);
+    }
+
+    @Benchmark
+    public String stateToString() {
+        return Serializer.stateToJson(snapshot).toString();
+    }
+
+    @Benchmark
+    public String leanStateToString() {
+        return Serializer.stateToJson(snapshot, true).toString();
+    }
+}
@@ -0,0 +1,10 @@
+package basemod;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class BaseMod {
+    public static void subscribe(basemod.interfaces.ISubscriber s) {
+    }
+
+    public static void unsubscribe(basemod.interfaces.ISubscriber s) {
+    }
+}
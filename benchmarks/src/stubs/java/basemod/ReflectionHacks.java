@@ -0,0 +1,18 @@
+package basemod;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class ReflectionHacks {
+    public static <T> T getPrivate(Object o, Class<?> c, String f) {
+        return null;
+    }
+
+    public static void setPrivate(Object o, Class<?> c, String f, Object v) {
+    }
+
+    public static <T> T getPrivateStatic(Class<?> c, String f) {
+        return null;
+    }
+
+    public static void setPrivateStatic(Class<?> c, String f, Object v) {
+    }
+}
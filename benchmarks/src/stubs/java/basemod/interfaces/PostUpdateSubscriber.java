@@ -0,0 +1,6 @@
+package basemod.interfaces;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public interface PostUpdateSubscriber extends ISubscriber {
+    void receivePostUpdate();
+}
@@ -0,0 +1,9 @@
+package com.badlogic.gdx;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public interface Graphics {
+    float getDeltaTime();
+    float getRawDeltaTime();
+    void setVSync(boolean v);
+    int getFramesPerSecond();
+}
@@ -0,0 +1,7 @@
+package com.badlogic.gdx.backends.lwjgl;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class LwjglApplicationConfiguration {
+    public int foregroundFPS = 60, backgroundFPS = 60;
+    public boolean vSyncEnabled = true;
+}
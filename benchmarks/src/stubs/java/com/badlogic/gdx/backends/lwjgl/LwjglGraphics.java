@@ -0,0 +1,14 @@
+package com.badlogic.gdx.backends.lwjgl;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public abstract class LwjglGraphics implements com.badlogic.gdx.Graphics {
+    LwjglApplicationConfiguration config;
+
+    public float getDeltaTime() {
+        return 0;
+    }
+
+    public float getRawDeltaTime() {
+        return 0;
+    }
+}
@@ -0,0 +1,11 @@
+package com.badlogic.gdx.math;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class RandomXS128 {
+    public long getState(int i) {
+        return 0;
+    }
+
+    public void setState(long a, long b) {
+    }
+}
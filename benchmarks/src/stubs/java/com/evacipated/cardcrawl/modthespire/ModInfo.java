@@ -0,0 +1,7 @@
+package com.evacipated.cardcrawl.modthespire;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class ModInfo {
+    public String ID, Name;
+    public com.vdurmont.semver4j.Semver ModVersion;
+}
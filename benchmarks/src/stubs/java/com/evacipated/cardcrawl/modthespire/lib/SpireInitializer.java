@@ -0,0 +1,12 @@
+package com.evacipated.cardcrawl.modthespire.lib;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface SpireInitializer {
+}
@@ -0,0 +1,16 @@
+package com.evacipated.cardcrawl.modthespire.lib;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class SpireReturn<T> {
+    public static SpireReturn<Void> Return() {
+        return new SpireReturn<>();
+    }
+
+    public static <T> SpireReturn<T> Return(T t) {
+        return new SpireReturn<>();
+    }
+
+    public static <T> SpireReturn<T> Continue() {
+        return new SpireReturn<>();
+    }
+}
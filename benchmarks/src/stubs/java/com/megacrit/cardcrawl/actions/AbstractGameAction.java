@@ -0,0 +1,17 @@
+package com.megacrit.cardcrawl.actions;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public abstract class AbstractGameAction {
+    public boolean isDone;
+    public float duration;
+    public float startDuration;
+    public ActionType actionType;
+    public abstract void update();
+
+    protected void tickDuration() {
+    }
+
+    public enum ActionType {
+        BLOCK, POWER, CARD_MANIPULATION, DAMAGE, DEBUFF, DISCARD, DRAW, EXHAUST, HEAL, ENERGY, TEXT, USE, CLEAR_CARD_QUEUE, DIALOG, SPECIAL, WAIT, SHUFFLE, REDUCE_POWER
+    }
+}
@@ -0,0 +1,32 @@
+package com.megacrit.cardcrawl.actions;
+
+import java.util.ArrayList;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class GameActionManager {
+    public ArrayList<AbstractGameAction> actions = new ArrayList<>();
+    public ArrayList<AbstractGameAction> preTurnActions = new ArrayList<>();
+    public AbstractGameAction currentAction;
+    public AbstractGameAction previousAction;
+    public Phase phase = Phase.WAITING_ON_USER;
+    public boolean turnHasEnded;
+    public int turn;
+    public boolean hasControl = true;
+    public ArrayList<com.megacrit.cardcrawl.cards.AbstractCard> cardsPlayedThisTurn = new ArrayList<>(), cardsPlayedThisCombat = new ArrayList<>();
+    public int damageReceivedThisTurn, damageReceivedThisCombat;
+    public ArrayList<com.megacrit.cardcrawl.cards.CardQueueItem> cardQueue = new ArrayList<>();
+    public ArrayList<com.megacrit.cardcrawl.monsters.MonsterQueueItem> monsterQueue = new ArrayList<>();
+
+    public void addToBottom(AbstractGameAction a) {
+    }
+
+    public void addToTop(AbstractGameAction a) {
+    }
+
+    public void clear() {
+    }
+
+    public enum Phase {
+        WAITING_ON_USER, EXECUTING_ACTIONS
+    }
+}
@@ -0,0 +1,10 @@
+package com.megacrit.cardcrawl.actions.common;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class MakeTempCardInDiscardAction extends com.megacrit.cardcrawl.actions.AbstractGameAction {
+    public MakeTempCardInDiscardAction(com.megacrit.cardcrawl.cards.AbstractCard c, int n) {
+    }
+
+    public void update() {
+    }
+}
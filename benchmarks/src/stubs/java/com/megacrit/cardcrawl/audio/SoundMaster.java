@@ -0,0 +1,28 @@
+package com.megacrit.cardcrawl.audio;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class SoundMaster {
+    public long play(String k, boolean b) {
+        return 0;
+    }
+
+    public long play(String k) {
+        return 0;
+    }
+
+    public long play(String k, float p) {
+        return 0;
+    }
+
+    public long playA(String k, float p) {
+        return 0;
+    }
+
+    public long playV(String k, float v) {
+        return 0;
+    }
+
+    public long playAV(String k, float p, float v) {
+        return 0;
+    }
+}
@@ -0,0 +1,66 @@
+package com.megacrit.cardcrawl.cards;
+
+import java.util.UUID;
+import com.megacrit.cardcrawl.characters.AbstractPlayer;
+import com.megacrit.cardcrawl.monsters.AbstractMonster;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public abstract class AbstractCard {
+    public UUID uuid;
+    public String cardID, name, rawDescription;
+    public int cost, costForTurn, baseDamage, damage, baseBlock, block, baseMagicNumber, magicNumber, timesUpgraded, energyOnUse;
+    public boolean upgraded, freeToPlayOnce, exhaust, isEthereal, retain, selfRetain, isInnate, purgeOnUse;
+    public CardType type;
+    public CardRarity rarity;
+    public CardTarget target;
+    public CardColor color;
+    public abstract void use(AbstractPlayer p, AbstractMonster m);
+
+    public boolean canUse(AbstractPlayer p, AbstractMonster m) {
+        return true;
+    }
+
+    public boolean hasEnoughEnergy() {
+        return true;
+    }
+
+    public void triggerOnScry() {
+    }
+
+    public void applyPowers() {
+    }
+
+    public void calculateCardDamage(AbstractMonster m) {
+    }
+
+    public AbstractCard makeCopy() {
+        return null;
+    }
+
+    public AbstractCard makeStatEquivalentCopy() {
+        return null;
+    }
+
+    public AbstractCard makeSameInstanceOf() {
+        return null;
+    }
+
+    public void upgrade() {
+    }
+
+    public enum CardType {
+        ATTACK, SKILL, POWER, STATUS, CURSE
+    }
+
+    public enum CardRarity {
+        BASIC, SPECIAL, COMMON, UNCOMMON, RARE, CURSE
+    }
+
+    public enum CardTarget {
+        ENEMY, ALL_ENEMY, SELF, NONE, SELF_AND_ENEMY, ALL
+    }
+
+    public enum CardColor {
+        RED, GREEN, BLUE, PURPLE, COLORLESS, CURSE
+    }
+}
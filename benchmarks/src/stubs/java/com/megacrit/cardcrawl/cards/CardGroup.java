@@ -0,0 +1,39 @@
+package com.megacrit.cardcrawl.cards;
+
+import java.util.ArrayList;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class CardGroup {
+    public ArrayList<AbstractCard> group = new ArrayList<>();
+
+    public int size() {
+        return group.size();
+    }
+
+    public void removeCard(AbstractCard c) {
+    }
+
+    public void refreshHandLayout() {
+    }
+
+    public boolean contains(AbstractCard c) {
+        return group.contains(c);
+    }
+
+    public boolean isEmpty() {
+        return group.isEmpty();
+    }
+
+    public void clear() {
+        group.clear();
+    }
+
+    public void addToTop(AbstractCard c) {
+    }
+
+    public void applyPowers() {
+    }
+
+    public void glowCheck() {
+    }
+}
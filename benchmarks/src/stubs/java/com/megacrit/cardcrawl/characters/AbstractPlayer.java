@@ -0,0 +1,31 @@
+package com.megacrit.cardcrawl.characters;
+
+import java.util.ArrayList;
+import com.megacrit.cardcrawl.cards.AbstractCard;
+import com.megacrit.cardcrawl.cards.CardGroup;
+import com.megacrit.cardcrawl.relics.AbstractRelic;
+import com.megacrit.cardcrawl.potions.AbstractPotion;
+import com.megacrit.cardcrawl.core.EnergyManager;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public abstract class AbstractPlayer extends com.megacrit.cardcrawl.core.AbstractCreature {
+    public CardGroup hand, drawPile, discardPile, exhaustPile, masterDeck, limbo;
+    public ArrayList<AbstractRelic> relics;
+    public ArrayList<AbstractPotion> potions;
+    public EnergyManager energy;
+    public PlayerClass chosenClass;
+    public int potionSlots;
+    public AbstractCard cardInUse;
+    public boolean endTurnQueued, isEndingTurn;
+    public java.util.ArrayList<com.megacrit.cardcrawl.orbs.AbstractOrb> orbs = new java.util.ArrayList<>();
+    public int maxOrbs;
+    public com.megacrit.cardcrawl.stances.AbstractStance stance;
+
+    public boolean hasRelic(String id) {
+        return false;
+    }
+
+    public enum PlayerClass {
+        IRONCLAD, THE_SILENT, DEFECT, WATCHER
+    }
+}
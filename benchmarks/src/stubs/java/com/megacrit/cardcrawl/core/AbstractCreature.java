@@ -0,0 +1,28 @@
+package com.megacrit.cardcrawl.core;
+
+import java.util.ArrayList;
+import com.megacrit.cardcrawl.powers.AbstractPower;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public abstract class AbstractCreature {
+    public String id, name;
+    public int currentHealth, maxHealth, currentBlock, gold;
+    public boolean isDying, isDead, halfDead, isEscaping, escaped, isPlayer;
+    public float drawX, drawY;
+    public ArrayList<AbstractPower> powers = new ArrayList<>();
+
+    public boolean isDeadOrEscaped() {
+        return false;
+    }
+
+    public boolean hasPower(String id) {
+        return false;
+    }
+
+    public AbstractPower getPower(String id) {
+        return null;
+    }
+
+    public void healthBarUpdatedEvent() {
+    }
+}
@@ -0,0 +1,14 @@
+package com.megacrit.cardcrawl.core;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class CardCrawlGame {
+    public static String TRUE_VERSION_NUM = "[V2.3.4] (12-18-2022)";
+
+    public static boolean isInARun() {
+        return false;
+    }
+
+    public static com.megacrit.cardcrawl.audio.SoundMaster sound;
+    public static com.megacrit.cardcrawl.characters.AbstractPlayer.PlayerClass chosenCharacter;
+    public static com.megacrit.cardcrawl.screens.mainMenu.MainMenuScreen mainMenuScreen;
+}
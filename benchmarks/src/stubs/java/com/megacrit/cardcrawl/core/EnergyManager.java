@@ -0,0 +1,9 @@
+package com.megacrit.cardcrawl.core;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class EnergyManager {
+    public int energy, energyMaster;
+
+    public void use(int e) {
+    }
+}
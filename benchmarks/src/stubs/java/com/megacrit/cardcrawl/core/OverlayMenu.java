@@ -0,0 +1,16 @@
+package com.megacrit.cardcrawl.core;
+
+import com.megacrit.cardcrawl.ui.buttons.EndTurnButton;
+import com.megacrit.cardcrawl.ui.buttons.ProceedButton;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class OverlayMenu {
+    public EndTurnButton endTurnButton = new EndTurnButton();
+    public ProceedButton proceedButton = new ProceedButton();
+
+    public void showCombatPanels() {
+    }
+
+    public void hideBlackScreen() {
+    }
+}
@@ -0,0 +1,11 @@
+package com.megacrit.cardcrawl.core;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class Settings {
+    public static boolean FAST_MODE;
+    public static boolean isDebug;
+    public static final float ACTION_DUR_FAST = 0.25f;
+    public static int MAX_FPS = 60;
+    public static Long seed;
+    public static boolean seedSet, isDailyRun, isTrial, isEndless;
+}
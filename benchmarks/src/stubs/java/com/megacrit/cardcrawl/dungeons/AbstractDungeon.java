@@ -0,0 +1,46 @@
+package com.megacrit.cardcrawl.dungeons;
+
+import com.megacrit.cardcrawl.characters.AbstractPlayer;
+import com.megacrit.cardcrawl.rooms.AbstractRoom;
+import com.megacrit.cardcrawl.actions.GameActionManager;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public abstract class AbstractDungeon {
+    public static AbstractPlayer player;
+    public static GameActionManager actionManager;
+    public static int ascensionLevel, floorNum, actNum;
+    public static boolean isScreenUp, isAscensionMode;
+    public static CurrentScreen screen;
+    public static com.megacrit.cardcrawl.core.OverlayMenu overlayMenu;
+    public static com.megacrit.cardcrawl.screens.CombatRewardScreen combatRewardScreen;
+    public static com.megacrit.cardcrawl.screens.DeathScreen deathScreen;
+    public static com.megacrit.cardcrawl.ui.buttons.DynamicBanner dynamicBanner;
+    public static String id;
+    public static com.megacrit.cardcrawl.random.Random monsterRng, mapRng, eventRng, merchantRng, cardRng, treasureRng, relicRng, potionRng, monsterHpRng, aiRng, shuffleRng, cardRandomRng, miscRng;
+
+    public void render(com.badlogic.gdx.graphics.g2d.SpriteBatch sb) {
+    }
+
+    public void update() {
+    }
+
+    public static AbstractRoom currRoom;
+
+    public static AbstractRoom getCurrRoom() {
+        return currRoom;
+    }
+
+    public static void generateSeeds() {
+    }
+
+    public static com.megacrit.cardcrawl.monsters.MonsterGroup getMonsters() {
+        return currRoom != null ? currRoom.monsters : null;
+    }
+
+    public static void onModifyPower() {
+    }
+
+    public enum CurrentScreen {
+        NONE, MASTER_DECK_VIEW, DEATH, MAP, COMBAT_REWARD, CARD_REWARD, GRID, HAND_SELECT, SHOP, BOSS_REWARD, CHOOSE_ONE, GAME_DECK_VIEW, DISCARD_VIEW, EXHAUST_VIEW, SETTINGS, INPUT_SETTINGS, CREDITS, NEOW_UNLOCK, VICTORY, UNLOCK, TRANSFORM, NO_INTERACT, FTUE
+    }
+}
@@ -0,0 +1,15 @@
+package com.megacrit.cardcrawl.helpers;
+
+import java.util.ArrayList;
+import com.megacrit.cardcrawl.cards.AbstractCard;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class CardLibrary {
+    public static ArrayList<AbstractCard> getAllCards() {
+        return new ArrayList<>();
+    }
+
+    public static AbstractCard getCard(String id) {
+        return null;
+    }
+}
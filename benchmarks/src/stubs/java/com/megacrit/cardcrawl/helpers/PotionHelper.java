@@ -0,0 +1,16 @@
+package com.megacrit.cardcrawl.helpers;
+
+import java.util.ArrayList;
+import com.megacrit.cardcrawl.potions.AbstractPotion;
+import com.megacrit.cardcrawl.characters.AbstractPlayer;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class PotionHelper {
+    public static ArrayList<String> getPotions(AbstractPlayer.PlayerClass c, boolean getAll) {
+        return new ArrayList<>();
+    }
+
+    public static AbstractPotion getPotion(String key) {
+        return null;
+    }
+}
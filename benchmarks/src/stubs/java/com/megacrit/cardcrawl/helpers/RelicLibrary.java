@@ -0,0 +1,13 @@
+package com.megacrit.cardcrawl.helpers;
+
+import java.util.ArrayList;
+import com.megacrit.cardcrawl.relics.AbstractRelic;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class RelicLibrary {
+    public static ArrayList<AbstractRelic> starterList=new ArrayList<>(), commonList=new ArrayList<>(), uncommonList=new ArrayList<>(), rareList=new ArrayList<>(), bossList=new ArrayList<>(), specialList=new ArrayList<>(), shopList=new ArrayList<>(), redList=new ArrayList<>(), greenList=new ArrayList<>(), blueList=new ArrayList<>(), whiteList=new ArrayList<>();
+
+    public static AbstractRelic getRelic(String k) {
+        return null;
+    }
+}
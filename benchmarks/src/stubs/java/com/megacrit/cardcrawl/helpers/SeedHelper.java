@@ -0,0 +1,12 @@
+package com.megacrit.cardcrawl.helpers;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class SeedHelper {
+    public static long getLong(String s) {
+        return 0;
+    }
+
+    public static String getString(long l) {
+        return "";
+    }
+}
@@ -0,0 +1,38 @@
+package com.megacrit.cardcrawl.monsters;
+
+import java.util.ArrayList;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public abstract class AbstractMonster extends com.megacrit.cardcrawl.core.AbstractCreature {
+    public Intent intent = Intent.NONE;
+    public byte nextMove;
+    public ArrayList<Byte> moveHistory = new ArrayList<>();
+    public EnemyType type;
+    private int intentMultiAmt;
+    private boolean isMultiDmg;
+
+    public int getIntentDmg() {
+        return 0;
+    }
+
+    public int getIntentBaseDmg() {
+        return 0;
+    }
+
+    public void createIntent() {
+    }
+
+    public void applyPowers() {
+    }
+
+    public void rollMove() {
+    }
+
+    public enum Intent {
+        ATTACK, ATTACK_BUFF, ATTACK_DEBUFF, ATTACK_DEFEND, BUFF, DEBUFF, STRONG_DEBUFF, DEBUG, DEFEND, DEFEND_DEBUFF, DEFEND_BUFF, ESCAPE, MAGIC, NONE, SLEEP, STUN, UNKNOWN
+    }
+
+    public enum EnemyType {
+        NORMAL, ELITE, BOSS
+    }
+}
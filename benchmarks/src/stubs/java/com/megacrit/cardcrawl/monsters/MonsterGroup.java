@@ -0,0 +1,20 @@
+package com.megacrit.cardcrawl.monsters;
+
+import java.util.ArrayList;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class MonsterGroup {
+    public ArrayList<AbstractMonster> monsters = new ArrayList<>();
+
+    public AbstractMonster getRandomMonster(boolean b) {
+        return null;
+    }
+
+    public boolean areMonstersBasicallyDead() {
+        return false;
+    }
+
+    public boolean areMonstersDead() {
+        return false;
+    }
+}
@@ -0,0 +1,5 @@
+package com.megacrit.cardcrawl.monsters;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class MonsterQueueItem {
+}
@@ -0,0 +1,26 @@
+package com.megacrit.cardcrawl.potions;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public abstract class AbstractPotion {
+    public String ID, name, description;
+    public int slot;
+    public boolean isThrown, targetRequired, isObtained;
+    public PotionRarity rarity;
+    public abstract void use(com.megacrit.cardcrawl.core.AbstractCreature target);
+
+    public boolean canUse() {
+        return true;
+    }
+
+    public boolean canDiscard() {
+        return true;
+    }
+
+    public int getPotency() {
+        return 0;
+    }
+
+    public enum PotionRarity {
+        PLACEHOLDER, COMMON, UNCOMMON, RARE
+    }
+}
@@ -0,0 +1,10 @@
+package com.megacrit.cardcrawl.potions;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class PotionSlot extends AbstractPotion {
+    public PotionSlot(int s) {
+    }
+
+    public void use(com.megacrit.cardcrawl.core.AbstractCreature t) {
+    }
+}
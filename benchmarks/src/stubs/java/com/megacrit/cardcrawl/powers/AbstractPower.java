@@ -0,0 +1,16 @@
+package com.megacrit.cardcrawl.powers;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public abstract class AbstractPower {
+    public String ID, name, description;
+    public int amount;
+    public com.megacrit.cardcrawl.core.AbstractCreature owner;
+    public PowerType type;
+
+    public void updateDescription() {
+    }
+
+    public enum PowerType {
+        BUFF, DEBUFF
+    }
+}
@@ -0,0 +1,13 @@
+package com.megacrit.cardcrawl.random;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class Random {
+    public com.badlogic.gdx.math.RandomXS128 random = new com.badlogic.gdx.math.RandomXS128();
+    public int counter;
+
+    public Random(Long seed) {
+    }
+
+    public Random(Long seed, int counter) {
+    }
+}
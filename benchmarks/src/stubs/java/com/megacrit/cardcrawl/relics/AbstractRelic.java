@@ -0,0 +1,13 @@
+package com.megacrit.cardcrawl.relics;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public abstract class AbstractRelic {
+    public String relicId, name, description, flavorText;
+    public int counter;
+    public RelicTier tier;
+    public boolean grayscale;
+
+    public enum RelicTier {
+        DEPRECATED, STARTER, COMMON, UNCOMMON, RARE, SPECIAL, BOSS, SHOP
+    }
+}
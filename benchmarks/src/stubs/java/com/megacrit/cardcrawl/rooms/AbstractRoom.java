@@ -0,0 +1,13 @@
+package com.megacrit.cardcrawl.rooms;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public abstract class AbstractRoom {
+    public com.megacrit.cardcrawl.monsters.MonsterGroup monsters;
+    public RoomPhase phase;
+    public boolean isBattleOver;
+    public java.util.ArrayList<com.megacrit.cardcrawl.rewards.RewardItem> rewards = new java.util.ArrayList<>();
+
+    public enum RoomPhase {
+        COMBAT, EVENT, COMPLETE, INCOMPLETE
+    }
+}
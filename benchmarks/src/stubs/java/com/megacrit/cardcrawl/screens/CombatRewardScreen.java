@@ -0,0 +1,7 @@
+package com.megacrit.cardcrawl.screens;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class CombatRewardScreen {
+    public void clear() {
+    }
+}
@@ -0,0 +1,9 @@
+package com.megacrit.cardcrawl.screens.mainMenu;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class MainMenuScreen {
+    public boolean isFadingOut;
+
+    public void fadeOutMusic() {
+    }
+}
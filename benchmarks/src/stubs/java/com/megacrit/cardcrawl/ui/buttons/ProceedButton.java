@@ -0,0 +1,7 @@
+package com.megacrit.cardcrawl.ui.buttons;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class ProceedButton {
+    public void hide() {
+    }
+}
@@ -0,0 +1,9 @@
+package com.megacrit.cardcrawl.ui.panels;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class EnergyPanel {
+    public static int totalCount;
+
+    public static void setEnergy(int e) {
+    }
+}
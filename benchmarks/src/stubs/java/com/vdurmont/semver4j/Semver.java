@@ -0,0 +1,18 @@
+package com.vdurmont.semver4j;
+
+// 基准测试替身类，只保留SDK引用到的成员，不包含任何游戏逻辑
+public class Semver {
+    private final String v;
+
+    public Semver(String v) {
+        this.v=v;
+    }
+
+    public String getValue() {
+        return v;
+    }
+
+    public String toString() {
+        return v;
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.stssdk.client;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.UUID;
+
+/**
+ * /api/state?format=binary响应的零拷贝视图，所有字段都直接从响应体按偏移量读取，不构造中间对象
+ * 布局与服务端的BinaryStateEncoder一致（见/api/schema）：48字节头部 + 玩家记录 + 手牌 + 抽牌堆 + 弃牌堆 + 遗物 + 药水 + 怪物，
+ * 整数编号与字符串ID的对应关系见IdTables
+ *
+ * 记录视图（Card、Relic、Potion、Monster）只保存偏移量，可以用at方法在同一个视图上移动，遍历时无需分配
+ */
+public final class BinaryState {
+    public static final String MIME_TYPE = "application/x-stssdk-state";
+    public static final int MAGIC = 0x31535453;
+    public static final int LAYOUT_VERSION = 1;
+
+    static final int HEADER_SIZE = 48;
+    static final int PLAYER_SIZE = 28;
+    static final int CARD_SIZE = 36;
+    static final int RELIC_SIZE = 8;
+    static final int POTION_SIZE = 8;
+    static final int MONSTER_SIZE = 32;
+
+    private static final int FLAG_HAS_PLAYER = 1;
+    private static final int MONSTER_DEAD = 1;
+    private static final int MONSTER_ESCAPED = 2;
+
+    /**
+     * 牌堆
+     */
+    public enum Pile { HAND, DRAW, DISCARD }
+
+    private final ByteBuffer buf;
+    private final int handOffset;
+    private final int drawOffset;
+    private final int discardOffset;
+    private final int relicOffset;
+    private final int potionOffset;
+    private final int monsterOffset;
+
+    private BinaryState(ByteBuffer buf) {
+        this.buf = buf;
+        handOffset = HEADER_SIZE + (hasPlayer() ? PLAYER_SIZE : 0);
+        drawOffset = handOffset + handCount() * CARD_SIZE;
+        discardOffset = drawOffset + drawPileCount() * CARD_SIZE;
+        relicOffset = discardOffset + discardPileCount() * CARD_SIZE;
+        potionOffset = relicOffset + relicCount() * RELIC_SIZE;
+        monsterOffset = potionOffset + potionCount() * POTION_SIZE;
+    }
+
+    /**
+     * 在缓冲区上创建视图，不复制字节
+     * @param body 从position开始的完整状态记录
+     * @throws IllegalArgumentException 魔数、布局版本或长度不符时抛出
+     */
+    public static BinaryState wrap(ByteBuffer body) {
+        ByteBuffer buf = body.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.remaining() < HEADER_SIZE || buf.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("not a binary state record");
+        }
+        if (buf.getInt(4) != LAYOUT_VERSION) {
+            throw new IllegalArgumentException("unsupported layout version " + buf.getInt(4));
+        }
+        BinaryState state = new BinaryState(buf);
+        int expected = state.monsterOffset + state.monsterCount() * MONSTER_SIZE;
+        if (buf.remaining() != expected) {
+            throw new IllegalArgumentException("binary state has " + buf.remaining() + " bytes, expected " + expected);
+        }
+        return state;
+    }
+
+    public long stateVersion() {
+        return buf.getLong(8);
+    }
+
+    public boolean hasPlayer() {
+        return (buf.getInt(16) & FLAG_HAS_PLAYER) != 0;
+    }
+
+    public int turn() {
+        return buf.getInt(20);
+    }
+
+    public int handCount() {
+        return buf.getInt(24);
+    }
+
+    public int drawPileCount() {
+        return buf.getInt(28);
+    }
+
+    public int discardPileCount() {
+        return buf.getInt(32);
+    }
+
+    public int relicCount() {
+        return buf.getInt(36);
+    }
+
+    public int potionCount() {
+        return buf.getInt(40);
+    }
+
+    public int monsterCount() {
+        return buf.getInt(44);
+    }
+
+    // 玩家字段，没有玩家时为0
+
+    public int hp() {
+        return playerInt(0);
+    }
+
+    public int maxHp() {
+        return playerInt(4);
+    }
+
+    public int energy() {
+        return playerInt(8);
+    }
+
+    public int gold() {
+        return playerInt(12);
+    }
+
+    public int currentBlock() {
+        return playerInt(16);
+    }
+
+    public int ascensionLevel() {
+        return playerInt(20);
+    }
+
+    /**
+     * 角色编号，对应IdTables中的character表
+     */
+    public int characterId() {
+        return playerInt(24);
+    }
+
+    public int count(Pile pile) {
+        switch (pile) {
+            case HAND:
+                return handCount();
+            case DRAW:
+                return drawPileCount();
+            default:
+                return discardPileCount();
+        }
+    }
+
+    /**
+     * 牌堆中第index张牌的视图
+     */
+    public Card card(Pile pile, int index) {
+        return new Card().at(pile, index);
+    }
+
+    public Relic relic(int index) {
+        return new Relic().at(index);
+    }
+
+    public Potion potion(int index) {
+        return new Potion().at(index);
+    }
+
+    public Monster monster(int index) {
+        return new Monster().at(index);
+    }
+
+    private int playerInt(int offset) {
+        return hasPlayer() ? buf.getInt(HEADER_SIZE + offset) : 0;
+    }
+
+    private static int checkIndex(int index, int count) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException(index + " of " + count);
+        }
+        return index;
+    }
+
+    /**
+     * 卡牌记录视图
+     */
+    public final class Card {
+        private int offset;
+
+        /**
+         * 移动到牌堆中的第index张牌
+         */
+        public Card at(Pile pile, int index) {
+            checkIndex(index, count(pile));
+            int base = pile == Pile.HAND ? handOffset : pile == Pile.DRAW ? drawOffset : discardOffset;
+            offset = base + index * CARD_SIZE;
+            return this;
+        }
+
+        public long uuidMostSignificantBits() {
+            return buf.getLong(offset);
+        }
+
+        public long uuidLeastSignificantBits() {
+            return buf.getLong(offset + 8);
+        }
+
+        /**
+         * 与JSON状态中的uuid字段相同，会分配UUID对象
+         */
+        public UUID uuid() {
+            return new UUID(uuidMostSignificantBits(), uuidLeastSignificantBits());
+        }
+
+        public int id() {
+            return buf.getInt(offset + 16);
+        }
+
+        public int cost() {
+            return buf.getInt(offset + 20);
+        }
+
+        public int type() {
+            return buf.getInt(offset + 24);
+        }
+
+        public int rarity() {
+            return buf.getInt(offset + 28);
+        }
+
+        public boolean upgraded() {
+            return buf.getInt(offset + 32) != 0;
+        }
+    }
+
+    /**
+     * 遗物记录视图
+     */
+    public final class Relic {
+        private int offset;
+
+        public Relic at(int index) {
+            offset = relicOffset + checkIndex(index, relicCount()) * RELIC_SIZE;
+            return this;
+        }
+
+        public int id() {
+            return buf.getInt(offset);
+        }
+
+        public int tier() {
+            return buf.getInt(offset + 4);
+        }
+    }
+
+    /**
+     * 药水记录视图
+     */
+    public final class Potion {
+        private int offset;
+
+        public Potion at(int index) {
+            offset = potionOffset + checkIndex(index, potionCount()) * POTION_SIZE;
+            return this;
+        }
+
+        public int id() {
+            return buf.getInt(offset);
+        }
+
+        public int slot() {
+            return buf.getInt(offset + 4);
+        }
+    }
+
+    /**
+     * 怪物记录视图，下标与JSON状态中monsters数组的下标一致
+     */
+    public final class Monster {
+        private int offset;
+
+        public Monster at(int index) {
+            offset = monsterOffset + checkIndex(index, monsterCount()) * MONSTER_SIZE;
+            return this;
+        }
+
+        public int id() {
+            return buf.getInt(offset);
+        }
+
+        public int currentHp() {
+            return buf.getInt(offset + 4);
+        }
+
+        public int maxHp() {
+            return buf.getInt(offset + 8);
+        }
+
+        public int currentBlock() {
+            return buf.getInt(offset + 12);
+        }
+
+        public boolean isDead() {
+            return (buf.getInt(offset + 16) & MONSTER_DEAD) != 0;
+        }
+
+        public boolean isEscaped() {
+            return (buf.getInt(offset + 16) & MONSTER_ESCAPED) != 0;
+        }
+
+        public int intent() {
+            return buf.getInt(offset + 20);
+        }
+
+        public float x() {
+            return buf.getFloat(offset + 24);
+        }
+
+        public float y() {
+            return buf.getFloat(offset + 28);
+        }
+    }
+}
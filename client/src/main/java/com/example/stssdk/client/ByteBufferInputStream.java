@@ -0,0 +1,38 @@
+package com.example.stssdk.client;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 在ByteBuffer上读取的输入流，供Gson直接从响应体解析
+ */
+class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buf;
+
+    ByteBufferInputStream(ByteBuffer buf) {
+        this.buf = buf;
+    }
+
+    @Override
+    public int read() {
+        return buf.hasRemaining() ? buf.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (!buf.hasRemaining()) {
+            return -1;
+        }
+        int n = Math.min(len, buf.remaining());
+        buf.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return buf.remaining();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.stssdk.client;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 客户端选项，修改后传给SdkClient的构造函数，之后再修改不生效
+ */
+public class ClientOptions {
+    // 最多同时打开的连接数，服务端每条连接占用一个工作线程
+    public int maxConnections = 4;
+    // 每条连接上最多同时在途的流水线请求数，1表示不使用流水线
+    public int maxPipelined = 8;
+    // 请求超时（毫秒），同步模式的命令会再加上服务端的等待时间
+    public long timeoutMs = 10000;
+    public long connectTimeoutMs = 3000;
+    // 空闲连接保留的时间，应小于服务端的读取超时（NanoHTTPD默认5秒），避免向已被服务端关闭的连接发送请求
+    public long idleTimeoutMs = 4000;
+    // 完成CompletableFuture的线程池，为null时在IO线程上完成，此时回调中不能阻塞
+    public Executor callbackExecutor;
+}
@@ -0,0 +1,53 @@
+package com.example.stssdk.client;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * 一个HTTP响应，响应体是只读的ByteBuffer，解码时不再复制
+ */
+public class HttpResponse {
+    private final int status;
+    // 头部名称统一为小写
+    private final Map<String, String> headers;
+    private final ByteBuffer body;
+
+    HttpResponse(int status, Map<String, String> headers, ByteBuffer body) {
+        this.status = status;
+        this.headers = headers;
+        this.body = body.asReadOnlyBuffer();
+    }
+
+    public int status() {
+        return status;
+    }
+
+    /**
+     * @param name 头部名称，不区分大小写
+     * @return 头部的值，不存在时返回null
+     */
+    public String header(String name) {
+        return headers.get(name.toLowerCase());
+    }
+
+    /**
+     * 响应体的只读视图，每次调用返回独立的位置和界限
+     */
+    public ByteBuffer body() {
+        return body.duplicate();
+    }
+
+    public String bodyAsString() {
+        ByteBuffer b = body();
+        return StandardCharsets.UTF_8.decode(b).toString();
+    }
+
+    /**
+     * X-State-Version头，没有时返回-1
+     */
+    public long stateVersion() {
+        String v = header("x-state-version");
+        return v != null ? Long.parseLong(v) : -1;
+    }
+}
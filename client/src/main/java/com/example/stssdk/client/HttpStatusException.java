@@ -0,0 +1,26 @@
+package com.example.stssdk.client;
+
+import java.io.IOException;
+
+/**
+ * 服务端返回了非200的状态码，例如请求过多时的503
+ * 命令本身的错误以200和error字段返回，不会抛出该异常
+ */
+public class HttpStatusException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final transient HttpResponse response;
+
+    HttpStatusException(String request, HttpResponse response) {
+        super("HTTP " + response.status() + " for " + request + ": " + response.bodyAsString());
+        this.response = response;
+    }
+
+    public int status() {
+        return response.status();
+    }
+
+    public HttpResponse response() {
+        return response;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.stssdk.client;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 二进制状态中整数编号到字符串ID的映射，来自/api/schema的ids
+ * 服务端的映射只会追加，遇到超出范围的编号时重新获取即可
+ */
+public final class IdTables {
+    public static final String CARD = "card";
+    public static final String RELIC = "relic";
+    public static final String POTION = "potion";
+    public static final String MONSTER = "monster";
+    public static final String INTENT = "intent";
+    public static final String CARD_TYPE = "cardType";
+    public static final String RARITY = "rarity";
+    public static final String RELIC_TIER = "relicTier";
+    public static final String CHARACTER = "character";
+
+    private final Map<String, String[]> tables;
+
+    private IdTables(Map<String, String[]> tables) {
+        this.tables = tables;
+    }
+
+    /**
+     * 从schema的JSON对象解析
+     */
+    public static IdTables parse(JsonObject schema) {
+        Map<String, String[]> tables = new HashMap<>();
+        for (Map.Entry<String, JsonElement> e : schema.getAsJsonObject("ids").entrySet()) {
+            JsonArray arr = e.getValue().getAsJsonArray();
+            String[] values = new String[arr.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = arr.get(i).isJsonNull() ? null : arr.get(i).getAsString();
+            }
+            tables.put(e.getKey(), values);
+        }
+        return new IdTables(Collections.unmodifiableMap(tables));
+    }
+
+    /**
+     * @param table 表名，例如IdTables.CARD
+     * @param id 编号
+     * @return 字符串ID，编号为0或超出范围时返回null
+     */
+    public String name(String table, int id) {
+        String[] values = tables.get(table);
+        return values != null && id > 0 && id < values.length ? values[id] : null;
+    }
+
+    /**
+     * 编号是否超出当前映射的范围，为true时应重新获取schema
+     */
+    public boolean isStale(String table, int id) {
+        String[] values = tables.get(table);
+        return values == null || id >= values.length;
+    }
+}
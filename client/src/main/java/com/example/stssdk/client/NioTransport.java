@@ -0,0 +1,420 @@
+package com.example.stssdk.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 非阻塞HTTP/1.1传输层，一个IO线程通过Selector管理到同一服务端的连接池
+ *
+ * 请求优先分配给空闲连接，连接数未满时新建连接，否则在在途请求最少的连接上流水线发送；
+ * 服务端按顺序响应同一连接上的请求，因此每条连接按FIFO匹配响应。
+ * 服务端会阻塞的请求（同步模式的命令）只使用空闲连接，也不允许其他请求排在它后面，避免队头阻塞。
+ *
+ * 连接断开时，尚未重试过的GET请求自动重发一次，命令（POST）不重发以免重复执行，直接以IOException失败；
+ * 在途请求超时时该连接上的响应顺序无法再对应，整条连接关闭
+ */
+class NioTransport implements Closeable {
+    // 有请求在途时的超时检查间隔
+    private static final long TICK_MS = 10;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 一个待发送或在途的请求
+     */
+    private static final class PendingRequest {
+        final String description;
+        final ByteBuffer bytes;
+        final boolean idempotent;
+        final boolean blocking;
+        final long deadline;
+        final CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+        boolean retried;
+
+        PendingRequest(String description, ByteBuffer bytes, boolean idempotent, boolean blocking, long deadline) {
+            this.description = description;
+            this.bytes = bytes;
+            this.idempotent = idempotent;
+            this.blocking = blocking;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * 一条连接，只在IO线程上访问
+     */
+    private final class Connection {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ArrayDeque<PendingRequest> inFlight = new ArrayDeque<>();
+        final ArrayDeque<ByteBuffer> writes = new ArrayDeque<>();
+        final ResponseParser parser = new ResponseParser();
+        final long connectDeadline;
+        boolean connected;
+        boolean blocked;
+        long lastActive = System.nanoTime();
+
+        Connection() throws IOException {
+            channel = SocketChannel.open();
+            try {
+                channel.configureBlocking(false);
+                // 请求一次写出，关闭Nagle算法避免与服务端的延迟ACK叠加
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+                connected = channel.connect(address);
+                key = channel.register(selector, connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, this);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            connectDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.connectTimeoutMs);
+        }
+
+        void enqueue(PendingRequest p) throws IOException {
+            inFlight.add(p);
+            writes.add(p.bytes);
+            blocked |= p.blocking;
+            if (connected) {
+                flush();
+            }
+        }
+
+        void finishConnect() throws IOException {
+            channel.finishConnect();
+            connected = true;
+            lastActive = System.nanoTime();
+            flush();
+        }
+
+        // 写出排队的请求，写不完时关注OP_WRITE
+        void flush() throws IOException {
+            while (!writes.isEmpty()) {
+                ByteBuffer head = writes.peek();
+                channel.write(head);
+                if (head.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                writes.poll();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        void read() throws IOException {
+            int n = channel.read(readBuffer);
+            if (n < 0) {
+                HttpResponse last = parser.onClose();
+                if (last != null) {
+                    completeHead(last);
+                }
+                throw new IOException("connection closed by server");
+            }
+            lastActive = System.nanoTime();
+            readBuffer.flip();
+            try {
+                HttpResponse response;
+                while (readBuffer.hasRemaining() && (response = parser.feed(readBuffer)) != null) {
+                    completeHead(response);
+                    if (parser.closeAfter()) {
+                        throw new IOException("connection closed by server");
+                    }
+                }
+            } finally {
+                readBuffer.clear();
+            }
+        }
+
+        private void completeHead(HttpResponse response) throws IOException {
+            PendingRequest p = inFlight.poll();
+            if (p == null) {
+                throw new IOException("unexpected response with status " + response.status());
+            }
+            if (p.blocking) {
+                blocked = false;
+            }
+            complete(p, response);
+        }
+
+        boolean expired(long now) {
+            if (!connected && now - connectDeadline > 0) {
+                return true;
+            }
+            for (PendingRequest p : inFlight) {
+                if (now - p.deadline > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final InetSocketAddress address;
+    private final String hostHeader;
+    private final ClientOptions options;
+    private final Selector selector;
+    private final Thread ioThread;
+    // 所有连接共用一个读缓冲区，解析器把响应体复制到各自的缓冲区中
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private final ConcurrentLinkedQueue<PendingRequest> submitted = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<PendingRequest> waiting = new ArrayDeque<>();
+    private final List<Connection> connections = new ArrayList<>();
+    private volatile boolean closed;
+
+    NioTransport(String host, int port, ClientOptions options) throws IOException {
+        this.address = new InetSocketAddress(host, port);
+        this.hostHeader = host + ":" + port;
+        this.options = options;
+        this.selector = Selector.open();
+        this.ioThread = new Thread(this::run, "STSSDK-Client-IO-" + hostHeader);
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    /**
+     * 发送一个请求
+     * @param method GET或POST
+     * @param path 请求路径，含查询参数
+     * @param body 请求体，GET时为null
+     * @param serverWaitMs 服务端会阻塞的时间，加到超时时间上
+     * @return 响应，非200的响应也正常完成
+     */
+    CompletableFuture<HttpResponse> send(String method, String path, byte[] body, long serverWaitMs) {
+        StringBuilder head = new StringBuilder(128)
+                .append(method).append(' ').append(path).append(" HTTP/1.1\r\n")
+                .append("Host: ").append(hostHeader).append("\r\n");
+        if (body != null) {
+            head.append("Content-Type: application/json\r\n")
+                    .append("Content-Length: ").append(body.length).append("\r\n");
+        }
+        head.append("\r\n");
+        byte[] headBytes = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer bytes = ByteBuffer.allocate(headBytes.length + (body != null ? body.length : 0));
+        bytes.put(headBytes);
+        if (body != null) {
+            bytes.put(body);
+        }
+        bytes.flip();
+
+        long timeoutMs = options.timeoutMs + Math.max(0, serverWaitMs);
+        PendingRequest p = new PendingRequest(method + " " + path, bytes, "GET".equals(method), serverWaitMs > 0,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs));
+        if (closed) {
+            p.future.completeExceptionally(new IOException("client closed"));
+            return p.future;
+        }
+        submitted.add(p);
+        selector.wakeup();
+        return p.future;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+        if (Thread.currentThread() != ioThread) {
+            try {
+                ioThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        IOException shutdown = new IOException("client closed");
+        try {
+            while (!closed) {
+                boolean busy = !waiting.isEmpty() || !submitted.isEmpty() || hasInFlight();
+                selector.select(busy ? TICK_MS : options.idleTimeoutMs);
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    handle(key);
+                }
+                PendingRequest p;
+                while ((p = submitted.poll()) != null) {
+                    waiting.add(p);
+                }
+                dispatch();
+                expire();
+            }
+        } catch (IOException | RuntimeException e) {
+            shutdown = new IOException("client I/O thread failed", e);
+        } finally {
+            closed = true;
+            for (Connection c : new ArrayList<>(connections)) {
+                closeConnection(c, shutdown, false);
+            }
+            PendingRequest p;
+            while ((p = submitted.poll()) != null) {
+                waiting.add(p);
+            }
+            while ((p = waiting.poll()) != null) {
+                fail(p, shutdown);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // 忽略
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        Connection c = (Connection) key.attachment();
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isConnectable()) {
+                c.finishConnect();
+            }
+            if (key.isValid() && key.isReadable()) {
+                c.read();
+            }
+            if (key.isValid() && key.isWritable()) {
+                c.flush();
+            }
+        } catch (IOException e) {
+            closeConnection(c, e, true);
+        }
+    }
+
+    // 辅助方法：把等待中的请求分配给连接，没有可用连接时留在队列中
+    private void dispatch() {
+        while (!waiting.isEmpty()) {
+            PendingRequest p = waiting.peek();
+            Connection c;
+            try {
+                c = pick(p.blocking);
+            } catch (IOException e) {
+                waiting.poll();
+                fail(p, e);
+                continue;
+            }
+            if (c == null) {
+                return;
+            }
+            waiting.poll();
+            try {
+                c.enqueue(p);
+            } catch (IOException e) {
+                closeConnection(c, e, true);
+            }
+        }
+    }
+
+    // 辅助方法：优先空闲连接，其次新建连接，最后选在途请求最少的连接流水线发送
+    private Connection pick(boolean blocking) throws IOException {
+        Connection best = null;
+        for (Connection c : connections) {
+            int n = c.inFlight.size();
+            if (n == 0) {
+                return c;
+            }
+            if (!blocking && !c.blocked && n < options.maxPipelined
+                    && (best == null || n < best.inFlight.size())) {
+                best = c;
+            }
+        }
+        if (connections.size() < options.maxConnections) {
+            Connection c = new Connection();
+            connections.add(c);
+            return c;
+        }
+        return best;
+    }
+
+    // 辅助方法：处理超时的请求和连接，关闭空闲过久的连接
+    private void expire() {
+        long now = System.nanoTime();
+        for (Iterator<PendingRequest> it = waiting.iterator(); it.hasNext(); ) {
+            PendingRequest p = it.next();
+            if (now - p.deadline > 0) {
+                it.remove();
+                fail(p, new TimeoutException(p.description + " timed out waiting for a connection"));
+            }
+        }
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(options.idleTimeoutMs);
+        for (Connection c : new ArrayList<>(connections)) {
+            if (c.expired(now)) {
+                closeConnection(c, new IOException(c.connected
+                        ? "connection closed after a request timed out"
+                        : "connect to " + hostHeader + " timed out"), true);
+            } else if (c.inFlight.isEmpty() && now - c.lastActive > idleNanos) {
+                closeConnection(c, new IOException("idle"), false);
+            }
+        }
+    }
+
+    // 辅助方法：关闭连接，超时的请求以TimeoutException失败，可重试的GET请求放回队首
+    private void closeConnection(Connection c, Exception cause, boolean retry) {
+        connections.remove(c);
+        c.key.cancel();
+        try {
+            c.channel.close();
+        } catch (IOException e) {
+            // 忽略
+        }
+        long now = System.nanoTime();
+        Exception failure = !c.connected && !(cause instanceof ConnectException)
+                ? new ConnectException(cause.getMessage()) : cause;
+        List<PendingRequest> again = new ArrayList<>();
+        for (PendingRequest p : c.inFlight) {
+            if (now - p.deadline > 0) {
+                fail(p, new TimeoutException(p.description + " timed out"));
+            } else if (retry && !closed && p.idempotent && !p.retried) {
+                p.retried = true;
+                p.bytes.rewind();
+                again.add(p);
+            } else {
+                fail(p, failure);
+            }
+        }
+        c.inFlight.clear();
+        for (int i = again.size() - 1; i >= 0; i--) {
+            waiting.addFirst(again.get(i));
+        }
+    }
+
+    private boolean hasInFlight() {
+        for (Connection c : connections) {
+            if (!c.inFlight.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void complete(PendingRequest p, HttpResponse response) {
+        if (options.callbackExecutor != null) {
+            options.callbackExecutor.execute(() -> p.future.complete(response));
+        } else {
+            p.future.complete(response);
+        }
+    }
+
+    private void fail(PendingRequest p, Exception e) {
+        if (options.callbackExecutor != null) {
+            options.callbackExecutor.execute(() -> p.future.completeExceptionally(e));
+        } else {
+            p.future.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.stssdk.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 增量HTTP/1.1响应解析器，每条连接一个
+ * 支持Content-Length和chunked两种响应体，都没有时读到连接关闭为止；
+ * 一次读到的字节可能包含下一个流水线响应的开头，未消费的字节留在缓冲区中
+ */
+class ResponseParser {
+    private enum State { STATUS_LINE, HEADERS, BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILERS, UNTIL_CLOSE }
+
+    private static final int MAX_LINE = 8192;
+    private static final int INITIAL_CHUNKED_CAPACITY = 8192;
+
+    private final StringBuilder line = new StringBuilder(128);
+    private State state = State.STATUS_LINE;
+    private int status;
+    private Map<String, String> headers;
+    private long remaining;
+    private ByteBuffer body;
+    private boolean closeAfter;
+
+    /**
+     * 是否已开始解析一个响应
+     */
+    boolean inProgress() {
+        return state != State.STATUS_LINE || line.length() > 0;
+    }
+
+    /**
+     * 响应是否要求在之后关闭连接
+     */
+    boolean closeAfter() {
+        return closeAfter;
+    }
+
+    /**
+     * 消费缓冲区中的字节
+     * @return 解析出的完整响应，字节不够时返回null
+     */
+    HttpResponse feed(ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            switch (state) {
+                case BODY:
+                case CHUNK_DATA:
+                case UNTIL_CLOSE: {
+                    int n = state == State.UNTIL_CLOSE ? buf.remaining() : (int) Math.min(remaining, buf.remaining());
+                    ensureCapacity(n);
+                    ByteBuffer src = buf.duplicate();
+                    src.limit(src.position() + n);
+                    body.put(src);
+                    buf.position(buf.position() + n);
+                    if (state == State.UNTIL_CLOSE) {
+                        break;
+                    }
+                    remaining -= n;
+                    if (remaining == 0) {
+                        if (state == State.BODY) {
+                            return finish();
+                        }
+                        state = State.CHUNK_END;
+                    }
+                    break;
+                }
+                default: {
+                    String l = readLine(buf);
+                    if (l == null) {
+                        return null;
+                    }
+                    if (onLine(l)) {
+                        return finish();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 连接已关闭，读到关闭为止的响应在此完成
+     * @return 完整的响应，没有时返回null
+     */
+    HttpResponse onClose() {
+        return state == State.UNTIL_CLOSE ? finish() : null;
+    }
+
+    // 辅助方法：处理一行，响应完整时返回true
+    private boolean onLine(String l) throws IOException {
+        switch (state) {
+            case STATUS_LINE:
+                if (l.isEmpty()) {
+                    return false;
+                }
+                int sp = l.indexOf(' ');
+                if (!l.startsWith("HTTP/") || sp < 0 || l.length() < sp + 4) {
+                    throw new IOException("malformed status line: " + l);
+                }
+                status = Integer.parseInt(l.substring(sp + 1, sp + 4));
+                closeAfter = l.startsWith("HTTP/1.0");
+                headers = new HashMap<>();
+                state = State.HEADERS;
+                return false;
+            case HEADERS:
+                if (!l.isEmpty()) {
+                    int colon = l.indexOf(':');
+                    if (colon > 0) {
+                        headers.put(l.substring(0, colon).trim().toLowerCase(), l.substring(colon + 1).trim());
+                    }
+                    return false;
+                }
+                return startBody();
+            case CHUNK_SIZE:
+                int semi = l.indexOf(';');
+                long size = Long.parseLong((semi >= 0 ? l.substring(0, semi) : l).trim(), 16);
+                if (size == 0) {
+                    state = State.TRAILERS;
+                } else {
+                    remaining = size;
+                    state = State.CHUNK_DATA;
+                }
+                return false;
+            case CHUNK_END:
+                if (!l.isEmpty()) {
+                    throw new IOException("malformed chunk terminator");
+                }
+                state = State.CHUNK_SIZE;
+                return false;
+            case TRAILERS:
+                return l.isEmpty();
+            default:
+                throw new IllegalStateException(state.name());
+        }
+    }
+
+    // 辅助方法：头部结束，按响应类型准备读取响应体；没有响应体时返回true
+    private boolean startBody() throws IOException {
+        String connection = headers.get("connection");
+        if (connection != null) {
+            closeAfter = "close".equalsIgnoreCase(connection);
+        }
+        if (status / 100 == 1 || status == 204 || status == 304) {
+            body = ByteBuffer.allocate(0);
+            return true;
+        }
+        String te = headers.get("transfer-encoding");
+        if (te != null && te.toLowerCase().contains("chunked")) {
+            body = ByteBuffer.allocate(INITIAL_CHUNKED_CAPACITY);
+            state = State.CHUNK_SIZE;
+            return false;
+        }
+        String cl = headers.get("content-length");
+        if (cl != null) {
+            long length = Long.parseLong(cl);
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("response too large: " + length);
+            }
+            body = ByteBuffer.allocate((int) length);
+            if (length == 0) {
+                return true;
+            }
+            remaining = length;
+            state = State.BODY;
+            return false;
+        }
+        body = ByteBuffer.allocate(INITIAL_CHUNKED_CAPACITY);
+        closeAfter = true;
+        state = State.UNTIL_CLOSE;
+        return false;
+    }
+
+    private HttpResponse finish() {
+        body.flip();
+        HttpResponse response = new HttpResponse(status, headers, body);
+        state = State.STATUS_LINE;
+        headers = null;
+        body = null;
+        return response;
+    }
+
+    // 辅助方法：读取一行（不含CRLF），字节不够时保留已读部分并返回null
+    private String readLine(ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            char c = (char) (buf.get() & 0xff);
+            if (c == '\n') {
+                int len = line.length();
+                if (len > 0 && line.charAt(len - 1) == '\r') {
+                    line.setLength(len - 1);
+                }
+                String l = line.toString();
+                line.setLength(0);
+                return l;
+            }
+            if (line.length() >= MAX_LINE) {
+                throw new IOException("header line too long");
+            }
+            line.append(c);
+        }
+        return null;
+    }
+
+    // 辅助方法：chunked和读到关闭的响应体长度未知，按需翻倍扩容
+    private void ensureCapacity(int n) {
+        if (body.remaining() >= n) {
+            return;
+        }
+        int capacity = Math.max(body.capacity() * 2, body.position() + n);
+        ByteBuffer bigger = ByteBuffer.allocate(capacity);
+        body.flip();
+        bigger.put(body);
+        body = bigger;
+    }
+}
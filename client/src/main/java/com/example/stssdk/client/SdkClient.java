@@ -0,0 +1,152 @@
+package com.example.stssdk.client;
+
+import com.example.stssdk.client.model.ActionCommand;
+import com.example.stssdk.client.model.ActionResponse;
+import com.example.stssdk.client.model.Command;
+import com.example.stssdk.client.model.EndTurnRequest;
+import com.example.stssdk.client.model.GameState;
+import com.example.stssdk.client.model.GetMonstersRequest;
+import com.example.stssdk.client.model.GetStateRequest;
+import com.example.stssdk.client.model.MonstersResponse;
+import com.example.stssdk.client.model.PlayCardRequest;
+import com.example.stssdk.client.model.StepRequest;
+import com.example.stssdk.client.model.UsePotionRequest;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * SDK的异步客户端，所有方法立即返回CompletableFuture，可以在一个线程上同时发出大量请求
+ * 传输层见NioTransport：连接池、keep-alive和流水线；JSON响应直接从响应体的ByteBuffer解析，
+ * 二进制状态（getStateBinary）不经过任何解码，直接返回响应体上的视图
+ *
+ * 命令的错误（例如"missing uuid"）以响应对象的error字段返回；连接失败、超时和非200状态码以异常完成
+ * 注意：默认在IO线程上完成future，回调中不能阻塞，需要阻塞时设置ClientOptions.callbackExecutor
+ */
+public class SdkClient implements AutoCloseable {
+    private static final Gson GSON = new Gson();
+
+    private final NioTransport transport;
+
+    public SdkClient(String host, int port) throws IOException {
+        this(host, port, new ClientOptions());
+    }
+
+    public SdkClient(String host, int port, ClientOptions options) throws IOException {
+        this.transport = new NioTransport(host, port, options);
+    }
+
+    /**
+     * 发送一条类型化的命令
+     */
+    public <R> CompletableFuture<R> execute(Command<R> command) {
+        long waitMs = command instanceof ActionCommand ? ((ActionCommand) command).serverWaitMs() : 0;
+        return post("/", GSON.toJson(command), waitMs)
+                .thenApply(r -> decode("POST / " + command.cmd, r, command.responseType()));
+    }
+
+    /**
+     * 发送任意命令JSON，用于没有类型化模型的命令（replay、simulate、save_snapshot等）
+     */
+    public CompletableFuture<JsonObject> execute(JsonObject command) {
+        long waitMs = Command.serverWaitMs(
+                command.has("cmd") ? command.get("cmd").getAsString() : null,
+                command.has("wait") ? command.get("wait").getAsBoolean() : null,
+                command.has("timeoutMs") ? command.get("timeoutMs").getAsLong() : null);
+        return post("/", command.toString(), waitMs).thenApply(r -> decode("POST /", r, JsonObject.class));
+    }
+
+    public CompletableFuture<GameState> getState() {
+        return execute(new GetStateRequest());
+    }
+
+    /**
+     * @param lean 为true时只返回ID和动态字段，静态信息见/api/dictionary
+     */
+    public CompletableFuture<GameState> getState(boolean lean) {
+        return execute(new GetStateRequest().lean(lean));
+    }
+
+    public CompletableFuture<MonstersResponse> getMonsters() {
+        return execute(new GetMonstersRequest());
+    }
+
+    public CompletableFuture<ActionResponse> playCard(String uuid) {
+        return execute(new PlayCardRequest(uuid));
+    }
+
+    public CompletableFuture<ActionResponse> playCard(PlayCardRequest request) {
+        return execute(request);
+    }
+
+    public CompletableFuture<ActionResponse> usePotion(UsePotionRequest request) {
+        return execute(request);
+    }
+
+    public CompletableFuture<ActionResponse> endTurn() {
+        return execute(new EndTurnRequest());
+    }
+
+    public CompletableFuture<ActionResponse> endTurn(EndTurnRequest request) {
+        return execute(request);
+    }
+
+    public CompletableFuture<ActionResponse> step(StepRequest request) {
+        return execute(request);
+    }
+
+    /**
+     * 获取二进制状态，返回响应体上的零拷贝视图
+     */
+    public CompletableFuture<BinaryState> getStateBinary() {
+        return get("/api/state?format=binary").thenApply(r -> BinaryState.wrap(checked("GET /api/state", r).body()));
+    }
+
+    /**
+     * 获取二进制状态的编号映射，游戏中出现新的卡牌或怪物后需要重新获取
+     */
+    public CompletableFuture<IdTables> getIdTables() {
+        return get("/api/schema").thenApply(r -> IdTables.parse(decode("GET /api/schema", r, JsonObject.class)));
+    }
+
+    /**
+     * 发送GET请求，返回原始响应（包括非200的响应）
+     * @param path 请求路径，含查询参数
+     */
+    public CompletableFuture<HttpResponse> get(String path) {
+        return transport.send("GET", path, null, 0);
+    }
+
+    /**
+     * 关闭所有连接，未完成的请求以IOException完成
+     */
+    @Override
+    public void close() {
+        transport.close();
+    }
+
+    private CompletableFuture<HttpResponse> post(String path, String json, long waitMs) {
+        return transport.send("POST", path, json.getBytes(StandardCharsets.UTF_8), waitMs);
+    }
+
+    // 辅助方法：非200响应转换为HttpStatusException
+    private static HttpResponse checked(String request, HttpResponse response) {
+        if (response.status() != 200) {
+            throw new CompletionException(new HttpStatusException(request, response));
+        }
+        return response;
+    }
+
+    // 辅助方法：直接从响应体解析JSON，不先转换为字符串
+    private static <T> T decode(String request, HttpResponse response, Class<T> type) {
+        checked(request, response);
+        Reader reader = new InputStreamReader(new ByteBufferInputStream(response.body()), StandardCharsets.UTF_8);
+        return GSON.fromJson(reader, type);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.stssdk.client.model;
+
+/**
+ * 排队执行的操作命令（play_card、use_potion、end_turn、step）
+ * 默认立即返回queued状态；waitFor后服务端等待操作执行完毕（或超时）再响应，完成时附带游戏状态
+ */
+public abstract class ActionCommand extends Command<ActionResponse> {
+    public Boolean wait;
+    public Long timeoutMs;
+
+    protected ActionCommand(String cmd) {
+        super(cmd, ActionResponse.class);
+    }
+
+    /**
+     * 同步模式，服务端最多等待timeoutMs毫秒
+     * 客户端的请求超时会自动加上这段时间
+     */
+    public ActionCommand waitFor(long timeoutMs) {
+        this.wait = true;
+        this.timeoutMs = timeoutMs;
+        return this;
+    }
+
+    /**
+     * 服务端会阻塞的时间，0表示立即返回
+     */
+    public long serverWaitMs() {
+        return serverWaitMs(cmd, wait, timeoutMs);
+    }
+}
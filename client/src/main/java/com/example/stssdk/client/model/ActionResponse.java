@@ -0,0 +1,49 @@
+package com.example.stssdk.client.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Base64;
+
+/**
+ * 操作命令的响应
+ * status为queued（尚未执行）、resolved（已执行，动作队列未清空）或completed（执行完毕）；
+ * 同步模式下完成时附带state，step命令改为附带stateVersion和observation
+ */
+public class ActionResponse {
+    public Long actionId;
+    public String status;
+    public ActionResult result;
+    public GameState state;
+    public Long stateVersion;
+    // base64编码的小端float32观测向量，仅step命令
+    public String observation;
+    public String error;
+
+    public boolean hasError() {
+        return error != null;
+    }
+
+    /**
+     * 命令被接受，且操作已执行并成功（尚未执行时返回false）
+     */
+    public boolean succeeded() {
+        return error == null && result != null && result.success;
+    }
+
+    public boolean isCompleted() {
+        return "completed".equals(status);
+    }
+
+    /**
+     * 解码观测向量，没有时返回null
+     */
+    public float[] observationValues() {
+        if (observation == null) {
+            return null;
+        }
+        ByteBuffer buf = ByteBuffer.wrap(Base64.getDecoder().decode(observation)).order(ByteOrder.LITTLE_ENDIAN);
+        float[] values = new float[buf.remaining() / 4];
+        buf.asFloatBuffer().get(values);
+        return values;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.stssdk.client.model;
+
+/**
+ * 操作的执行结果，操作执行后才有
+ */
+public class ActionResult {
+    public boolean success;
+    public String message;
+    public String error;
+}
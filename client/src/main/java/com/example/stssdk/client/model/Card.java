@@ -0,0 +1,19 @@
+package com.example.stssdk.client.model;
+
+/**
+ * 一张卡牌，lean模式下name、type、rarity为null
+ */
+public class Card {
+    public String uuid;
+    public String id;
+    public String name;
+    public int cost;
+    public String type;
+    public String rarity;
+    public boolean upgraded;
+
+    @Override
+    public String toString() {
+        return id + (upgraded ? "+" : "") + "(" + cost + ")";
+    }
+}
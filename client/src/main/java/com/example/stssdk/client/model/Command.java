@@ -0,0 +1,51 @@
+package com.example.stssdk.client.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 发给CommandExecutor的命令，字段名与命令JSON的键一致，由Gson直接序列化
+ * 值为null的字段不会出现在请求中，服务端按未指定处理
+ * @param <R> 响应类型
+ */
+public abstract class Command<R> {
+    // 与服务端CommandExecutor一致：wait为true而未指定timeoutMs时的等待时间，以及等待时间上限
+    public static final long DEFAULT_WAIT_MS = 5000;
+    public static final long MAX_WAIT_MS = 30000;
+    // 在游戏主线程中执行的命令，不指定wait时服务端也会等待最多DEFAULT_WAIT_MS
+    private static final Set<String> GAME_THREAD_COMMANDS = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList("save_snapshot", "restore_snapshot")));
+
+    public final String cmd;
+    // 响应类型，不参与序列化
+    private final transient Class<R> responseType;
+
+    protected Command(String cmd, Class<R> responseType) {
+        this.cmd = cmd;
+        this.responseType = responseType;
+    }
+
+    public Class<R> responseType() {
+        return responseType;
+    }
+
+    /**
+     * 服务端处理命令时最多会阻塞的时间，客户端的请求超时要加上这段时间
+     * @param cmd 命令名
+     * @param wait 请求中的wait字段，可以为null
+     * @param timeoutMs 请求中的timeoutMs字段，可以为null
+     * @return 阻塞时间（毫秒），0表示立即返回
+     */
+    public static long serverWaitMs(String cmd, Boolean wait, Long timeoutMs) {
+        long waitMs = 0;
+        if (wait != null && wait) {
+            waitMs = Math.max(1, Math.min(timeoutMs != null ? timeoutMs : DEFAULT_WAIT_MS, MAX_WAIT_MS));
+        }
+        if (waitMs == 0 && GAME_THREAD_COMMANDS.contains(cmd)) {
+            waitMs = DEFAULT_WAIT_MS;
+        }
+        return waitMs;
+    }
+}
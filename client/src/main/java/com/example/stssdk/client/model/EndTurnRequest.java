@@ -0,0 +1,11 @@
+package com.example.stssdk.client.model;
+
+/**
+ * end_turn命令
+ */
+public class EndTurnRequest extends ActionCommand {
+
+    public EndTurnRequest() {
+        super("end_turn");
+    }
+}
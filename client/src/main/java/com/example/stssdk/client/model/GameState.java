@@ -0,0 +1,24 @@
+package com.example.stssdk.client.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * get_state的响应，游戏未开始时只有error
+ */
+public class GameState {
+    public int hp;
+    public int maxHp;
+    public int energy;
+    public List<Card> hand = Collections.emptyList();
+    public int drawPileCount;
+    public int discardPileCount;
+    public List<Relic> relics = Collections.emptyList();
+    public List<Potion> potions = Collections.emptyList();
+    public List<Monster> monsters = Collections.emptyList();
+    public String error;
+
+    public boolean hasError() {
+        return error != null;
+    }
+}
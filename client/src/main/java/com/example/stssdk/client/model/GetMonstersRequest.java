@@ -0,0 +1,11 @@
+package com.example.stssdk.client.model;
+
+/**
+ * get_monsters命令
+ */
+public class GetMonstersRequest extends Command<MonstersResponse> {
+
+    public GetMonstersRequest() {
+        super("get_monsters", MonstersResponse.class);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.stssdk.client.model;
+
+/**
+ * get_state命令，lean为true时只返回ID和动态字段
+ * fields和include为字段投影，语法与/api/state的同名参数相同，未请求的字段在响应中为默认值
+ */
+public class GetStateRequest extends Command<GameState> {
+    public Boolean lean;
+    public String fields;
+    public String include;
+
+    public GetStateRequest() {
+        super("get_state", GameState.class);
+    }
+
+    public GetStateRequest lean(boolean lean) {
+        this.lean = lean;
+        return this;
+    }
+
+    /**
+     * 只返回列出的字段，例如"hp,hand.id,monsters"
+     */
+    public GetStateRequest fields(String fields) {
+        this.fields = fields;
+        return this;
+    }
+
+    /**
+     * 在默认字段之外追加字段，例如"gold,drawPile[type=ATTACK]"
+     */
+    public GetStateRequest include(String include) {
+        this.include = include;
+        return this;
+    }
+}
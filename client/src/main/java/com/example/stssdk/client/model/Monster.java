@@ -0,0 +1,23 @@
+package com.example.stssdk.client.model;
+
+/**
+ * 一个怪物，handle在整场战斗中不变，可用作出牌目标
+ */
+public class Monster {
+    public int handle;
+    public String id;
+    public String name;
+    public int currentHp;
+    public int maxHp;
+    public int currentBlock;
+    public boolean isDead;
+    public boolean isEscaped;
+    public String intent;
+    public float x;
+    public float y;
+
+    @Override
+    public String toString() {
+        return id + "#" + handle + "(" + currentHp + "/" + maxHp + ")";
+    }
+}
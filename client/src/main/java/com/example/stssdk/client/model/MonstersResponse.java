@@ -0,0 +1,16 @@
+package com.example.stssdk.client.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * get_monsters的响应
+ */
+public class MonstersResponse {
+    public List<Monster> monsters = Collections.emptyList();
+    public String error;
+
+    public boolean hasError() {
+        return error != null;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.stssdk.client.model;
+
+/**
+ * play_card命令，目标按targetHandle、targetIndex、targetId的优先级解析，都不指定时为无目标或随机目标
+ */
+public class PlayCardRequest extends ActionCommand {
+    public final String uuid;
+    public Integer targetHandle;
+    public Integer targetIndex;
+    public String targetId;
+
+    public PlayCardRequest(String uuid) {
+        super("play_card");
+        this.uuid = uuid;
+    }
+
+    /**
+     * 按怪物句柄（get_state中monsters的handle字段）指定目标
+     */
+    public PlayCardRequest targetHandle(int handle) {
+        this.targetHandle = handle;
+        return this;
+    }
+
+    /**
+     * 按怪物在monsters数组中的下标指定目标
+     */
+    public PlayCardRequest targetIndex(int index) {
+        this.targetIndex = index;
+        return this;
+    }
+
+    /**
+     * 按怪物ID指定目标，同ID的怪物取第一个
+     */
+    public PlayCardRequest targetId(String id) {
+        this.targetId = id;
+        return this;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.stssdk.client.model;
+
+/**
+ * 一瓶药水，空栏位的ID为"Potion Slot"
+ */
+public class Potion {
+    public String id;
+    public String name;
+    public String description;
+    public int slot;
+}
@@ -0,0 +1,12 @@
+package com.example.stssdk.client.model;
+
+/**
+ * 一个遗物，lean模式下name、description、tier为null
+ */
+public class Relic {
+    public String id;
+    public String name;
+    public String description;
+    public String tier;
+    public int counter;
+}
@@ -0,0 +1,32 @@
+package com.example.stssdk.client.model;
+
+/**
+ * step命令，按动作掩码下标执行一个操作，布局见/api/legal_actions?format=binary的maskLayout
+ * observation为true或块列表时，完成后的响应附带base64编码的观测向量
+ */
+public class StepRequest extends ActionCommand {
+    public final int action;
+    // Boolean或String，按运行时类型序列化
+    public Object observation;
+
+    public StepRequest(int action) {
+        super("step");
+        this.action = action;
+    }
+
+    /**
+     * 附带默认布局的观测向量
+     */
+    public StepRequest observation(boolean observation) {
+        this.observation = observation;
+        return this;
+    }
+
+    /**
+     * 附带指定块的观测向量，例如"player,monsters,mask"
+     */
+    public StepRequest observation(String blocks) {
+        this.observation = blocks;
+        return this;
+    }
+}
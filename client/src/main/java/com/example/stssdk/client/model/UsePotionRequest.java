@@ -0,0 +1,43 @@
+package com.example.stssdk.client.model;
+
+/**
+ * use_potion命令，按药水ID或栏位下标指定药水
+ */
+public class UsePotionRequest extends ActionCommand {
+    public String potionId;
+    public Integer slotIndex;
+    public Integer targetHandle;
+    public Integer targetIndex;
+    public String targetId;
+
+    private UsePotionRequest() {
+        super("use_potion");
+    }
+
+    public static UsePotionRequest byId(String potionId) {
+        UsePotionRequest req = new UsePotionRequest();
+        req.potionId = potionId;
+        return req;
+    }
+
+    public static UsePotionRequest bySlot(int slotIndex) {
+        UsePotionRequest req = new UsePotionRequest();
+        req.slotIndex = slotIndex;
+        return req;
+    }
+
+    public UsePotionRequest targetHandle(int handle) {
+        this.targetHandle = handle;
+        return this;
+    }
+
+    public UsePotionRequest targetIndex(int index) {
+        this.targetIndex = index;
+        return this;
+    }
+
+    public UsePotionRequest targetId(String id) {
+        this.targetId = id;
+        return this;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.stssdk.proxy;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 与单个SDK实例通信的HTTP客户端
+ * 使用HttpURLConnection，JDK会按host:port复用keep-alive连接，因此同一实例的请求共用一条持久连接；
+ * 响应体必须完整读完，连接才会被放回连接池
+ */
+public class InstanceClient {
+    private volatile String baseUrl;
+    private final int timeoutMs;
+
+    /**
+     * @param baseUrl 实例地址，例如 http://127.0.0.1:9191
+     * @param timeoutMs 连接和读取的超时时间（毫秒）
+     */
+    public InstanceClient(String baseUrl, int timeoutMs) {
+        this.baseUrl = trimSlash(baseUrl);
+        this.timeoutMs = timeoutMs;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * 更换实例地址，用于实例重启后端口变化的情况
+     */
+    public void setBaseUrl(String baseUrl) {
+        this.baseUrl = trimSlash(baseUrl);
+    }
+
+    /**
+     * 发送一条命令
+     * @param command 命令JSON对象
+     * @param extraTimeoutMs 在超时时间之外额外等待的时间，用于命令本身会阻塞（wait=true）的情况
+     * @return 响应JSON对象
+     * @throws IOException 连接失败、超时或响应不是200时抛出
+     */
+    public JsonObject command(JsonObject command, int extraTimeoutMs) throws IOException {
+        HttpURLConnection conn = open("/", extraTimeoutMs);
+        conn.setRequestMethod("POST");
+        conn.setDoOutput(true);
+        conn.setRequestProperty("Content-Type", "application/json");
+        byte[] body = command.toString().getBytes(StandardCharsets.UTF_8);
+        try (OutputStream out = conn.getOutputStream()) {
+            out.write(body);
+        }
+        return JsonParser.parseString(new String(read(conn), StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+
+    /**
+     * 发送GET请求并解析JSON响应
+     */
+    public JsonObject getJson(String path) throws IOException {
+        return JsonParser.parseString(new String(get(path), StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+
+    /**
+     * 发送GET请求并返回原始响应体
+     */
+    public byte[] get(String path) throws IOException {
+        return read(open(path, 0));
+    }
+
+    // 辅助方法：打开连接并设置超时
+    private HttpURLConnection open(String path, int extraTimeoutMs) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        conn.setConnectTimeout(timeoutMs);
+        conn.setReadTimeout(timeoutMs + Math.max(0, extraTimeoutMs));
+        conn.setUseCaches(false);
+        return conn;
+    }
+
+    // 辅助方法：读完响应体，非200响应的错误流也要读完，连接才能被复用
+    private static byte[] read(HttpURLConnection conn) throws IOException {
+        int status = conn.getResponseCode();
+        InputStream in = status < 400 ? conn.getInputStream() : conn.getErrorStream();
+        byte[] body = in != null ? readAll(in) : new byte[0];
+        if (status != HttpURLConnection.HTTP_OK) {
+            throw new IOException("HTTP " + status + " from " + conn.getURL() + ": "
+                    + new String(body, StandardCharsets.UTF_8));
+        }
+        return body;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = input.read(buf)) > 0) {
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static String trimSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
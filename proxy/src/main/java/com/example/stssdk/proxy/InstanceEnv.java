@@ -0,0 +1,320 @@
+package com.example.stssdk.proxy;
+
+import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.ConnectException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 一个SDK实例上的环境
+ * 重置时恢复该实例上的战斗存档（第一次重置时保存当前战斗作为起点），每一步发送step命令并从附带的观测向量计算奖励
+ *
+ * 奖励：造成的伤害 / 本局怪物最大生命之和 - 损失的生命 / 玩家最大生命，胜利时再加1，死亡时再减1
+ * 实例出错或超时时本步truncated，并在下一次使用前自动重置；重置失败的实例每一步都会重试
+ */
+public class InstanceEnv {
+    private static final Logger logger = LoggerFactory.getLogger(InstanceEnv.class);
+
+    /**
+     * 一步的结果
+     */
+    public static final class Outcome {
+        public float[] obs;
+        public float reward;
+        public boolean terminated;
+        public boolean truncated;
+        public final JsonObject info = new JsonObject();
+    }
+
+    public final int index;
+    private final InstanceClient client;
+    private final ProxyConfig config;
+    // 从注册目录发现的实例ID，显式指定地址时为null
+    private final String instanceId;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile ObservationSpec spec;
+    // 为true时下一次使用前必须先重置；超时的请求在后台完成后也不会清除该标记
+    private volatile boolean needsReset = true;
+    private volatile String lastError;
+    private boolean snapshotSaved;
+    private float[] obs;
+    private float monsterMaxHp;
+    private int steps;
+    private double episodeReturn;
+    private long episodes;
+
+    public InstanceEnv(int index, String url, String instanceId, ProxyConfig config) {
+        this.index = index;
+        this.client = new InstanceClient(url, config.timeoutMs);
+        this.instanceId = instanceId;
+        this.config = config;
+    }
+
+    /**
+     * 获取观测布局，第一次调用时从实例读取
+     * @throws IOException 实例无法访问时抛出
+     */
+    public ObservationSpec spec() throws IOException {
+        ObservationSpec s = spec;
+        if (s == null) {
+            s = ObservationSpec.parse(client.getJson("/api/observation/spec" + blocksQuery()));
+            spec = s;
+        }
+        return s;
+    }
+
+    /**
+     * 重置环境，失败时返回全0的观测并在info中给出错误
+     * @param size 观测向量长度
+     */
+    public Outcome reset(int size) {
+        Outcome out = new Outcome();
+        if (!lock.tryLock()) {
+            return busy(out, size);
+        }
+        try {
+            out.obs = tryReset(out.info, size);
+            return out;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 执行一步，结束（或出错）时自动重置，返回的obs为重置后的观测，结束前的观测放在info.final_observation
+     * @param action 动作掩码下标
+     * @param size 观测向量长度
+     */
+    public Outcome step(int action, int size) {
+        Outcome out = new Outcome();
+        if (!lock.tryLock()) {
+            return busy(out, size);
+        }
+        try {
+            if (needsReset) {
+                // 上一步出错或超时，本步的动作不执行
+                out.obs = tryReset(out.info, size);
+                out.info.addProperty("actionSkipped", true);
+                return out;
+            }
+            try {
+                JsonObject res = client.command(stepCommand(action), config.stepWaitMs);
+                if (res.has("error")) {
+                    // 非法动作等命令错误，状态不变
+                    out.obs = obs;
+                    out.info.addProperty("error", res.get("error").getAsString());
+                    return out;
+                }
+                if (!res.has("observation")) {
+                    throw new IOException("step did not complete: " + res.get("status"));
+                }
+                float[] next = decode(res.get("observation").getAsString(), size);
+                out.reward = reward(obs, next);
+                out.terminated = spec.playerHp(next) <= 0 || !spec.anyMonsterPresent(next);
+                obs = next;
+                out.obs = next;
+                steps++;
+                out.truncated = !out.terminated && config.maxSteps > 0 && steps >= config.maxSteps;
+            } catch (IOException | RuntimeException e) {
+                markFailed(e);
+                out.obs = obs != null ? obs : new float[size];
+                out.truncated = true;
+                out.info.addProperty("error", e.getMessage());
+                out.info.addProperty("crashed", true);
+            }
+            episodeReturn += out.reward;
+            if (out.terminated || out.truncated) {
+                finishEpisode(out, size);
+            }
+            return out;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 标记本环境需要重置，用于代理等待本环境超时的情况
+     */
+    public void markTimedOut(String message) {
+        lastError = message;
+        needsReset = true;
+    }
+
+    /**
+     * 当前状态，供/envs查看
+     */
+    public JsonObject status() {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("index", index);
+        obj.addProperty("url", client.getBaseUrl());
+        if (instanceId != null) {
+            obj.addProperty("instanceId", instanceId);
+        }
+        obj.addProperty("ready", !needsReset);
+        obj.addProperty("busy", lock.isLocked());
+        obj.addProperty("episodes", episodes);
+        if (lastError != null) {
+            obj.addProperty("lastError", lastError);
+        }
+        return obj;
+    }
+
+    // 辅助方法：一局结束，记录统计并自动重置
+    private void finishEpisode(Outcome out, int size) {
+        episodes++;
+        JsonObject episode = new JsonObject();
+        episode.addProperty("return", episodeReturn);
+        episode.addProperty("length", steps);
+        out.info.add("episode", episode);
+        out.info.addProperty("final_observation", encode(out.obs));
+        out.obs = tryReset(out.info, size);
+    }
+
+    // 辅助方法：重置，失败时标记为需要重置并返回全0的观测
+    private float[] tryReset(JsonObject info, int size) {
+        needsReset = false;
+        try {
+            float[] first = doReset(size);
+            info.addProperty("reset", true);
+            return first;
+        } catch (IOException | RuntimeException e) {
+            markFailed(e);
+            info.addProperty("resetError", e.getMessage());
+            return new float[size];
+        }
+    }
+
+    private float[] doReset(int size) throws IOException {
+        if (!snapshotSaved) {
+            saveStartingPoint();
+        }
+        JsonObject restore = new JsonObject();
+        restore.addProperty("cmd", "restore_snapshot");
+        restore.addProperty("snapshotId", config.resetSnapshot);
+        JsonObject res = client.command(restore, 0);
+        if (res.has("error") && isStartingPointLost(res.get("error").getAsString())) {
+            // 实例已重启导致存档丢失，或已进入另一场战斗：以当前战斗作为新的起点
+            saveStartingPoint();
+            res = client.command(restore, 0);
+        }
+        if (res.has("error")) {
+            throw new IOException("restore_snapshot failed: " + res.get("error").getAsString());
+        }
+        float[] first = readFloats(client.get("/api/observation" + blocksQuery()), size);
+        obs = first;
+        monsterMaxHp = spec().monsterMaxHp(first);
+        steps = 0;
+        episodeReturn = 0;
+        lastError = null;
+        return first;
+    }
+
+    // 辅助方法：起点存档在实例上已无法使用；一局结束后停留在奖励或死亡界面时SDK仍可恢复，不属于这种情况
+    private static boolean isStartingPointLost(String error) {
+        return "unknown snapshotId".equals(error) || "snapshot belongs to a different combat".equals(error);
+    }
+
+    // 辅助方法：保存当前战斗作为重置起点，需要实例正处于可以操作的战斗中
+    private void saveStartingPoint() throws IOException {
+        spec();
+        JsonObject save = new JsonObject();
+        save.addProperty("cmd", "save_snapshot");
+        save.addProperty("name", config.resetSnapshot);
+        JsonObject res = client.command(save, 0);
+        if (res.has("error")) {
+            throw new IOException("save_snapshot failed: " + res.get("error").getAsString());
+        }
+        snapshotSaved = true;
+    }
+
+    // 辅助方法：记录错误；连接失败时按实例ID在注册目录中查找新地址
+    private void markFailed(Exception e) {
+        needsReset = true;
+        lastError = e.toString();
+        logger.warn("Environment {} ({}) failed: {}", index, client.getBaseUrl(), e.toString());
+        if (instanceId != null && e instanceof ConnectException) {
+            String url = RegistryReader.findUrl(config.registryDir, instanceId);
+            if (url != null && !url.equals(client.getBaseUrl())) {
+                logger.info("Environment {} moved to {}", index, url);
+                client.setBaseUrl(url);
+                spec = null;
+                snapshotSaved = false;
+            }
+        }
+    }
+
+    private float reward(float[] prev, float[] next) {
+        float damage = spec.monsterHp(prev) - spec.monsterHp(next);
+        float hpLoss = spec.playerHp(prev) - spec.playerHp(next);
+        float reward = damage / Math.max(1, monsterMaxHp) - hpLoss / Math.max(1, spec.playerMaxHp(next));
+        if (spec.playerHp(next) <= 0) {
+            reward -= 1;
+        } else if (!spec.anyMonsterPresent(next)) {
+            reward += 1;
+        }
+        return reward;
+    }
+
+    private JsonObject stepCommand(int action) {
+        JsonObject cmd = new JsonObject();
+        cmd.addProperty("cmd", "step");
+        cmd.addProperty("action", action);
+        cmd.addProperty("wait", true);
+        cmd.addProperty("timeoutMs", config.stepWaitMs);
+        if (config.blocks != null) {
+            cmd.addProperty("observation", config.blocks);
+        } else {
+            cmd.addProperty("observation", true);
+        }
+        return cmd;
+    }
+
+    private String blocksQuery() {
+        if (config.blocks == null) {
+            return "";
+        }
+        try {
+            return "?blocks=" + URLEncoder.encode(config.blocks, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Outcome busy(Outcome out, int size) {
+        out.obs = new float[size];
+        out.truncated = true;
+        out.info.addProperty("error", "instance busy with a timed out request");
+        out.info.addProperty("crashed", true);
+        return out;
+    }
+
+    private static float[] decode(String base64, int size) {
+        return readFloats(Base64.getDecoder().decode(base64), size);
+    }
+
+    // 辅助方法：解析小端float32向量，长度与布局不一致说明实例的布局已变化
+    private static float[] readFloats(byte[] bytes, int size) {
+        if (bytes.length != size * 4) {
+            throw new IllegalStateException("observation has " + bytes.length / 4 + " values, expected " + size);
+        }
+        float[] values = new float[size];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(values);
+        return values;
+    }
+
+    static String encode(float[] values) {
+        ByteBuffer buf = ByteBuffer.allocate(values.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        buf.asFloatBuffer().put(values);
+        return new String(Base64.getEncoder().encode(buf.array()), StandardCharsets.ISO_8859_1);
+    }
+}
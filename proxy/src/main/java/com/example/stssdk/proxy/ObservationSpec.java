@@ -0,0 +1,110 @@
+package com.example.stssdk.proxy;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * 实例返回的观测布局（/api/observation/spec），代理只用到向量长度、词表hash，
+ * 以及计算奖励所需的玩家生命和怪物生命的位置
+ * 特征在块内的顺序与SDK中ObservationLayout的特征列表一致
+ */
+public final class ObservationSpec {
+    // player块内的特征下标
+    private static final int PLAYER_HP = 0;
+    private static final int PLAYER_MAX_HP = 1;
+    // monsters块每个槽位内的特征下标
+    private static final int MONSTER_PRESENT = 0;
+    private static final int MONSTER_HP = 1;
+    private static final int MONSTER_MAX_HP = 2;
+
+    public final JsonObject json;
+    public final int size;
+    public final String vocabularyHash;
+    private final int playerOffset;
+    private final int monsterOffset;
+    private final int monsterSlots;
+    private final int monsterWidth;
+
+    private ObservationSpec(JsonObject json, int playerOffset, int monsterOffset, int monsterSlots, int monsterWidth) {
+        this.json = json;
+        this.size = json.get("size").getAsInt();
+        this.vocabularyHash = json.get("vocabularyHash").getAsString();
+        this.playerOffset = playerOffset;
+        this.monsterOffset = monsterOffset;
+        this.monsterSlots = monsterSlots;
+        this.monsterWidth = monsterWidth;
+    }
+
+    /**
+     * 解析布局
+     * @param json /api/observation/spec的响应
+     * @return 布局
+     * @throws IllegalArgumentException 布局中缺少计算奖励所需的player或monsters块时抛出
+     */
+    public static ObservationSpec parse(JsonObject json) {
+        if (json.has("error")) {
+            throw new IllegalArgumentException(json.get("error").getAsString());
+        }
+        int playerOffset = -1;
+        int monsterOffset = -1;
+        int monsterSlots = 0;
+        int monsterWidth = 0;
+        for (JsonElement e : json.getAsJsonArray("blocks")) {
+            JsonObject block = e.getAsJsonObject();
+            String name = block.get("name").getAsString();
+            if ("player".equals(name)) {
+                playerOffset = block.get("offset").getAsInt();
+            } else if ("monsters".equals(name)) {
+                monsterOffset = block.get("offset").getAsInt();
+                monsterSlots = block.get("slots").getAsInt();
+                monsterWidth = block.get("width").getAsInt();
+            }
+        }
+        if (playerOffset < 0 || monsterOffset < 0) {
+            throw new IllegalArgumentException("observation blocks must include player and monsters");
+        }
+        return new ObservationSpec(json, playerOffset, monsterOffset, monsterSlots, monsterWidth);
+    }
+
+    /**
+     * 两个实例的布局是否相同，不同时无法拼成同一个批次
+     */
+    public boolean compatibleWith(ObservationSpec other) {
+        return size == other.size && vocabularyHash.equals(other.vocabularyHash);
+    }
+
+    public float playerHp(float[] obs) {
+        return obs[playerOffset + PLAYER_HP];
+    }
+
+    public float playerMaxHp(float[] obs) {
+        return obs[playerOffset + PLAYER_MAX_HP];
+    }
+
+    // 存活怪物的生命值之和
+    public float monsterHp(float[] obs) {
+        float sum = 0;
+        for (int i = 0; i < monsterSlots; i++) {
+            sum += obs[monsterOffset + i * monsterWidth + MONSTER_HP];
+        }
+        return sum;
+    }
+
+    // 存活怪物的最大生命值之和
+    public float monsterMaxHp(float[] obs) {
+        float sum = 0;
+        for (int i = 0; i < monsterSlots; i++) {
+            sum += obs[monsterOffset + i * monsterWidth + MONSTER_MAX_HP];
+        }
+        return sum;
+    }
+
+    public boolean anyMonsterPresent(float[] obs) {
+        for (int i = 0; i < monsterSlots; i++) {
+            if (obs[monsterOffset + i * monsterWidth + MONSTER_PRESENT] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
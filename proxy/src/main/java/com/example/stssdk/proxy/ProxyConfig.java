@@ -0,0 +1,101 @@
+package com.example.stssdk.proxy;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 代理的命令行配置，参数格式为 --key value
+ */
+public class ProxyConfig {
+    public String host = "127.0.0.1";
+    public int port = 9300;
+    // 显式指定的实例地址，为空时从注册目录发现实例
+    public final List<String> instances = new ArrayList<>();
+    public Path registryDir = Paths.get(System.getProperty("user.home"), ".stssdk", "instances");
+    // 从注册目录最多使用的实例数，0表示全部
+    public int count = 0;
+    // 每个请求的连接和读取超时时间
+    public int timeoutMs = 5000;
+    // step命令等待操作完成（包括敌方回合）的最长时间，计入该实例的超时时间
+    public int stepWaitMs = 10000;
+    // 观测向量包含的块，为null时使用实例的默认配置
+    public String blocks;
+    // 每局最多的步数，达到后truncated，0表示不限制
+    public int maxSteps = 0;
+    // 每个实例上用于重置的战斗存档ID
+    public String resetSnapshot = "vector-env-reset";
+
+    // stand-in模式的参数
+    public int standInCount = 4;
+    public int standInLatencyMs = 0;
+    public int standInFailEvery = 0;
+
+    /**
+     * 解析命令行参数
+     * @param args 参数数组，不包括子命令
+     * @param standIn 是否为stand-in模式，stand-in模式下port的默认值为9400
+     * @return 配置
+     * @throws IllegalArgumentException 参数未知或缺少值时抛出
+     */
+    public static ProxyConfig parse(String[] args, boolean standIn) {
+        ProxyConfig config = new ProxyConfig();
+        if (standIn) {
+            config.port = 9400;
+        }
+        for (int i = 0; i < args.length; i++) {
+            String key = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("missing value for " + key);
+            }
+            String value = args[++i];
+            switch (key) {
+                case "--host":
+                    config.host = value;
+                    break;
+                case "--port":
+                    config.port = Integer.parseInt(value);
+                    break;
+                case "--instances":
+                    for (String url : value.split(",")) {
+                        if (!url.trim().isEmpty()) {
+                            config.instances.add(url.trim().startsWith("http") ? url.trim() : "http://" + url.trim());
+                        }
+                    }
+                    break;
+                case "--registry":
+                    config.registryDir = Paths.get(value);
+                    break;
+                case "--count":
+                    config.count = Integer.parseInt(value);
+                    config.standInCount = config.count;
+                    break;
+                case "--timeout-ms":
+                    config.timeoutMs = Integer.parseInt(value);
+                    break;
+                case "--step-wait-ms":
+                    config.stepWaitMs = Integer.parseInt(value);
+                    break;
+                case "--blocks":
+                    config.blocks = value;
+                    break;
+                case "--max-steps":
+                    config.maxSteps = Integer.parseInt(value);
+                    break;
+                case "--reset-snapshot":
+                    config.resetSnapshot = value;
+                    break;
+                case "--latency-ms":
+                    config.standInLatencyMs = Integer.parseInt(value);
+                    break;
+                case "--fail-every":
+                    config.standInFailEvery = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option: " + key);
+            }
+        }
+        return config;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.stssdk.proxy;
+
+import fi.iki.elonen.NanoHTTPD;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * 代理入口
+ * java -jar proxy.jar [--instances url,url | --registry dir] [--port 9300] [其他选项]
+ * java -jar proxy.jar standin [--count 4] [--port 9400] [--latency-ms 0] [--fail-every 0]
+ */
+public class ProxyMain {
+    private static final Logger logger = LoggerFactory.getLogger(ProxyMain.class);
+
+    public static void main(String[] args) throws Exception {
+        boolean standIn = args.length > 0 && "standin".equals(args[0]);
+        ProxyConfig config;
+        try {
+            config = ProxyConfig.parse(standIn ? Arrays.copyOfRange(args, 1, args.length) : args, standIn);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("usage: java -jar proxy.jar [--instances url,url | --registry dir] [--count n] [--port 9300]");
+            System.err.println("                          [--timeout-ms 5000] [--step-wait-ms 10000] [--blocks list] [--max-steps n]");
+            System.err.println("       java -jar proxy.jar standin [--count 4] [--port 9400] [--latency-ms 0] [--fail-every 0]");
+            System.exit(2);
+            return;
+        }
+        if (standIn) {
+            startStandIns(config);
+        } else {
+            VectorEnv env = VectorEnv.connect(config);
+            ProxyServer server = new ProxyServer(config.host, config.port, env);
+            server.start(NanoHTTPD.SOCKET_READ_TIMEOUT, false);
+            logger.info("Proxy listening on http://{}:{} for {} environments", config.host, config.port, env.numEnvs());
+        }
+        Thread.currentThread().join();
+    }
+
+    // 辅助方法：在连续的端口上启动多个替身实例，并打印可以直接传给--instances的地址列表
+    private static void startStandIns(ProxyConfig config) throws Exception {
+        StringBuilder urls = new StringBuilder();
+        for (int i = 0; i < config.standInCount; i++) {
+            int port = config.port + i;
+            new StandInServer(config.host, port, config.standInLatencyMs, config.standInFailEvery)
+                    .start(NanoHTTPD.SOCKET_READ_TIMEOUT, false);
+            if (urls.length() > 0) {
+                urls.append(',');
+            }
+            urls.append("http://").append(config.host).append(':').append(port);
+        }
+        logger.info("Started {} stand-in instances: {}", config.standInCount, urls);
+        System.out.println(urls);
+    }
+}
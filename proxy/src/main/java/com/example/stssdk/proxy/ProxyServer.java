@@ -0,0 +1,100 @@
+package com.example.stssdk.proxy;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import fi.iki.elonen.NanoHTTPD;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 代理的HTTP接口，学习端只需要和这一个服务器通信
+ * POST /reset        重置所有环境
+ * POST /step         {"actions":[...]}，每个环境一个动作掩码下标
+ * GET  /spec         环境数量和观测布局
+ * GET  /envs         每个环境的状态
+ */
+public class ProxyServer extends NanoHTTPD {
+    private static final Logger logger = LoggerFactory.getLogger(ProxyServer.class);
+
+    private final VectorEnv env;
+
+    public ProxyServer(String host, int port, VectorEnv env) {
+        super(host, port);
+        this.env = env;
+    }
+
+    /**
+     * 关闭Nagle算法，NanoHTTPD分两次写出响应头和响应体，否则每个响应要多等一次延迟ACK
+     */
+    @Override
+    protected ClientHandler createClientHandler(Socket finalAccept, InputStream inputStream) {
+        try {
+            finalAccept.setTcpNoDelay(true);
+        } catch (IOException e) {
+            // 连接已断开，交给处理器关闭
+        }
+        return super.createClientHandler(finalAccept, inputStream);
+    }
+
+    @Override
+    public Response serve(IHTTPSession session) {
+        try {
+            String uri = session.getUri();
+            if (Method.POST.equals(session.getMethod())) {
+                Map<String, String> body = new HashMap<>();
+                session.parseBody(body);
+                String postData = body.getOrDefault("postData", "{}");
+                if ("/step".equals(uri)) {
+                    return json(handleStep(JsonParser.parseString(postData).getAsJsonObject()));
+                }
+                if ("/reset".equals(uri)) {
+                    return json(env.reset().toJson());
+                }
+            } else if (Method.GET.equals(session.getMethod())) {
+                if ("/spec".equals(uri)) {
+                    JsonObject res = new JsonObject();
+                    res.addProperty("numEnvs", env.numEnvs());
+                    res.add("observation", env.getSpec().json);
+                    return json(res);
+                }
+                if ("/envs".equals(uri)) {
+                    JsonObject res = new JsonObject();
+                    res.add("envs", env.status());
+                    return json(res);
+                }
+            }
+            return newFixedLengthResponse(Response.Status.NOT_FOUND, "text/plain", "Not found");
+        } catch (Exception e) {
+            logger.error("Error handling {}", session.getUri(), e);
+            JsonObject error = new JsonObject();
+            error.addProperty("error", String.valueOf(e.getMessage()));
+            return json(error);
+        }
+    }
+
+    // 辅助方法：解析动作数组并执行一步
+    private JsonObject handleStep(JsonObject req) {
+        if (!req.has("actions")) {
+            JsonObject error = new JsonObject();
+            error.addProperty("error", "missing actions");
+            return error;
+        }
+        JsonArray arr = req.getAsJsonArray("actions");
+        int[] actions = new int[arr.size()];
+        for (int i = 0; i < actions.length; i++) {
+            actions[i] = arr.get(i).getAsInt();
+        }
+        return env.step(actions).toJson();
+    }
+
+    private static Response json(JsonObject obj) {
+        return newFixedLengthResponse(Response.Status.OK, "application/json", obj.toString());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.stssdk.proxy;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 读取SDK实例注册目录（见SDK中的InstanceRegistry），只读不删除
+ * 心跳超过STALE_MS未刷新的实例视为已退出
+ */
+public final class RegistryReader {
+    private static final long STALE_MS = 15000;
+
+    private RegistryReader() {
+    }
+
+    /**
+     * 列出所有存活的实例，按实例ID排序，使同一组实例每次得到同样的环境编号
+     * @param directory 注册目录
+     * @return 实例信息列表，目录不存在时为空
+     */
+    public static List<JsonObject> list(Path directory) {
+        List<JsonObject> instances = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return instances;
+        }
+        long now = System.currentTimeMillis();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path entry : entries) {
+                try {
+                    JsonObject obj = JsonParser.parseString(
+                            new String(Files.readAllBytes(entry), StandardCharsets.UTF_8)).getAsJsonObject();
+                    if (now - obj.get("heartbeat").getAsLong() <= STALE_MS) {
+                        instances.add(obj);
+                    }
+                } catch (Exception e) {
+                    // 文件正在被写入或已被删除，跳过
+                }
+            }
+        } catch (IOException e) {
+            return instances;
+        }
+        instances.sort(Comparator.comparing(o -> o.get("instanceId").getAsString()));
+        return instances;
+    }
+
+    /**
+     * 按实例ID查找实例的当前地址，用于实例重启后端口变化时重新连接
+     * @param directory 注册目录
+     * @param instanceId 实例ID
+     * @return 实例地址，找不到时返回null
+     */
+    public static String findUrl(Path directory, String instanceId) {
+        for (JsonObject obj : list(directory)) {
+            if (instanceId.equals(obj.get("instanceId").getAsString())) {
+                return obj.get("url").getAsString();
+            }
+        }
+        return null;
+    }
+}
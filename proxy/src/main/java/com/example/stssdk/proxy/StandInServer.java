@@ -0,0 +1,217 @@
+package com.example.stssdk.proxy;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import fi.iki.elonen.NanoHTTPD;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SDK实例的替身，不需要启动游戏即可测试代理和训练脚本
+ * 只实现代理用到的接口（观测布局、观测向量、step、save_snapshot、restore_snapshot），
+ * 存档的保存和恢复条件与SDK相同：只能在战斗中保存，战斗中或战斗分出胜负后恢复；
+ * 战斗极度简化：一个怪物，动作0攻击6点，动作6获得5点格挡，结束回合时怪物攻击8点
+ *
+ * latencyMs模拟每个请求的处理时间，failEvery大于0时每隔failEvery个step请求返回一次500，用于测试出错后的自动重置
+ */
+public class StandInServer extends NanoHTTPD {
+    private static final int MASK_SIZE = 91;
+    private static final int ATTACK = 0;
+    private static final int DEFEND = 6;
+    private static final int END_TURN = 90;
+    // 布局：player[hp, maxHp, block] + monsters[present, hp, maxHp] + mask
+    private static final int SIZE = 3 + 3 + MASK_SIZE;
+
+    /**
+     * 替身的战斗状态
+     */
+    private static final class State {
+        int hp = 50;
+        int maxHp = 50;
+        int block;
+        int monsterHp = 30;
+        int monsterMaxHp = 30;
+
+        State copy() {
+            State s = new State();
+            s.hp = hp;
+            s.maxHp = maxHp;
+            s.block = block;
+            s.monsterHp = monsterHp;
+            s.monsterMaxHp = monsterMaxHp;
+            return s;
+        }
+
+        boolean inCombat() {
+            return hp > 0 && monsterHp > 0;
+        }
+
+        // 与SDK一致：战斗中，或本场战斗已分出胜负但还没有离开房间时可以恢复存档；替身只有一场战斗，不会离开房间
+        boolean restorable() {
+            return inCombat() || hp <= 0 || monsterHp <= 0;
+        }
+    }
+
+    private final int latencyMs;
+    private final int failEvery;
+    private final AtomicLong stepCount = new AtomicLong();
+    private final Map<String, State> saves = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong(1);
+    private State state = new State();
+
+    public StandInServer(String host, int port, int latencyMs, int failEvery) {
+        super(host, port);
+        this.latencyMs = latencyMs;
+        this.failEvery = failEvery;
+    }
+
+    @Override
+    protected ClientHandler createClientHandler(Socket finalAccept, InputStream inputStream) {
+        try {
+            finalAccept.setTcpNoDelay(true);
+        } catch (IOException e) {
+            // 连接已断开，交给处理器关闭
+        }
+        return super.createClientHandler(finalAccept, inputStream);
+    }
+
+    @Override
+    public Response serve(IHTTPSession session) {
+        try {
+            if (latencyMs > 0) {
+                Thread.sleep(latencyMs);
+            }
+            String uri = session.getUri();
+            if (Method.POST.equals(session.getMethod())) {
+                Map<String, String> body = new HashMap<>();
+                session.parseBody(body);
+                JsonObject req = JsonParser.parseString(body.getOrDefault("postData", "{}")).getAsJsonObject();
+                if (failEvery > 0 && "step".equals(req.get("cmd").getAsString())
+                        && stepCount.incrementAndGet() % failEvery == 0) {
+                    return newFixedLengthResponse(Response.Status.INTERNAL_ERROR, "text/plain", "stand-in failure");
+                }
+                return json(execute(req));
+            }
+            if ("/api/observation/spec".equals(uri)) {
+                return json(spec());
+            }
+            if ("/api/observation".equals(uri)) {
+                byte[] bytes = render();
+                return newFixedLengthResponse(Response.Status.OK, "application/octet-stream",
+                        new ByteArrayInputStream(bytes), bytes.length);
+            }
+            return newFixedLengthResponse(Response.Status.NOT_FOUND, "text/plain", "Not found");
+        } catch (Exception e) {
+            return newFixedLengthResponse(Response.Status.INTERNAL_ERROR, "text/plain", String.valueOf(e));
+        }
+    }
+
+    // 辅助方法：执行命令，与SDK的命令格式一致
+    private synchronized JsonObject execute(JsonObject req) {
+        JsonObject res = new JsonObject();
+        switch (req.get("cmd").getAsString()) {
+            case "step":
+                int action = req.get("action").getAsInt();
+                if (!state.inCombat() || (action != ATTACK && action != DEFEND && action != END_TURN)) {
+                    res.addProperty("error", "illegal action: " + action);
+                    return res;
+                }
+                apply(action);
+                res.addProperty("status", "completed");
+                res.addProperty("stateVersion", version.incrementAndGet());
+                if (req.has("observation")) {
+                    res.addProperty("observation", Base64.getEncoder().encodeToString(render()));
+                }
+                return res;
+            case "save_snapshot":
+                if (!state.inCombat()) {
+                    res.addProperty("error", "not in combat");
+                    return res;
+                }
+                String name = req.has("name") ? req.get("name").getAsString() : "snapshot-" + saves.size();
+                saves.put(name, state.copy());
+                res.addProperty("status", "ok");
+                res.addProperty("snapshotId", name);
+                return res;
+            case "restore_snapshot":
+                State saved = saves.get(req.get("snapshotId").getAsString());
+                if (saved == null) {
+                    res.addProperty("error", "unknown snapshotId");
+                    return res;
+                }
+                if (!state.restorable()) {
+                    res.addProperty("error", "not in combat");
+                    return res;
+                }
+                state = saved.copy();
+                res.addProperty("status", "ok");
+                res.addProperty("stateVersion", version.incrementAndGet());
+                return res;
+            default:
+                res.addProperty("error", "unknown cmd: " + req.get("cmd").getAsString());
+                return res;
+        }
+    }
+
+    private void apply(int action) {
+        if (action == ATTACK) {
+            state.monsterHp = Math.max(0, state.monsterHp - 6);
+        } else if (action == DEFEND) {
+            state.block += 5;
+        } else {
+            int damage = Math.max(0, 8 - state.block);
+            state.hp = Math.max(0, state.hp - damage);
+            state.block = 0;
+        }
+    }
+
+    private synchronized byte[] render() {
+        ByteBuffer buf = ByteBuffer.allocate(SIZE * 4).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putFloat(state.hp).putFloat(state.maxHp).putFloat(state.block);
+        boolean alive = state.monsterHp > 0;
+        buf.putFloat(alive ? 1 : 0).putFloat(alive ? state.monsterHp : 0).putFloat(alive ? state.monsterMaxHp : 0);
+        boolean legal = state.inCombat();
+        for (int i = 0; i < MASK_SIZE; i++) {
+            buf.putFloat(legal && (i == ATTACK || i == DEFEND || i == END_TURN) ? 1 : 0);
+        }
+        return buf.array();
+    }
+
+    private static JsonObject spec() {
+        JsonObject spec = new JsonObject();
+        spec.addProperty("size", SIZE);
+        spec.addProperty("vocabularyHash", "stand-in");
+        spec.addProperty("byteOrder", "little-endian");
+        JsonArray blocks = new JsonArray();
+        blocks.add(block("player", 0, 1, 3));
+        blocks.add(block("monsters", 3, 1, 3));
+        blocks.add(block("mask", 6, 1, MASK_SIZE));
+        spec.add("blocks", blocks);
+        return spec;
+    }
+
+    private static JsonObject block(String name, int offset, int slots, int width) {
+        JsonObject block = new JsonObject();
+        block.addProperty("name", name);
+        block.addProperty("offset", offset);
+        block.addProperty("slots", slots);
+        block.addProperty("width", width);
+        block.addProperty("length", slots * width);
+        return block;
+    }
+
+    private static Response json(JsonObject obj) {
+        return newFixedLengthResponse(Response.Status.OK, "application/json", obj.toString());
+    }
+}
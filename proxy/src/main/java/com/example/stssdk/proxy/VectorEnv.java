@@ -0,0 +1,228 @@
+package com.example.stssdk.proxy;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * N个SDK实例组成的向量化环境，一次step把N个动作并发发送给各自的实例，再把N个结果拼成一个批次
+ * 所有实例的观测布局（长度和词表hash）必须相同
+ *
+ * 每个实例的等待时间以连接超时 + step等待时间为上限，超时的实例本步truncated并返回全0的观测，
+ * 不会拖慢其他实例；它在后台完成后的下一次step中自动重置
+ */
+public class VectorEnv implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(VectorEnv.class);
+
+    /**
+     * 一个批次的结果，obs按环境顺序拼接，形状为[numEnvs, obsSize]
+     */
+    public static final class Batch {
+        public final int numEnvs;
+        public final int obsSize;
+        public final float[] obs;
+        public final float[] reward;
+        public final boolean[] terminated;
+        public final boolean[] truncated;
+        public final JsonObject[] infos;
+        public long elapsedMicros;
+
+        Batch(int numEnvs, int obsSize) {
+            this.numEnvs = numEnvs;
+            this.obsSize = obsSize;
+            this.obs = new float[numEnvs * obsSize];
+            this.reward = new float[numEnvs];
+            this.terminated = new boolean[numEnvs];
+            this.truncated = new boolean[numEnvs];
+            this.infos = new JsonObject[numEnvs];
+        }
+
+        void set(int i, InstanceEnv.Outcome out) {
+            System.arraycopy(out.obs, 0, obs, i * obsSize, obsSize);
+            reward[i] = out.reward;
+            terminated[i] = out.terminated;
+            truncated[i] = out.truncated;
+            infos[i] = out.info;
+        }
+
+        /**
+         * 转换为JSON，obs为小端float32的base64编码
+         */
+        public JsonObject toJson() {
+            JsonObject res = new JsonObject();
+            JsonArray shape = new JsonArray();
+            shape.add(numEnvs);
+            shape.add(obsSize);
+            res.add("shape", shape);
+            res.addProperty("obs", InstanceEnv.encode(obs));
+            JsonArray rewards = new JsonArray(numEnvs);
+            JsonArray term = new JsonArray(numEnvs);
+            JsonArray trunc = new JsonArray(numEnvs);
+            JsonArray infoArr = new JsonArray(numEnvs);
+            for (int i = 0; i < numEnvs; i++) {
+                rewards.add(reward[i]);
+                term.add(terminated[i]);
+                trunc.add(truncated[i]);
+                infoArr.add(infos[i]);
+            }
+            res.add("reward", rewards);
+            res.add("terminated", term);
+            res.add("truncated", trunc);
+            res.add("infos", infoArr);
+            res.addProperty("elapsedMs", elapsedMicros / 1000.0);
+            return res;
+        }
+    }
+
+    private final List<InstanceEnv> envs;
+    private final ObservationSpec spec;
+    private final ProxyConfig config;
+    private final ExecutorService pool;
+
+    private VectorEnv(List<InstanceEnv> envs, ObservationSpec spec, ProxyConfig config) {
+        this.envs = envs;
+        this.spec = spec;
+        this.config = config;
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(envs.size(), r -> {
+            Thread t = new Thread(r, "STSSDK-Proxy-Env-" + counter.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 连接配置中的实例：显式指定的地址，或注册目录中的存活实例
+     * @param config 代理配置
+     * @return 向量化环境
+     * @throws IOException 没有可用实例、实例无法访问或布局不一致时抛出
+     */
+    public static VectorEnv connect(ProxyConfig config) throws IOException {
+        List<InstanceEnv> envs = new ArrayList<>();
+        if (!config.instances.isEmpty()) {
+            for (String url : config.instances) {
+                envs.add(new InstanceEnv(envs.size(), url, null, config));
+            }
+        } else {
+            for (JsonObject obj : RegistryReader.list(config.registryDir)) {
+                if (config.count > 0 && envs.size() >= config.count) {
+                    break;
+                }
+                envs.add(new InstanceEnv(envs.size(), obj.get("url").getAsString(),
+                        obj.get("instanceId").getAsString(), config));
+            }
+        }
+        if (envs.isEmpty()) {
+            throw new IOException("no instances: use --instances or start games with the registry enabled ("
+                    + config.registryDir + ")");
+        }
+        ObservationSpec spec = null;
+        for (InstanceEnv env : envs) {
+            ObservationSpec s = env.spec();
+            if (spec == null) {
+                spec = s;
+            } else if (!spec.compatibleWith(s)) {
+                throw new IOException("environment " + env.index + " has a different observation layout (size "
+                        + s.size + ", vocabulary " + s.vocabularyHash + ")");
+            }
+        }
+        logger.info("Connected {} environments, observation size {}", envs.size(), spec.size);
+        return new VectorEnv(envs, spec, config);
+    }
+
+    public int numEnvs() {
+        return envs.size();
+    }
+
+    public ObservationSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * 并发重置所有环境
+     */
+    public synchronized Batch reset() {
+        return dispatch(env -> env.reset(spec.size));
+    }
+
+    /**
+     * 并发执行一步
+     * @param actions 每个环境的动作掩码下标，长度必须等于环境数
+     */
+    public synchronized Batch step(int[] actions) {
+        if (actions.length != envs.size()) {
+            throw new IllegalArgumentException("expected " + envs.size() + " actions, got " + actions.length);
+        }
+        return dispatch(env -> env.step(actions[env.index], spec.size));
+    }
+
+    /**
+     * 每个环境的当前状态
+     */
+    public JsonArray status() {
+        JsonArray arr = new JsonArray();
+        for (InstanceEnv env : envs) {
+            arr.add(env.status());
+        }
+        return arr;
+    }
+
+    // 辅助方法：在每个环境的线程中执行任务，按统一的截止时间收集结果
+    private Batch dispatch(Function<InstanceEnv, InstanceEnv.Outcome> task) {
+        long start = System.nanoTime();
+        List<Future<InstanceEnv.Outcome>> futures = new ArrayList<>(envs.size());
+        for (InstanceEnv env : envs) {
+            futures.add(pool.submit(() -> task.apply(env)));
+        }
+        // 重置最多包括保存、恢复和读取观测三次请求
+        long budgetMs = 3L * config.timeoutMs + config.stepWaitMs;
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+        Batch batch = new Batch(envs.size(), spec.size);
+        for (int i = 0; i < envs.size(); i++) {
+            InstanceEnv.Outcome out;
+            try {
+                out = futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                envs.get(i).markTimedOut("timed out after " + budgetMs + " ms");
+                out = failed("timed out after " + budgetMs + " ms");
+            } catch (ExecutionException e) {
+                envs.get(i).markTimedOut(String.valueOf(e.getCause()));
+                out = failed(String.valueOf(e.getCause()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                out = failed("interrupted");
+            }
+            batch.set(i, out);
+        }
+        batch.elapsedMicros = (System.nanoTime() - start) / 1000;
+        return batch;
+    }
+
+    private InstanceEnv.Outcome failed(String message) {
+        InstanceEnv.Outcome out = new InstanceEnv.Outcome();
+        out.obs = new float[spec.size];
+        out.truncated = true;
+        out.info.addProperty("error", message);
+        out.info.addProperty("crashed", true);
+        return out;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
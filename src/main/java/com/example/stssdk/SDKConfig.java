@@ -0,0 +1,131 @@
+package com.example.stssdk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * SDK配置读取
+ * 每个配置项按以下优先级读取：
+ * 1. 系统属性，例如 -Dstssdk.fastMode=true
+ * 2. 环境变量，名称驼峰转为大写下划线，例如 STSSDK_FAST_MODE=true
+ * 3. ModTheSpire.config 中的同名配置，例如 stssdk.fastMode=true
+ * 都没有设置时使用调用方给出的默认值
+ */
+public final class SDKConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(SDKConfig.class);
+
+    private static final String PREFIX = "stssdk.";
+    private static final String ENV_PREFIX = "STSSDK_";
+
+    // ModTheSpire.config中的配置项
+    private static final Properties fileProperties = loadFile();
+
+    private SDKConfig() {
+    }
+
+    /**
+     * 读取字符串配置
+     * @param key 配置项名称（不含前缀）
+     * @param defaultValue 默认值
+     * @return 配置值
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(PREFIX + key);
+        if (value == null) {
+            value = System.getenv(ENV_PREFIX + toEnvName(key));
+        }
+        if (value == null) {
+            value = fileProperties.getProperty(PREFIX + key);
+        }
+        return value != null && !value.trim().isEmpty() ? value.trim() : defaultValue;
+    }
+
+    /**
+     * 读取整数配置，格式错误时使用默认值
+     */
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid integer for {}: {}", key, value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 读取浮点数配置，格式错误时使用默认值
+     */
+    public static float getFloat(String key, float defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Float.parseFloat(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid number for {}: {}", key, value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 读取布尔配置，只有"true"（忽略大小写）视为true
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+
+    /**
+     * 读取路径配置，开头的~展开为用户主目录，例如 ~/.stssdk/instances
+     */
+    public static Path getPath(String key, Path defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value.equals("~") || value.startsWith("~/") || value.startsWith("~\\")) {
+            return Paths.get(System.getProperty("user.home") + value.substring(1));
+        }
+        return Paths.get(value);
+    }
+
+    // 辅助方法：fastModeSpeed -> FAST_MODE_SPEED
+    private static String toEnvName(String key) {
+        StringBuilder sb = new StringBuilder(key.length() + 4);
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (Character.isUpperCase(c) && i > 0) {
+                sb.append('_');
+            }
+            sb.append(c == '.' ? '_' : Character.toUpperCase(c));
+        }
+        return sb.toString();
+    }
+
+    // 辅助方法：读取jar中的ModTheSpire.config
+    private static Properties loadFile() {
+        Properties properties = new Properties();
+        try (InputStream in = SDKConfig.class.getResourceAsStream("/ModTheSpire.config")) {
+            if (in != null) {
+                properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read ModTheSpire.config: {}", e.toString());
+        }
+        return properties;
+    }
+}
@@ -2,11 +2,21 @@ package com.example.stssdk;
 
 import basemod.BaseMod;
 import basemod.interfaces.PostInitializeSubscriber;
+import com.example.stssdk.action.ActionTracker;
+import com.example.stssdk.action.CommandInbox;
+import com.example.stssdk.core.MetadataDictionary;
+import com.example.stssdk.patches.FastMode;
+import com.example.stssdk.savestate.SaveStateStore;
+import com.example.stssdk.server.InstanceRegistry;
 import com.example.stssdk.server.SDKServer;
+import com.example.stssdk.state.SnapshotPublisher;
+import com.example.stssdk.trajectory.TrajectoryRecorder;
 
 import com.evacipated.cardcrawl.modthespire.lib.SpireInitializer;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * STS-SDK 入口类，负责在游戏启动后初始化并启动HTTP服务器
@@ -15,6 +25,19 @@ import java.io.IOException;
 @SpireInitializer
 public class SDKEntry implements PostInitializeSubscriber {
 
+    // 默认绑定地址和端口
+    private static final String DEFAULT_HOST = "127.0.0.1";
+    private static final int DEFAULT_PORT = 9191;
+    // 首选端口被占用时最多尝试的端口数量，之后改用系统分配的端口
+    private static final int DEFAULT_PORT_ATTEMPTS = 32;
+
+    // 命令收件箱每帧最多执行的命令数和时间预算（毫秒）
+    private static final int DEFAULT_INBOX_MAX_PER_FRAME = 32;
+    private static final float DEFAULT_INBOX_FRAME_BUDGET_MS = 2f;
+
+    // 轨迹日志分段文件大小（MB）
+    private static final int DEFAULT_RECORD_SEGMENT_MB = 16;
+
     // SDK服务器实例
     private static SDKServer server;
 
@@ -29,9 +52,23 @@ public class SDKEntry implements PostInitializeSubscriber {
     /**
      * 构造函数，将当前实例注册为PostInitializeSubscriber
      * 确保receivePostInitialize方法会在游戏初始化后被调用
+     * 同时注册命令收件箱，每帧update之前在游戏主线程中执行其他线程提交的命令
+     * 以及快照发布器，每帧在游戏主线程中发布游戏状态快照
+     * ActionTracker必须在SnapshotPublisher之后注册，保证操作完成时快照已是操作后的状态
      */
     public SDKEntry() {
         BaseMod.subscribe(this);
+        BaseMod.subscribe(new CommandInbox(
+                SDKConfig.getInt("inboxMaxPerFrame", DEFAULT_INBOX_MAX_PER_FRAME),
+                SDKConfig.getFloat("inboxFrameBudgetMs", DEFAULT_INBOX_FRAME_BUDGET_MS)));
+        BaseMod.subscribe(new SnapshotPublisher());
+        // 轨迹记录器默认只响应start_recording命令，配置stssdk.record=true时自动记录每一局
+        TrajectoryRecorder.enable(
+                SDKConfig.getPath("recordDir", defaultDataDir("trajectories")),
+                SDKConfig.getInt("recordSegmentMb", DEFAULT_RECORD_SEGMENT_MB) << 20,
+                SDKConfig.getBoolean("record", false));
+        BaseMod.subscribe(new ActionTracker());
+        SaveStateStore.setCapacity(SDKConfig.getInt("snapshotCapacity", SaveStateStore.DEFAULT_CAPACITY));
     }
 
     /**
@@ -40,15 +77,43 @@ public class SDKEntry implements PostInitializeSubscriber {
      */
     @Override
     public void receivePostInitialize() {
+        // 卡牌库、遗物库、药水库此时已加载完成，在主线程中构建静态元数据字典
+        try {
+            MetadataDictionary.build();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        // 配置中开启了快速模式时，从启动起就以无界面高速模式运行
+        if (SDKConfig.getBoolean("fastMode", false)) {
+            FastMode.set(true, SDKConfig.getFloat("fastModeSpeed", FastMode.DEFAULT_SPEED));
+        }
+
         // 创建新线程启动服务器，避免阻塞游戏主线程
+        // 端口被占用时依次尝试后面的端口，便于在同一台机器上运行多个实例
         new Thread(() -> {
             try {
-                server = new SDKServer(9191);
-                server.start();
-                System.out.println("[STSSDK] Server started on port 9191");
+                String host = SDKConfig.getString("host", DEFAULT_HOST);
+                int port = SDKConfig.getInt("port", DEFAULT_PORT);
+                server = SDKServer.startOnFreePort(host, port, SDKConfig.getInt("portAttempts", DEFAULT_PORT_ATTEMPTS));
+                int actualPort = server.getListeningPort();
+                System.out.println("[STSSDK] Server started on " + host + ":" + actualPort);
+
+                if (SDKConfig.getBoolean("registry", true)) {
+                    String instanceId = SDKConfig.getString("instanceId", "sts-" + InstanceRegistry.currentPid());
+                    Path registryDir = SDKConfig.getPath("registryDir", defaultDataDir("instances"));
+                    InstanceRegistry registry = new InstanceRegistry(registryDir, instanceId, host, actualPort);
+                    registry.start();
+                    server.setInstanceRegistry(registry);
+                }
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }, "STSSDK-Server-Thread").start();
     }
+
+    // 辅助方法：~/.stssdk下的默认数据目录
+    private static Path defaultDataDir(String name) {
+        return Paths.get(System.getProperty("user.home"), ".stssdk", name);
+    }
 }
@@ -0,0 +1,110 @@
+package com.example.stssdk.action;
+
+import basemod.interfaces.PostUpdateSubscriber;
+import com.megacrit.cardcrawl.actions.GameActionManager;
+import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
+import com.megacrit.cardcrawl.rooms.AbstractRoom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 操作追踪器，记录已排队的TrackedAction并在动作队列清空后完成它们的settled信号
+ * 必须在SnapshotPublisher之后订阅，保证settled完成时最新快照已经包含操作后的状态
+ */
+public class ActionTracker implements PostUpdateSubscriber {
+    private static final Logger logger = LoggerFactory.getLogger(ActionTracker.class);
+
+    // 最多保留的已完成操作数量，供get_action查询
+    private static final int MAX_RECENT = 256;
+    // 队列清空后仍未执行的操作，经过多少帧后视为被丢弃（例如战斗结束时队列被清空）
+    private static final int DISCARD_AFTER_FRAMES = 2;
+
+    private static final Map<Long, TrackedAction> actions = new ConcurrentHashMap<>();
+    private static final ConcurrentLinkedQueue<TrackedAction> pending = new ConcurrentLinkedQueue<>();
+    private static final ConcurrentLinkedQueue<Long> recentIds = new ConcurrentLinkedQueue<>();
+    // 每个待完成操作第一次被游戏线程看到时的帧号，只在游戏主线程中访问
+    private static final Map<Long, Long> firstSeenFrame = new ConcurrentHashMap<>();
+    private static long frame;
+
+    /**
+     * 登记一个已提交的操作，可在任意线程中调用
+     * @param action 要追踪的操作
+     */
+    public static void track(TrackedAction action) {
+        actions.put(action.getActionId(), action);
+        pending.add(action);
+        recentIds.add(action.getActionId());
+        while (recentIds.size() > MAX_RECENT) {
+            Long oldest = recentIds.poll();
+            if (oldest != null) {
+                actions.remove(oldest);
+            }
+        }
+    }
+
+    /**
+     * 根据ID查找最近的操作
+     * @param actionId 操作ID
+     * @return 操作对象，不存在或已被淘汰时返回null
+     */
+    public static TrackedAction find(long actionId) {
+        return actions.get(actionId);
+    }
+
+    /**
+     * 每帧在游戏主线程中检查动作队列，队列清空时完成所有已执行操作的settled信号
+     */
+    @Override
+    public void receivePostUpdate() {
+        frame++;
+        if (pending.isEmpty() || !isQueueDrained()) {
+            return;
+        }
+        Iterator<TrackedAction> it = pending.iterator();
+        while (it.hasNext()) {
+            TrackedAction action = it.next();
+            if (action.resolved().isDone()) {
+                action.settle();
+                it.remove();
+                firstSeenFrame.remove(action.getActionId());
+                continue;
+            }
+            Long seen = firstSeenFrame.putIfAbsent(action.getActionId(), frame);
+            if (seen != null && frame - seen >= DISCARD_AFTER_FRAMES) {
+                logger.warn("Action {} was discarded before it could run", action.getActionId());
+                action.resolve(new TrackedAction.ActionResult(false, null, "Action discarded before execution"));
+                action.settle();
+                it.remove();
+                firstSeenFrame.remove(action.getActionId());
+            }
+        }
+    }
+
+    /**
+     * 动作队列是否已清空，游戏重新等待玩家操作
+     * 收件箱中还有尚未加入动作队列的命令时不算清空
+     */
+    public static boolean isQueueDrained() {
+        if (!CommandInbox.isEmpty()) {
+            return false;
+        }
+        GameActionManager am = AbstractDungeon.actionManager;
+        if (am == null) {
+            return true;
+        }
+        // 只有在战斗中才需要等待回合结束流程（敌方回合）完成
+        boolean inCombat = AbstractDungeon.getCurrRoom() != null
+                && AbstractDungeon.getCurrRoom().phase == AbstractRoom.RoomPhase.COMBAT;
+        return am.actions.isEmpty()
+                && am.currentAction == null
+                && am.cardQueue.isEmpty()
+                && am.monsterQueue.isEmpty()
+                && !(inCombat && am.turnHasEnded)
+                && am.phase == GameActionManager.Phase.WAITING_ON_USER;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.stssdk.action;
+
+import basemod.interfaces.PreUpdateSubscriber;
+import com.example.stssdk.metrics.Metrics;
+import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 游戏主线程的命令收件箱
+ * HTTP、WebSocket等线程只把要在主线程中执行的任务（例如把操作加入动作队列）放入无锁队列，
+ * 游戏主线程在每帧update之前按数量上限和时间预算取出执行，多余的任务留到下一帧，
+ * 这样动作队列等游戏结构只会在主线程中被修改，突发的大量命令也会被分摊到多帧
+ */
+public class CommandInbox implements PreUpdateSubscriber {
+    private static final Logger logger = LoggerFactory.getLogger(CommandInbox.class);
+
+    private static final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size()需要遍历，单独计数
+    private static final AtomicInteger depth = new AtomicInteger();
+
+    // 统计信息
+    private static final AtomicLong submitted = new AtomicLong();
+    private static final AtomicLong executed = new AtomicLong();
+    private static final AtomicLong failed = new AtomicLong();
+    private static final AtomicLong totalWaitNanos = new AtomicLong();
+    private static final AtomicLong maxWaitNanos = new AtomicLong();
+    private static final AtomicLong deferredFrames = new AtomicLong();
+    private static volatile int maxDepth;
+
+    private final int maxPerFrame;
+    private final long frameBudgetNanos;
+
+    private static final class Entry {
+        final Runnable task;
+        final long enqueuedAt;
+
+        Entry(Runnable task) {
+            this.task = task;
+            this.enqueuedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * @param maxPerFrame 每帧最多执行的任务数
+     * @param frameBudgetMs 每帧用于执行任务的时间预算（毫秒），至少会执行一个任务
+     */
+    public CommandInbox(int maxPerFrame, double frameBudgetMs) {
+        this.maxPerFrame = Math.max(1, maxPerFrame);
+        this.frameBudgetNanos = (long) (frameBudgetMs * 1_000_000);
+    }
+
+    /**
+     * 提交一个在游戏主线程中执行的任务，可在任意线程中调用
+     * @param task 任务
+     */
+    public static void submit(Runnable task) {
+        queue.add(new Entry(task));
+        int d = depth.incrementAndGet();
+        if (d > maxDepth) {
+            maxDepth = d;
+        }
+        submitted.incrementAndGet();
+    }
+
+    /**
+     * 是否没有等待执行的任务
+     */
+    public static boolean isEmpty() {
+        return depth.get() == 0;
+    }
+
+    /**
+     * 每帧在游戏主线程中按预算执行排队的任务
+     */
+    @Override
+    public void receivePreUpdate() {
+        if (depth.get() == 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        int count = 0;
+        Entry entry;
+        while (count < maxPerFrame && (entry = queue.poll()) != null) {
+            depth.decrementAndGet();
+            long wait = System.nanoTime() - entry.enqueuedAt;
+            Metrics.stageNanos("inbox_wait", wait);
+            totalWaitNanos.addAndGet(wait);
+            if (wait > maxWaitNanos.get()) {
+                maxWaitNanos.set(wait);
+            }
+            try {
+                entry.task.run();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                logger.error("Inbox task failed", e);
+            }
+            executed.incrementAndGet();
+            count++;
+            if (System.nanoTime() - start >= frameBudgetNanos) {
+                break;
+            }
+        }
+        if (depth.get() > 0) {
+            deferredFrames.incrementAndGet();
+        }
+    }
+
+    /**
+     * 收件箱的统计信息
+     * @return 包含depth、maxDepth、submitted、executed、failed、avgWaitMs、maxWaitMs、deferredFrames的JSON对象
+     */
+    public static JsonObject stats() {
+        JsonObject obj = new JsonObject();
+        long done = executed.get();
+        obj.addProperty("depth", depth.get());
+        obj.addProperty("maxDepth", maxDepth);
+        obj.addProperty("submitted", submitted.get());
+        obj.addProperty("executed", done);
+        obj.addProperty("failed", failed.get());
+        obj.addProperty("avgWaitMs", done == 0 ? 0 : totalWaitNanos.get() / (double) done / 1_000_000);
+        obj.addProperty("maxWaitMs", maxWaitNanos.get() / 1_000_000.0);
+        obj.addProperty("deferredFrames", deferredFrames.get());
+        return obj;
+    }
+
+    // 当前排队的任务数
+    public static int getDepth() {
+        return depth.get();
+    }
+
+    // 已执行任务的累计等待时间（纳秒）
+    public static long getTotalWaitNanos() {
+        return totalWaitNanos.get();
+    }
+
+    // 已执行的任务总数
+    public static long getExecutedCount() {
+        return executed.get();
+    }
+
+    // 单个任务的最长等待时间（毫秒）
+    public static double getMaxWaitMs() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+}
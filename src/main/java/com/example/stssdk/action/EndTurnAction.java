@@ -1,20 +1,15 @@
 package com.example.stssdk.action;
 
 
-import com.megacrit.cardcrawl.actions.AbstractGameAction;
 import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
 
 
-public class EndTurnAction extends AbstractGameAction {
+public class EndTurnAction extends TrackedAction {
 
 
     @Override
-    public void update() {
-        try {
-            AbstractDungeon.actionManager.addToBottom(new com.megacrit.cardcrawl.actions.common.EndTurnAction());
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        this.isDone = true;
+    protected ActionResult perform() {
+        AbstractDungeon.actionManager.addToBottom(new com.megacrit.cardcrawl.actions.common.EndTurnAction());
+        return new ActionResult(true, "Turn ended", null);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,83 @@
+package com.example.stssdk.action;
+
+import com.example.stssdk.state.CombatIndex;
+import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
+import com.megacrit.cardcrawl.monsters.AbstractMonster;
+import com.megacrit.cardcrawl.monsters.MonsterGroup;
+
+/**
+ * 出牌或使用药水时指定的目标怪物
+ * 可以按句柄（本场战斗中稳定，见CombatIndex）、按怪物列表下标或按怪物ID指定；
+ * 句柄和下标总是唯一确定一个怪物，按ID指定时有多个同ID怪物则选第一个
+ */
+public final class MonsterTarget {
+    private enum Kind { HANDLE, INDEX, ID }
+
+    private final Kind kind;
+    private final int number;
+    private final String id;
+
+    private MonsterTarget(Kind kind, int number, String id) {
+        this.kind = kind;
+        this.number = number;
+        this.id = id;
+    }
+
+    public static MonsterTarget byHandle(int handle) {
+        return new MonsterTarget(Kind.HANDLE, handle, null);
+    }
+
+    public static MonsterTarget byIndex(int index) {
+        return new MonsterTarget(Kind.INDEX, index, null);
+    }
+
+    public static MonsterTarget byId(String id) {
+        return new MonsterTarget(Kind.ID, -1, id);
+    }
+
+    /**
+     * 按ID指定的目标找不到时，是否应退回随机目标（旧的targetId行为）
+     */
+    public boolean fallsBackToRandom() {
+        return kind == Kind.ID;
+    }
+
+    /**
+     * 在游戏主线程中查找目标怪物
+     * @return 存活的目标怪物，找不到或已死亡、逃跑时返回null
+     */
+    public AbstractMonster resolve() {
+        MonsterGroup group = AbstractDungeon.getCurrRoom() != null ? AbstractDungeon.getCurrRoom().monsters : null;
+        if (group == null) {
+            return null;
+        }
+        AbstractMonster m = null;
+        switch (kind) {
+            case HANDLE:
+                m = CombatIndex.monster(number);
+                if (m != null && !group.monsters.contains(m)) {
+                    m = null;
+                }
+                break;
+            case INDEX:
+                m = number >= 0 && number < group.monsters.size() ? group.monsters.get(number) : null;
+                break;
+            case ID:
+                for (AbstractMonster candidate : group.monsters) {
+                    if (candidate.id.equals(id) && !candidate.isDeadOrEscaped()) {
+                        m = candidate;
+                        break;
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+        return m != null && !m.isDeadOrEscaped() ? m : null;
+    }
+
+    @Override
+    public String toString() {
+        return kind == Kind.ID ? "id " + id : kind.name().toLowerCase() + " " + number;
+    }
+}
@@ -1,94 +1,79 @@
 package com.example.stssdk.action;
 
-import com.megacrit.cardcrawl.actions.AbstractGameAction;
+import com.example.stssdk.state.CombatIndex;
 import com.megacrit.cardcrawl.cards.AbstractCard;
 import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
 import com.megacrit.cardcrawl.characters.AbstractPlayer;
 import com.megacrit.cardcrawl.monsters.AbstractMonster;
 import com.megacrit.cardcrawl.actions.common.MakeTempCardInDiscardAction;
-import com.megacrit.cardcrawl.monsters.MonsterGroup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class PlayCardByUuidAction extends AbstractGameAction {
+import java.util.UUID;
+
+public class PlayCardByUuidAction extends TrackedAction {
     private static final Logger logger = LoggerFactory.getLogger(PlayCardByUuidAction.class);
     private final String uuid;
-    private final String targetId;
-    private ActionResult result;
-
-    // 用于存储操作结果的静态内部类
-    public static class ActionResult {
-        public boolean success;
-        public String message;
-        public String error;
-
-        public ActionResult(boolean success, String message, String error) {
-            this.success = success;
-            this.message = message;
-            this.error = error;
-        }
-    }
+    // 构造时解析一次，查找卡牌时不再做字符串比较；格式无效时为null
+    private final UUID parsedUuid;
+    private final MonsterTarget target;
 
     // 默认构造函数，随机选择目标
     public PlayCardByUuidAction(String uuid) {
-        this.uuid = uuid;
-        this.targetId = null;
+        this(uuid, (MonsterTarget) null);
     }
 
     // 支持指定目标的构造函数
     public PlayCardByUuidAction(String uuid, String targetId) {
-        this.uuid = uuid;
-        this.targetId = targetId;
+        this(uuid, targetId != null && !targetId.isEmpty() ? MonsterTarget.byId(targetId) : null);
     }
 
-    // 获取操作结果
-    public ActionResult getResult() {
-        return result;
+    /**
+     * @param uuid 卡牌uuid
+     * @param target 目标怪物，为null时随机选择
+     */
+    public PlayCardByUuidAction(String uuid, MonsterTarget target) {
+        this.uuid = uuid;
+        this.parsedUuid = parseUuid(uuid);
+        this.target = target;
     }
 
     @Override
-    public void update() {
+    protected ActionResult perform() {
+        ActionResult result;
         try {
             AbstractPlayer p = AbstractDungeon.player;
             if (p == null) {
-                result = new ActionResult(false, null, "Player is null");
                 logger.error("Failed to play card with UUID {}: Player is null", uuid);
-                this.isDone = true;
-                return;
+                return new ActionResult(false, null, "Player is null");
+            }
+            if (parsedUuid == null) {
+                return new ActionResult(false, null, "Invalid UUID");
             }
 
             // 查找目标怪物
-            AbstractMonster target = null;
-            if (targetId != null && !targetId.isEmpty()) {
-                MonsterGroup monsters = AbstractDungeon.getCurrRoom() != null ? AbstractDungeon.getCurrRoom().monsters : null;
-                if (monsters != null) {
-                    for (AbstractMonster m : monsters.monsters) {
-                        if (m.id.equals(targetId)) {
-                            target = m;
-                            break;
-                        }
+            AbstractMonster targetMonster = null;
+            if (target != null) {
+                targetMonster = target.resolve();
+                if (targetMonster == null) {
+                    if (!target.fallsBackToRandom()) {
+                        // 按句柄或下标指定的目标不存在或已死亡时不改用随机目标
+                        logger.error("Failed to play card {}: target {} not found or dead", uuid, target);
+                        return new ActionResult(false, null, "Target not found");
                     }
-                }
-                if (target == null) {
-                    logger.warn("Target monster with ID {} not found, using random target", targetId);
+                    logger.warn("Target monster {} not found, using random target", target);
                 }
             }
             
             // 如果没有找到指定目标或未指定目标，则使用随机目标
-            if (target == null) {
-                target = (AbstractDungeon.getCurrRoom() != null && AbstractDungeon.getCurrRoom().monsters != null)
+            if (targetMonster == null) {
+                targetMonster = (AbstractDungeon.getCurrRoom() != null && AbstractDungeon.getCurrRoom().monsters != null)
                         ? AbstractDungeon.getCurrRoom().monsters.getRandomMonster(true)
                         : null;
             }
 
             // 查找要使用的卡牌
-            AbstractCard cardToPlay = null;
-            for (AbstractCard c : p.hand.group) {
-                if (c.uuid.toString().equals(uuid)) {
-                    cardToPlay = c;
-                    break;
-                }
-            }
+            AbstractCard cardToPlay = findInHand(p, parsedUuid);
 
             if (cardToPlay == null) {
                 result = new ActionResult(false, null, "Card not found in hand");
@@ -106,7 +91,7 @@ public class PlayCardByUuidAction extends AbstractGameAction {
                     cardToPlay.applyPowers();
                     
                     // 执行卡牌效果
-                    cardToPlay.use(p, target);
+                    cardToPlay.use(p, targetMonster);
                     
                     // 将卡牌从手牌中移除并添加到弃牌堆
                     p.hand.removeCard(cardToPlay);
@@ -136,6 +121,31 @@ public class PlayCardByUuidAction extends AbstractGameAction {
             result = new ActionResult(false, null, "Error: " + e.getMessage());
             logger.error("Error playing card with UUID {}", uuid, e);
         }
-        this.isDone = true;
+        return result;
+    }
+
+    /**
+     * 在手牌中查找卡牌
+     * 先查CombatIndex的uuid表并确认卡牌仍在手牌中，本帧刚抽到的卡牌还不在表中，此时再扫描手牌
+     */
+    private static AbstractCard findInHand(AbstractPlayer p, UUID uuid) {
+        AbstractCard card = CombatIndex.card(uuid);
+        if (card != null && p.hand.contains(card)) {
+            return card;
+        }
+        for (AbstractCard c : p.hand.group) {
+            if (uuid.equals(c.uuid)) {
+                return c;
+            }
+        }
+        return null;
+    }
+
+    private static UUID parseUuid(String uuid) {
+        try {
+            return uuid != null ? UUID.fromString(uuid) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
-}
\ No newline at end of file
+}
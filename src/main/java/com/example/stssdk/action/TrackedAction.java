@@ -0,0 +1,109 @@
+package com.example.stssdk.action;
+
+import com.megacrit.cardcrawl.actions.AbstractGameAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 可追踪结果的游戏操作基类
+ * 每个操作拥有唯一ID和两个完成信号：
+ * resolved在update()执行完毕（isDone）时完成，
+ * settled在之后动作队列清空、游戏重新等待玩家操作时完成
+ */
+public abstract class TrackedAction extends AbstractGameAction {
+    private static final Logger logger = LoggerFactory.getLogger(TrackedAction.class);
+    private static final AtomicLong nextId = new AtomicLong(1);
+
+    private final long actionId = nextId.getAndIncrement();
+    private final CompletableFuture<ActionResult> resolved = new CompletableFuture<>();
+    private final CompletableFuture<ActionResult> settled = new CompletableFuture<>();
+    private volatile ActionResult result;
+    // 批量执行时的前一个操作，前一个操作失败时本操作会被跳过
+    private volatile TrackedAction previous;
+
+    // 用于存储操作结果的静态内部类
+    public static class ActionResult {
+        public boolean success;
+        public String message;
+        public String error;
+
+        public ActionResult(boolean success, String message, String error) {
+            this.success = success;
+            this.message = message;
+            this.error = error;
+        }
+    }
+
+    /**
+     * 执行具体的游戏操作，在游戏主线程中调用且只调用一次
+     * @return 操作结果
+     */
+    protected abstract ActionResult perform();
+
+    @Override
+    public final void update() {
+        ActionResult r;
+        TrackedAction prev = previous;
+        try {
+            if (prev != null && prev.getResult() != null && !prev.getResult().success) {
+                r = new ActionResult(false, null, "Skipped: previous action " + prev.getActionId() + " failed");
+            } else {
+                r = perform();
+            }
+        } catch (Exception e) {
+            r = new ActionResult(false, null, "Error: " + e.getMessage());
+            logger.error("Error executing action {}", actionId, e);
+        }
+        this.isDone = true;
+        resolve(r);
+    }
+
+    /**
+     * 以指定结果完成resolved信号，重复调用时只有第一次生效
+     * @param r 操作结果
+     */
+    void resolve(ActionResult r) {
+        if (result == null) {
+            result = r;
+        }
+        resolved.complete(result);
+    }
+
+    /**
+     * 完成settled信号，应在resolved之后由ActionTracker调用
+     */
+    void settle() {
+        settled.complete(result);
+    }
+
+    /**
+     * 设置前一个操作，用于stopOnError的批量执行，必须在加入动作队列之前调用
+     * @param previous 同一批次中排在前面的操作
+     */
+    public void skipIfFailed(TrackedAction previous) {
+        this.previous = previous;
+    }
+
+    // 获取操作ID
+    public long getActionId() {
+        return actionId;
+    }
+
+    // 获取操作结果，尚未执行时返回null
+    public ActionResult getResult() {
+        return result;
+    }
+
+    // update()执行完毕时完成的Future
+    public CompletableFuture<ActionResult> resolved() {
+        return resolved;
+    }
+
+    // 动作队列清空后完成的Future
+    public CompletableFuture<ActionResult> settled() {
+        return settled;
+    }
+}
@@ -1,25 +1,37 @@
 package com.example.stssdk.action;
 
-import com.megacrit.cardcrawl.actions.AbstractGameAction;
 import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
 import com.megacrit.cardcrawl.characters.AbstractPlayer;
+import com.megacrit.cardcrawl.core.AbstractCreature;
 import com.megacrit.cardcrawl.potions.AbstractPotion;
 
 /**
  * 使用药水的游戏操作
  * 根据药水的ID或槽位使用对应的药水
  */
-public class UsePotionAction extends AbstractGameAction {
+public class UsePotionAction extends TrackedAction {
     private final String potionId;
     private final Integer slotIndex;
+    // 需要目标的药水（例如火焰药水）的目标怪物，为null时以玩家为目标
+    private final MonsterTarget target;
 
     /**
      * 根据药水ID使用药水
      * @param potionId 药水的ID
      */
     public UsePotionAction(String potionId) {
+        this(potionId, null);
+    }
+
+    /**
+     * 根据药水ID使用药水，并指定目标
+     * @param potionId 药水的ID
+     * @param target 目标怪物，为null时以玩家为目标
+     */
+    public UsePotionAction(String potionId, MonsterTarget target) {
         this.potionId = potionId;
         this.slotIndex = null;
+        this.target = target;
     }
 
     /**
@@ -27,41 +39,55 @@ public class UsePotionAction extends AbstractGameAction {
      * @param slotIndex 药水的槽位索引（从0开始）
      */
     public UsePotionAction(int slotIndex) {
+        this(slotIndex, null);
+    }
+
+    /**
+     * 根据药水槽位使用药水，并指定目标
+     * @param slotIndex 药水的槽位索引（从0开始）
+     * @param target 目标怪物，为null时以玩家为目标
+     */
+    public UsePotionAction(int slotIndex, MonsterTarget target) {
         this.potionId = null;
         this.slotIndex = slotIndex;
+        this.target = target;
     }
 
     @Override
-    public void update() {
-        try {
-            AbstractPlayer p = AbstractDungeon.player;
-            if (p == null) {
-                this.isDone = true;
-                return;
+    protected ActionResult perform() {
+        AbstractPlayer p = AbstractDungeon.player;
+        if (p == null) {
+            return new ActionResult(false, null, "Player is null");
+        }
+        AbstractCreature targetCreature = p;
+        if (target != null) {
+            targetCreature = target.resolve();
+            if (targetCreature == null) {
+                return new ActionResult(false, null, "Target not found");
             }
+        }
 
-            // 如果提供了药水ID，则根据ID查找并使用
-            if (potionId != null) {
-                for (int i = 0; i < p.potions.size(); i++) {
-                    AbstractPotion potion = p.potions.get(i);
-                    if (potion.ID.equals(potionId)) {
-                        potion.use(p);
-                        // 从药水列表中移除已使用的药水
-                        p.potions.remove(i);
-                        break;
-                    }
+        // 如果提供了药水ID，则根据ID查找并使用
+        if (potionId != null) {
+            for (int i = 0; i < p.potions.size(); i++) {
+                AbstractPotion potion = p.potions.get(i);
+                if (potion.ID.equals(potionId)) {
+                    potion.use(targetCreature);
+                    // 从药水列表中移除已使用的药水
+                    p.potions.remove(i);
+                    return new ActionResult(true, "Potion used successfully", null);
                 }
             }
-            // 如果提供了槽位索引，则根据索引使用药水
-            else if (slotIndex != null && slotIndex >= 0 && slotIndex < p.potions.size()) {
-                AbstractPotion potion = p.potions.get(slotIndex);
-                potion.use(p);
-                // 从药水列表中移除已使用的药水
-                p.potions.remove(slotIndex.intValue());
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+            return new ActionResult(false, null, "Potion not found");
+        }
+        // 如果提供了槽位索引，则根据索引使用药水
+        else if (slotIndex != null && slotIndex >= 0 && slotIndex < p.potions.size()) {
+            AbstractPotion potion = p.potions.get(slotIndex);
+            potion.use(targetCreature);
+            // 从药水列表中移除已使用的药水
+            p.potions.remove(slotIndex.intValue());
+            return new ActionResult(true, "Potion used successfully", null);
         }
-        this.isDone = true;
+        return new ActionResult(false, null, "Invalid potion slot");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,242 @@
+package com.example.stssdk.core;
+
+import com.example.stssdk.state.CardSnapshot;
+import com.example.stssdk.state.GameSnapshot;
+import com.example.stssdk.state.MonsterSnapshot;
+import com.example.stssdk.state.PlayerSnapshot;
+import com.example.stssdk.state.PotionSnapshot;
+import com.example.stssdk.state.RelicSnapshot;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+/**
+ * 二进制状态编码器，把快照编码为固定布局的小端字节记录，供强化学习客户端零拷贝解码
+ * 所有字符串ID通过IdInterner转换为整数，对应关系由schema()给出
+ *
+ * 布局：头部（HEADER_SIZE字节）+ 玩家记录 + 手牌 + 抽牌堆 + 弃牌堆 + 遗物 + 药水 + 怪物，
+ * 每个数组的长度写在头部，记录之间没有填充
+ */
+public class BinaryStateEncoder {
+
+    public static final String MIME_TYPE = "application/x-stssdk-state";
+    public static final int MAGIC = 0x31535453; // "STS1"
+    public static final int LAYOUT_VERSION = 1;
+
+    public static final int HEADER_SIZE = 48;
+    public static final int PLAYER_SIZE = 28;
+    public static final int CARD_SIZE = 36;
+    public static final int RELIC_SIZE = 8;
+    public static final int POTION_SIZE = 8;
+    public static final int MONSTER_SIZE = 32;
+
+    // 头部flags
+    public static final int FLAG_HAS_PLAYER = 1;
+    // 怪物flags
+    public static final int MONSTER_DEAD = 1;
+    public static final int MONSTER_ESCAPED = 2;
+
+    // 最近一次编码的结果，按版本号缓存
+    private static volatile Cached cached;
+
+    private static final class Cached {
+        final long version;
+        final byte[] bytes;
+
+        Cached(long version, byte[] bytes) {
+            this.version = version;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * 编码快照，同一版本只编码一次
+     * @param snapshot 游戏快照
+     * @return 编码后的字节数组，调用方不得修改
+     */
+    public static byte[] encode(GameSnapshot snapshot) {
+        Cached c = cached;
+        if (c != null && c.version == snapshot.version) {
+            return c.bytes;
+        }
+        byte[] bytes = encodeUncached(snapshot);
+        cached = new Cached(snapshot.version, bytes);
+        return bytes;
+    }
+
+    private static byte[] encodeUncached(GameSnapshot s) {
+        int size = HEADER_SIZE
+                + (s.hasPlayer() ? PLAYER_SIZE : 0)
+                + (s.hand.size() + s.drawPile.size() + s.discardPile.size()) * CARD_SIZE
+                + s.relics.size() * RELIC_SIZE
+                + s.potions.size() * POTION_SIZE
+                + s.monsters.size() * MONSTER_SIZE;
+        ByteBuffer buf = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+
+        // 头部
+        buf.putInt(MAGIC);
+        buf.putInt(LAYOUT_VERSION);
+        buf.putLong(s.version);
+        buf.putInt(s.hasPlayer() ? FLAG_HAS_PLAYER : 0);
+        buf.putInt(s.turn);
+        buf.putInt(s.hand.size());
+        buf.putInt(s.drawPile.size());
+        buf.putInt(s.discardPile.size());
+        buf.putInt(s.relics.size());
+        buf.putInt(s.potions.size());
+        buf.putInt(s.monsters.size());
+
+        PlayerSnapshot p = s.player;
+        if (p != null) {
+            buf.putInt(p.hp);
+            buf.putInt(p.maxHp);
+            buf.putInt(p.energy);
+            buf.putInt(p.gold);
+            buf.putInt(p.currentBlock);
+            buf.putInt(p.ascensionLevel);
+            buf.putInt(IdInterner.CHARACTERS.intern(p.character));
+        }
+        putCards(buf, s.hand);
+        putCards(buf, s.drawPile);
+        putCards(buf, s.discardPile);
+        for (RelicSnapshot r : s.relics) {
+            buf.putInt(IdInterner.RELICS.intern(r.id));
+            buf.putInt(IdInterner.RELIC_TIERS.intern(r.tier));
+        }
+        for (PotionSnapshot pt : s.potions) {
+            buf.putInt(IdInterner.POTIONS.intern(pt.id));
+            buf.putInt(pt.slot);
+        }
+        for (MonsterSnapshot m : s.monsters) {
+            buf.putInt(IdInterner.MONSTERS.intern(m.id));
+            buf.putInt(m.currentHp);
+            buf.putInt(m.maxHp);
+            buf.putInt(m.currentBlock);
+            buf.putInt((m.isDead ? MONSTER_DEAD : 0) | (m.isEscaped ? MONSTER_ESCAPED : 0));
+            buf.putInt(IdInterner.INTENTS.intern(m.intent));
+            buf.putFloat(m.x);
+            buf.putFloat(m.y);
+        }
+        return buf.array();
+    }
+
+    private static void putCards(ByteBuffer buf, List<CardSnapshot> cards) {
+        for (CardSnapshot c : cards) {
+            buf.putLong(c.uuid.getMostSignificantBits());
+            buf.putLong(c.uuid.getLeastSignificantBits());
+            buf.putInt(IdInterner.CARDS.intern(c.id));
+            buf.putInt(c.cost);
+            buf.putInt(IdInterner.CARD_TYPES.intern(c.type));
+            buf.putInt(IdInterner.RARITIES.intern(c.rarity));
+            buf.putInt(c.upgraded ? 1 : 0);
+        }
+    }
+
+    /**
+     * 描述二进制布局和当前的ID映射，客户端可据此构造numpy结构化dtype
+     * ID映射只会追加，遇到未知编号时重新获取schema即可
+     * @return schema的JSON对象
+     */
+    public static JsonObject schema() {
+        JsonObject schema = new JsonObject();
+        schema.addProperty("mimeType", MIME_TYPE);
+        schema.addProperty("magic", MAGIC);
+        schema.addProperty("layoutVersion", LAYOUT_VERSION);
+        schema.addProperty("byteOrder", "little");
+
+        JsonObject header = record(HEADER_SIZE,
+                "magic", "<u4", "layoutVersion", "<i4", "stateVersion", "<i8", "flags", "<i4", "turn", "<i4",
+                "handCount", "<i4", "drawPileCount", "<i4", "discardPileCount", "<i4",
+                "relicCount", "<i4", "potionCount", "<i4", "monsterCount", "<i4");
+        header.addProperty("hasPlayerFlag", FLAG_HAS_PLAYER);
+        schema.add("header", header);
+
+        JsonObject player = record(PLAYER_SIZE,
+                "hp", "<i4", "maxHp", "<i4", "energy", "<i4", "gold", "<i4", "currentBlock", "<i4",
+                "ascensionLevel", "<i4", "character", "<i4");
+        player.addProperty("presentWhen", "flags & hasPlayerFlag");
+        interned(player, "character", IdInterner.CHARACTERS);
+        schema.add("player", player);
+
+        JsonObject card = record(CARD_SIZE,
+                "uuidMsb", "<i8", "uuidLsb", "<i8", "id", "<i4", "cost", "<i4", "type", "<i4",
+                "rarity", "<i4", "upgraded", "<i4");
+        interned(card, "id", IdInterner.CARDS);
+        interned(card, "type", IdInterner.CARD_TYPES);
+        interned(card, "rarity", IdInterner.RARITIES);
+        JsonObject relic = record(RELIC_SIZE, "id", "<i4", "tier", "<i4");
+        interned(relic, "id", IdInterner.RELICS);
+        interned(relic, "tier", IdInterner.RELIC_TIERS);
+        JsonObject potion = record(POTION_SIZE, "id", "<i4", "slot", "<i4");
+        interned(potion, "id", IdInterner.POTIONS);
+        JsonObject monster = record(MONSTER_SIZE,
+                "id", "<i4", "currentHp", "<i4", "maxHp", "<i4", "currentBlock", "<i4", "flags", "<i4",
+                "intent", "<i4", "x", "<f4", "y", "<f4");
+        monster.addProperty("deadFlag", MONSTER_DEAD);
+        monster.addProperty("escapedFlag", MONSTER_ESCAPED);
+        interned(monster, "id", IdInterner.MONSTERS);
+        interned(monster, "intent", IdInterner.INTENTS);
+
+        // 各数组按顺序紧跟在玩家记录之后
+        JsonArray sections = new JsonArray();
+        sections.add(section("hand", "handCount", card));
+        sections.add(section("drawPile", "drawPileCount", card));
+        sections.add(section("discardPile", "discardPileCount", card));
+        sections.add(section("relics", "relicCount", relic));
+        sections.add(section("potions", "potionCount", potion));
+        sections.add(section("monsters", "monsterCount", monster));
+        schema.add("sections", sections);
+
+        JsonObject ids = new JsonObject();
+        for (IdInterner interner : IdInterner.ALL) {
+            ids.add(interner.getName(), interner.toJson());
+        }
+        schema.add("ids", ids);
+        return schema;
+    }
+
+    // 辅助方法：按字段名和numpy类型依次计算偏移量
+    private static JsonObject record(int size, String... nameAndType) {
+        JsonObject record = new JsonObject();
+        record.addProperty("size", size);
+        JsonArray fields = new JsonArray();
+        int offset = 0;
+        for (int i = 0; i < nameAndType.length; i += 2) {
+            JsonObject field = new JsonObject();
+            field.addProperty("name", nameAndType[i]);
+            field.addProperty("dtype", nameAndType[i + 1]);
+            field.addProperty("offset", offset);
+            fields.add(field);
+            offset += nameAndType[i + 1].endsWith("8") ? 8 : 4;
+        }
+        if (offset != size) {
+            throw new IllegalStateException("record size mismatch: " + offset + " != " + size);
+        }
+        record.add("fields", fields);
+        return record;
+    }
+
+    // 辅助方法：标记字段的值是哪个驻留表的编号，对应ids中的同名表
+    private static void interned(JsonObject record, String field, IdInterner interner) {
+        for (JsonElement f : record.getAsJsonArray("fields")) {
+            JsonObject obj = f.getAsJsonObject();
+            if (field.equals(obj.get("name").getAsString())) {
+                obj.addProperty("ids", interner.getName());
+                return;
+            }
+        }
+        throw new IllegalArgumentException(field);
+    }
+
+    private static JsonObject section(String name, String countField, JsonObject record) {
+        JsonObject section = new JsonObject();
+        section.addProperty("name", name);
+        section.addProperty("countField", countField);
+        section.add("record", record);
+        return section;
+    }
+}
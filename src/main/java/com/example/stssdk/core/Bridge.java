@@ -1,16 +1,36 @@
 package com.example.stssdk.core;
+import com.example.stssdk.action.ActionTracker;
+import com.example.stssdk.action.CommandInbox;
 import com.example.stssdk.action.EndTurnAction;
+import com.example.stssdk.action.MonsterTarget;
 import com.example.stssdk.action.PlayCardByUuidAction;
+import com.example.stssdk.action.TrackedAction;
 import com.example.stssdk.action.UsePotionAction;
+import com.example.stssdk.metrics.Metrics;
+import com.example.stssdk.observation.ObservationEncoder;
+import com.example.stssdk.observation.ObservationLayout;
+import com.example.stssdk.patches.FastMode;
+import com.example.stssdk.savestate.CombatState;
+import com.example.stssdk.savestate.SaveStateStore;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
-import com.megacrit.cardcrawl.characters.AbstractPlayer;
-import com.megacrit.cardcrawl.monsters.MonsterGroup;
 import com.example.stssdk.core.Serializer;
+import com.example.stssdk.state.GameSnapshot;
+import com.example.stssdk.state.LegalActions;
+import com.example.stssdk.state.SnapshotPublisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
 /**
  * 游戏桥接器，负责与游戏核心系统交互
  * 提供获取游戏状态和执行游戏操作的方法
@@ -18,67 +38,77 @@ import org.slf4j.LoggerFactory;
 public class Bridge {
     private static final Logger logger = LoggerFactory.getLogger(Bridge.class);
 
+    // 当前线程正在进行的操作链，开启后新排队的操作会在前一个操作失败时跳过
+    private final ThreadLocal<TrackedAction[]> chain = new ThreadLocal<>();
+
     /**
      * 获取当前游戏状态
+     * 读取SnapshotPublisher在游戏主线程中发布的最新快照，不直接访问游戏对象
      * @return 包含游戏状态信息的JSON对象
      */
     public JsonObject getGameState() {
-        JsonObject state = new JsonObject();
-        try {
-            AbstractPlayer p = AbstractDungeon.player;
-            if (p == null) {
-                state.addProperty("error", "player is null");
-                return state;
-            }
-
-            // 获取玩家基本信息
-            state.addProperty("hp", p.currentHealth);
-            state.addProperty("maxHp", p.maxHealth);
-
-            // 获取能量信息，使用try-catch处理不同版本可能的字段差异
-            try {
-                state.addProperty("energy", p.energy.energy);
-            } catch (Exception ex) {
-                state.addProperty("energy", -1);
-            }
-
-            // 获取手牌信息和各牌堆数量
-            JsonArray hand = Serializer.cardsToJson(p.hand.group);
-            state.add("hand", hand);
-            state.addProperty("drawPileCount", p.drawPile.size());
-            state.addProperty("discardPileCount", p.discardPile.size());
-            
-            // 添加遗物信息
-            JsonArray relics = Serializer.relicsToJson(p.relics);
-            state.add("relics", relics);
-            
-            // 添加药水信息
-            JsonArray potions = Serializer.potionsToJson(p.potions);
-            state.add("potions", potions);
-            
-            // 添加敌方信息
-            MonsterGroup monsters = AbstractDungeon.getCurrRoom() != null ? AbstractDungeon.getCurrRoom().monsters : null;
-            JsonArray monsterInfo = Serializer.monstersToJson(monsters);
-            state.add("monsters", monsterInfo);
+        return getGameState(false);
+    }
 
-            return state;
+    /**
+     * 获取当前游戏状态
+     * @param lean 为true时只包含ID和动态字段，静态信息见/api/dictionary
+     * @return 包含游戏状态信息的JSON对象
+     */
+    public JsonObject getGameState(boolean lean) {
+        try {
+            return Serializer.stateToJson(SnapshotPublisher.latest(), lean);
         } catch (Exception e) {
+            JsonObject state = new JsonObject();
             state.addProperty("error", e.getMessage());
             logger.error("Error getting game state", e);
             return state;
         }
     }
 
+    /**
+     * 获取投影后的游戏状态，只序列化请求的字段，语法见StateProjection
+     * @param lean 默认的元素字段是否使用lean模式
+     * @param fields 只输出的字段，为null时输出默认字段
+     * @param include 追加的字段，可以为null
+     * @return 包含请求字段的JSON对象，参数错误时返回error
+     */
+    public JsonObject getGameState(boolean lean, String fields, String include) {
+        if (fields == null && include == null) {
+            return getGameState(lean);
+        }
+        JsonObject state = new JsonObject();
+        GameSnapshot snapshot = SnapshotPublisher.latest();
+        if (!snapshot.hasPlayer()) {
+            state.addProperty("error", "player is null");
+            return state;
+        }
+        try {
+            byte[] body = StateProjection.compile("/api/state", fields, include, lean).render(snapshot);
+            // 投影的输出通常很小，解析回JsonObject以便嵌入命令响应
+            return JsonParser.parseString(new String(body, StandardCharsets.UTF_8)).getAsJsonObject();
+        } catch (IllegalArgumentException | IOException e) {
+            state.addProperty("error", e.getMessage());
+            return state;
+        }
+    }
+
+    /**
+     * 获取当前状态下的合法操作
+     * 合法操作随快照在游戏主线程中计算，同一版本的快照只计算一次
+     * @param mask 是否同时返回固定长度的掩码
+     * @return 包含合法操作的JSON对象
+     */
+    public JsonObject getLegalActions(boolean mask) {
+        return Serializer.legalActionsToJson(SnapshotPublisher.latest(), mask);
+    }
+
     /**
      * 获取玩家遗物信息
      * @return 包含遗物信息的JSON数组
      */
     public JsonArray getPlayerRelics() {
-        AbstractPlayer p = AbstractDungeon.player;
-        if (p != null) {
-            return Serializer.relicsToJson(p.relics);
-        }
-        return new JsonArray();
+        return Serializer.relicSnapshotsToJson(SnapshotPublisher.latest().relics);
     }
     
     /**
@@ -86,11 +116,7 @@ public class Bridge {
      * @return 包含药水信息的JSON数组
      */
     public JsonArray getPlayerPotions() {
-        AbstractPlayer p = AbstractDungeon.player;
-        if (p != null) {
-            return Serializer.potionsToJson(p.potions);
-        }
-        return new JsonArray();
+        return Serializer.potionSnapshotsToJson(SnapshotPublisher.latest().potions);
     }
     
     /**
@@ -98,8 +124,7 @@ public class Bridge {
      * @return 包含敌方信息的JSON数组
      */
     public JsonArray getMonstersInfo() {
-        MonsterGroup monsters = AbstractDungeon.getCurrRoom() != null ? AbstractDungeon.getCurrRoom().monsters : null;
-        return Serializer.monstersToJson(monsters);
+        return Serializer.monsterSnapshotsToJson(SnapshotPublisher.latest().monsters);
     }
 
     /**
@@ -118,21 +143,37 @@ public class Bridge {
      * @return 包含操作结果的JSON对象
      */
     public JsonObject playCard(String uuid, String targetId) {
-        JsonObject result = new JsonObject();
+        return playCard(uuid, targetId, 0);
+    }
+
+    /**
+     * 播放指定UUID的卡牌，并指定目标
+     * @param uuid 卡牌的唯一标识符
+     * @param targetId 目标怪物的ID
+     * @param waitMs 等待操作完成的最长时间（毫秒），0表示只排队不等待
+     * @return 包含操作结果的JSON对象
+     */
+    public JsonObject playCard(String uuid, String targetId, long waitMs) {
+        return playCard(uuid, targetId != null && !targetId.isEmpty() ? MonsterTarget.byId(targetId) : null, waitMs);
+    }
+
+    /**
+     * 播放指定UUID的卡牌，并按句柄、下标或ID指定目标
+     * @param uuid 卡牌的唯一标识符
+     * @param target 目标怪物，为null时随机选择
+     * @param waitMs 等待操作完成的最长时间（毫秒），0表示只排队不等待
+     * @return 包含操作结果的JSON对象
+     */
+    public JsonObject playCard(String uuid, MonsterTarget target, long waitMs) {
         try {
             logger.info("Request to play card with UUID: {}", uuid);
-            PlayCardByUuidAction action = new PlayCardByUuidAction(uuid, targetId);
-            
-            // 因为是异步执行，我们不能立即获取结果
-            // 所以先返回排队状态，实际结果需要通过其他方式获取
-            AbstractDungeon.actionManager.addToBottom(action);
-            result.addProperty("status", "queued");
+            JsonObject result = queueAction(new PlayCardByUuidAction(uuid, target), waitMs);
             logger.info("Card play action queued");
+            return result;
         } catch (Exception e) {
-            result.addProperty("error", e.getMessage());
             logger.error("Error queueing card play action", e);
+            return errorResult(e);
         }
-        return result;
     }
 
     /**
@@ -140,16 +181,22 @@ public class Bridge {
      * @return 包含操作结果的JSON对象
      */
     public JsonObject endTurn() {
-        JsonObject result = new JsonObject();
+        return endTurn(0);
+    }
+
+    /**
+     * 结束当前回合
+     * @param waitMs 等待操作完成的最长时间（毫秒），0表示只排队不等待
+     * @return 包含操作结果的JSON对象
+     */
+    public JsonObject endTurn(long waitMs) {
         try {
             logger.info("Request to end turn");
-            AbstractDungeon.actionManager.addToBottom(new EndTurnAction());
-            result.addProperty("status", "queued");
+            return queueAction(new EndTurnAction(), waitMs);
         } catch (Exception e) {
-            result.addProperty("error", e.getMessage());
             logger.error("Error ending turn", e);
+            return errorResult(e);
         }
-        return result;
     }
     
     /**
@@ -158,16 +205,34 @@ public class Bridge {
      * @return 包含操作结果的JSON对象
      */
     public JsonObject usePotionById(String potionId) {
-        JsonObject result = new JsonObject();
+        return usePotionById(potionId, 0);
+    }
+
+    /**
+     * 使用指定ID的药水
+     * @param potionId 药水的ID
+     * @param waitMs 等待操作完成的最长时间（毫秒），0表示只排队不等待
+     * @return 包含操作结果的JSON对象
+     */
+    public JsonObject usePotionById(String potionId, long waitMs) {
+        return usePotionById(potionId, null, waitMs);
+    }
+
+    /**
+     * 使用指定ID的药水，并指定目标
+     * @param potionId 药水的ID
+     * @param target 目标怪物，为null时以玩家为目标
+     * @param waitMs 等待操作完成的最长时间（毫秒），0表示只排队不等待
+     * @return 包含操作结果的JSON对象
+     */
+    public JsonObject usePotionById(String potionId, MonsterTarget target, long waitMs) {
         try {
             logger.info("Request to use potion by ID: {}", potionId);
-            AbstractDungeon.actionManager.addToBottom(new UsePotionAction(potionId));
-            result.addProperty("status", "queued");
+            return queueAction(new UsePotionAction(potionId, target), waitMs);
         } catch (Exception e) {
-            result.addProperty("error", e.getMessage());
             logger.error("Error using potion by ID", e);
+            return errorResult(e);
         }
-        return result;
     }
     
     /**
@@ -176,15 +241,319 @@ public class Bridge {
      * @return 包含操作结果的JSON对象
      */
     public JsonObject usePotionBySlot(int slotIndex) {
-        JsonObject result = new JsonObject();
+        return usePotionBySlot(slotIndex, 0);
+    }
+
+    /**
+     * 使用指定槽位的药水
+     * @param slotIndex 药水的槽位索引（从0开始）
+     * @param waitMs 等待操作完成的最长时间（毫秒），0表示只排队不等待
+     * @return 包含操作结果的JSON对象
+     */
+    public JsonObject usePotionBySlot(int slotIndex, long waitMs) {
+        return usePotionBySlot(slotIndex, null, waitMs);
+    }
+
+    /**
+     * 使用指定槽位的药水，并指定目标
+     * @param slotIndex 药水的槽位索引（从0开始）
+     * @param target 目标怪物，为null时以玩家为目标
+     * @param waitMs 等待操作完成的最长时间（毫秒），0表示只排队不等待
+     * @return 包含操作结果的JSON对象
+     */
+    public JsonObject usePotionBySlot(int slotIndex, MonsterTarget target, long waitMs) {
         try {
             logger.info("Request to use potion by slot index: {}", slotIndex);
-            AbstractDungeon.actionManager.addToBottom(new UsePotionAction(slotIndex));
-            result.addProperty("status", "queued");
+            return queueAction(new UsePotionAction(slotIndex, target), waitMs);
         } catch (Exception e) {
-            result.addProperty("error", e.getMessage());
             logger.error("Error using potion by slot index", e);
+            return errorResult(e);
         }
+    }
+
+    /**
+     * 按动作掩码下标执行一个操作，布局见LegalActions，供按下标输出动作的智能体和多实例代理使用
+     * 只有该下标在最新快照中合法时才排队；完成时不附带完整状态，而是附带状态版本号和可选的观测向量
+     * @param index 掩码下标
+     * @param waitMs 等待操作完成的最长时间（毫秒），0表示只排队不等待
+     * @param observation 观测布局，不为null且操作已完成时附带base64编码的观测向量
+     * @return 包含操作结果的JSON对象
+     */
+    public JsonObject step(int index, long waitMs, ObservationLayout observation) {
+        GameSnapshot snapshot = SnapshotPublisher.latest();
+        TrackedAction action = index >= 0 && index < LegalActions.MASK_SIZE && snapshot.legalActions.maskBit(index) == 1
+                ? toAction(snapshot.legalActions, index)
+                : null;
+        if (action == null) {
+            JsonObject result = new JsonObject();
+            result.addProperty("error", "illegal action: " + index);
+            result.addProperty("stateVersion", snapshot.version);
+            return result;
+        }
+        try {
+            JsonObject result = queueAction(action, waitMs, false);
+            if (action.settled().isDone()) {
+                GameSnapshot after = SnapshotPublisher.latest();
+                result.addProperty("stateVersion", after.version);
+                if (observation != null) {
+                    result.addProperty("observation", ObservationEncoder.renderBase64(after, observation));
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            logger.error("Error executing step", e);
+            return errorResult(e);
+        }
+    }
+
+    // 辅助方法：把合法的掩码下标转换为对应的操作，卡牌按UUID出牌，避免排队期间手牌下标变化
+    private static TrackedAction toAction(LegalActions legal, int index) {
+        if (index == LegalActions.END_TURN_INDEX) {
+            return new EndTurnAction();
+        }
+        boolean potion = index >= LegalActions.POTION_OFFSET;
+        int offset = index - (potion ? LegalActions.POTION_OFFSET : LegalActions.CARD_OFFSET);
+        int slot = offset / LegalActions.TARGET_COLUMNS;
+        int column = offset % LegalActions.TARGET_COLUMNS;
+        MonsterTarget target = column > 0 ? MonsterTarget.byIndex(column - 1) : null;
+        if (potion) {
+            return new UsePotionAction(slot, target);
+        }
+        for (LegalActions.Option o : legal.cards) {
+            if (o.index == slot) {
+                return new PlayCardByUuidAction(o.id, target);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 查询之前排队的操作的状态
+     * @param actionId 操作ID
+     * @return 包含操作状态和结果的JSON对象
+     */
+    public JsonObject getActionStatus(long actionId) {
+        TrackedAction action = ActionTracker.find(actionId);
+        if (action == null) {
+            JsonObject result = new JsonObject();
+            result.addProperty("actionId", actionId);
+            result.addProperty("error", "unknown actionId");
+            return result;
+        }
+        return describe(action);
+    }
+
+    /**
+     * 开启或关闭快速模式
+     * @param enabled 是否开启
+     * @param speed deltaTime倍率，为null时保持当前倍率
+     * @return 包含当前快速模式设置的JSON对象
+     */
+    public JsonObject setFastMode(boolean enabled, Float speed) {
+        FastMode.set(enabled, speed != null ? speed : FastMode.getSpeed());
+        JsonObject result = new JsonObject();
+        result.addProperty("status", "ok");
+        result.addProperty("fastMode", FastMode.isEnabled());
+        result.addProperty("speed", FastMode.getSpeed());
+        return result;
+    }
+
+    /**
+     * 保存当前战斗状态到存档仓库
+     * 在游戏主线程中执行，动作队列空闲（等待玩家操作）时才能保存
+     * @param name 存档ID，为null时自动分配
+     * @param waitMs 等待主线程执行的最长时间（毫秒）
+     * @return 包含snapshotId的JSON对象
+     */
+    public JsonObject saveSnapshot(String name, long waitMs) {
+        return callOnGameThread(() -> {
+            JsonObject result = new JsonObject();
+            String error = CombatState.checkCapturable();
+            if (error != null) {
+                result.addProperty("error", error);
+                return result;
+            }
+            String id = SaveStateStore.put(name, CombatState.capture());
+            result.addProperty("status", "ok");
+            result.addProperty("snapshotId", id);
+            result.addProperty("stateVersion", SnapshotPublisher.latest().version);
+            return result;
+        }, waitMs);
+    }
+
+    /**
+     * 恢复存档，存档本身保持不变，可以反复恢复
+     * 恢复后立即发布新快照，响应返回后get_state即可读到恢复后的状态
+     * @param id 存档ID
+     * @param waitMs 等待主线程执行的最长时间（毫秒）
+     * @return 包含恢复后状态版本号的JSON对象
+     */
+    public JsonObject restoreSnapshot(String id, long waitMs) {
+        return callOnGameThread(() -> {
+            JsonObject result = new JsonObject();
+            String error = SaveStateStore.restore(id);
+            if (error != null) {
+                result.addProperty("error", error);
+                return result;
+            }
+            SnapshotPublisher.publish();
+            result.addProperty("status", "ok");
+            result.addProperty("snapshotId", id);
+            result.addProperty("stateVersion", SnapshotPublisher.latest().version);
+            return result;
+        }, waitMs);
+    }
+
+    /**
+     * 删除存档
+     * @param id 存档ID
+     * @return 包含status的JSON对象
+     */
+    public JsonObject deleteSnapshot(String id) {
+        JsonObject result = new JsonObject();
+        if (!SaveStateStore.remove(id)) {
+            result.addProperty("error", "unknown snapshotId");
+            return result;
+        }
+        result.addProperty("status", "ok");
+        return result;
+    }
+
+    /**
+     * 在当前线程开启操作链，之后排队的操作在前一个操作失败时会被跳过
+     * 必须与endChain()成对调用
+     */
+    public void beginChain() {
+        chain.set(new TrackedAction[1]);
+    }
+
+    /**
+     * 结束当前线程的操作链
+     * @return 操作链中最后一个排队的操作，没有时返回null
+     */
+    public TrackedAction endChain() {
+        TrackedAction[] tail = chain.get();
+        chain.remove();
+        return tail != null ? tail[0] : null;
+    }
+
+    /**
+     * 等待指定操作执行完毕且动作队列清空
+     * @param action 要等待的操作
+     * @param waitMs 等待的最长时间（毫秒）
+     * @return 在超时前完成时返回true
+     */
+    public boolean awaitSettled(TrackedAction action, long waitMs) throws InterruptedException {
+        long start = Metrics.start();
+        try {
+            action.settled().get(waitMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            logger.warn("Timed out after {} ms waiting for action {}", waitMs, action.getActionId());
+        } catch (ExecutionException e) {
+            logger.error("Action {} completed exceptionally", action.getActionId(), e);
+        } finally {
+            Metrics.stage("action_wait", start);
+        }
+        return action.settled().isDone();
+    }
+
+    /**
+     * 将操作加入动作队列并登记追踪
+     * waitMs大于0时阻塞到操作执行完且动作队列清空，并在同一响应中返回操作结果和操作后的游戏状态
+     * @param action 要排队的操作
+     * @param waitMs 等待的最长时间（毫秒）
+     * @return 包含操作ID和状态的JSON对象
+     */
+    private JsonObject queueAction(TrackedAction action, long waitMs) throws InterruptedException {
+        return queueAction(action, waitMs, true);
+    }
+
+    /**
+     * 将操作加入动作队列并登记追踪
+     * @param action 要排队的操作
+     * @param waitMs 等待的最长时间（毫秒）
+     * @param includeState 操作完成时是否在响应中附带完整的游戏状态
+     * @return 包含操作ID和状态的JSON对象
+     */
+    private JsonObject queueAction(TrackedAction action, long waitMs, boolean includeState) throws InterruptedException {
+        TrackedAction[] tail = chain.get();
+        if (tail != null) {
+            action.skipIfFailed(tail[0]);
+            tail[0] = action;
+        }
+        // 先登记再提交，保证收件箱执行前get_action就能查到该操作
+        ActionTracker.track(action);
+        CommandInbox.submit(() -> AbstractDungeon.actionManager.addToBottom(action));
+        if (waitMs <= 0) {
+            return describe(action);
+        }
+        boolean settled = awaitSettled(action, waitMs);
+        JsonObject result = describe(action);
+        if (settled && includeState) {
+            result.add("state", getGameState());
+        }
+        return result;
+    }
+
+    /**
+     * 通过命令收件箱在游戏主线程中执行任务并等待结果
+     * @param task 任务
+     * @param waitMs 等待的最长时间（毫秒）
+     * @return 任务返回的JSON对象，超时或失败时返回错误
+     */
+    private JsonObject callOnGameThread(Supplier<JsonObject> task, long waitMs) {
+        CompletableFuture<JsonObject> future = new CompletableFuture<>();
+        CommandInbox.submit(() -> {
+            try {
+                future.complete(task.get());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        JsonObject result;
+        try {
+            result = future.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result = new JsonObject();
+            result.addProperty("error", "timed out waiting for the game thread");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = new JsonObject();
+            result.addProperty("error", "interrupted");
+        } catch (ExecutionException e) {
+            logger.error("Game thread task failed", e.getCause());
+            result = new JsonObject();
+            result.addProperty("error", String.valueOf(e.getCause()));
+        }
+        return result;
+    }
+
+    /**
+     * 描述操作当前所处的阶段
+     * queued：尚未执行；resolved：已执行但动作队列还未清空；completed：执行完毕且队列已清空
+     */
+    private JsonObject describe(TrackedAction action) {
+        JsonObject result = new JsonObject();
+        result.addProperty("actionId", action.getActionId());
+        if (action.settled().isDone()) {
+            result.addProperty("status", "completed");
+        } else if (action.resolved().isDone()) {
+            result.addProperty("status", "resolved");
+        } else {
+            result.addProperty("status", "queued");
+        }
+        TrackedAction.ActionResult actionResult = action.getResult();
+        if (actionResult != null) {
+            result.add("result", Serializer.actionResultToJson(actionResult));
+        }
+        return result;
+    }
+
+    // 辅助方法：将异常转换为错误结果
+    private static JsonObject errorResult(Exception e) {
+        JsonObject result = new JsonObject();
+        result.addProperty("error", e.getMessage());
         return result;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,170 @@
+package com.example.stssdk.core;
+
+import com.example.stssdk.state.CardSnapshot;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按需序列化的JSON输入流，用于分块传输大牌堆
+ * 只有在读取方取走上一批数据后才继续序列化下一批卡牌，内存占用与牌堆大小无关
+ *
+ * 输出格式为一个JSON对象，由若干字段按顺序组成：
+ * 卡牌数组字段（可由多个牌堆首尾相接组成）和整数字段
+ */
+public class ChunkedJsonStream extends InputStream {
+    // 每次序列化的最小字节数
+    private static final int CHUNK_SIZE = 8192;
+
+    private final List<Field> fields = new ArrayList<>();
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(CHUNK_SIZE * 2);
+    private JsonWriter out;
+    private byte[] chunk = new byte[0];
+    private int position;
+
+    // 序列化进度
+    private int fieldIndex = -1;
+    private int pileIndex;
+    private int cardIndex;
+    private boolean finished;
+    private boolean lean;
+
+    private static final class Field {
+        final String name;
+        final List<List<CardSnapshot>> piles;
+        final long number;
+
+        Field(String name, List<List<CardSnapshot>> piles, long number) {
+            this.name = name;
+            this.piles = piles;
+            this.number = number;
+        }
+    }
+
+    /**
+     * 添加一个卡牌数组字段，多个牌堆按顺序写入同一个数组
+     * @param name 字段名
+     * @param piles 组成该数组的牌堆
+     * @return this
+     */
+    @SafeVarargs
+    public final ChunkedJsonStream cards(String name, List<CardSnapshot>... piles) {
+        List<List<CardSnapshot>> list = new ArrayList<>(piles.length);
+        for (List<CardSnapshot> pile : piles) {
+            list.add(pile);
+        }
+        fields.add(new Field(name, list, 0));
+        return this;
+    }
+
+    /**
+     * 卡牌只写ID和动态字段，见StreamingSerializer.writeCard
+     * @param lean 是否使用lean模式
+     * @return this
+     */
+    public ChunkedJsonStream lean(boolean lean) {
+        this.lean = lean;
+        return this;
+    }
+
+    /**
+     * 添加一个整数字段
+     * @param name 字段名
+     * @param value 字段值
+     * @return this
+     */
+    public ChunkedJsonStream number(String name, long value) {
+        fields.add(new Field(name, null, value));
+        return this;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        return chunk[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        int n = Math.min(len, chunk.length - position);
+        System.arraycopy(chunk, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    // 当前块读完时序列化下一块，没有更多数据时返回false
+    private boolean ensureAvailable() throws IOException {
+        while (position >= chunk.length) {
+            if (finished) {
+                return false;
+            }
+            fill();
+        }
+        return true;
+    }
+
+    private void fill() throws IOException {
+        buffer.reset();
+        if (out == null) {
+            out = StreamingSerializer.newWriter(buffer);
+            out.beginObject();
+            fieldIndex = 0;
+        }
+        while (buffer.size() < CHUNK_SIZE && !finished) {
+            if (fieldIndex >= fields.size()) {
+                out.endObject();
+                finished = true;
+                break;
+            }
+            Field field = fields.get(fieldIndex);
+            if (field.piles == null) {
+                out.name(field.name).value(field.number);
+                fieldIndex++;
+                continue;
+            }
+            if (pileIndex == 0 && cardIndex == 0) {
+                out.name(field.name);
+                out.beginArray();
+            }
+            writeCards(field);
+            out.flush();
+        }
+        out.flush();
+        chunk = buffer.toByteArray();
+        position = 0;
+    }
+
+    // 写入当前数组字段的一批卡牌，写完整个字段后前进到下一个字段
+    private void writeCards(Field field) throws IOException {
+        int start = buffer.size();
+        while (pileIndex < field.piles.size()) {
+            List<CardSnapshot> pile = field.piles.get(pileIndex);
+            while (cardIndex < pile.size()) {
+                StreamingSerializer.writeCard(out, pile.get(cardIndex++), lean);
+                if ((cardIndex & 15) == 0) {
+                    out.flush();
+                    if (buffer.size() - start >= CHUNK_SIZE) {
+                        return;
+                    }
+                }
+            }
+            pileIndex++;
+            cardIndex = 0;
+        }
+        out.endArray();
+        pileIndex = 0;
+        fieldIndex++;
+    }
+}
@@ -1,12 +1,28 @@
 package com.example.stssdk.core;
 
 
+import com.example.stssdk.action.ActionTracker;
+import com.example.stssdk.action.MonsterTarget;
+import com.example.stssdk.action.TrackedAction;
+import com.example.stssdk.metrics.Metrics;
+import com.example.stssdk.observation.ObservationLayout;
+import com.example.stssdk.sim.CombatSimulator;
+import com.example.stssdk.state.SnapshotPublisher;
+import com.example.stssdk.trajectory.ReplayEngine;
+import com.example.stssdk.trajectory.TrajectoryReader;
+import com.example.stssdk.trajectory.TrajectoryRecorder;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.megacrit.cardcrawl.helpers.SeedHelper;
 import com.example.stssdk.core.Bridge;
 import com.google.gson.JsonArray;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * 命令执行器，负责处理从HTTP请求中接收的游戏操作命令
  * 将命令转发给Bridge执行实际的游戏操作
@@ -14,15 +30,32 @@ import org.slf4j.LoggerFactory;
 public class CommandExecutor {
     private static final Logger logger = LoggerFactory.getLogger(CommandExecutor.class);
     
+    // 同步模式（"wait":true）下默认和最大等待时间（毫秒）
+    private static final long DEFAULT_WAIT_MS = 5000;
+    private static final long MAX_WAIT_MS = 30000;
+
     // 游戏桥接器，负责与游戏核心系统交互
     private final Bridge bridge = new Bridge();
 
     /**
      * 执行命令的核心方法
+     * 正在记录轨迹时，命令和执行结果会被追加到轨迹日志中
      * @param req 包含命令信息的JSON对象
      * @return 命令执行结果的JSON对象
      */
     public JsonObject execute(JsonObject req) {
+        long start = Metrics.start();
+        long stateVersion = SnapshotPublisher.latest().version;
+        JsonObject res = dispatch(req);
+        TrajectoryRecorder.recordCommand(stateVersion, req, res);
+        if (start != 0) {
+            Metrics.command(req.has("cmd") ? req.get("cmd").getAsString() : null, start, isError(res));
+        }
+        return res;
+    }
+
+    // 根据cmd字段分发命令
+    private JsonObject dispatch(JsonObject req) {
         JsonObject res = new JsonObject();
         try {
             logger.debug("Received command: {}", req.toString());
@@ -36,10 +69,17 @@ public class CommandExecutor {
 
             // 根据命令类型执行不同的操作
             String cmd = req.get("cmd").getAsString();
+            long waitMs = getWaitMs(req);
             switch (cmd) {
                 case "get_state":
                     logger.info("Executing command: get_state");
-                    return bridge.getGameState();
+                    // fields/include与/api/state的同名参数相同，只返回请求的字段
+                    return bridge.getGameState(req.has("lean") && req.get("lean").getAsBoolean(),
+                            req.has("fields") ? req.get("fields").getAsString() : null,
+                            req.has("include") ? req.get("include").getAsString() : null);
+                case "get_legal_actions":
+                    // 所有合法的出牌（含目标）、药水和结束回合，"mask":true时附带固定长度的掩码
+                    return bridge.getLegalActions(req.has("mask") && req.get("mask").getAsBoolean());
                 case "play_card":
                     logger.info("Executing command: play_card");
                     if (!req.has("uuid")) {
@@ -49,27 +89,26 @@ public class CommandExecutor {
                     }
                     String uuid = req.get("uuid").getAsString();
                     
-                    // 检查是否指定了目标
-                    String targetId = null;
-                    if (req.has("targetId")) {
-                        targetId = req.get("targetId").getAsString();
-                        logger.debug("play_card command with targetId: {}", targetId);
+                    // 检查是否指定了目标：targetHandle、targetIndex或targetId
+                    MonsterTarget target = getTarget(req);
+                    if (target != null) {
+                        logger.debug("play_card command with target: {}", target);
                     }
                     
-                    return bridge.playCard(uuid, targetId);
+                    return bridge.playCard(uuid, target, waitMs);
                 case "end_turn":
                     logger.info("Executing command: end_turn");
-                    return bridge.endTurn();
+                    return bridge.endTurn(waitMs);
                 case "use_potion":
                     logger.info("Executing command: use_potion");
                     if (req.has("potionId")) {
                         String potionId = req.get("potionId").getAsString();
                         logger.debug("use_potion command with potionId: {}", potionId);
-                        return bridge.usePotionById(potionId);
+                        return bridge.usePotionById(potionId, getTarget(req), waitMs);
                     } else if (req.has("slotIndex")) {
                         int slotIndex = req.get("slotIndex").getAsInt();
                         logger.debug("use_potion command with slotIndex: {}", slotIndex);
-                        return bridge.usePotionBySlot(slotIndex);
+                        return bridge.usePotionBySlot(slotIndex, getTarget(req), waitMs);
                     } else {
                         res.addProperty("error", "missing potionId or slotIndex");
                         logger.warn("use_potion command missing required fields");
@@ -80,6 +119,61 @@ public class CommandExecutor {
                     JsonArray monsters = bridge.getMonstersInfo();
                     res.add("monsters", monsters);
                     return res;
+                case "get_action":
+                    // 查询之前排队的操作的执行结果
+                    if (!req.has("actionId")) {
+                        res.addProperty("error", "missing actionId");
+                        return res;
+                    }
+                    return bridge.getActionStatus(req.get("actionId").getAsLong());
+                case "set_fast_mode":
+                    // 开启或关闭快速模式：跳过渲染和音效，加速动作计时
+                    logger.info("Executing command: set_fast_mode");
+                    if (!req.has("enabled")) {
+                        res.addProperty("error", "missing enabled");
+                        return res;
+                    }
+                    return bridge.setFastMode(req.get("enabled").getAsBoolean(),
+                            req.has("speed") ? req.get("speed").getAsFloat() : null);
+                case "start_recording":
+                    // 开始记录新的轨迹，可选name作为运行ID
+                    return TrajectoryRecorder.get() != null
+                            ? TrajectoryRecorder.get().start(req.has("name") ? req.get("name").getAsString() : null)
+                            : recorderDisabled();
+                case "stop_recording":
+                    return TrajectoryRecorder.get() != null ? TrajectoryRecorder.get().stop() : recorderDisabled();
+                case "save_snapshot":
+                    // 保存当前战斗状态，可选name作为存档ID，用于树搜索时反复从同一状态分支
+                    return bridge.saveSnapshot(req.has("name") ? req.get("name").getAsString() : null,
+                            waitMs > 0 ? waitMs : DEFAULT_WAIT_MS);
+                case "restore_snapshot":
+                    if (!req.has("snapshotId")) {
+                        res.addProperty("error", "missing snapshotId");
+                        return res;
+                    }
+                    return bridge.restoreSnapshot(req.get("snapshotId").getAsString(),
+                            waitMs > 0 ? waitMs : DEFAULT_WAIT_MS);
+                case "delete_snapshot":
+                    if (!req.has("snapshotId")) {
+                        res.addProperty("error", "missing snapshotId");
+                        return res;
+                    }
+                    return bridge.deleteSnapshot(req.get("snapshotId").getAsString());
+                case "replay":
+                    // 重放已完成的轨迹并与记录的状态比较，可选seed从新的一局开始
+                    return replay(req);
+                case "get_replay":
+                    return ReplayEngine.status();
+                case "step":
+                    // 按动作掩码下标执行操作，observation为true或块列表时附带观测向量
+                    if (!req.has("action")) {
+                        res.addProperty("error", "missing action");
+                        return res;
+                    }
+                    return bridge.step(req.get("action").getAsInt(), waitMs, getObservationLayout(req));
+                case "simulate":
+                    // 在纯Java的战斗模型中推演每个合法操作，不访问游戏对象
+                    return simulate(req);
                 case "execute_action":
                     // 统一的动作执行接口
                     if (!req.has("action_type")) {
@@ -95,28 +189,22 @@ public class CommandExecutor {
                                 res.addProperty("error", "missing uuid for play_card action");
                                 return res;
                             }
-                            bridge.playCard(req.get("uuid").getAsString());
-                            break;
+                            return bridge.playCard(req.get("uuid").getAsString(), getTarget(req), waitMs);
                         case "end_turn":
-                            bridge.endTurn();
-                            break;
+                            return bridge.endTurn(waitMs);
                         case "use_potion":
                             if (req.has("potionId")) {
-                                bridge.usePotionById(req.get("potionId").getAsString());
+                                return bridge.usePotionById(req.get("potionId").getAsString(), getTarget(req), waitMs);
                             } else if (req.has("slotIndex")) {
-                                bridge.usePotionBySlot(req.get("slotIndex").getAsInt());
+                                return bridge.usePotionBySlot(req.get("slotIndex").getAsInt(), getTarget(req), waitMs);
                             } else {
                                 res.addProperty("error", "missing potionId or slotIndex for use_potion action");
                                 return res;
                             }
-                            break;
                         default:
                             res.addProperty("error", "unknown action_type: " + actionType);
                             return res;
                     }
-                    
-                    res.addProperty("status", "queued");
-                    return res;
                 default:
                     res.addProperty("error", "unknown cmd: " + cmd);
                     logger.warn("Unknown command: {}", cmd);
@@ -128,4 +216,228 @@ public class CommandExecutor {
             return res;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 批量执行命令
+     * 所有命令按顺序排入动作队列后才开始等待（流水线执行），避免每条命令一次HTTP往返
+     * 请求可以是命令数组，也可以是包含以下字段的对象：
+     * commands（命令数组）、stopOnError（默认true）、wait、timeoutMs、includeState
+     * @param body 批量请求的JSON
+     * @return 包含每条命令结果的JSON对象
+     */
+    public JsonObject executeBatch(JsonElement body) {
+        JsonObject res = new JsonObject();
+        JsonArray commands;
+        JsonObject options;
+        if (body.isJsonArray()) {
+            commands = body.getAsJsonArray();
+            options = new JsonObject();
+        } else if (body.isJsonObject() && body.getAsJsonObject().has("commands")) {
+            options = body.getAsJsonObject();
+            commands = options.getAsJsonArray("commands");
+        } else {
+            res.addProperty("error", "missing commands");
+            return res;
+        }
+        boolean stopOnError = !options.has("stopOnError") || options.get("stopOnError").getAsBoolean();
+        boolean includeState = options.has("includeState") && options.get("includeState").getAsBoolean();
+        long waitMs = getWaitMs(options);
+        logger.info("Executing batch of {} commands (stopOnError={})", commands.size(), stopOnError);
+
+        JsonArray results = new JsonArray(commands.size());
+        boolean stopped = false;
+        TrackedAction last;
+        // stopOnError时把排队的操作串成一条链，前一个操作执行失败时后面的操作会被跳过
+        if (stopOnError) {
+            bridge.beginChain();
+        }
+        try {
+            for (JsonElement element : commands) {
+                if (stopped) {
+                    JsonObject skipped = new JsonObject();
+                    skipped.addProperty("status", "skipped");
+                    results.add(skipped);
+                    continue;
+                }
+                JsonObject result = element.isJsonObject() ? execute(element.getAsJsonObject()) : invalidCommand();
+                results.add(result);
+                if (stopOnError && result.has("error")) {
+                    stopped = true;
+                }
+            }
+        } finally {
+            last = stopOnError ? bridge.endChain() : null;
+        }
+
+        // 等待整个批次完成后再刷新每条命令的状态
+        if (waitMs > 0) {
+            try {
+                TrackedAction waitFor = last != null ? last : lastQueuedAction(results);
+                boolean settled = waitFor == null || bridge.awaitSettled(waitFor, waitMs);
+                res.addProperty("status", settled ? "completed" : "timeout");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                res.addProperty("status", "interrupted");
+            }
+            for (int i = 0; i < results.size(); i++) {
+                JsonObject result = results.get(i).getAsJsonObject();
+                if (result.has("actionId")) {
+                    results.set(i, bridge.getActionStatus(result.get("actionId").getAsLong()));
+                }
+            }
+        } else {
+            res.addProperty("status", "queued");
+        }
+        res.add("results", results);
+        if (includeState) {
+            res.add("state", bridge.getGameState());
+        }
+        return res;
+    }
+
+    // 辅助方法：找到批次结果中最后一个排队的操作
+    private static TrackedAction lastQueuedAction(JsonArray results) {
+        for (int i = results.size() - 1; i >= 0; i--) {
+            JsonObject result = results.get(i).getAsJsonObject();
+            if (result.has("actionId")) {
+                TrackedAction action = ActionTracker.find(result.get("actionId").getAsLong());
+                if (action != null) {
+                    return action;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 读取目标参数，优先级为targetHandle、targetIndex、targetId
+     * 句柄和下标与get_state中monsters的handle字段和数组下标对应，同ID的怪物也能区分
+     * @param req 命令JSON对象
+     * @return 目标，未指定时返回null
+     */
+    private static MonsterTarget getTarget(JsonObject req) {
+        if (req.has("targetHandle")) {
+            return MonsterTarget.byHandle(req.get("targetHandle").getAsInt());
+        }
+        if (req.has("targetIndex")) {
+            return MonsterTarget.byIndex(req.get("targetIndex").getAsInt());
+        }
+        if (req.has("targetId") && !req.get("targetId").getAsString().isEmpty()) {
+            return MonsterTarget.byId(req.get("targetId").getAsString());
+        }
+        return null;
+    }
+
+    // 辅助方法：命令是否失败（返回了error，或同步模式下操作失败）
+    private static boolean isError(JsonObject res) {
+        if (res.has("error")) {
+            return true;
+        }
+        JsonElement result = res.get("result");
+        return result != null && result.isJsonObject() && result.getAsJsonObject().has("success")
+                && !result.getAsJsonObject().get("success").getAsBoolean();
+    }
+
+    // 辅助方法：读取step命令的observation参数，true表示默认布局，字符串表示块列表
+    private static ObservationLayout getObservationLayout(JsonObject req) {
+        if (!req.has("observation")) {
+            return null;
+        }
+        JsonElement value = req.get("observation");
+        if (value.isJsonPrimitive() && value.getAsJsonPrimitive().isBoolean()) {
+            return value.getAsBoolean() ? ObservationLayout.getDefault() : null;
+        }
+        return ObservationLayout.of(value.getAsString());
+    }
+
+    // 辅助方法：批量请求中不是JSON对象的命令
+    private static JsonObject invalidCommand() {
+        JsonObject res = new JsonObject();
+        res.addProperty("error", "command must be a JSON object");
+        return res;
+    }
+
+    /**
+     * 开始重放轨迹
+     * seed为数字或种子字符串时从主菜单以该种子开始新的一局，fromRecordedSeed为true时使用记录中的种子，
+     * 都未指定时从当前状态开始重放
+     * @param req 命令JSON对象
+     * @return 包含status的JSON对象
+     */
+    private static JsonObject replay(JsonObject req) {
+        JsonObject res = new JsonObject();
+        TrajectoryRecorder recorder = TrajectoryRecorder.get();
+        if (recorder == null) {
+            return recorderDisabled();
+        }
+        if (!req.has("run")) {
+            res.addProperty("error", "missing run");
+            return res;
+        }
+        Path dir = recorder.finishedRun(req.get("run").getAsString());
+        if (dir == null) {
+            res.addProperty("error", "run not found");
+            return res;
+        }
+        Long seed = null;
+        if (req.has("seed")) {
+            JsonPrimitive value = req.getAsJsonPrimitive("seed");
+            seed = value.isNumber() ? value.getAsLong() : SeedHelper.getLong(value.getAsString());
+        } else if (req.has("fromRecordedSeed") && req.get("fromRecordedSeed").getAsBoolean()) {
+            JsonObject meta = TrajectoryReader.metadata(dir);
+            if (meta == null || !meta.has("seed")) {
+                res.addProperty("error", "run has no recorded seed");
+                return res;
+            }
+            seed = meta.get("seed").getAsLong();
+        }
+        return ReplayEngine.start(dir, seed,
+                req.has("character") ? req.get("character").getAsString() : null,
+                req.has("ascension") ? req.get("ascension").getAsInt() : 0,
+                req.has("timeoutMs") ? Math.min(req.get("timeoutMs").getAsLong(), MAX_WAIT_MS) : DEFAULT_WAIT_MS,
+                !req.has("stopOnDivergence") || req.get("stopOnDivergence").getAsBoolean());
+    }
+
+    /**
+     * 推演当前快照的合法操作
+     * 参数：rollouts（每个操作的推演次数）、maxTurns（每次推演最多进行的回合数）、
+     * seed（随机种子，省略时随机生成并在结果中返回）、actions（只评估这些掩码下标）、timeMs（时间上限）
+     */
+    private static JsonObject simulate(JsonObject req) {
+        int[] only = null;
+        if (req.has("actions")) {
+            JsonArray arr = req.getAsJsonArray("actions");
+            only = new int[arr.size()];
+            for (int i = 0; i < only.length; i++) {
+                only[i] = arr.get(i).getAsInt();
+            }
+        }
+        return CombatSimulator.simulate(SnapshotPublisher.latest(),
+                req.has("rollouts") ? req.get("rollouts").getAsInt() : CombatSimulator.DEFAULT_ROLLOUTS,
+                req.has("maxTurns") ? req.get("maxTurns").getAsInt() : CombatSimulator.DEFAULT_MAX_TURNS,
+                req.has("seed") ? req.get("seed").getAsLong() : ThreadLocalRandom.current().nextLong(),
+                only,
+                req.has("timeMs") ? req.get("timeMs").getAsLong() : CombatSimulator.DEFAULT_TIME_MS);
+    }
+
+    // 辅助方法：轨迹记录器未启用时的错误
+    private static JsonObject recorderDisabled() {
+        JsonObject res = new JsonObject();
+        res.addProperty("error", "trajectory recorder disabled");
+        return res;
+    }
+
+    /**
+     * 读取同步模式参数
+     * "wait":true时返回等待时间（可用"timeoutMs"指定），否则返回0表示只排队不等待
+     * @param req 命令JSON对象
+     * @return 等待时间（毫秒）
+     */
+    private static long getWaitMs(JsonObject req) {
+        if (!req.has("wait") || !req.get("wait").getAsBoolean()) {
+            return 0;
+        }
+        long timeoutMs = req.has("timeoutMs") ? req.get("timeoutMs").getAsLong() : DEFAULT_WAIT_MS;
+        return Math.max(1, Math.min(timeoutMs, MAX_WAIT_MS));
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.stssdk.core;
+
+import com.example.stssdk.state.CardSnapshot;
+import com.example.stssdk.state.GameSnapshot;
+import com.example.stssdk.state.MonsterSnapshot;
+import com.example.stssdk.state.PotionSnapshot;
+import com.example.stssdk.state.RelicSnapshot;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 增量状态编码器，对比新快照和上一次发送给客户端的快照，只输出变化的部分
+ * 手牌、抽牌堆、弃牌堆按卡牌uuid对应，遗物按relicId对应，药水按槽位对应，怪物按下标对应
+ *
+ * 完整状态格式：{"version":V,"full":true,"state":{player,hand,drawPile,discardPile,relics,potions,monsters,turn,screen}}
+ * 增量格式：{"version":V,"baseVersion":B,"full":false, ...只包含发生变化的部分}
+ * 每个实例对应一个客户端，非线程安全
+ */
+public class DeltaEncoder {
+
+    // 上一次发送给客户端的快照，为null时下一次输出完整状态
+    private GameSnapshot lastSent;
+
+    /**
+     * 编码新快照，并记录为已发送
+     * @param current 当前快照
+     * @param resync 为true时强制输出完整状态
+     * @return 完整状态或增量补丁
+     */
+    public JsonObject encode(GameSnapshot current, boolean resync) {
+        JsonObject out = resync || lastSent == null || !lastSent.hasPlayer() || !current.hasPlayer()
+                ? full(current)
+                : diff(lastSent, current);
+        lastSent = current;
+        return out;
+    }
+
+    /**
+     * 强制下一次编码输出完整状态
+     */
+    public void reset() {
+        lastSent = null;
+    }
+
+    /**
+     * 输出完整状态，客户端收到后应丢弃本地状态
+     * @param snapshot 游戏快照
+     * @return 完整状态的JSON对象
+     */
+    public static JsonObject full(GameSnapshot snapshot) {
+        JsonObject out = new JsonObject();
+        out.addProperty("version", snapshot.version);
+        out.addProperty("full", true);
+        if (!snapshot.hasPlayer()) {
+            out.addProperty("error", "player is null");
+            return out;
+        }
+        JsonObject state = new JsonObject();
+        state.add("player", Serializer.playerToJson(snapshot.player));
+        state.add("hand", Serializer.cardSnapshotsToJson(snapshot.hand));
+        state.add("drawPile", Serializer.cardSnapshotsToJson(snapshot.drawPile));
+        state.add("discardPile", Serializer.cardSnapshotsToJson(snapshot.discardPile));
+        state.add("relics", Serializer.relicSnapshotsToJson(snapshot.relics));
+        state.add("potions", Serializer.potionSnapshotsToJson(snapshot.potions));
+        state.add("monsters", Serializer.monsterSnapshotsToJson(snapshot.monsters));
+        state.addProperty("turn", snapshot.turn);
+        state.addProperty("screen", snapshot.screen);
+        out.add("state", state);
+        return out;
+    }
+
+    /**
+     * 计算两个快照之间的增量补丁
+     * @param base 客户端持有的快照
+     * @param current 当前快照
+     * @return 增量补丁，两个快照相同时只包含版本号
+     */
+    public static JsonObject diff(GameSnapshot base, GameSnapshot current) {
+        JsonObject out = new JsonObject();
+        out.addProperty("version", current.version);
+        out.addProperty("baseVersion", base.version);
+        out.addProperty("full", false);
+        if (base.version == current.version) {
+            return out;
+        }
+        if (!Objects.equals(base.player, current.player)) {
+            out.add("player", changedFields(Serializer.playerToJson(base.player), Serializer.playerToJson(current.player)));
+        }
+        putIfNotEmpty(out, "hand", diffCards(base.hand, current.hand));
+        putIfNotEmpty(out, "drawPile", diffCards(base.drawPile, current.drawPile));
+        putIfNotEmpty(out, "discardPile", diffCards(base.discardPile, current.discardPile));
+        putIfNotEmpty(out, "relics", diffRelics(base.relics, current.relics));
+        putIfNotEmpty(out, "potions", diffPotions(base.potions, current.potions));
+        putIfNotEmpty(out, "monsters", diffMonsters(base.monsters, current.monsters));
+        if (base.turn != current.turn) {
+            out.addProperty("turn", current.turn);
+        }
+        if (!Objects.equals(base.screen, current.screen)) {
+            out.addProperty("screen", current.screen);
+        }
+        return out;
+    }
+
+    /**
+     * 卡牌列表的增量：add（新增的完整卡牌）、remove（移除的uuid）、update（uuid加变化的字段），
+     * 应用增删后顺序与当前顺序不一致时额外给出order（完整的uuid顺序）
+     */
+    private static JsonObject diffCards(List<CardSnapshot> before, List<CardSnapshot> after) {
+        JsonObject patch = new JsonObject();
+        if (before.equals(after)) {
+            return patch;
+        }
+        Map<UUID, CardSnapshot> old = new HashMap<>(before.size() * 2);
+        for (CardSnapshot c : before) {
+            old.put(c.uuid, c);
+        }
+        Set<UUID> present = new HashSet<>(after.size() * 2);
+        JsonArray add = new JsonArray();
+        JsonArray update = new JsonArray();
+        List<UUID> expectedOrder = new ArrayList<>(after.size());
+        for (CardSnapshot c : after) {
+            present.add(c.uuid);
+            CardSnapshot prev = old.get(c.uuid);
+            if (prev == null) {
+                add.add(Serializer.cardToJson(c));
+            } else if (!prev.equals(c)) {
+                JsonObject changed = changedFields(Serializer.cardToJson(prev), Serializer.cardToJson(c));
+                changed.addProperty("uuid", c.uuidString);
+                update.add(changed);
+            }
+        }
+        JsonArray remove = new JsonArray();
+        for (CardSnapshot c : before) {
+            if (present.contains(c.uuid)) {
+                expectedOrder.add(c.uuid);
+            } else {
+                remove.add(c.uuidString);
+            }
+        }
+        for (CardSnapshot c : after) {
+            if (!old.containsKey(c.uuid)) {
+                expectedOrder.add(c.uuid);
+            }
+        }
+        putIfNotEmpty(patch, "add", add);
+        putIfNotEmpty(patch, "remove", remove);
+        putIfNotEmpty(patch, "update", update);
+        boolean sameOrder = true;
+        for (int i = 0; i < after.size(); i++) {
+            if (!after.get(i).uuid.equals(expectedOrder.get(i))) {
+                sameOrder = false;
+                break;
+            }
+        }
+        if (!sameOrder) {
+            JsonArray order = new JsonArray(after.size());
+            for (CardSnapshot c : after) {
+                order.add(c.uuidString);
+            }
+            patch.add("order", order);
+        }
+        return patch;
+    }
+
+    /**
+     * 遗物列表的增量，按relicId对应；存在重复id或顺序变化时改为replace整个列表
+     */
+    private static JsonObject diffRelics(List<RelicSnapshot> before, List<RelicSnapshot> after) {
+        JsonObject patch = new JsonObject();
+        if (before.equals(after)) {
+            return patch;
+        }
+        Map<String, RelicSnapshot> old = new HashMap<>();
+        for (RelicSnapshot r : before) {
+            if (old.put(r.id, r) != null) {
+                patch.add("replace", Serializer.relicSnapshotsToJson(after));
+                return patch;
+            }
+        }
+        Set<String> present = new HashSet<>();
+        JsonArray add = new JsonArray();
+        JsonArray update = new JsonArray();
+        for (RelicSnapshot r : after) {
+            if (!present.add(r.id)) {
+                patch.add("replace", Serializer.relicSnapshotsToJson(after));
+                return patch;
+            }
+            RelicSnapshot prev = old.get(r.id);
+            if (prev == null) {
+                add.add(Serializer.relicToJson(r));
+            } else if (!prev.equals(r)) {
+                JsonObject changed = changedFields(Serializer.relicToJson(prev), Serializer.relicToJson(r));
+                changed.addProperty("id", r.id);
+                update.add(changed);
+            }
+        }
+        JsonArray remove = new JsonArray();
+        for (RelicSnapshot r : before) {
+            if (!present.contains(r.id)) {
+                remove.add(r.id);
+            }
+        }
+        putIfNotEmpty(patch, "add", add);
+        putIfNotEmpty(patch, "remove", remove);
+        putIfNotEmpty(patch, "update", update);
+        return patch;
+    }
+
+    /**
+     * 药水列表的增量，按槽位下标对应：update给出变化槽位的完整药水，size给出新的槽位数量
+     */
+    private static JsonObject diffPotions(List<PotionSnapshot> before, List<PotionSnapshot> after) {
+        JsonObject patch = new JsonObject();
+        if (before.equals(after)) {
+            return patch;
+        }
+        JsonArray update = new JsonArray();
+        for (int i = 0; i < after.size(); i++) {
+            if (i >= before.size() || !before.get(i).equals(after.get(i))) {
+                JsonObject entry = Serializer.potionToJson(after.get(i));
+                entry.addProperty("index", i);
+                update.add(entry);
+            }
+        }
+        putIfNotEmpty(patch, "update", update);
+        if (before.size() != after.size()) {
+            patch.addProperty("size", after.size());
+        }
+        return patch;
+    }
+
+    /**
+     * 怪物列表的增量，按下标对应：update给出下标和变化的字段，add给出新增的完整怪物，size给出新的数量
+     */
+    private static JsonObject diffMonsters(List<MonsterSnapshot> before, List<MonsterSnapshot> after) {
+        JsonObject patch = new JsonObject();
+        if (before.equals(after)) {
+            return patch;
+        }
+        JsonArray add = new JsonArray();
+        JsonArray update = new JsonArray();
+        for (int i = 0; i < after.size(); i++) {
+            if (i >= before.size()) {
+                JsonObject entry = Serializer.monsterToJson(after.get(i));
+                entry.addProperty("index", i);
+                add.add(entry);
+            } else if (!before.get(i).equals(after.get(i))) {
+                JsonObject changed = changedFields(Serializer.monsterToJson(before.get(i)), Serializer.monsterToJson(after.get(i)));
+                changed.addProperty("index", i);
+                update.add(changed);
+            }
+        }
+        putIfNotEmpty(patch, "add", add);
+        putIfNotEmpty(patch, "update", update);
+        if (before.size() != after.size()) {
+            patch.addProperty("size", after.size());
+        }
+        return patch;
+    }
+
+    /**
+     * 逐字段比较两个JSON对象，返回新对象中发生变化的字段
+     * 旧对象有而新对象没有的字段以null表示
+     */
+    private static JsonObject changedFields(JsonObject before, JsonObject after) {
+        JsonObject changed = new JsonObject();
+        for (Map.Entry<String, JsonElement> e : after.entrySet()) {
+            if (!e.getValue().equals(before.get(e.getKey()))) {
+                changed.add(e.getKey(), e.getValue());
+            }
+        }
+        for (String key : before.keySet()) {
+            if (!after.has(key)) {
+                changed.add(key, null);
+            }
+        }
+        return changed;
+    }
+
+    private static void putIfNotEmpty(JsonObject target, String key, JsonObject value) {
+        if (value.size() > 0) {
+            target.add(key, value);
+        }
+    }
+
+    private static void putIfNotEmpty(JsonObject target, String key, JsonArray value) {
+        if (value.size() > 0) {
+            target.add(key, value);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.stssdk.core;
+
+import com.google.gson.JsonArray;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 字符串ID驻留表，为卡牌ID、遗物ID、药水ID、意图等分配稳定的整数编号
+ * 编号从1开始，0表示空值；同一进程内编号不会改变，可以安全地在多个线程中使用
+ */
+public class IdInterner {
+
+    public static final IdInterner CARDS = new IdInterner("card");
+    public static final IdInterner RELICS = new IdInterner("relic");
+    public static final IdInterner POTIONS = new IdInterner("potion");
+    public static final IdInterner MONSTERS = new IdInterner("monster");
+    public static final IdInterner INTENTS = new IdInterner("intent");
+    public static final IdInterner CARD_TYPES = new IdInterner("cardType");
+    public static final IdInterner RARITIES = new IdInterner("rarity");
+    public static final IdInterner RELIC_TIERS = new IdInterner("relicTier");
+    public static final IdInterner CHARACTERS = new IdInterner("character");
+
+    // 所有驻留表，用于生成schema
+    public static final IdInterner[] ALL = {
+            CARDS, RELICS, POTIONS, MONSTERS, INTENTS, CARD_TYPES, RARITIES, RELIC_TIERS, CHARACTERS
+    };
+
+    private final String name;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    // 下标即编号，下标0对应null
+    private final List<String> values = new ArrayList<>();
+
+    private IdInterner(String name) {
+        this.name = name;
+        values.add(null);
+    }
+
+    /**
+     * 按名称查找驻留表
+     * @param name 驻留表名称，例如"card"
+     * @return 驻留表，不存在时返回null
+     */
+    public static IdInterner byName(String name) {
+        for (IdInterner interner : ALL) {
+            if (interner.name.equals(name)) {
+                return interner;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取字符串对应的编号，第一次出现时分配新编号
+     * @param value 字符串，为null时返回0
+     * @return 整数编号
+     */
+    public int intern(String value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                values.add(value);
+                ids.put(value, id);
+            }
+            return id;
+        }
+    }
+
+    // 驻留表名称
+    public String getName() {
+        return name;
+    }
+
+    // 已分配的编号数量（包括0）
+    public synchronized int size() {
+        return values.size();
+    }
+
+    /**
+     * 导出编号到字符串的映射，数组下标即编号
+     * @return JSON数组，第0个元素为null
+     */
+    public synchronized JsonArray toJson() {
+        JsonArray arr = new JsonArray(values.size());
+        for (String v : values) {
+            arr.add(v);
+        }
+        return arr;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.stssdk.core;
+
+import com.evacipated.cardcrawl.modthespire.Loader;
+import com.evacipated.cardcrawl.modthespire.ModInfo;
+import com.example.stssdk.observation.Vocabulary;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.megacrit.cardcrawl.cards.AbstractCard;
+import com.megacrit.cardcrawl.core.CardCrawlGame;
+import com.megacrit.cardcrawl.helpers.CardLibrary;
+import com.megacrit.cardcrawl.helpers.PotionHelper;
+import com.megacrit.cardcrawl.helpers.RelicLibrary;
+import com.megacrit.cardcrawl.potions.AbstractPotion;
+import com.megacrit.cardcrawl.relics.AbstractRelic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 静态元数据字典，包含所有卡牌、遗物、药水的名称、描述等运行期间不会变化的信息
+ * 在游戏初始化完成后于主线程中构建一次，之后HTTP线程只读取缓存的响应体；
+ * ETag由游戏版本、已加载Mod及其版本和字典内容共同决定，游戏或Mod更新后自动失效
+ * 客户端获取一次字典后，即可使用lean模式只接收ID和动态字段
+ */
+public class MetadataDictionary {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetadataDictionary.class);
+
+    private static volatile MetadataDictionary current;
+
+    public final String etag;
+    public final byte[] body;
+
+    private MetadataDictionary(String etag, byte[] body) {
+        this.etag = etag;
+        this.body = body;
+    }
+
+    /**
+     * 获取已构建的字典
+     * @return 字典，尚未构建时返回null
+     */
+    public static MetadataDictionary get() {
+        return current;
+    }
+
+    /**
+     * 从卡牌库、遗物库和药水库构建字典，必须在游戏主线程中、各个库加载完成后调用
+     * 构建时会把所有ID预先登记到IdInterner，使二进制编码中的编号在相同Mod组合下保持一致，
+     * 同时构建观测向量使用的Vocabulary
+     */
+    public static void build() {
+        JsonObject dict = new JsonObject();
+        dict.addProperty("gameVersion", CardCrawlGame.TRUE_VERSION_NUM);
+        dict.add("mods", modsToJson());
+
+        JsonObject cards = new JsonObject();
+        for (AbstractCard c : CardLibrary.getAllCards()) {
+            try {
+                JsonObject obj = new JsonObject();
+                obj.addProperty("intId", IdInterner.CARDS.intern(c.cardID));
+                obj.addProperty("name", c.name);
+                obj.addProperty("type", c.type.name());
+                obj.addProperty("rarity", c.rarity.name());
+                obj.addProperty("color", c.color.name());
+                obj.addProperty("target", c.target.name());
+                obj.addProperty("cost", c.cost);
+                obj.addProperty("description", c.rawDescription);
+                cards.add(c.cardID, obj);
+            } catch (Exception e) {
+                logger.warn("Skipping card in dictionary: {}", e.toString());
+            }
+        }
+        dict.add("cards", cards);
+
+        JsonObject relics = new JsonObject();
+        for (AbstractRelic r : allRelics().values()) {
+            try {
+                JsonObject obj = new JsonObject();
+                obj.addProperty("intId", IdInterner.RELICS.intern(r.relicId));
+                obj.addProperty("name", r.name);
+                obj.addProperty("description", r.description);
+                obj.addProperty("tier", r.tier.name());
+                relics.add(r.relicId, obj);
+            } catch (Exception e) {
+                logger.warn("Skipping relic in dictionary: {}", e.toString());
+            }
+        }
+        dict.add("relics", relics);
+
+        JsonObject potions = new JsonObject();
+        for (String id : PotionHelper.getPotions(null, true)) {
+            try {
+                AbstractPotion p = PotionHelper.getPotion(id);
+                if (p == null) {
+                    continue;
+                }
+                JsonObject obj = new JsonObject();
+                obj.addProperty("intId", IdInterner.POTIONS.intern(p.ID));
+                obj.addProperty("name", p.name);
+                obj.addProperty("description", p.description);
+                obj.addProperty("rarity", p.rarity.name());
+                potions.add(p.ID, obj);
+            } catch (Exception e) {
+                logger.warn("Skipping potion in dictionary: {}", e.toString());
+            }
+        }
+        dict.add("potions", potions);
+
+        byte[] body = dict.toString().getBytes(StandardCharsets.UTF_8);
+        String etag = "\"" + Integer.toHexString(Arrays.hashCode(body)) + "\"";
+        current = new MetadataDictionary(etag, body);
+        // 观测向量的固定词表使用同样的ID集合
+        Vocabulary.build(cards.keySet(), relics.keySet(), potions.keySet());
+        logger.info("Built metadata dictionary: {} cards, {} relics, {} potions",
+                cards.size(), relics.size(), potions.size());
+    }
+
+    // 辅助方法：列出已加载的Mod及其版本
+    private static JsonArray modsToJson() {
+        JsonArray arr = new JsonArray();
+        try {
+            for (ModInfo info : Loader.MODINFOS) {
+                JsonObject obj = new JsonObject();
+                obj.addProperty("id", info.ID);
+                obj.addProperty("version", String.valueOf(info.ModVersion));
+                arr.add(obj);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to read mod list: {}", e.toString());
+        }
+        return arr;
+    }
+
+    // 辅助方法：合并遗物库中的各个列表，按relicId去重并保持顺序
+    private static Map<String, AbstractRelic> allRelics() {
+        List<List<AbstractRelic>> lists = new ArrayList<>();
+        lists.add(RelicLibrary.starterList);
+        lists.add(RelicLibrary.commonList);
+        lists.add(RelicLibrary.uncommonList);
+        lists.add(RelicLibrary.rareList);
+        lists.add(RelicLibrary.bossList);
+        lists.add(RelicLibrary.shopList);
+        lists.add(RelicLibrary.specialList);
+        lists.add(RelicLibrary.redList);
+        lists.add(RelicLibrary.greenList);
+        lists.add(RelicLibrary.blueList);
+        lists.add(RelicLibrary.whiteList);
+        Map<String, AbstractRelic> relics = new LinkedHashMap<>();
+        for (List<AbstractRelic> list : lists) {
+            for (AbstractRelic r : list) {
+                relics.putIfAbsent(r.relicId, r);
+            }
+        }
+        return relics;
+    }
+}
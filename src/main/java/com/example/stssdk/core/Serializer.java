@@ -8,6 +8,14 @@ import com.megacrit.cardcrawl.relics.AbstractRelic;
 import com.megacrit.cardcrawl.potions.AbstractPotion;
 import com.megacrit.cardcrawl.monsters.AbstractMonster;
 import com.megacrit.cardcrawl.monsters.MonsterGroup;
+import com.example.stssdk.action.TrackedAction;
+import com.example.stssdk.state.CardSnapshot;
+import com.example.stssdk.state.GameSnapshot;
+import com.example.stssdk.state.LegalActions;
+import com.example.stssdk.state.MonsterSnapshot;
+import com.example.stssdk.state.PlayerSnapshot;
+import com.example.stssdk.state.PotionSnapshot;
+import com.example.stssdk.state.RelicSnapshot;
 
 
 import java.util.List;
@@ -27,15 +35,7 @@ public class Serializer {
         JsonArray arr = new JsonArray();
         for (AbstractCard c : cards) {
             try {
-                JsonObject obj = new JsonObject();
-                obj.addProperty("uuid", c.uuid.toString());
-                obj.addProperty("id", c.cardID);
-                obj.addProperty("name", c.name);
-                obj.addProperty("cost", c.cost);
-                obj.addProperty("type", c.type.name());
-                obj.addProperty("rarity", c.rarity.name());
-                obj.addProperty("upgraded", c.upgraded);
-                arr.add(obj);
+                arr.add(cardToJson(CardSnapshot.of(c)));
             } catch (Exception e) {
 // 忽略无法序列化的卡
             }
@@ -51,12 +51,7 @@ public class Serializer {
         JsonArray arr = new JsonArray();
         for (AbstractRelic r : relics) {
             try {
-                JsonObject obj = new JsonObject();
-                obj.addProperty("id", r.relicId);
-                obj.addProperty("name", r.name);
-                obj.addProperty("description", r.description);
-                obj.addProperty("tier", r.tier.name());
-                arr.add(obj);
+                arr.add(relicToJson(RelicSnapshot.of(r)));
             } catch (Exception e) {
                 // 忽略无法序列化的遗物
             }
@@ -73,13 +68,7 @@ public class Serializer {
         JsonArray arr = new JsonArray();
         for (AbstractPotion p : potions) {
             try {
-                JsonObject obj = new JsonObject();
-                obj.addProperty("id", p.ID);
-                obj.addProperty("name", p.name);
-                obj.addProperty("description", p.description);
-                // obj.addProperty("color", p.potionColor.name());
-                obj.addProperty("slot", p.slot);
-                arr.add(obj);
+                arr.add(potionToJson(PotionSnapshot.of(p)));
             } catch (Exception e) {
                 // 忽略无法序列化的药水
             }
@@ -97,25 +86,7 @@ public class Serializer {
         if (monsters != null) {
             for (AbstractMonster m : monsters.monsters) {
                 try {
-                    JsonObject obj = new JsonObject();
-                    obj.addProperty("id", m.id);
-                    obj.addProperty("name", m.name);
-                    obj.addProperty("currentHp", m.currentHealth);
-                    obj.addProperty("maxHp", m.maxHealth);
-                    obj.addProperty("currentBlock", m.currentBlock);
-                    obj.addProperty("isDead", m.isDeadOrEscaped());
-                    obj.addProperty("isEscaped", m.isEscaping);
-                    
-                    // 添加怪物的下次攻击信息
-                    if (m.intent != null) {
-                        obj.addProperty("intent", m.intent.name());
-                    }
-                    
-                    // 添加怪物的位置信息
-                    obj.addProperty("x", m.drawX);
-                    obj.addProperty("y", m.drawY);
-                    
-                    arr.add(obj);
+                    arr.add(monsterToJson(MonsterSnapshot.of(m)));
                 } catch (Exception e) {
                     // 忽略无法序列化的怪物
                 }
@@ -123,4 +94,277 @@ public class Serializer {
         }
         return arr;
     }
-}
\ No newline at end of file
+
+    /**
+     * 将完整游戏快照转换为get_state命令的JSON格式
+     * @param snapshot 游戏快照
+     * @return 包含游戏状态信息的JSON对象
+     */
+    public static JsonObject stateToJson(GameSnapshot snapshot) {
+        return stateToJson(snapshot, false);
+    }
+
+    /**
+     * 将完整游戏快照转换为get_state命令的JSON格式
+     * lean模式下卡牌、遗物、药水、怪物只包含ID和动态字段，静态信息见/api/dictionary
+     * @param snapshot 游戏快照
+     * @param lean 是否使用lean模式
+     * @return 包含游戏状态信息的JSON对象
+     */
+    public static JsonObject stateToJson(GameSnapshot snapshot, boolean lean) {
+        JsonObject state = new JsonObject();
+        PlayerSnapshot p = snapshot.player;
+        if (p == null) {
+            state.addProperty("error", "player is null");
+            return state;
+        }
+        state.addProperty("hp", p.hp);
+        state.addProperty("maxHp", p.maxHp);
+        state.addProperty("energy", p.energy);
+        state.add("hand", cardSnapshotsToJson(snapshot.hand, lean));
+        state.addProperty("drawPileCount", snapshot.drawPile.size());
+        state.addProperty("discardPileCount", snapshot.discardPile.size());
+        state.add("relics", relicSnapshotsToJson(snapshot.relics, lean));
+        state.add("potions", potionSnapshotsToJson(snapshot.potions, lean));
+        state.add("monsters", monsterSnapshotsToJson(snapshot.monsters, lean));
+        return state;
+    }
+
+    /**
+     * 将玩家快照转换为JSON对象
+     * @param p 玩家快照
+     * @return 包含玩家信息的JSON对象
+     */
+    public static JsonObject playerToJson(PlayerSnapshot p) {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("hp", p.hp);
+        obj.addProperty("maxHp", p.maxHp);
+        obj.addProperty("energy", p.energy);
+        obj.addProperty("gold", p.gold);
+        obj.addProperty("currentBlock", p.currentBlock);
+        obj.addProperty("ascensionLevel", p.ascensionLevel);
+        obj.addProperty("character", p.character);
+        return obj;
+    }
+
+    /**
+     * 将卡牌快照列表转换为JSON数组
+     * @param cards 卡牌快照列表
+     * @return 包含卡牌信息的JSON数组
+     */
+    public static JsonArray cardSnapshotsToJson(List<CardSnapshot> cards) {
+        return cardSnapshotsToJson(cards, false);
+    }
+
+    static JsonArray cardSnapshotsToJson(List<CardSnapshot> cards, boolean lean) {
+        JsonArray arr = new JsonArray(cards.size());
+        for (CardSnapshot c : cards) {
+            arr.add(cardToJson(c, lean));
+        }
+        return arr;
+    }
+
+    /**
+     * 将遗物快照列表转换为JSON数组
+     * @param relics 遗物快照列表
+     * @return 包含遗物信息的JSON数组
+     */
+    public static JsonArray relicSnapshotsToJson(List<RelicSnapshot> relics) {
+        return relicSnapshotsToJson(relics, false);
+    }
+
+    static JsonArray relicSnapshotsToJson(List<RelicSnapshot> relics, boolean lean) {
+        JsonArray arr = new JsonArray(relics.size());
+        for (RelicSnapshot r : relics) {
+            arr.add(relicToJson(r, lean));
+        }
+        return arr;
+    }
+
+    /**
+     * 将药水快照列表转换为JSON数组
+     * @param potions 药水快照列表
+     * @return 包含药水信息的JSON数组
+     */
+    public static JsonArray potionSnapshotsToJson(List<PotionSnapshot> potions) {
+        return potionSnapshotsToJson(potions, false);
+    }
+
+    static JsonArray potionSnapshotsToJson(List<PotionSnapshot> potions, boolean lean) {
+        JsonArray arr = new JsonArray(potions.size());
+        for (PotionSnapshot p : potions) {
+            arr.add(potionToJson(p, lean));
+        }
+        return arr;
+    }
+
+    /**
+     * 将怪物快照列表转换为JSON数组
+     * @param monsters 怪物快照列表
+     * @return 包含敌方信息的JSON数组
+     */
+    public static JsonArray monsterSnapshotsToJson(List<MonsterSnapshot> monsters) {
+        return monsterSnapshotsToJson(monsters, false);
+    }
+
+    static JsonArray monsterSnapshotsToJson(List<MonsterSnapshot> monsters, boolean lean) {
+        JsonArray arr = new JsonArray(monsters.size());
+        for (MonsterSnapshot m : monsters) {
+            arr.add(monsterToJson(m, lean));
+        }
+        return arr;
+    }
+
+    /**
+     * 将快照中的合法操作转换为get_legal_actions命令的JSON格式
+     * cards和potions中的targets为怪物下标，为空数组表示不需要目标
+     * @param snapshot 游戏快照
+     * @param mask 是否同时返回固定长度的掩码及其布局
+     * @return 包含合法操作的JSON对象
+     */
+    public static JsonObject legalActionsToJson(GameSnapshot snapshot, boolean mask) {
+        LegalActions legal = snapshot.legalActions;
+        JsonObject obj = new JsonObject();
+        obj.addProperty("stateVersion", snapshot.version);
+        obj.add("cards", optionsToJson(legal.cards, "uuid"));
+        obj.add("potions", optionsToJson(legal.potions, "potionId"));
+        obj.addProperty("endTurn", legal.canEndTurn);
+        if (mask) {
+            JsonArray bits = new JsonArray(LegalActions.MASK_SIZE);
+            for (int i = 0; i < LegalActions.MASK_SIZE; i++) {
+                bits.add(legal.maskBit(i));
+            }
+            obj.add("mask", bits);
+            obj.add("maskLayout", maskLayoutToJson());
+        }
+        return obj;
+    }
+
+    /**
+     * 合法操作掩码的布局
+     * @return 包含各部分偏移和大小的JSON对象
+     */
+    public static JsonObject maskLayoutToJson() {
+        JsonObject layout = new JsonObject();
+        layout.addProperty("size", LegalActions.MASK_SIZE);
+        layout.addProperty("handSlots", LegalActions.HAND_SLOTS);
+        layout.addProperty("potionSlots", LegalActions.POTION_SLOTS);
+        layout.addProperty("targetColumns", LegalActions.TARGET_COLUMNS);
+        layout.addProperty("cardOffset", LegalActions.CARD_OFFSET);
+        layout.addProperty("potionOffset", LegalActions.POTION_OFFSET);
+        layout.addProperty("endTurnIndex", LegalActions.END_TURN_INDEX);
+        return layout;
+    }
+
+    private static JsonArray optionsToJson(List<LegalActions.Option> options, String idField) {
+        JsonArray array = new JsonArray(options.size());
+        for (LegalActions.Option o : options) {
+            JsonObject obj = new JsonObject();
+            obj.addProperty("index", o.index);
+            obj.addProperty(idField, o.id);
+            JsonArray targets = new JsonArray(o.targetCount());
+            for (int i = 0; i < o.targetCount(); i++) {
+                targets.add(o.target(i));
+            }
+            obj.add("targets", targets);
+            array.add(obj);
+        }
+        return array;
+    }
+
+    /**
+     * 将操作结果转换为JSON对象
+     * @param r 操作结果
+     * @return 包含success、message、error字段的JSON对象
+     */
+    public static JsonObject actionResultToJson(TrackedAction.ActionResult r) {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("success", r.success);
+        if (r.message != null) {
+            obj.addProperty("message", r.message);
+        }
+        if (r.error != null) {
+            obj.addProperty("error", r.error);
+        }
+        return obj;
+    }
+
+    static JsonObject cardToJson(CardSnapshot c) {
+        return cardToJson(c, false);
+    }
+
+    static JsonObject cardToJson(CardSnapshot c, boolean lean) {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("uuid", c.uuidString);
+        obj.addProperty("id", c.id);
+        if (!lean) {
+            obj.addProperty("name", c.name);
+        }
+        obj.addProperty("cost", c.cost);
+        if (!lean) {
+            obj.addProperty("type", c.type);
+            obj.addProperty("rarity", c.rarity);
+        }
+        obj.addProperty("upgraded", c.upgraded);
+        return obj;
+    }
+
+    static JsonObject relicToJson(RelicSnapshot r) {
+        return relicToJson(r, false);
+    }
+
+    static JsonObject relicToJson(RelicSnapshot r, boolean lean) {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("id", r.id);
+        if (!lean) {
+            obj.addProperty("name", r.name);
+            obj.addProperty("description", r.description);
+            obj.addProperty("tier", r.tier);
+        }
+        obj.addProperty("counter", r.counter);
+        return obj;
+    }
+
+    static JsonObject potionToJson(PotionSnapshot p) {
+        return potionToJson(p, false);
+    }
+
+    static JsonObject potionToJson(PotionSnapshot p, boolean lean) {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("id", p.id);
+        if (!lean) {
+            obj.addProperty("name", p.name);
+            obj.addProperty("description", p.description);
+        }
+        obj.addProperty("slot", p.slot);
+        return obj;
+    }
+
+    static JsonObject monsterToJson(MonsterSnapshot m) {
+        return monsterToJson(m, false);
+    }
+
+    static JsonObject monsterToJson(MonsterSnapshot m, boolean lean) {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("handle", m.handle);
+        obj.addProperty("id", m.id);
+        if (!lean) {
+            obj.addProperty("name", m.name);
+        }
+        obj.addProperty("currentHp", m.currentHp);
+        obj.addProperty("maxHp", m.maxHp);
+        obj.addProperty("currentBlock", m.currentBlock);
+        obj.addProperty("isDead", m.isDead);
+        obj.addProperty("isEscaped", m.isEscaped);
+
+        // 添加怪物的下次攻击信息
+        if (m.intent != null) {
+            obj.addProperty("intent", m.intent);
+        }
+
+        // 添加怪物的位置信息
+        obj.addProperty("x", m.x);
+        obj.addProperty("y", m.y);
+        return obj;
+    }
+}
@@ -0,0 +1,573 @@
+package com.example.stssdk.core;
+
+import com.example.stssdk.state.CardSnapshot;
+import com.example.stssdk.state.GameSnapshot;
+import com.example.stssdk.state.MonsterSnapshot;
+import com.example.stssdk.state.PotionSnapshot;
+import com.example.stssdk.state.RelicSnapshot;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 状态接口的字段投影，由fields=和include=参数编译而成
+ *
+ * fields：只输出列出的字段；include：在接口的默认字段之外追加字段（例如/api/state的gold、drawPile）。
+ * 列表字段可以用"."选择元素的字段，用"[...]"过滤和分页，例如
+ * fields=hp,hand.id,hand.cost,drawPile[type=ATTACK,limit=5].id,monsters
+ * 过滤条件为"元素字段=值"，多个可选值用"|"分隔，不区分大小写；offset和limit在过滤之后分页
+ *
+ * 编译结果按接口和参数缓存，同一投影在同一快照版本上只序列化一次；
+ * 输出直接用JsonWriter写出，未请求的字段既不读取也不序列化，字段顺序与接口的默认输出一致
+ */
+public final class StateProjection {
+    // 缓存的投影数量上限，超出后新的投影每次重新编译，避免任意参数组合占用内存
+    private static final int MAX_CACHED = 256;
+    private static final Map<String, StateProjection> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 从对象中读取一个字段的值
+     */
+    private interface Accessor<T> {
+        Object get(T value);
+    }
+
+    /**
+     * 编译后的一个顶层字段
+     */
+    private interface Writer {
+        void write(JsonWriter out, GameSnapshot snapshot) throws IOException;
+    }
+
+    /**
+     * 列表元素的字段表，按默认输出顺序排列
+     */
+    private static final class ElementSchema<T> {
+        final Map<String, Accessor<T>> fields = new LinkedHashMap<>();
+        // 默认不输出，需要显式请求的字段
+        final Set<String> extra = new LinkedHashSet<>();
+        // lean模式下默认不输出的字段
+        final Set<String> leanOmitted = new LinkedHashSet<>();
+        // 值为null时省略的字段，其余字段写出null
+        final Set<String> omitNull = new LinkedHashSet<>();
+
+        ElementSchema<T> field(String name, Accessor<T> accessor) {
+            fields.put(name, accessor);
+            return this;
+        }
+
+        ElementSchema<T> extra(String name, Accessor<T> accessor) {
+            fields.put(name, accessor);
+            extra.add(name);
+            return this;
+        }
+
+        ElementSchema<T> omitNull(String name) {
+            omitNull.add(name);
+            return this;
+        }
+
+        ElementSchema<T> leanOmit(String... names) {
+            leanOmitted.addAll(Arrays.asList(names));
+            return this;
+        }
+
+        Set<String> defaults(boolean lean) {
+            Set<String> names = new LinkedHashSet<>();
+            for (String name : fields.keySet()) {
+                if (!extra.contains(name) && !(lean && leanOmitted.contains(name))) {
+                    names.add(name);
+                }
+            }
+            return names;
+        }
+    }
+
+    private static final ElementSchema<CardSnapshot> CARD = new ElementSchema<CardSnapshot>()
+            .field("uuid", c -> c.uuidString)
+            .field("id", c -> c.id)
+            .field("name", c -> c.name)
+            .field("cost", c -> c.cost)
+            .field("type", c -> c.type)
+            .field("rarity", c -> c.rarity)
+            .field("upgraded", c -> c.upgraded)
+            .extra("costForTurn", c -> c.costForTurn)
+            .extra("target", c -> c.target)
+            .extra("baseDamage", c -> c.baseDamage)
+            .extra("baseBlock", c -> c.baseBlock)
+            .extra("magicNumber", c -> c.magicNumber)
+            .extra("exhaust", c -> c.exhaust)
+            .extra("ethereal", c -> c.ethereal)
+            .leanOmit("name", "type", "rarity");
+
+    private static final ElementSchema<RelicSnapshot> RELIC = new ElementSchema<RelicSnapshot>()
+            .field("id", r -> r.id)
+            .field("name", r -> r.name)
+            .field("description", r -> r.description)
+            .field("tier", r -> r.tier)
+            .field("counter", r -> r.counter)
+            .leanOmit("name", "description", "tier");
+
+    private static final ElementSchema<PotionSnapshot> POTION = new ElementSchema<PotionSnapshot>()
+            .field("id", p -> p.id)
+            .field("name", p -> p.name)
+            .field("description", p -> p.description)
+            .field("slot", p -> p.slot)
+            .leanOmit("name", "description");
+
+    private static final ElementSchema<MonsterSnapshot> MONSTER = new ElementSchema<MonsterSnapshot>()
+            .field("handle", m -> m.handle)
+            .field("id", m -> m.id)
+            .field("name", m -> m.name)
+            .field("currentHp", m -> m.currentHp)
+            .field("maxHp", m -> m.maxHp)
+            .field("currentBlock", m -> m.currentBlock)
+            .field("isDead", m -> m.isDead)
+            .field("isEscaped", m -> m.isEscaped)
+            .field("intent", m -> m.intent)
+            .field("x", m -> m.x)
+            .field("y", m -> m.y)
+            .omitNull("intent")
+            .leanOmit("name");
+
+    /**
+     * 接口的一个顶层字段
+     */
+    private abstract static class Section {
+        final String name;
+        final boolean byDefault;
+
+        Section(String name, boolean byDefault) {
+            this.name = name;
+            this.byDefault = byDefault;
+        }
+
+        abstract Writer compile(Request request, boolean lean);
+    }
+
+    /**
+     * 标量字段
+     */
+    private static final class ValueSection extends Section {
+        final Accessor<GameSnapshot> accessor;
+
+        ValueSection(String name, boolean byDefault, Accessor<GameSnapshot> accessor) {
+            super(name, byDefault);
+            this.accessor = accessor;
+        }
+
+        @Override
+        Writer compile(Request request, boolean lean) {
+            if (!request.subfields.isEmpty() || request.selector != null) {
+                throw new IllegalArgumentException(name + " has no sub-fields");
+            }
+            return (out, s) -> {
+                out.name(name);
+                writeValue(out, accessor.get(s));
+            };
+        }
+    }
+
+    /**
+     * 列表字段，可以由多段列表依次拼接而成（例如/api/deck的allCards）
+     */
+    private static final class ListSection<T> extends Section {
+        final ElementSchema<T> schema;
+        final Function<GameSnapshot, List<List<T>>> segments;
+
+        ListSection(String name, boolean byDefault, ElementSchema<T> schema, Function<GameSnapshot, List<List<T>>> segments) {
+            super(name, byDefault);
+            this.schema = schema;
+            this.segments = segments;
+        }
+
+        @Override
+        Writer compile(Request request, boolean lean) {
+            Set<String> wanted = new LinkedHashSet<>();
+            if (!request.exact || request.whole) {
+                wanted.addAll(schema.defaults(lean));
+            }
+            wanted.addAll(request.subfields);
+            List<String> names = new ArrayList<>();
+            List<Accessor<T>> accessors = new ArrayList<>();
+            List<Boolean> omitNull = new ArrayList<>();
+            for (String f : wanted) {
+                if (!schema.fields.containsKey(f)) {
+                    throw new IllegalArgumentException("unknown field: " + name + "." + f);
+                }
+            }
+            // 按默认输出顺序写出
+            for (Map.Entry<String, Accessor<T>> e : schema.fields.entrySet()) {
+                if (wanted.contains(e.getKey())) {
+                    names.add(e.getKey());
+                    accessors.add(e.getValue());
+                    omitNull.add(schema.omitNull.contains(e.getKey()));
+                }
+            }
+            Filter<T> filter = Filter.parse(this, request.selector);
+            return (out, s) -> {
+                out.name(name);
+                out.beginArray();
+                int matched = 0;
+                int written = 0;
+                outer:
+                for (List<T> segment : segments.apply(s)) {
+                    for (T item : segment) {
+                        if (!filter.matches(item) || matched++ < filter.offset) {
+                            continue;
+                        }
+                        if (filter.limit >= 0 && written >= filter.limit) {
+                            break outer;
+                        }
+                        writeElement(out, item, names, accessors, omitNull);
+                        written++;
+                    }
+                }
+                out.endArray();
+            };
+        }
+    }
+
+    /**
+     * 列表字段的过滤和分页条件
+     */
+    private static final class Filter<T> {
+        final List<Accessor<T>> accessors = new ArrayList<>();
+        final List<String[]> values = new ArrayList<>();
+        int offset;
+        int limit = -1;
+
+        static <T> Filter<T> parse(ListSection<T> section, String selector) {
+            Filter<T> filter = new Filter<>();
+            if (selector == null) {
+                return filter;
+            }
+            for (String cond : selector.split("[,;]")) {
+                cond = cond.trim();
+                if (cond.isEmpty()) {
+                    continue;
+                }
+                int eq = cond.indexOf('=');
+                if (eq <= 0) {
+                    throw new IllegalArgumentException("invalid selector for " + section.name + ": " + cond);
+                }
+                String key = cond.substring(0, eq).trim();
+                String value = cond.substring(eq + 1).trim();
+                if ("offset".equals(key) || "limit".equals(key)) {
+                    int n = parseCount(section.name, key, value);
+                    if ("offset".equals(key)) {
+                        filter.offset = n;
+                    } else {
+                        filter.limit = n;
+                    }
+                    continue;
+                }
+                Accessor<T> accessor = section.schema.fields.get(key);
+                if (accessor == null) {
+                    throw new IllegalArgumentException("unknown filter field: " + section.name + "." + key);
+                }
+                filter.accessors.add(accessor);
+                filter.values.add(value.split("\\|"));
+            }
+            return filter;
+        }
+
+        boolean matches(T item) {
+            for (int i = 0; i < accessors.size(); i++) {
+                String v = String.valueOf(accessors.get(i).get(item));
+                boolean any = false;
+                for (String candidate : values.get(i)) {
+                    if (candidate.equalsIgnoreCase(v)) {
+                        any = true;
+                        break;
+                    }
+                }
+                if (!any) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int parseCount(String section, String key, String value) {
+            try {
+                int n = Integer.parseInt(value);
+                if (n >= 0) {
+                    return n;
+                }
+            } catch (NumberFormatException e) {
+                // 下面统一报错
+            }
+            throw new IllegalArgumentException("invalid " + key + " for " + section + ": " + value);
+        }
+    }
+
+    /**
+     * 参数中对一个顶层字段的请求
+     */
+    private static final class Request {
+        // 出现在fields中，元素字段只输出列出的部分
+        boolean exact;
+        // 在fields中不带元素字段地列出，输出默认的元素字段
+        boolean whole;
+        final Set<String> subfields = new LinkedHashSet<>();
+        String selector;
+    }
+
+    private static final Map<String, List<Section>> ENDPOINTS = new HashMap<>();
+
+    static {
+        ENDPOINTS.put("/api/state", Arrays.asList(
+                new ValueSection("hp", true, s -> s.player.hp),
+                new ValueSection("maxHp", true, s -> s.player.maxHp),
+                new ValueSection("energy", true, s -> s.player.energy),
+                new ValueSection("gold", false, s -> s.player.gold),
+                new ValueSection("currentBlock", false, s -> s.player.currentBlock),
+                new ValueSection("ascensionLevel", false, s -> s.player.ascensionLevel),
+                new ValueSection("character", false, s -> s.player.character),
+                new ValueSection("turn", false, s -> s.turn),
+                new ListSection<>("hand", true, CARD, s -> Collections.singletonList(s.hand)),
+                new ListSection<>("drawPile", false, CARD, s -> Collections.singletonList(s.drawPile)),
+                new ValueSection("drawPileCount", true, s -> s.drawPile.size()),
+                new ListSection<>("discardPile", false, CARD, s -> Collections.singletonList(s.discardPile)),
+                new ValueSection("discardPileCount", true, s -> s.discardPile.size()),
+                new ListSection<>("relics", true, RELIC, s -> Collections.singletonList(s.relics)),
+                new ListSection<>("potions", true, POTION, s -> Collections.singletonList(s.potions)),
+                new ListSection<>("monsters", true, MONSTER, s -> Collections.singletonList(s.monsters))));
+        ENDPOINTS.put("/api/player", Arrays.asList(
+                new ValueSection("hp", true, s -> s.player.hp),
+                new ValueSection("maxHp", true, s -> s.player.maxHp),
+                new ValueSection("energy", true, s -> s.player.energy),
+                new ValueSection("gold", true, s -> s.player.gold),
+                new ValueSection("currentBlock", true, s -> s.player.currentBlock),
+                new ValueSection("ascensionLevel", true, s -> s.player.ascensionLevel),
+                new ValueSection("character", true, s -> s.player.character)));
+        ENDPOINTS.put("/api/hand", pile(s -> s.hand));
+        ENDPOINTS.put("/api/drawpile", pile(s -> s.drawPile));
+        ENDPOINTS.put("/api/discardpile", pile(s -> s.discardPile));
+        ENDPOINTS.put("/api/deck", Arrays.asList(
+                new ListSection<>("allCards", true, CARD, s -> Arrays.asList(s.hand, s.drawPile, s.discardPile)),
+                new ListSection<>("hand", true, CARD, s -> Collections.singletonList(s.hand)),
+                new ListSection<>("drawPile", true, CARD, s -> Collections.singletonList(s.drawPile)),
+                new ListSection<>("discardPile", true, CARD, s -> Collections.singletonList(s.discardPile)),
+                new ValueSection("totalCount", true, s -> s.hand.size() + s.drawPile.size() + s.discardPile.size())));
+        ENDPOINTS.put("/api/relics", Arrays.asList(
+                new ListSection<>("relics", true, RELIC, s -> Collections.singletonList(s.relics)),
+                new ValueSection("count", true, s -> s.relics.size())));
+        ENDPOINTS.put("/api/potions", Arrays.asList(
+                new ListSection<>("potions", true, POTION, s -> Collections.singletonList(s.potions)),
+                new ValueSection("count", true, s -> s.potions.size())));
+        ENDPOINTS.put("/api/monsters", Arrays.asList(
+                new ListSection<>("monsters", true, MONSTER, s -> Collections.singletonList(s.monsters)),
+                new ValueSection("count", true, s -> s.monsters.size())));
+    }
+
+    private static List<Section> pile(Function<GameSnapshot, List<CardSnapshot>> cards) {
+        return Arrays.asList(
+                new ListSection<>("cards", true, CARD, s -> Collections.singletonList(cards.apply(s))),
+                new ValueSection("count", true, s -> cards.apply(s).size()));
+    }
+
+    private final Writer[] writers;
+    // 最近一次渲染的结果，按快照版本缓存
+    private volatile Rendered rendered;
+
+    private static final class Rendered {
+        final long version;
+        final byte[] body;
+
+        Rendered(long version, byte[] body) {
+            this.version = version;
+            this.body = body;
+        }
+    }
+
+    private StateProjection(Writer[] writers) {
+        this.writers = writers;
+    }
+
+    /**
+     * 接口是否支持投影
+     * @param uri 请求路径
+     */
+    public static boolean supports(String uri) {
+        return ENDPOINTS.containsKey(uri);
+    }
+
+    /**
+     * 编译投影，同样的参数共用同一个投影对象
+     * @param uri 请求路径，见supports
+     * @param fields 只输出的字段，为null时输出接口的默认字段
+     * @param include 追加的字段，可以为null
+     * @param lean 默认的元素字段是否使用lean模式
+     * @return 投影
+     * @throws IllegalArgumentException 字段未知或语法错误时抛出
+     */
+    public static StateProjection compile(String uri, String fields, String include, boolean lean) {
+        String key = uri + '\n' + fields + '\n' + include + '\n' + lean;
+        StateProjection projection = cache.get(key);
+        if (projection != null) {
+            return projection;
+        }
+        List<Section> sections = ENDPOINTS.get(uri);
+        if (sections == null) {
+            throw new IllegalArgumentException("projection not supported on " + uri);
+        }
+        Map<String, Request> requests = new HashMap<>();
+        parse(sections, fields, true, requests);
+        parse(sections, include, false, requests);
+        List<Writer> writers = new ArrayList<>();
+        for (Section section : sections) {
+            Request request = requests.get(section.name);
+            if (request == null) {
+                if (fields != null || !section.byDefault) {
+                    continue;
+                }
+                request = new Request();
+            }
+            writers.add(section.compile(request, lean));
+        }
+        projection = new StateProjection(writers.toArray(new Writer[0]));
+        if (cache.size() < MAX_CACHED) {
+            cache.put(key, projection);
+        }
+        return projection;
+    }
+
+    /**
+     * 写出投影后的JSON对象
+     */
+    public void write(JsonWriter out, GameSnapshot snapshot) throws IOException {
+        out.beginObject();
+        for (Writer w : writers) {
+            w.write(out, snapshot);
+        }
+        out.endObject();
+    }
+
+    /**
+     * 渲染为UTF-8字节，同一快照版本只渲染一次
+     * @param snapshot 游戏快照，调用方需保证其中有玩家
+     * @return JSON字节，调用方不得修改
+     */
+    public byte[] render(GameSnapshot snapshot) throws IOException {
+        Rendered r = rendered;
+        if (r != null && r.version == snapshot.version) {
+            return r.body;
+        }
+        byte[] body = StreamingSerializer.render(out -> write(out, snapshot)).toByteArray();
+        rendered = new Rendered(snapshot.version, body);
+        return body;
+    }
+
+    // 辅助方法：解析逗号分隔的字段列表，方括号内的逗号属于过滤条件
+    private static void parse(List<Section> sections, String list, boolean exact, Map<String, Request> requests) {
+        if (list == null) {
+            return;
+        }
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i <= list.length(); i++) {
+            char c = i < list.length() ? list.charAt(i) : ',';
+            if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                if (--depth < 0) {
+                    throw new IllegalArgumentException("unbalanced brackets: " + list);
+                }
+            } else if (c == ',' && depth == 0) {
+                String token = list.substring(start, i).trim();
+                if (!token.isEmpty()) {
+                    parseToken(sections, token, exact, requests);
+                }
+                start = i + 1;
+            }
+        }
+        if (depth != 0) {
+            throw new IllegalArgumentException("unbalanced brackets: " + list);
+        }
+    }
+
+    // 辅助方法：解析一项，格式为 名称[过滤条件].元素字段，过滤条件和元素字段都可以省略
+    private static void parseToken(List<Section> sections, String token, boolean exact, Map<String, Request> requests) {
+        int bracket = token.indexOf('[');
+        int dot = token.indexOf('.');
+        int end = bracket >= 0 && (dot < 0 || bracket < dot) ? bracket : dot >= 0 ? dot : token.length();
+        String name = token.substring(0, end).trim();
+        String selector = null;
+        String rest = token.substring(end);
+        if (rest.startsWith("[")) {
+            int close = rest.lastIndexOf(']');
+            if (close < 0) {
+                throw new IllegalArgumentException("unbalanced brackets: " + token);
+            }
+            selector = rest.substring(1, close);
+            rest = rest.substring(close + 1);
+        }
+        String subfield = null;
+        if (rest.startsWith(".")) {
+            subfield = rest.substring(1).trim();
+        } else if (!rest.isEmpty()) {
+            throw new IllegalArgumentException("invalid field: " + token);
+        }
+        boolean known = false;
+        for (Section s : sections) {
+            known |= s.name.equals(name);
+        }
+        if (!known) {
+            throw new IllegalArgumentException("unknown field: " + name);
+        }
+        Request request = requests.computeIfAbsent(name, k -> new Request());
+        if (exact) {
+            request.exact = true;
+            request.whole |= subfield == null;
+        }
+        if (subfield != null) {
+            request.subfields.add(subfield);
+        }
+        if (selector != null) {
+            if (request.selector != null && !request.selector.equals(selector)) {
+                throw new IllegalArgumentException("conflicting selectors for " + name);
+            }
+            request.selector = selector;
+        }
+    }
+
+    // 辅助方法：写出一个列表元素，与StreamingSerializer一致，intent为null时省略
+    private static <T> void writeElement(JsonWriter out, T item, List<String> names, List<Accessor<T>> accessors,
+                                         List<Boolean> omitNull) throws IOException {
+        out.beginObject();
+        for (int i = 0; i < names.size(); i++) {
+            Object v = accessors.get(i).get(item);
+            if (v != null || !omitNull.get(i)) {
+                out.name(names.get(i));
+                writeValue(out, v);
+            }
+        }
+        out.endObject();
+    }
+
+    // 辅助方法：与JsonObject一致，数字（包括float）按toString输出
+    private static void writeValue(JsonWriter out, Object v) throws IOException {
+        if (v == null) {
+            out.nullValue();
+        } else if (v instanceof String) {
+            out.value((String) v);
+        } else if (v instanceof Boolean) {
+            out.value((Boolean) v);
+        } else {
+            out.value((Number) v);
+        }
+    }
+}
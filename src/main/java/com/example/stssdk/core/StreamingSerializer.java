@@ -0,0 +1,266 @@
+package com.example.stssdk.core;
+
+import com.example.stssdk.state.CardSnapshot;
+import com.example.stssdk.state.GameSnapshot;
+import com.example.stssdk.state.MonsterSnapshot;
+import com.example.stssdk.state.PlayerSnapshot;
+import com.example.stssdk.state.PotionSnapshot;
+import com.example.stssdk.state.RelicSnapshot;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 流式序列化工具类，直接用JsonWriter把快照写成UTF-8字节，不构建Gson树
+ * 输出与Serializer中对应方法生成的JsonObject.toString()完全一致
+ */
+public class StreamingSerializer {
+
+    /**
+     * 写入JSON响应体的回调
+     */
+    public interface Body {
+        void write(JsonWriter out) throws IOException;
+    }
+
+    // 每个线程复用的输出缓冲区
+    private static final ThreadLocal<ResponseBuffer> buffers = ThreadLocal.withInitial(ResponseBuffer::new);
+
+    /**
+     * 可复用的字节缓冲区，可以不复制地转换为输入流
+     */
+    public static final class ResponseBuffer extends ByteArrayOutputStream {
+        // 缓冲区超过该大小后不再复用，避免一次大响应长期占用内存
+        private static final int MAX_RETAINED = 1 << 20;
+
+        ResponseBuffer() {
+            super(8192);
+        }
+
+        /**
+         * 以输入流的形式读取缓冲区内容，不复制底层数组
+         */
+        public InputStream asInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+
+        void recycle() {
+            if (buf.length > MAX_RETAINED) {
+                buf = new byte[8192];
+            }
+            reset();
+        }
+    }
+
+    /**
+     * 把响应体写入当前线程复用的缓冲区
+     * 返回的缓冲区在当前线程下一次调用render前有效，
+     * NanoHTTPD在同一个线程中先调用serve再发送响应，因此可以直接用于构造响应
+     * @param body 写入响应体的回调
+     * @return 包含UTF-8编码JSON的缓冲区
+     */
+    public static ResponseBuffer render(Body body) throws IOException {
+        ResponseBuffer buffer = buffers.get();
+        buffer.recycle();
+        JsonWriter out = newWriter(buffer);
+        body.write(out);
+        out.flush();
+        return buffer;
+    }
+
+    /**
+     * 创建与JsonElement.toString()设置一致的JsonWriter
+     * @param stream 输出流
+     * @return JsonWriter
+     */
+    static JsonWriter newWriter(ByteArrayOutputStream stream) {
+        JsonWriter out = new JsonWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        out.setLenient(true);
+        return out;
+    }
+
+    /**
+     * 写入get_state格式的完整游戏状态
+     */
+    public static void writeState(JsonWriter out, GameSnapshot snapshot) throws IOException {
+        writeState(out, snapshot, false);
+    }
+
+    /**
+     * 写入get_state格式的完整游戏状态，lean模式下只写ID和动态字段
+     */
+    public static void writeState(JsonWriter out, GameSnapshot snapshot, boolean lean) throws IOException {
+        out.beginObject();
+        PlayerSnapshot p = snapshot.player;
+        if (p == null) {
+            out.name("error").value("player is null");
+            out.endObject();
+            return;
+        }
+        out.name("hp").value(p.hp);
+        out.name("maxHp").value(p.maxHp);
+        out.name("energy").value(p.energy);
+        out.name("hand");
+        writeCards(out, snapshot.hand, lean);
+        out.name("drawPileCount").value(snapshot.drawPile.size());
+        out.name("discardPileCount").value(snapshot.discardPile.size());
+        out.name("relics");
+        writeRelics(out, snapshot.relics, lean);
+        out.name("potions");
+        writePotions(out, snapshot.potions, lean);
+        out.name("monsters");
+        writeMonsters(out, snapshot.monsters, lean);
+        out.endObject();
+    }
+
+    /**
+     * 写入玩家基本信息
+     */
+    public static void writePlayer(JsonWriter out, PlayerSnapshot p) throws IOException {
+        out.beginObject();
+        out.name("hp").value(p.hp);
+        out.name("maxHp").value(p.maxHp);
+        out.name("energy").value(p.energy);
+        out.name("gold").value(p.gold);
+        out.name("currentBlock").value(p.currentBlock);
+        out.name("ascensionLevel").value(p.ascensionLevel);
+        out.name("character").value(p.character);
+        out.endObject();
+    }
+
+    /**
+     * 写入卡牌数组
+     */
+    public static void writeCards(JsonWriter out, List<CardSnapshot> cards) throws IOException {
+        writeCards(out, cards, false);
+    }
+
+    /**
+     * 写入卡牌数组，lean模式下省略名称、类型和稀有度
+     */
+    public static void writeCards(JsonWriter out, List<CardSnapshot> cards, boolean lean) throws IOException {
+        out.beginArray();
+        for (CardSnapshot c : cards) {
+            writeCard(out, c, lean);
+        }
+        out.endArray();
+    }
+
+    /**
+     * 写入单张卡牌
+     */
+    public static void writeCard(JsonWriter out, CardSnapshot c) throws IOException {
+        writeCard(out, c, false);
+    }
+
+    /**
+     * 写入单张卡牌，lean模式下省略名称、类型和稀有度
+     */
+    public static void writeCard(JsonWriter out, CardSnapshot c, boolean lean) throws IOException {
+        out.beginObject();
+        out.name("uuid").value(c.uuidString);
+        out.name("id").value(c.id);
+        if (!lean) {
+            out.name("name").value(c.name);
+        }
+        out.name("cost").value(c.cost);
+        if (!lean) {
+            out.name("type").value(c.type);
+            out.name("rarity").value(c.rarity);
+        }
+        out.name("upgraded").value(c.upgraded);
+        out.endObject();
+    }
+
+    /**
+     * 写入遗物数组
+     */
+    public static void writeRelics(JsonWriter out, List<RelicSnapshot> relics) throws IOException {
+        writeRelics(out, relics, false);
+    }
+
+    /**
+     * 写入遗物数组，lean模式下只写id和counter
+     */
+    public static void writeRelics(JsonWriter out, List<RelicSnapshot> relics, boolean lean) throws IOException {
+        out.beginArray();
+        for (RelicSnapshot r : relics) {
+            out.beginObject();
+            out.name("id").value(r.id);
+            if (!lean) {
+                out.name("name").value(r.name);
+                out.name("description").value(r.description);
+                out.name("tier").value(r.tier);
+            }
+            out.name("counter").value(r.counter);
+            out.endObject();
+        }
+        out.endArray();
+    }
+
+    /**
+     * 写入药水数组
+     */
+    public static void writePotions(JsonWriter out, List<PotionSnapshot> potions) throws IOException {
+        writePotions(out, potions, false);
+    }
+
+    /**
+     * 写入药水数组，lean模式下只写id和slot
+     */
+    public static void writePotions(JsonWriter out, List<PotionSnapshot> potions, boolean lean) throws IOException {
+        out.beginArray();
+        for (PotionSnapshot p : potions) {
+            out.beginObject();
+            out.name("id").value(p.id);
+            if (!lean) {
+                out.name("name").value(p.name);
+                out.name("description").value(p.description);
+            }
+            out.name("slot").value(p.slot);
+            out.endObject();
+        }
+        out.endArray();
+    }
+
+    /**
+     * 写入怪物数组
+     */
+    public static void writeMonsters(JsonWriter out, List<MonsterSnapshot> monsters) throws IOException {
+        writeMonsters(out, monsters, false);
+    }
+
+    /**
+     * 写入怪物数组，lean模式下省略名称
+     */
+    public static void writeMonsters(JsonWriter out, List<MonsterSnapshot> monsters, boolean lean) throws IOException {
+        out.beginArray();
+        for (MonsterSnapshot m : monsters) {
+            out.beginObject();
+            out.name("handle").value(m.handle);
+            out.name("id").value(m.id);
+            if (!lean) {
+                out.name("name").value(m.name);
+            }
+            out.name("currentHp").value(m.currentHp);
+            out.name("maxHp").value(m.maxHp);
+            out.name("currentBlock").value(m.currentBlock);
+            out.name("isDead").value(m.isDead);
+            out.name("isEscaped").value(m.isEscaped);
+            if (m.intent != null) {
+                out.name("intent").value(m.intent);
+            }
+            // 与JsonObject一致，float按Float.toString输出
+            out.name("x").value((Number) m.x);
+            out.name("y").value((Number) m.y);
+            out.endObject();
+        }
+        out.endArray();
+    }
+}
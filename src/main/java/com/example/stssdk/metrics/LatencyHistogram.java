@@ -0,0 +1,90 @@
+package com.example.stssdk.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的对数-线性延迟直方图（HDR风格）
+ * 按数值最高位所在的2的幂次分段，每段再均分为SUB_BUCKETS个桶，相对误差不超过1/SUB_BUCKETS，
+ * 记录只是一次数组下标计算和一次原子自增，可在任意线程（包括游戏主线程）中调用
+ */
+public final class LatencyHistogram {
+    // 每个2的幂次分段中的桶数，决定精度（6.25%）
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // 可记录的最大值为2^MAX_EXPONENT纳秒（约18分钟），更大的值计入最后一个桶
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * 记录一个值
+     * @param nanos 延迟（纳秒），负数按0处理
+     */
+    public void record(long nanos) {
+        long v = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(v));
+        count.increment();
+        sum.add(v);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSumNanos() {
+        return sum.sum();
+    }
+
+    /**
+     * 估算分位数，返回所在桶的中点
+     * @param quantile 0到1之间的分位
+     * @return 分位数（纳秒），没有记录时返回0
+     */
+    public long percentile(double quantile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return (lowerBound(i) + lowerBound(i + 1)) / 2;
+            }
+        }
+        return lowerBound(BUCKETS);
+    }
+
+    // 值所在的桶：小于SUB_BUCKETS的值每个值一个桶，之后每个2的幂次分段SUB_BUCKETS个桶
+    private static int bucketOf(long v) {
+        if (v < SUB_BUCKETS) {
+            return (int) v;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(v);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (v >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // 桶的下界，bucketOf的逆运算
+    private static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        return (1L << exponent) + ((long) sub << (exponent - SUB_BITS));
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.stssdk.metrics;
+
+import com.example.stssdk.SDKConfig;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 热路径延迟统计
+ * 按阶段（请求体读取、JSON解析、序列化、等待动作队列等）、按命令和按HTTP路径记录次数、错误数和延迟分布，
+ * 由/metrics以Prometheus文本格式导出
+ *
+ * 用法：long start = Metrics.start(); ... Metrics.stage("json_parse", start);
+ * 配置stssdk.metrics=false时ENABLED为常量false，start()返回0，记录方法直接返回，JIT会消除这些分支
+ */
+public final class Metrics {
+    public static final boolean ENABLED = SDKConfig.getBoolean("metrics", true);
+
+    // 每类指标最多的标签值数量，超过后计入"other"，防止客户端发送任意路径或命令时无限增长
+    private static final int MAX_SERIES = 128;
+    private static final String OTHER = "other";
+
+    /**
+     * 一组标签值对应的延迟分布和错误数
+     */
+    public static final class Series {
+        public final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        public long getErrors() {
+            return errors.sum();
+        }
+    }
+
+    private static final Map<String, Series> stages = new ConcurrentHashMap<>();
+    private static final Map<String, Series> commands = new ConcurrentHashMap<>();
+    private static final Map<String, Series> endpoints = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * 开始计时
+     * @return 当前纳秒时间，未启用时返回0
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * 记录一个处理阶段的耗时
+     * @param stage 阶段名称
+     * @param start start()的返回值，为0时不记录
+     */
+    public static void stage(String stage, long start) {
+        if (ENABLED && start != 0) {
+            series(stages, stage).latency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 记录一个已知耗时的处理阶段，例如在别处测得的排队时间
+     * @param stage 阶段名称
+     * @param nanos 耗时（纳秒）
+     */
+    public static void stageNanos(String stage, long nanos) {
+        if (ENABLED) {
+            series(stages, stage).latency.record(nanos);
+        }
+    }
+
+    /**
+     * 记录一条命令的执行耗时和结果
+     * @param cmd 命令名称
+     * @param start start()的返回值，为0时不记录
+     * @param error 是否返回了错误
+     */
+    public static void command(String cmd, long start, boolean error) {
+        if (ENABLED && start != 0) {
+            record(series(commands, cmd), start, error);
+        }
+    }
+
+    /**
+     * 记录一个HTTP请求的处理耗时和结果
+     * @param endpoint 请求路径
+     * @param start start()的返回值，为0时不记录
+     * @param error 是否返回了错误状态码
+     */
+    public static void endpoint(String endpoint, long start, boolean error) {
+        if (ENABLED && start != 0) {
+            record(series(endpoints, endpoint), start, error);
+        }
+    }
+
+    public static Map<String, Series> getStages() {
+        return stages;
+    }
+
+    public static Map<String, Series> getCommands() {
+        return commands;
+    }
+
+    public static Map<String, Series> getEndpoints() {
+        return endpoints;
+    }
+
+    private static void record(Series s, long start, boolean error) {
+        s.latency.record(System.nanoTime() - start);
+        if (error) {
+            s.errors.increment();
+        }
+    }
+
+    private static Series series(Map<String, Series> family, String key) {
+        String label = key != null ? key : OTHER;
+        Series s = family.get(label);
+        if (s == null) {
+            s = family.computeIfAbsent(family.size() >= MAX_SERIES ? OTHER : label, k -> new Series());
+        }
+        return s;
+    }
+}
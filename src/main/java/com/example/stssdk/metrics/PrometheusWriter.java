@@ -0,0 +1,92 @@
+package com.example.stssdk.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Prometheus文本格式（0.0.4）输出
+ * 延迟分布输出为summary（p50、p99、p999分位，单位秒），另外输出对应的错误计数
+ */
+public final class PrometheusWriter {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private final StringBuilder out = new StringBuilder(4096);
+
+    /**
+     * 输出一个仪表值
+     */
+    public PrometheusWriter gauge(String name, String help, double value) {
+        header(name, help, "gauge");
+        out.append(name).append(' ').append(format(value)).append('\n');
+        return this;
+    }
+
+    /**
+     * 输出一个只增不减的计数
+     */
+    public PrometheusWriter counter(String name, String help, double value) {
+        header(name, help, "counter");
+        out.append(name).append(' ').append(format(value)).append('\n');
+        return this;
+    }
+
+    /**
+     * 输出一组延迟分布
+     * @param name summary名称，例如stssdk_command_duration_seconds
+     * @param help 说明
+     * @param label 标签名，例如cmd
+     * @param family 标签值到延迟分布的映射
+     */
+    public PrometheusWriter summaries(String name, String help, String label, Map<String, Metrics.Series> family) {
+        // 按标签值排序，输出稳定
+        Map<String, Metrics.Series> sorted = new TreeMap<>(family);
+        header(name, help, "summary");
+        for (Map.Entry<String, Metrics.Series> e : sorted.entrySet()) {
+            LatencyHistogram h = e.getValue().latency;
+            String labels = label + "=\"" + escape(e.getKey()) + "\"";
+            for (double q : QUANTILES) {
+                out.append(name).append('{').append(labels).append(",quantile=\"").append(q).append("\"} ")
+                        .append(format(h.percentile(q) / 1e9)).append('\n');
+            }
+            out.append(name).append("_sum{").append(labels).append("} ").append(format(h.getSumNanos() / 1e9)).append('\n');
+            out.append(name).append("_count{").append(labels).append("} ").append(h.getCount()).append('\n');
+        }
+        return this;
+    }
+
+    /**
+     * 输出一组延迟分布对应的错误计数
+     * @param name 计数名称，例如stssdk_command_errors_total
+     * @param help 说明
+     * @param label 标签名
+     * @param family 标签值到延迟分布的映射
+     */
+    public PrometheusWriter errors(String name, String help, String label, Map<String, Metrics.Series> family) {
+        header(name, help, "counter");
+        for (Map.Entry<String, Metrics.Series> e : new TreeMap<>(family).entrySet()) {
+            out.append(name).append('{').append(label).append("=\"").append(escape(e.getKey())).append("\"} ")
+                    .append(e.getValue().getErrors()).append('\n');
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private void header(String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static String format(double v) {
+        return v == Math.rint(v) && Math.abs(v) < 1e15 ? Long.toString((long) v) : Double.toString(v);
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.stssdk.observation;
+
+import com.example.stssdk.state.CardSnapshot;
+import com.example.stssdk.state.GameSnapshot;
+import com.example.stssdk.state.LegalActions;
+import com.example.stssdk.state.MonsterSnapshot;
+import com.example.stssdk.state.PlayerSnapshot;
+import com.example.stssdk.state.PotionSnapshot;
+import com.example.stssdk.state.PowerSnapshot;
+import com.example.stssdk.state.RelicSnapshot;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把快照编码为固定长度的数值观测向量，布局见ObservationLayout
+ * 所有特征都是原始整数值（生命、格挡、层数、张数等），不做归一化，由客户端按需缩放；
+ * 因此float32和int32两种输出表示的是同样的数值
+ *
+ * 空槽位全部为0；ID不在词表中的卡牌、遗物、药水记在词表下标0上
+ */
+public final class ObservationEncoder {
+    public static final String MIME_TYPE = "application/x-stssdk-observation";
+
+    // 空药水槽位（PotionSlot）的ID
+    private static final String EMPTY_POTION_SLOT = "Potion Slot";
+    private static final Map<String, Integer> INTENT_INDEX = new HashMap<>();
+
+    static {
+        for (int i = 0; i < ObservationLayout.INTENTS.length; i++) {
+            INTENT_INDEX.put(ObservationLayout.INTENTS[i].name(), i);
+        }
+    }
+
+    /**
+     * 每个线程复用的缓冲区，布局变大时才重新分配
+     */
+    private static final class Buffers {
+        float[] values = new float[0];
+        byte[] bytes = new byte[0];
+        ByteBuffer view = ByteBuffer.wrap(bytes);
+
+        void ensure(int size) {
+            if (values.length < size) {
+                values = new float[size];
+                bytes = new byte[size * 4];
+                view = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+    }
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private ObservationEncoder() {
+    }
+
+    /**
+     * 把快照编码到调用方提供的数组中，可以反复使用同一个数组，不分配内存
+     * @param snapshot 游戏快照，没有玩家时除动作掩码外全部为0
+     * @param layout 观测布局
+     * @param out 输出数组，长度至少为layout.size()
+     */
+    public static void encode(GameSnapshot snapshot, ObservationLayout layout, float[] out) {
+        Arrays.fill(out, 0, layout.size(), 0f);
+        Vocabulary v = layout.vocabulary;
+        for (ObservationLayout.Block b : layout.blocks) {
+            int offset = layout.offset(b);
+            switch (b) {
+                case PLAYER:
+                    writePlayer(snapshot, out, offset);
+                    break;
+                case HAND:
+                    writeHand(snapshot.hand, v, out, offset);
+                    break;
+                case DRAW:
+                    writeHistogram(snapshot.drawPile, v, out, offset);
+                    break;
+                case DISCARD:
+                    writeHistogram(snapshot.discardPile, v, out, offset);
+                    break;
+                case RELICS:
+                    for (RelicSnapshot r : snapshot.relics) {
+                        out[offset + v.relic(r.id)] = 1;
+                    }
+                    break;
+                case POTIONS:
+                    writePotions(snapshot.potions, v, out, offset);
+                    break;
+                case MONSTERS:
+                    writeMonsters(snapshot.monsters, out, offset);
+                    break;
+                case MASK:
+                    for (int i = 0; i < LegalActions.MASK_SIZE; i++) {
+                        out[offset + i] = snapshot.legalActions.maskBit(i);
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 编码快照并转换为小端字节，结果写在当前线程复用的缓冲区中
+     * 返回的数组在同一线程下一次调用前有效，调用方必须在此之前把它写完（例如写入HTTP响应）
+     * @param snapshot 游戏快照
+     * @param layout 观测布局
+     * @param asInt true时每个元素为int32，否则为float32
+     * @return 缓冲区，有效长度为layout.size() * 4字节
+     */
+    public static byte[] render(GameSnapshot snapshot, ObservationLayout layout, boolean asInt) {
+        int size = layout.size();
+        Buffers buf = BUFFERS.get();
+        buf.ensure(size);
+        float[] values = buf.values;
+        encode(snapshot, layout, values);
+        ByteBuffer view = buf.view;
+        view.clear();
+        if (asInt) {
+            for (int i = 0; i < size; i++) {
+                view.putInt((int) values[i]);
+            }
+        } else {
+            view.asFloatBuffer().put(values, 0, size);
+        }
+        return buf.bytes;
+    }
+
+    /**
+     * 编码快照并转换为base64，用于在JSON响应中附带观测向量
+     * @param snapshot 游戏快照
+     * @param layout 观测布局
+     * @return 小端float32向量的base64编码
+     */
+    public static String renderBase64(GameSnapshot snapshot, ObservationLayout layout) {
+        byte[] bytes = render(snapshot, layout, false);
+        ByteBuffer encoded = Base64.getEncoder().encode(ByteBuffer.wrap(bytes, 0, layout.size() * 4));
+        return new String(encoded.array(), 0, encoded.limit(), StandardCharsets.ISO_8859_1);
+    }
+
+    // 辅助方法：写入玩家数值和能力层数
+    private static void writePlayer(GameSnapshot snapshot, float[] out, int offset) {
+        PlayerSnapshot p = snapshot.player;
+        if (p == null) {
+            return;
+        }
+        out[offset] = p.hp;
+        out[offset + 1] = p.maxHp;
+        out[offset + 2] = p.currentBlock;
+        out[offset + 3] = p.energy;
+        out[offset + 4] = p.energyPerTurn;
+        out[offset + 5] = p.gold;
+        out[offset + 6] = p.ascensionLevel;
+        out[offset + 7] = snapshot.turn;
+        out[offset + 8] = snapshot.hand.size();
+        out[offset + 9] = snapshot.drawPile.size();
+        out[offset + 10] = snapshot.discardPile.size();
+        writePowers(p.powers, out, offset + ObservationLayout.PLAYER_FEATURES.length);
+    }
+
+    // 辅助方法：每个手牌槽位写入数值特征和卡牌ID的one-hot
+    private static void writeHand(List<CardSnapshot> hand, Vocabulary v, float[] out, int offset) {
+        int width = ObservationLayout.CARD_FEATURES.length + v.cardCount();
+        int count = Math.min(hand.size(), LegalActions.HAND_SLOTS);
+        for (int i = 0; i < count; i++) {
+            CardSnapshot c = hand.get(i);
+            int base = offset + i * width;
+            out[base] = 1;
+            out[base + 1] = c.costForTurn;
+            out[base + 2] = c.upgraded ? 1 : 0;
+            out[base + 3] = c.baseDamage;
+            out[base + 4] = c.baseBlock;
+            out[base + 5] = c.magicNumber;
+            out[base + 6] = c.exhaust ? 1 : 0;
+            out[base + 7] = c.ethereal ? 1 : 0;
+            out[base + ObservationLayout.CARD_FEATURES.length + v.card(c.id)] = 1;
+        }
+    }
+
+    // 辅助方法：按卡牌ID统计牌堆中的张数
+    private static void writeHistogram(List<CardSnapshot> pile, Vocabulary v, float[] out, int offset) {
+        for (CardSnapshot c : pile) {
+            out[offset + v.card(c.id)]++;
+        }
+    }
+
+    // 辅助方法：每个药水槽位写入药水ID的one-hot，空槽位保持为0
+    private static void writePotions(List<PotionSnapshot> potions, Vocabulary v, float[] out, int offset) {
+        int count = Math.min(potions.size(), LegalActions.POTION_SLOTS);
+        for (int i = 0; i < count; i++) {
+            PotionSnapshot p = potions.get(i);
+            if (p.id == null || EMPTY_POTION_SLOT.equals(p.id)) {
+                continue;
+            }
+            out[offset + i * v.potionCount() + v.potion(p.id)] = 1;
+        }
+    }
+
+    // 辅助方法：每个怪物槽位写入数值特征、意图的one-hot和能力层数，死亡或逃跑的怪物视为空槽位
+    private static void writeMonsters(List<MonsterSnapshot> monsters, float[] out, int offset) {
+        int featureCount = ObservationLayout.MONSTER_FEATURES.length;
+        int width = featureCount + ObservationLayout.INTENTS.length + ObservationLayout.POWERS.length;
+        int count = Math.min(monsters.size(), LegalActions.MONSTER_SLOTS);
+        for (int i = 0; i < count; i++) {
+            MonsterSnapshot m = monsters.get(i);
+            if (m.isDead || m.isEscaped) {
+                continue;
+            }
+            int base = offset + i * width;
+            out[base] = 1;
+            out[base + 1] = m.currentHp;
+            out[base + 2] = m.maxHp;
+            out[base + 3] = m.currentBlock;
+            out[base + 4] = m.intentDamage;
+            out[base + 5] = m.intentHits;
+            Integer intent = m.intent != null ? INTENT_INDEX.get(m.intent) : null;
+            if (intent != null) {
+                out[base + featureCount + intent] = 1;
+            }
+            writePowers(m.powers, out, base + featureCount + ObservationLayout.INTENTS.length);
+        }
+    }
+
+    private static void writePowers(List<PowerSnapshot> powers, float[] out, int offset) {
+        for (int i = 0; i < ObservationLayout.POWERS.length; i++) {
+            out[offset + i] = PowerSnapshot.amountOf(powers, ObservationLayout.POWERS[i]);
+        }
+    }
+}
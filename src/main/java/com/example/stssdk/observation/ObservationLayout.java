@@ -0,0 +1,264 @@
+package com.example.stssdk.observation;
+
+import com.example.stssdk.SDKConfig;
+import com.example.stssdk.state.LegalActions;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.megacrit.cardcrawl.monsters.AbstractMonster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 观测向量的布局：由若干个块按固定顺序拼接，每个块的长度只由词表和槽位数决定，
+ * 因此同一词表下、同样的块组合总是得到同样长度和偏移的向量
+ * 槽位数与LegalActions一致（手牌10、怪物5、药水5），观测中的槽位下标可以直接对应动作掩码
+ *
+ * 块的组合由请求参数blocks或配置observationBlocks指定，顺序总是按Block的声明顺序
+ */
+public final class ObservationLayout {
+    public static final String ALL_BLOCKS = "player,hand,draw,discard,relics,potions,monsters,mask";
+
+    // 玩家和怪物共用的能力列表，按能力ID记录层数
+    static final String[] POWERS = {
+            "Strength", "Dexterity", "Vulnerable", "Weakened", "Frail", "Metallicize",
+            "Plated Armor", "Ritual", "Artifact", "Intangible", "Poison", "Thorns"
+    };
+    static final String[] PLAYER_FEATURES = {
+            "hp", "maxHp", "block", "energy", "energyPerTurn", "gold", "ascension", "turn",
+            "handCount", "drawCount", "discardCount"
+    };
+    // 每个手牌槽位的数值特征，之后是卡牌词表的one-hot
+    static final String[] CARD_FEATURES = {
+            "present", "costForTurn", "upgraded", "baseDamage", "baseBlock", "magicNumber", "exhaust", "ethereal"
+    };
+    // 每个怪物槽位的数值特征，之后是意图的one-hot和能力层数
+    static final String[] MONSTER_FEATURES = {
+            "present", "hp", "maxHp", "block", "intentDamage", "intentHits"
+    };
+    static final AbstractMonster.Intent[] INTENTS = AbstractMonster.Intent.values();
+
+    /**
+     * 观测块，声明顺序即在向量中的顺序
+     */
+    public enum Block {
+        PLAYER, HAND, DRAW, DISCARD, RELICS, POTIONS, MONSTERS, MASK;
+
+        // 单个槽位的长度，非槽位块的槽位数为1
+        int slotWidth(Vocabulary v) {
+            switch (this) {
+                case PLAYER:
+                    return PLAYER_FEATURES.length + POWERS.length;
+                case HAND:
+                    return CARD_FEATURES.length + v.cardCount();
+                case DRAW:
+                case DISCARD:
+                    return v.cardCount();
+                case RELICS:
+                    return v.relicCount();
+                case POTIONS:
+                    return v.potionCount();
+                case MONSTERS:
+                    return MONSTER_FEATURES.length + INTENTS.length + POWERS.length;
+                default:
+                    return LegalActions.MASK_SIZE;
+            }
+        }
+
+        int slots() {
+            switch (this) {
+                case HAND:
+                    return LegalActions.HAND_SLOTS;
+                case POTIONS:
+                    return LegalActions.POTION_SLOTS;
+                case MONSTERS:
+                    return LegalActions.MONSTER_SLOTS;
+                default:
+                    return 1;
+            }
+        }
+
+        public String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final Map<String, ObservationLayout> cache = new ConcurrentHashMap<>();
+
+    public final Vocabulary vocabulary;
+    public final List<Block> blocks;
+    // 按Block.ordinal()索引，未包含的块为-1
+    private final int[] offsets = new int[Block.values().length];
+    private final int size;
+
+    private ObservationLayout(Vocabulary vocabulary, List<Block> blocks) {
+        this.vocabulary = vocabulary;
+        this.blocks = Collections.unmodifiableList(blocks);
+        int offset = 0;
+        for (Block b : Block.values()) {
+            if (blocks.contains(b)) {
+                offsets[b.ordinal()] = offset;
+                offset += b.slots() * b.slotWidth(vocabulary);
+            } else {
+                offsets[b.ordinal()] = -1;
+            }
+        }
+        this.size = offset;
+    }
+
+    /**
+     * 获取配置observationBlocks指定的默认布局
+     * @return 布局，词表尚未构建时返回null
+     */
+    public static ObservationLayout getDefault() {
+        return of(null);
+    }
+
+    /**
+     * 按块列表获取布局，同样的块组合共用同一个布局对象
+     * @param blockList 逗号分隔的块名，为null或空时使用配置observationBlocks
+     * @return 布局，词表尚未构建时返回null
+     * @throws IllegalArgumentException 块名未知时抛出
+     */
+    public static ObservationLayout of(String blockList) {
+        Vocabulary v = Vocabulary.get();
+        if (v == null) {
+            return null;
+        }
+        if (blockList == null || blockList.trim().isEmpty()) {
+            blockList = SDKConfig.getString("observationBlocks", ALL_BLOCKS);
+        }
+        // 按规范化后的块列表缓存，避免不同写法的参数产生大量缓存项
+        List<Block> blocks = parse(blockList);
+        String key = blocks.toString();
+        ObservationLayout layout = cache.get(key);
+        if (layout == null || layout.vocabulary != v) {
+            layout = new ObservationLayout(v, blocks);
+            cache.put(key, layout);
+        }
+        return layout;
+    }
+
+    // 观测向量的元素个数
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 块在向量中的起始下标
+     * @return 起始下标，布局中不包含该块时返回-1
+     */
+    public int offset(Block block) {
+        return offsets[block.ordinal()];
+    }
+
+    /**
+     * 布局说明，包括每个块的偏移、形状和特征名，以及词表内容
+     * 客户端据此把向量切分为各个块，例如 obs[offset:offset+slots*width].reshape(slots, width)
+     */
+    public JsonObject spec() {
+        JsonObject spec = new JsonObject();
+        spec.addProperty("size", size);
+        spec.addProperty("vocabularyHash", vocabulary.hash);
+        spec.addProperty("byteOrder", "little-endian");
+
+        JsonArray arr = new JsonArray();
+        for (Block b : blocks) {
+            JsonObject block = new JsonObject();
+            block.addProperty("name", b.key());
+            block.addProperty("offset", offset(b));
+            block.addProperty("slots", b.slots());
+            block.addProperty("width", b.slotWidth(vocabulary));
+            block.addProperty("length", b.slots() * b.slotWidth(vocabulary));
+            block.add("features", features(b));
+            arr.add(block);
+        }
+        spec.add("blocks", arr);
+
+        JsonObject vocab = new JsonObject();
+        vocab.add("cards", vocabulary.cardsToJson());
+        vocab.add("relics", vocabulary.relicsToJson());
+        vocab.add("potions", vocabulary.potionsToJson());
+        JsonArray intents = new JsonArray();
+        for (AbstractMonster.Intent i : INTENTS) {
+            intents.add(i.name());
+        }
+        vocab.add("intents", intents);
+        vocab.add("powers", toJson(POWERS));
+        spec.add("vocabulary", vocab);
+        return spec;
+    }
+
+    // 辅助方法：描述槽位内各段特征，词表段以vocabulary中的列表名表示
+    private static JsonArray features(Block b) {
+        JsonArray arr = new JsonArray();
+        switch (b) {
+            case PLAYER:
+                addAll(arr, PLAYER_FEATURES);
+                arr.add("powers");
+                break;
+            case HAND:
+                addAll(arr, CARD_FEATURES);
+                arr.add("cards");
+                break;
+            case DRAW:
+            case DISCARD:
+                arr.add("cards");
+                break;
+            case RELICS:
+                arr.add("relics");
+                break;
+            case POTIONS:
+                arr.add("potions");
+                break;
+            case MONSTERS:
+                addAll(arr, MONSTER_FEATURES);
+                arr.add("intents");
+                arr.add("powers");
+                break;
+            default:
+                arr.add("legalActions");
+                break;
+        }
+        return arr;
+    }
+
+    private static List<Block> parse(String blockList) {
+        List<Block> blocks = new ArrayList<>();
+        for (String part : blockList.split(",")) {
+            String name = part.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            try {
+                Block b = Block.valueOf(name.toUpperCase(Locale.ROOT));
+                if (!blocks.contains(b)) {
+                    blocks.add(b);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("unknown observation block: " + name);
+            }
+        }
+        if (blocks.isEmpty()) {
+            throw new IllegalArgumentException("no observation blocks");
+        }
+        Collections.sort(blocks);
+        return blocks;
+    }
+
+    private static void addAll(JsonArray arr, String[] values) {
+        for (String s : values) {
+            arr.add(s);
+        }
+    }
+
+    private static JsonArray toJson(String[] values) {
+        JsonArray arr = new JsonArray(values.length);
+        addAll(arr, values);
+        return arr;
+    }
+}
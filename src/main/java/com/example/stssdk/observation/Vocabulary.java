@@ -0,0 +1,151 @@
+package com.example.stssdk.observation;
+
+import com.google.gson.JsonArray;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * 观测向量使用的固定词表，由卡牌库、遗物库和药水库中的全部ID按字典序排列得到
+ * 与IdInterner不同，词表构建后不再增长，因此观测向量的长度固定；
+ * 同样的游戏版本和Mod组合总是得到同样的词表，hash用于客户端检查词表是否变化
+ *
+ * 下标0保留给词表中没有的ID（例如运行中临时生成的卡牌）
+ */
+public final class Vocabulary {
+    private static volatile Vocabulary current;
+
+    private final List<String> cards;
+    private final List<String> relics;
+    private final List<String> potions;
+    private final Map<String, Integer> cardIndex;
+    private final Map<String, Integer> relicIndex;
+    private final Map<String, Integer> potionIndex;
+    public final String hash;
+
+    private Vocabulary(Collection<String> cardIds, Collection<String> relicIds, Collection<String> potionIds) {
+        this.cards = sorted(cardIds);
+        this.relics = sorted(relicIds);
+        this.potions = sorted(potionIds);
+        this.cardIndex = index(cards);
+        this.relicIndex = index(relics);
+        this.potionIndex = index(potions);
+        CRC32 crc = new CRC32();
+        update(crc, cards);
+        update(crc, relics);
+        update(crc, potions);
+        this.hash = Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * 构建词表，由MetadataDictionary.build()在各个库加载完成后调用
+     * @param cardIds 所有卡牌ID
+     * @param relicIds 所有遗物ID
+     * @param potionIds 所有药水ID
+     */
+    public static void build(Collection<String> cardIds, Collection<String> relicIds, Collection<String> potionIds) {
+        current = new Vocabulary(cardIds, relicIds, potionIds);
+    }
+
+    /**
+     * 获取已构建的词表
+     * @return 词表，游戏尚未初始化完成时返回null
+     */
+    public static Vocabulary get() {
+        return current;
+    }
+
+    // 词表大小，包括下标0
+    public int cardCount() {
+        return cards.size();
+    }
+
+    public int relicCount() {
+        return relics.size();
+    }
+
+    public int potionCount() {
+        return potions.size();
+    }
+
+    /**
+     * 卡牌ID在词表中的下标
+     * @return 下标，不在词表中或为null时返回0
+     */
+    public int card(String id) {
+        return lookup(cardIndex, id);
+    }
+
+    public int relic(String id) {
+        return lookup(relicIndex, id);
+    }
+
+    public int potion(String id) {
+        return lookup(potionIndex, id);
+    }
+
+    JsonArray cardsToJson() {
+        return toJson(cards);
+    }
+
+    JsonArray relicsToJson() {
+        return toJson(relics);
+    }
+
+    JsonArray potionsToJson() {
+        return toJson(potions);
+    }
+
+    private static int lookup(Map<String, Integer> index, String id) {
+        if (id == null) {
+            return 0;
+        }
+        Integer i = index.get(id);
+        return i != null ? i : 0;
+    }
+
+    // 辅助方法：去重、排序，并在开头加入表示未知ID的null
+    private static List<String> sorted(Collection<String> ids) {
+        TreeSet<String> set = new TreeSet<>();
+        for (String id : ids) {
+            if (id != null) {
+                set.add(id);
+            }
+        }
+        List<String> list = new ArrayList<>(set.size() + 1);
+        list.add(null);
+        list.addAll(set);
+        return Collections.unmodifiableList(list);
+    }
+
+    private static Map<String, Integer> index(List<String> list) {
+        Map<String, Integer> index = new HashMap<>(list.size() * 2);
+        for (int i = 1; i < list.size(); i++) {
+            index.put(list.get(i), i);
+        }
+        return index;
+    }
+
+    private static void update(CRC32 crc, List<String> list) {
+        for (int i = 1; i < list.size(); i++) {
+            crc.update(list.get(i).getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        crc.update(0);
+    }
+
+    private static JsonArray toJson(List<String> list) {
+        JsonArray arr = new JsonArray(list.size());
+        for (String s : list) {
+            arr.add(s);
+        }
+        return arr;
+    }
+}
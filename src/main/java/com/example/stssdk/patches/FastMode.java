@@ -0,0 +1,102 @@
+package com.example.stssdk.patches;
+
+import basemod.ReflectionHacks;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
+import com.badlogic.gdx.backends.lwjgl.LwjglGraphics;
+import com.megacrit.cardcrawl.core.Settings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 快速模式（无界面高速运行）
+ * 开启后由FastModePatches跳过地牢画面绘制和音效，并把每帧的deltaTime乘以speed，
+ * 动作、特效和回合切换的计时随之加速；同时关闭垂直同步和帧率上限，使游戏主循环尽可能快地运行
+ * 游戏逻辑仍然在主线程中逐帧执行，动作队列的顺序和结果与正常速度相同
+ */
+public final class FastMode {
+
+    private static final Logger logger = LoggerFactory.getLogger(FastMode.class);
+
+    public static final float DEFAULT_SPEED = 10f;
+    public static final float MAX_SPEED = 50f;
+    // 加速后单帧deltaTime的上限（秒），防止卡顿帧被放大后跳过整段动画逻辑
+    private static final float MAX_SCALED_DELTA = 0.25f;
+
+    private static volatile boolean enabled;
+    private static volatile float speed = DEFAULT_SPEED;
+
+    // 开启前的窗口设置，关闭时恢复；只在主线程中访问
+    private static boolean savedFastMode;
+    private static int savedForegroundFps;
+    private static int savedBackgroundFps;
+    private static boolean savedVSync;
+    private static boolean windowPatched;
+
+    private FastMode() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static float getSpeed() {
+        return speed;
+    }
+
+    /**
+     * 开启或关闭快速模式，可以在任意线程中调用
+     * 渲染、音效和deltaTime在下一帧生效，窗口设置提交到游戏主线程中修改
+     * @param enable 是否开启
+     * @param newSpeed deltaTime倍率，限制在1到MAX_SPEED之间
+     */
+    public static void set(boolean enable, float newSpeed) {
+        speed = Math.max(1f, Math.min(newSpeed, MAX_SPEED));
+        enabled = enable;
+        logger.info("Fast mode {} (speed x{})", enable ? "enabled" : "disabled", speed);
+        if (Gdx.app != null) {
+            Gdx.app.postRunnable(() -> applyWindowSettings(enable));
+        }
+    }
+
+    /**
+     * 加速后的deltaTime，供FastModePatches调用
+     * @param delta 原始deltaTime
+     * @return 快速模式下乘以speed后的deltaTime，否则原样返回
+     */
+    static float scale(float delta) {
+        if (!enabled) {
+            return delta;
+        }
+        return Math.min(delta * speed, MAX_SCALED_DELTA);
+    }
+
+    // 辅助方法：修改帧率上限、垂直同步和游戏自带的快速模式，必须在主线程中调用
+    private static void applyWindowSettings(boolean enable) {
+        if (enable == windowPatched) {
+            return;
+        }
+        try {
+            LwjglApplicationConfiguration config = ReflectionHacks.getPrivate(Gdx.graphics, LwjglGraphics.class, "config");
+            if (enable) {
+                savedFastMode = Settings.FAST_MODE;
+                savedForegroundFps = config.foregroundFPS;
+                savedBackgroundFps = config.backgroundFPS;
+                savedVSync = config.vSyncEnabled;
+                // 帧率为0表示不限制
+                config.foregroundFPS = 0;
+                config.backgroundFPS = 0;
+                Gdx.graphics.setVSync(false);
+                Settings.FAST_MODE = true;
+            } else {
+                config.foregroundFPS = savedForegroundFps;
+                config.backgroundFPS = savedBackgroundFps;
+                Gdx.graphics.setVSync(savedVSync);
+                Settings.FAST_MODE = savedFastMode;
+            }
+            windowPatched = enable;
+        } catch (Exception e) {
+            logger.warn("Failed to change window settings for fast mode: {}", e.toString());
+        }
+    }
+}
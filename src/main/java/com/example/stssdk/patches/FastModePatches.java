@@ -0,0 +1,90 @@
+package com.example.stssdk.patches;
+
+import com.badlogic.gdx.backends.lwjgl.LwjglGraphics;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.evacipated.cardcrawl.modthespire.lib.SpirePatch;
+import com.evacipated.cardcrawl.modthespire.lib.SpireReturn;
+import com.megacrit.cardcrawl.audio.SoundMaster;
+import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
+
+/**
+ * 快速模式使用的补丁，未开启快速模式时不改变游戏行为
+ */
+public class FastModePatches {
+
+    /**
+     * 跳过地牢画面（房间、角色、怪物、特效、界面）的绘制，游戏逻辑的update不受影响
+     */
+    @SpirePatch(clz = AbstractDungeon.class, method = "render")
+    public static class SkipDungeonRender {
+        public static SpireReturn<Void> Prefix(AbstractDungeon __instance, SpriteBatch sb) {
+            if (FastMode.isEnabled()) {
+                return SpireReturn.Return();
+            }
+            return SpireReturn.Continue();
+        }
+    }
+
+    /**
+     * 放大每帧的deltaTime，动作持续时间、特效和等待计时随之缩短
+     */
+    @SpirePatch(clz = LwjglGraphics.class, method = "getDeltaTime")
+    public static class ScaleDeltaTime {
+        public static float Postfix(float __result, LwjglGraphics __instance) {
+            return FastMode.scale(__result);
+        }
+    }
+
+    @SpirePatch(clz = LwjglGraphics.class, method = "getRawDeltaTime")
+    public static class ScaleRawDeltaTime {
+        public static float Postfix(float __result, LwjglGraphics __instance) {
+            return FastMode.scale(__result);
+        }
+    }
+
+    /**
+     * 静音所有音效，返回0作为音效id
+     */
+    @SpirePatch(clz = SoundMaster.class, method = "play", paramtypez = {String.class, boolean.class})
+    public static class MutePlay {
+        public static SpireReturn<Long> Prefix(SoundMaster __instance, String key, boolean useBgmVolume) {
+            return mute();
+        }
+    }
+
+    @SpirePatch(clz = SoundMaster.class, method = "play", paramtypez = {String.class, float.class})
+    public static class MutePlayPitch {
+        public static SpireReturn<Long> Prefix(SoundMaster __instance, String key, float pitchVariation) {
+            return mute();
+        }
+    }
+
+    @SpirePatch(clz = SoundMaster.class, method = "playA")
+    public static class MutePlayA {
+        public static SpireReturn<Long> Prefix(SoundMaster __instance, String key, float pitchAdjust) {
+            return mute();
+        }
+    }
+
+    @SpirePatch(clz = SoundMaster.class, method = "playV")
+    public static class MutePlayV {
+        public static SpireReturn<Long> Prefix(SoundMaster __instance, String key, float volumeMod) {
+            return mute();
+        }
+    }
+
+    @SpirePatch(clz = SoundMaster.class, method = "playAV")
+    public static class MutePlayAV {
+        public static SpireReturn<Long> Prefix(SoundMaster __instance, String key, float pitchAdjust, float volumeMod) {
+            return mute();
+        }
+    }
+
+    // 辅助方法：快速模式下拦截音效
+    private static SpireReturn<Long> mute() {
+        if (FastMode.isEnabled()) {
+            return SpireReturn.Return(0L);
+        }
+        return SpireReturn.Continue();
+    }
+}
@@ -0,0 +1,422 @@
+package com.example.stssdk.savestate;
+
+import com.megacrit.cardcrawl.actions.GameActionManager;
+import com.megacrit.cardcrawl.cards.AbstractCard;
+import com.megacrit.cardcrawl.cards.CardGroup;
+import com.megacrit.cardcrawl.characters.AbstractPlayer;
+import com.megacrit.cardcrawl.core.AbstractCreature;
+import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
+import com.megacrit.cardcrawl.monsters.AbstractMonster;
+import com.megacrit.cardcrawl.monsters.EnemyMoveInfo;
+import com.megacrit.cardcrawl.monsters.MonsterGroup;
+import com.megacrit.cardcrawl.orbs.AbstractOrb;
+import com.megacrit.cardcrawl.potions.AbstractPotion;
+import com.megacrit.cardcrawl.powers.AbstractPower;
+import com.megacrit.cardcrawl.random.Random;
+import com.megacrit.cardcrawl.relics.AbstractRelic;
+import com.megacrit.cardcrawl.rooms.AbstractRoom;
+import com.megacrit.cardcrawl.stances.AbstractStance;
+import com.megacrit.cardcrawl.ui.panels.EnergyPanel;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 战斗状态存档，用于树搜索等需要从同一状态反复分支的场景
+ * 保存玩家、各牌堆、怪物组、能力、遗物计数、随机数状态和动作管理器的回合信息，
+ * 只能在游戏主线程中、动作队列空闲时（等待玩家操作）创建和恢复，本场战斗分出胜负后也可以恢复
+ *
+ * 卡牌保存为makeSameInstanceOf()副本（uuid不变），每次恢复时再复制一次，存档本身不会被后续操作修改；
+ * 怪物、能力、遗物、药水、充能球保存对象引用以及可变字段的值，恢复时写回同一批对象，
+ * 因此存档只能在创建它的那场战斗中恢复
+ */
+public final class CombatState {
+
+    // 需要保存的随机数生成器数量，与rngs()一致
+    private static final int RNG_COUNT = 13;
+    // AbstractMonster的私有字段move（下一步行动的伤害信息），恢复频繁，只查找一次
+    private static final Field MOVE_FIELD;
+
+    static {
+        try {
+            MOVE_FIELD = AbstractMonster.class.getDeclaredField("move");
+            MOVE_FIELD.setAccessible(true);
+        } catch (NoSuchFieldException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // 存档所属的战斗，用于拒绝跨战斗恢复
+    private final MonsterGroup monsterGroup;
+
+    // 玩家
+    private final CreatureState player;
+    private final int gold;
+    private final int energy;
+    private final boolean endTurnQueued;
+    private final boolean isEndingTurn;
+    private final AbstractStance stance;
+    private final List<AbstractOrb> orbs;
+    private final int[] orbAmounts;
+    private final int maxOrbs;
+    private final List<AbstractPotion> potions;
+    private final List<AbstractRelic> relics;
+    private final int[] relicCounters;
+    private final boolean[] relicGrayscale;
+    private final Object[][] relicFields;
+
+    // 牌堆
+    private final List<AbstractCard> hand;
+    private final List<AbstractCard> drawPile;
+    private final List<AbstractCard> discardPile;
+    private final List<AbstractCard> exhaustPile;
+
+    // 怪物
+    private final List<AbstractMonster> monsters;
+    private final List<MonsterState> monsterStates;
+
+    // 随机数生成器的计数和内部状态
+    private final int[] rngCounters = new int[RNG_COUNT];
+    private final long[] rngStates = new long[RNG_COUNT * 2];
+
+    // 动作管理器
+    private final int turn;
+    private final List<AbstractCard> cardsPlayedThisTurn;
+    private final List<AbstractCard> cardsPlayedThisCombat;
+    private final int damageReceivedThisTurn;
+    private final int damageReceivedThisCombat;
+
+    /**
+     * 生物（玩家或怪物）共有的状态，以及其能力
+     */
+    private static class CreatureState {
+        final int currentHealth;
+        final int maxHealth;
+        final int currentBlock;
+        final boolean isDying;
+        final boolean isDead;
+        final boolean halfDead;
+        final boolean isEscaping;
+        final boolean escaped;
+        final List<AbstractPower> powers;
+        final int[] powerAmounts;
+        final Object[][] powerFields;
+
+        CreatureState(AbstractCreature c) {
+            currentHealth = c.currentHealth;
+            maxHealth = c.maxHealth;
+            currentBlock = c.currentBlock;
+            isDying = c.isDying;
+            isDead = c.isDead;
+            halfDead = c.halfDead;
+            isEscaping = c.isEscaping;
+            escaped = c.escaped;
+            powers = new ArrayList<>(c.powers);
+            powerAmounts = new int[powers.size()];
+            powerFields = new Object[powers.size()][];
+            for (int i = 0; i < powers.size(); i++) {
+                powerAmounts[i] = powers.get(i).amount;
+                powerFields[i] = FieldCopier.capture(powers.get(i), AbstractPower.class);
+            }
+        }
+
+        void restore(AbstractCreature c) {
+            c.currentHealth = currentHealth;
+            c.maxHealth = maxHealth;
+            c.currentBlock = currentBlock;
+            c.isDying = isDying;
+            c.isDead = isDead;
+            c.halfDead = halfDead;
+            c.isEscaping = isEscaping;
+            c.escaped = escaped;
+            c.powers.clear();
+            for (int i = 0; i < powers.size(); i++) {
+                AbstractPower power = powers.get(i);
+                power.amount = powerAmounts[i];
+                FieldCopier.restore(power, AbstractPower.class, powerFields[i]);
+                power.updateDescription();
+                c.powers.add(power);
+            }
+            c.healthBarUpdatedEvent();
+        }
+    }
+
+    /**
+     * 怪物的状态，包括下一步行动和子类中的AI字段
+     */
+    private static final class MonsterState extends CreatureState {
+        final byte nextMove;
+        final AbstractMonster.Intent intent;
+        final List<Byte> moveHistory;
+        final EnemyMoveInfo move;
+        final Object[] fields;
+
+        MonsterState(AbstractMonster m) {
+            super(m);
+            nextMove = m.nextMove;
+            intent = m.intent;
+            moveHistory = new ArrayList<>(m.moveHistory);
+            move = (EnemyMoveInfo) getMove(m);
+            fields = FieldCopier.capture(m, AbstractMonster.class);
+        }
+
+        void restore(AbstractMonster m) {
+            super.restore(m);
+            m.nextMove = nextMove;
+            m.intent = intent;
+            m.moveHistory.clear();
+            m.moveHistory.addAll(moveHistory);
+            setMove(m, move);
+            FieldCopier.restore(m, AbstractMonster.class, fields);
+        }
+    }
+
+    private CombatState(AbstractPlayer p, MonsterGroup group) {
+        monsterGroup = group;
+
+        player = new CreatureState(p);
+        gold = p.gold;
+        energy = EnergyPanel.totalCount;
+        endTurnQueued = p.endTurnQueued;
+        isEndingTurn = p.isEndingTurn;
+        stance = p.stance;
+        orbs = new ArrayList<>(p.orbs);
+        orbAmounts = new int[orbs.size() * 2];
+        for (int i = 0; i < orbs.size(); i++) {
+            orbAmounts[i * 2] = orbs.get(i).evokeAmount;
+            orbAmounts[i * 2 + 1] = orbs.get(i).passiveAmount;
+        }
+        maxOrbs = p.maxOrbs;
+        potions = new ArrayList<>(p.potions);
+        relics = new ArrayList<>(p.relics);
+        relicCounters = new int[relics.size()];
+        relicGrayscale = new boolean[relics.size()];
+        relicFields = new Object[relics.size()][];
+        for (int i = 0; i < relics.size(); i++) {
+            AbstractRelic r = relics.get(i);
+            relicCounters[i] = r.counter;
+            relicGrayscale[i] = r.grayscale;
+            relicFields[i] = FieldCopier.capture(r, AbstractRelic.class);
+        }
+
+        hand = copyCards(p.hand.group);
+        drawPile = copyCards(p.drawPile.group);
+        discardPile = copyCards(p.discardPile.group);
+        exhaustPile = copyCards(p.exhaustPile.group);
+
+        monsters = new ArrayList<>(group.monsters);
+        monsterStates = new ArrayList<>(monsters.size());
+        for (AbstractMonster m : monsters) {
+            monsterStates.add(new MonsterState(m));
+        }
+
+        Random[] rngs = rngs();
+        for (int i = 0; i < rngs.length; i++) {
+            Random rng = rngs[i];
+            if (rng != null) {
+                rngCounters[i] = rng.counter;
+                rngStates[i * 2] = rng.random.getState(0);
+                rngStates[i * 2 + 1] = rng.random.getState(1);
+            }
+        }
+
+        GameActionManager am = AbstractDungeon.actionManager;
+        turn = am.turn;
+        cardsPlayedThisTurn = new ArrayList<>(am.cardsPlayedThisTurn);
+        cardsPlayedThisCombat = new ArrayList<>(am.cardsPlayedThisCombat);
+        damageReceivedThisTurn = am.damageReceivedThisTurn;
+        damageReceivedThisCombat = am.damageReceivedThisCombat;
+    }
+
+    /**
+     * 检查当前能否创建存档
+     * @return 不能创建的原因，可以时返回null
+     */
+    public static String checkCapturable() {
+        AbstractRoom room = AbstractDungeon.getCurrRoom();
+        if (AbstractDungeon.player == null || room == null || room.monsters == null
+                || room.phase != AbstractRoom.RoomPhase.COMBAT) {
+            return "not in combat";
+        }
+        GameActionManager am = AbstractDungeon.actionManager;
+        if (am.currentAction != null || !am.actions.isEmpty() || !am.preTurnActions.isEmpty()
+                || !am.cardQueue.isEmpty() || !am.monsterQueue.isEmpty()
+                || am.phase != GameActionManager.Phase.WAITING_ON_USER) {
+            return "action queue is not idle";
+        }
+        return null;
+    }
+
+    // 辅助方法：存档所属的战斗是否已分出胜负（胜利后的奖励界面或死亡界面），此时还没有离开战斗房间
+    private boolean isFinished(AbstractRoom room) {
+        if (AbstractDungeon.player == null || room == null || room.monsters != monsterGroup) {
+            return false;
+        }
+        return room.phase == AbstractRoom.RoomPhase.COMPLETE || room.isBattleOver
+                || AbstractDungeon.player.isDead || monsterGroup.areMonstersBasicallyDead();
+    }
+
+    // 辅助方法：重新打开已结束的战斗，丢弃战斗结束后排队的动作和奖励，关闭奖励或死亡界面
+    private static void reopen(AbstractRoom room) {
+        GameActionManager am = AbstractDungeon.actionManager;
+        am.clear();
+        am.phase = GameActionManager.Phase.WAITING_ON_USER;
+        room.phase = AbstractRoom.RoomPhase.COMBAT;
+        room.isBattleOver = false;
+        room.rewards.clear();
+        // 胜利后：奖励界面和前进按钮已经出现，前进按钮不隐藏的话点击一次就会在战斗中离开房间
+        AbstractDungeon.combatRewardScreen.clear();
+        AbstractDungeon.overlayMenu.proceedButton.hide();
+        // 死亡后：死亡界面会盖上黑色背景并显示横幅，界面对象在下一次死亡时重新创建
+        AbstractDungeon.deathScreen = null;
+        AbstractDungeon.overlayMenu.hideBlackScreen();
+        AbstractDungeon.dynamicBanner.hide();
+        AbstractDungeon.screen = AbstractDungeon.CurrentScreen.NONE;
+        AbstractDungeon.isScreenUp = false;
+        AbstractDungeon.overlayMenu.showCombatPanels();
+        AbstractDungeon.overlayMenu.endTurnButton.enable();
+    }
+
+    /**
+     * 在游戏主线程中保存当前战斗状态，调用前应先检查checkCapturable()
+     * @return 存档
+     */
+    public static CombatState capture() {
+        return new CombatState(AbstractDungeon.player, AbstractDungeon.getCurrRoom().monsters);
+    }
+
+    /**
+     * 在游戏主线程中恢复存档
+     * 除了可以创建存档的状态，也可以在本场战斗分出胜负后（还没有离开房间时）恢复，用于一局结束后重置
+     * @return 不能恢复的原因，成功时返回null
+     */
+    public String restore() {
+        AbstractRoom room = AbstractDungeon.getCurrRoom();
+        boolean finished = isFinished(room);
+        if (!finished) {
+            String error = checkCapturable();
+            if (error != null) {
+                return error;
+            }
+            if (room.monsters != monsterGroup) {
+                return "snapshot belongs to a different combat";
+            }
+        }
+        AbstractPlayer p = AbstractDungeon.player;
+        if (finished) {
+            reopen(room);
+        }
+
+        player.restore(p);
+        p.gold = gold;
+        EnergyPanel.setEnergy(energy);
+        p.endTurnQueued = endTurnQueued;
+        p.isEndingTurn = isEndingTurn;
+        p.stance = stance;
+        p.orbs.clear();
+        p.orbs.addAll(orbs);
+        for (int i = 0; i < orbs.size(); i++) {
+            orbs.get(i).evokeAmount = orbAmounts[i * 2];
+            orbs.get(i).passiveAmount = orbAmounts[i * 2 + 1];
+        }
+        p.maxOrbs = maxOrbs;
+        p.potions.clear();
+        p.potions.addAll(potions);
+        p.relics.clear();
+        p.relics.addAll(relics);
+        for (int i = 0; i < relics.size(); i++) {
+            AbstractRelic r = relics.get(i);
+            r.counter = relicCounters[i];
+            r.grayscale = relicGrayscale[i];
+            FieldCopier.restore(r, AbstractRelic.class, relicFields[i]);
+        }
+
+        restoreCards(p.hand, hand);
+        restoreCards(p.drawPile, drawPile);
+        restoreCards(p.discardPile, discardPile);
+        restoreCards(p.exhaustPile, exhaustPile);
+        p.limbo.clear();
+        p.cardInUse = null;
+
+        monsterGroup.monsters.clear();
+        monsterGroup.monsters.addAll(monsters);
+        for (int i = 0; i < monsters.size(); i++) {
+            monsterStates.get(i).restore(monsters.get(i));
+        }
+
+        // 随机数生成器会在换层时被替换，恢复时写入当前的生成器对象
+        Random[] rngs = rngs();
+        for (int i = 0; i < rngs.length; i++) {
+            Random rng = rngs[i];
+            if (rng != null) {
+                rng.counter = rngCounters[i];
+                rng.random.setState(rngStates[i * 2], rngStates[i * 2 + 1]);
+            }
+        }
+
+        GameActionManager am = AbstractDungeon.actionManager;
+        am.turn = turn;
+        am.turnHasEnded = false;
+        am.cardsPlayedThisTurn.clear();
+        am.cardsPlayedThisTurn.addAll(cardsPlayedThisTurn);
+        am.cardsPlayedThisCombat.clear();
+        am.cardsPlayedThisCombat.addAll(cardsPlayedThisCombat);
+        am.damageReceivedThisTurn = damageReceivedThisTurn;
+        am.damageReceivedThisCombat = damageReceivedThisCombat;
+
+        // 根据恢复后的能力重新计算手牌数值和怪物意图伤害
+        for (AbstractMonster m : monsters) {
+            if (!m.isDeadOrEscaped()) {
+                m.createIntent();
+            }
+        }
+        p.hand.applyPowers();
+        p.hand.refreshHandLayout();
+        return null;
+    }
+
+    // 辅助方法：当前所有随机数生成器，顺序即保存顺序
+    private static Random[] rngs() {
+        return new Random[] {
+                AbstractDungeon.monsterRng, AbstractDungeon.mapRng, AbstractDungeon.eventRng,
+                AbstractDungeon.merchantRng, AbstractDungeon.cardRng, AbstractDungeon.treasureRng,
+                AbstractDungeon.relicRng, AbstractDungeon.potionRng, AbstractDungeon.monsterHpRng,
+                AbstractDungeon.aiRng, AbstractDungeon.shuffleRng, AbstractDungeon.cardRandomRng,
+                AbstractDungeon.miscRng
+        };
+    }
+
+    private static Object getMove(AbstractMonster m) {
+        try {
+            return MOVE_FIELD.get(m);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void setMove(AbstractMonster m, Object move) {
+        try {
+            MOVE_FIELD.set(m, move);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 辅助方法：复制牌堆中的卡牌，保留uuid
+    private static List<AbstractCard> copyCards(List<AbstractCard> cards) {
+        List<AbstractCard> copies = new ArrayList<>(cards.size());
+        for (AbstractCard c : cards) {
+            copies.add(c.makeSameInstanceOf());
+        }
+        return copies;
+    }
+
+    // 辅助方法：用存档中卡牌的新副本替换牌堆内容
+    private static void restoreCards(CardGroup pile, List<AbstractCard> saved) {
+        pile.group.clear();
+        for (AbstractCard c : saved) {
+            pile.group.add(c.makeSameInstanceOf());
+        }
+    }
+}
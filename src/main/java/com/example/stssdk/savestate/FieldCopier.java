@@ -0,0 +1,83 @@
+package com.example.stssdk.savestate;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 子类字段复制工具
+ * 怪物AI、能力、遗物的子类常在自己的字段中保存状态（例如是否第一次行动、本回合已触发次数），
+ * 这里用反射保存和恢复子类中声明的基本类型、字符串和枚举字段，字段列表按类缓存，只在第一次遇到该类时查找
+ */
+final class FieldCopier {
+    private static final Map<Class<?>, Field[]> cache = new ConcurrentHashMap<>();
+
+    private FieldCopier() {
+    }
+
+    /**
+     * 读取对象在boundary之下的子类中声明的值类型字段
+     * @param target 对象
+     * @param boundary 边界类，其自身及父类的字段不包括在内
+     * @return 字段值，顺序与fields()一致
+     */
+    static Object[] capture(Object target, Class<?> boundary) {
+        Field[] fields = fields(target.getClass(), boundary);
+        Object[] values = new Object[fields.length];
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                values[i] = fields[i].get(target);
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        return values;
+    }
+
+    /**
+     * 把capture()得到的值写回对象
+     * @param target 对象，必须与capture时是同一个类
+     * @param boundary 边界类
+     * @param values 字段值
+     */
+    static void restore(Object target, Class<?> boundary, Object[] values) {
+        Field[] fields = fields(target.getClass(), boundary);
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                fields[i].set(target, values[i]);
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Field[] fields(Class<?> type, Class<?> boundary) {
+        Field[] fields = cache.get(type);
+        if (fields == null) {
+            List<Field> found = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != boundary && c != Object.class; c = c.getSuperclass()) {
+                for (Field f : c.getDeclaredFields()) {
+                    int mod = f.getModifiers();
+                    if (Modifier.isStatic(mod) || Modifier.isFinal(mod) || !isValueType(f.getType())) {
+                        continue;
+                    }
+                    f.setAccessible(true);
+                    found.add(f);
+                }
+            }
+            fields = found.toArray(new Field[0]);
+            cache.put(type, fields);
+        }
+        return fields;
+    }
+
+    // 不可变的值类型，直接保存引用即可；AtomicInteger等可变的Number子类不在其中
+    private static boolean isValueType(Class<?> t) {
+        return t.isPrimitive() || t.isEnum() || t == String.class
+                || t == Integer.class || t == Long.class || t == Short.class || t == Byte.class
+                || t == Float.class || t == Double.class || t == Boolean.class || t == Character.class;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.stssdk.savestate;
+
+import com.google.gson.JsonObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内存中的战斗存档仓库，按最近使用顺序淘汰
+ * put/get/remove可在任意线程中调用，存档的创建和restore()必须在游戏主线程中执行
+ */
+public final class SaveStateStore {
+    // 默认最多保留的存档数量
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static volatile int capacity = DEFAULT_CAPACITY;
+    // accessOrder为true的LinkedHashMap，迭代顺序即最近使用顺序
+    private static final LinkedHashMap<String, CombatState> states = new LinkedHashMap<String, CombatState>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CombatState> eldest) {
+            if (size() > capacity) {
+                evicted.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private static final AtomicLong nextId = new AtomicLong(1);
+    private static final AtomicLong saved = new AtomicLong();
+    private static final AtomicLong restored = new AtomicLong();
+    private static final AtomicLong evicted = new AtomicLong();
+
+    private SaveStateStore() {
+    }
+
+    /**
+     * 设置最多保留的存档数量
+     * @param maxStates 存档数量，至少为1
+     */
+    public static void setCapacity(int maxStates) {
+        capacity = Math.max(1, maxStates);
+    }
+
+    /**
+     * 保存存档
+     * @param name 存档ID，为null时自动分配；同名存档会被覆盖
+     * @param state 存档
+     * @return 存档ID
+     */
+    public static String put(String name, CombatState state) {
+        String id = name != null ? name : "s" + nextId.getAndIncrement();
+        synchronized (states) {
+            states.put(id, state);
+        }
+        saved.incrementAndGet();
+        return id;
+    }
+
+    /**
+     * 取出存档，同时将其标记为最近使用
+     * @param id 存档ID
+     * @return 存档，不存在或已被淘汰时返回null
+     */
+    public static CombatState get(String id) {
+        synchronized (states) {
+            return states.get(id);
+        }
+    }
+
+    /**
+     * 删除存档
+     * @param id 存档ID
+     * @return 存档存在时返回true
+     */
+    public static boolean remove(String id) {
+        synchronized (states) {
+            return states.remove(id) != null;
+        }
+    }
+
+    /**
+     * 在游戏主线程中恢复存档
+     * @param id 存档ID
+     * @return 不能恢复的原因，成功时返回null
+     */
+    public static String restore(String id) {
+        CombatState state = get(id);
+        if (state == null) {
+            return "unknown snapshotId";
+        }
+        String error = state.restore();
+        if (error == null) {
+            restored.incrementAndGet();
+        }
+        return error;
+    }
+
+    public static int size() {
+        synchronized (states) {
+            return states.size();
+        }
+    }
+
+    /**
+     * 仓库统计信息
+     * @return 包含数量、容量和累计次数的JSON对象
+     */
+    public static JsonObject stats() {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("size", size());
+        obj.addProperty("capacity", capacity);
+        obj.addProperty("saved", saved.get());
+        obj.addProperty("restored", restored.get());
+        obj.addProperty("evicted", evicted.get());
+        return obj;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.stssdk.server;
+
+import fi.iki.elonen.NanoHTTPD;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 有界的连接处理线程池，替代NanoHTTPD默认的每连接一个新线程
+ * 线程数固定上限并在空闲后回收，超出线程数的连接进入有界队列排队（容量为0时不排队），
+ * 队列已满时拒绝连接，由Rejectable回写503，避免游戏进程中线程无限增长
+ *
+ * 注意：保持连接（keep-alive）、长轮询和WebSocket连接在整个连接期间都会占用一个工作线程
+ */
+public class BoundedAsyncRunner implements NanoHTTPD.AsyncRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoundedAsyncRunner.class);
+
+    /**
+     * 可以在被拒绝时自行回复客户端的连接
+     */
+    public interface Rejectable {
+        /**
+         * 回复服务器繁忙并关闭连接，在接受连接的线程中调用
+         */
+        void reject();
+    }
+
+    private final ThreadPoolExecutor pool;
+    private final Set<NanoHTTPD.ClientHandler> running = ConcurrentHashMap.newKeySet();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * 创建线程池
+     * @param maxThreads 最大工作线程数
+     * @param queueCapacity 等待队列容量，为0时所有线程都在处理连接就立即拒绝
+     */
+    public BoundedAsyncRunner(int maxThreads, int queueCapacity) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        pool = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>(), r -> {
+                    Thread t = new Thread(r, "STSSDK-Worker-" + threadIndex.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        // 空闲线程超时回收，没有请求时不占用线程
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 提交连接处理任务，线程和队列都已满时拒绝
+     * @param handler 连接处理器
+     */
+    @Override
+    public void exec(NanoHTTPD.ClientHandler handler) {
+        running.add(handler);
+        try {
+            pool.execute(handler);
+        } catch (RejectedExecutionException e) {
+            running.remove(handler);
+            long rejected = rejectedCount.incrementAndGet();
+            logger.warn("Connection rejected, worker pool full (rejected so far: {})", rejected);
+            if (handler instanceof Rejectable) {
+                ((Rejectable) handler).reject();
+            } else {
+                handler.close();
+            }
+        }
+    }
+
+    @Override
+    public void closed(NanoHTTPD.ClientHandler handler) {
+        running.remove(handler);
+    }
+
+    /**
+     * 关闭所有连接，服务器停止时调用；线程池本身保留，服务器可以重新启动
+     */
+    @Override
+    public void closeAll() {
+        for (NanoHTTPD.ClientHandler handler : new ArrayList<>(running)) {
+            handler.close();
+        }
+    }
+
+    // 正在处理请求的线程数
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    // 排队等待的连接数
+    public int getQueuedCount() {
+        return pool.getQueue().size();
+    }
+
+    // 当前打开的连接数（包括排队中的连接）
+    public int getOpenConnections() {
+        return running.size();
+    }
+
+    // 因线程池已满被拒绝的连接总数
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    // 已处理完成的连接总数
+    public long getCompletedCount() {
+        return pool.getCompletedTaskCount();
+    }
+}
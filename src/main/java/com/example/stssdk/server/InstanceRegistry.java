@@ -0,0 +1,157 @@
+package com.example.stssdk.server;
+
+import com.example.stssdk.patches.FastMode;
+import com.example.stssdk.state.SnapshotPublisher;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本机实例注册表，用于在同一台机器上运行多个游戏实例时发现所有实例
+ * 每个实例在注册目录中维护一个以实例ID命名的json文件，并定期刷新心跳时间；
+ * 心跳超过STALE_MS未刷新的文件视为已退出的实例，列出时会被忽略并删除
+ */
+public class InstanceRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(InstanceRegistry.class);
+
+    private static final long HEARTBEAT_INTERVAL_MS = 5000;
+    private static final long STALE_MS = 15000;
+
+    private final Path directory;
+    private final Path file;
+    private final String instanceId;
+    private final String host;
+    private final int port;
+    private final long pid;
+    private final long startedAt = System.currentTimeMillis();
+
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "STSSDK-Registry-Thread");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * @param directory 注册目录，所有实例共用
+     * @param instanceId 实例ID，同一目录中必须唯一
+     * @param host 服务器绑定地址
+     * @param port 服务器实际监听的端口
+     */
+    public InstanceRegistry(Path directory, String instanceId, String host, int port) {
+        this.directory = directory;
+        this.file = directory.resolve(instanceId + ".json");
+        this.instanceId = instanceId;
+        this.host = host;
+        this.port = port;
+        this.pid = currentPid();
+    }
+
+    /**
+     * 写入注册文件并开始定期刷新心跳，进程退出时删除注册文件
+     */
+    public void start() {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            logger.warn("Failed to create registry directory {}: {}", directory, e.toString());
+            return;
+        }
+        heartbeat.scheduleAtFixedRate(this::writeEntry, 0, HEARTBEAT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::remove, "STSSDK-Registry-Cleanup"));
+        logger.info("Registered instance {} at {}", instanceId, file);
+    }
+
+    /**
+     * 停止心跳并删除注册文件
+     */
+    public void remove() {
+        heartbeat.shutdownNow();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // 进程即将退出，忽略
+        }
+    }
+
+    /**
+     * 当前实例的信息
+     * @return 包含instanceId、pid、host、port、startedAt、heartbeat、stateVersion、fastMode的JSON对象
+     */
+    public JsonObject self() {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("instanceId", instanceId);
+        obj.addProperty("pid", pid);
+        obj.addProperty("host", host);
+        obj.addProperty("port", port);
+        obj.addProperty("url", "http://" + host + ":" + port);
+        obj.addProperty("startedAt", startedAt);
+        obj.addProperty("heartbeat", System.currentTimeMillis());
+        obj.addProperty("stateVersion", SnapshotPublisher.latest().version);
+        obj.addProperty("fastMode", FastMode.isEnabled());
+        return obj;
+    }
+
+    /**
+     * 列出注册目录中所有仍然存活的实例，顺便删除心跳已过期的注册文件
+     * @return 实例信息数组
+     */
+    public JsonArray list() {
+        JsonArray instances = new JsonArray();
+        long now = System.currentTimeMillis();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path entry : entries) {
+                try {
+                    JsonObject obj = JsonParser.parseString(
+                            new String(Files.readAllBytes(entry), StandardCharsets.UTF_8)).getAsJsonObject();
+                    if (now - obj.get("heartbeat").getAsLong() > STALE_MS) {
+                        Files.deleteIfExists(entry);
+                        continue;
+                    }
+                    instances.add(obj);
+                } catch (Exception e) {
+                    // 文件正在被其他实例写入或已被删除，跳过
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to list registry directory {}: {}", directory, e.toString());
+        }
+        return instances;
+    }
+
+    // 辅助方法：先写临时文件再替换，读取方不会读到写了一半的文件
+    private void writeEntry() {
+        try {
+            Path tmp = directory.resolve(instanceId + ".json.tmp");
+            Files.write(tmp, self().toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            logger.warn("Failed to write registry entry {}: {}", file, e.toString());
+        }
+    }
+
+    /**
+     * 当前进程的pid，Java 8中从RuntimeMXBean的名称（pid@hostname）中解析
+     * @return pid，无法解析时返回-1
+     */
+    public static long currentPid() {
+        String name = ManagementFactory.getRuntimeMXBean().getName();
+        try {
+            return Long.parseLong(name.substring(0, name.indexOf('@')));
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
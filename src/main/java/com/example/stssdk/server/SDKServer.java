@@ -1,36 +1,237 @@
 package com.example.stssdk.server;
 
 
+import com.example.stssdk.SDKConfig;
+import com.example.stssdk.action.CommandInbox;
+import com.example.stssdk.core.BinaryStateEncoder;
 import com.example.stssdk.core.CommandExecutor;
-import fi.iki.elonen.NanoHTTPD;
+import com.example.stssdk.core.DeltaEncoder;
+import com.example.stssdk.core.MetadataDictionary;
+import com.example.stssdk.core.Serializer;
+import com.example.stssdk.core.StateProjection;
+import fi.iki.elonen.NanoWSD;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import com.google.gson.JsonArray;
-import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
-import com.megacrit.cardcrawl.characters.AbstractPlayer;
-import com.example.stssdk.core.Serializer;
+import com.example.stssdk.core.ChunkedJsonStream;
+import com.example.stssdk.core.StreamingSerializer;
+import com.example.stssdk.state.CardSnapshot;
+import com.example.stssdk.state.GameSnapshot;
+import com.example.stssdk.state.SnapshotPublisher;
+import com.example.stssdk.metrics.Metrics;
+import com.example.stssdk.metrics.PrometheusWriter;
+import com.example.stssdk.observation.ObservationEncoder;
+import com.example.stssdk.observation.ObservationLayout;
+import com.example.stssdk.savestate.SaveStateStore;
+import com.example.stssdk.trajectory.TrajectoryReader;
+import com.example.stssdk.trajectory.TrajectoryRecorder;
 
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * STS-SDK HTTP服务器实现
  * 基于NanoHTTPD轻量级HTTP服务器库，提供游戏数据API接口
+ * 同时在/ws路径上提供WebSocket状态推送通道
  */
-public class SDKServer extends NanoHTTPD {
+public class SDKServer extends NanoWSD {
+    private static final Logger logger = LoggerFactory.getLogger(SDKServer.class);
+
+    // 流式序列化的响应统一使用UTF-8
+    private static final String JSON_UTF8 = "application/json; charset=UTF-8";
+    // 卡牌数量超过该值时改用分块传输
+    private static final int CHUNKED_THRESHOLD = 64;
+
+    // 决定响应表示的查询参数，参与ETag的计算；增量状态的内容还取决于基准版本
+    private static final String[] REPRESENTATION_PARAMS = {"format", "lean", "fields", "include", "blocks", "dtype", "mask"};
+    private static final String[] DELTA_REPRESENTATION_PARAMS = {"sinceVersion", "resync"};
+
+    // 长轮询默认和最大等待时间（毫秒）
+    private static final long DEFAULT_POLL_TIMEOUT_MS = 25000;
+    private static final long MAX_POLL_TIMEOUT_MS = 60000;
+
+    // 连接处理线程池的最大线程数和等待队列容量，默认不排队：所有线程都被占用时新连接立即收到503，
+    // 而不是排在长轮询、WebSocket等长期占用线程的连接后面无限等待
+    private static final int WORKER_THREADS = Math.max(1, SDKConfig.getInt("workerThreads", 16));
+    private static final int WORKER_QUEUE_CAPACITY = Math.max(0, SDKConfig.getInt("workerQueue", 0));
+
+    // 线程池已满时直接写回的响应
+    private static final byte[] BUSY_RESPONSE = ("HTTP/1.1 503 Service Unavailable\r\n"
+            + "Content-Type: application/json\r\n"
+            + "Content-Length: 23\r\n"
+            + "Retry-After: 1\r\n"
+            + "Connection: close\r\n"
+            + "\r\n"
+            + "{\"error\":\"server busy\"}").getBytes(StandardCharsets.US_ASCII);
+
+    // 连接处理线程池
+    private final BoundedAsyncRunner runner = new BoundedAsyncRunner(WORKER_THREADS, WORKER_QUEUE_CAPACITY);
+
+    // 本机实例注册表，未设置时实例接口返回错误
+    private volatile InstanceRegistry registry;
 
     // 命令执行器，负责处理POST请求中的游戏操作命令
     private final CommandExecutor executor = new CommandExecutor();
 
+    // WebSocket状态推送中心
+    private final StreamHub streamHub = new StreamHub();
+
+    // 最近一次序列化的完整游戏状态，按版本号缓存
+    private volatile CachedBody cachedState;
+    // lean模式的完整游戏状态缓存
+    private volatile CachedBody cachedLeanState;
+
+    // 按状态版本缓存的响应体
+    private static final class CachedBody {
+        final long version;
+        final byte[] body;
+
+        CachedBody(long version, byte[] body) {
+            this.version = version;
+            this.body = body;
+        }
+    }
+
     /**
      * 构造函数，创建并初始化HTTP服务器
      * @param port 服务器监听端口
      * @throws IOException 服务器启动失败时抛出异常
      */
     public SDKServer(int port) throws IOException {
-        super("127.0.0.1", port);
+        this("127.0.0.1", port);
+    }
+
+    /**
+     * 构造函数，创建并初始化HTTP服务器
+     * @param host 绑定地址
+     * @param port 服务器监听端口，0表示由系统分配
+     * @throws IOException 服务器启动失败时抛出异常
+     */
+    public SDKServer(String host, int port) throws IOException {
+        super(host, port);
+        setAsyncRunner(runner);
+    }
+
+    /**
+     * 从指定端口开始依次尝试启动服务器，端口都被占用时改用系统分配的空闲端口
+     * @param host 绑定地址
+     * @param port 首选端口
+     * @param attempts 从首选端口开始尝试的端口数量
+     * @return 已启动的服务器，实际端口见getListeningPort()
+     * @throws IOException 系统分配的端口也无法启动时抛出异常
+     */
+    public static SDKServer startOnFreePort(String host, int port, int attempts) throws IOException {
+        for (int i = 0; i < attempts; i++) {
+            SDKServer server = new SDKServer(host, port + i);
+            try {
+                server.start();
+                return server;
+            } catch (IOException e) {
+                logger.info("Port {} unavailable: {}", port + i, e.toString());
+                server.stop();
+            }
+        }
+        SDKServer server = new SDKServer(host, 0);
+        try {
+            server.start();
+        } catch (IOException e) {
+            server.stop();
+            throw e;
+        }
+        return server;
+    }
+
+    /**
+     * 停止服务器，同时关闭所有WebSocket推送
+     */
+    @Override
+    public void stop() {
+        super.stop();
+        streamHub.close();
+    }
+
+    /**
+     * 设置本机实例注册表，用于/api/instance和/api/instances
+     */
+    public void setInstanceRegistry(InstanceRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 连接处理线程池，用于查看线程和排队情况
+     */
+    public BoundedAsyncRunner getRunner() {
+        return runner;
+    }
+
+    /**
+     * 创建可被线程池拒绝的连接处理器
+     * NanoHTTPD分两次写出响应头和响应体，开启Nagle算法时第二次写入要等客户端的延迟ACK（约40ms），
+     * 因此关闭Nagle算法
+     */
+    @Override
+    protected ClientHandler createClientHandler(Socket finalAccept, InputStream inputStream) {
+        try {
+            finalAccept.setTcpNoDelay(true);
+        } catch (IOException e) {
+            // 连接已断开，交给处理器关闭
+        }
+        return new PooledClientHandler(inputStream, finalAccept);
+    }
+
+    /**
+     * 保留客户端Socket的连接处理器，线程池已满时直接回写503
+     */
+    private class PooledClientHandler extends ClientHandler implements BoundedAsyncRunner.Rejectable {
+        private final Socket socket;
+
+        PooledClientHandler(InputStream inputStream, Socket socket) {
+            super(inputStream, socket);
+            this.socket = socket;
+        }
+
+        @Override
+        public void reject() {
+            try {
+                OutputStream out = socket.getOutputStream();
+                out.write(BUSY_RESPONSE);
+                out.flush();
+            } catch (IOException e) {
+                // 客户端已断开，直接关闭
+            } finally {
+                close();
+            }
+        }
+    }
+
+    /**
+     * 只有/ws路径上的升级请求才建立WebSocket连接
+     */
+    @Override
+    protected boolean isWebsocketRequested(IHTTPSession session) {
+        return "/ws".equals(session.getUri()) && super.isWebsocketRequested(session);
+    }
+
+    /**
+     * 为新的WebSocket连接创建状态推送会话
+     * @param handshake 握手请求
+     * @return WebSocket连接对象
+     */
+    @Override
+    protected WebSocket openWebSocket(IHTTPSession handshake) {
+        return new StateSocket(handshake, streamHub, executor);
     }
 
     /**
@@ -40,7 +241,18 @@ public class SDKServer extends NanoHTTPD {
      * @return HTTP响应对象
      */
     @Override
-    public Response serve(IHTTPSession session) {
+    protected Response serveHttp(IHTTPSession session) {
+        long start = Metrics.start();
+        Response response = route(session);
+        // 未知路径统一计入other，避免任意路径产生大量指标
+        Response.IStatus status = response.getStatus();
+        Metrics.endpoint(status == Response.Status.NOT_FOUND ? "other" : session.getUri(), start,
+                status.getRequestStatus() >= 400);
+        return response;
+    }
+
+    // 根据请求方法和路径分发请求
+    private Response route(IHTTPSession session) {
         try {
             String uri = session.getUri();
             Method method = session.getMethod();
@@ -49,67 +261,127 @@ public class SDKServer extends NanoHTTPD {
             if (Method.POST.equals(method)) {
                 // 仅支持 application/json 的 POST
                 Map<String, String> body = new HashMap<>();
+                long stageStart = Metrics.start();
                 session.parseBody(body);
+                Metrics.stage("parse_body", stageStart);
                 String postData = body.getOrDefault("postData", "{}");
 
+                stageStart = Metrics.start();
+                JsonElement parsed = JsonParser.parseString(postData);
+                Metrics.stage("json_parse", stageStart);
 
-                JsonObject req = JsonParser.parseString(postData).getAsJsonObject();
-                JsonObject res = executor.execute(req);
-                return newFixedLengthResponse(Response.Status.OK, "application/json", res.toString());
+                // 批量命令：/batch 接收命令数组，一次往返执行多条命令
+                JsonObject res = "/batch".equals(uri)
+                        ? executor.executeBatch(parsed)
+                        : executor.execute(parsed.getAsJsonObject());
+                stageStart = Metrics.start();
+                String json = res.toString();
+                Metrics.stage("serialize", stageStart);
+                return newFixedLengthResponse(Response.Status.OK, "application/json", json);
             }
 
 
             // 处理GET请求 - 用于查看游戏元素数据   
             if (Method.GET.equals(method)) {
 
-                AbstractPlayer p = AbstractDungeon.player;
-                // 检查是否有玩家(游戏是否已开始)
-                if (p == null) {
-                    JsonObject error = new JsonObject();
-                    error.addProperty("error", "player is null");
-                    return newFixedLengthResponse(Response.Status.OK, "application/json", error.toString());
+                // 只读取游戏主线程发布的快照，不在HTTP线程中访问游戏对象
+                GameSnapshot snapshot = SnapshotPublisher.latest();
+
+                // Prometheus文本格式的延迟、错误率和队列指标
+                if ("/metrics".equals(uri)) {
+                    return handleGetMetrics(snapshot);
                 }
 
-                // 根据URI路径分发到不同的处理方法
-                // 玩家基本信息
-                if ("/api/player".equals(uri)) {
-                    return handleGetPlayer(p);
+                // 增量状态：/api/state/delta?sinceVersion=N 返回相对版本N的补丁
+                if ("/api/state/delta".equals(uri)) {
+                    return handleGetDelta(session, snapshot);
                 }
-                // 手牌信息
-                else if ("/api/hand".equals(uri)) {
-                    return handleGetHand(p);
+
+                // 长轮询：/api/state?sinceVersion=N&timeoutMs=T 阻塞到版本大于N或超时
+                String sinceParam = getParam(session, "sinceVersion");
+                if ("/api/state".equals(uri) && sinceParam != null) {
+                    Response invalid = checkLongParams(session, "sinceVersion", "timeoutMs");
+                    if (invalid != null) {
+                        return invalid;
+                    }
+                    long sinceVersion = Long.parseLong(sinceParam);
+                    snapshot = SnapshotPublisher.awaitNewerThan(sinceVersion, getTimeoutMs(session));
+                    if (snapshot.version <= sinceVersion) {
+                        return notModified(session, uri, snapshot);
+                    }
+                }
+
+                // 游戏主线程命令收件箱的排队深度和等待时间
+                if ("/api/inbox".equals(uri)) {
+                    return newFixedLengthResponse(Response.Status.OK, "application/json", CommandInbox.stats().toString());
                 }
-                // 抽牌堆信息
-                else if ("/api/drawpile".equals(uri)) {
-                    return handleGetDrawPile(p);
+
+                // 战斗存档仓库的数量和累计保存、恢复、淘汰次数
+                if ("/api/snapshots".equals(uri)) {
+                    return newFixedLengthResponse(Response.Status.OK, "application/json", SaveStateStore.stats().toString());
                 }
-                // 弃牌堆信息
-                else if ("/api/discardpile".equals(uri)) {
-                    return handleGetDiscardPile(p);
+
+                // 已完成的轨迹列表，以及按运行ID下载轨迹日志
+                if ("/api/trajectories".equals(uri) || "/api/trajectory".equals(uri)) {
+                    return handleGetTrajectory(uri, getParam(session, "run"));
                 }
-                // 完整牌组信息
-                else if ("/api/deck".equals(uri)) {
-                    return handleGetDeck(p);
+
+                // 当前实例信息和本机所有存活实例
+                if ("/api/instance".equals(uri) || "/api/instances".equals(uri)) {
+                    return handleGetInstances(uri);
                 }
-                // 玩家遗物信息
-                else if ("/api/relics".equals(uri)) {
-                    return handleGetRelics(p);
+
+                // 静态元数据字典，按游戏和Mod版本生成ETag
+                if ("/api/dictionary".equals(uri)) {
+                    return handleGetDictionary(session);
                 }
-                // 玩家药水信息
-                else if ("/api/potions".equals(uri)) {
-                    return handleGetPotions(p);
+
+                // 二进制布局和ID映射，不依赖游戏是否开始
+                if ("/api/schema".equals(uri)) {
+                    return newFixedLengthResponse(Response.Status.OK, "application/json", BinaryStateEncoder.schema().toString());
                 }
-                // 敌方信息
-                else if ("/api/monsters".equals(uri)) {
-                    return handleGetMonsters();
+
+                // 观测向量的布局和词表，不依赖游戏是否开始
+                if ("/api/observation/spec".equals(uri)) {
+                    return handleGetObservationSpec(session);
                 }
-                // 完整游戏状态
-                else if ("/api/state".equals(uri)) {
-                    JsonObject state = executor.execute(createGetStateCommand());
-                    return newFixedLengthResponse(Response.Status.OK, "application/json", state.toString());
+
+                // 固定长度的数值观测向量：小端float32（dtype=int32时为int32），布局见/api/observation/spec
+                GameSnapshot current = snapshot;
+                if ("/api/observation".equals(uri)) {
+                    return versioned(session, uri, current, () -> handleGetObservation(session, current));
+                }
+
+                // 合法操作：format=binary时返回掩码，每个字节对应一个操作，布局见maskLayout
+                if ("/api/legal_actions".equals(uri)) {
+                    return versioned(session, uri, current, () -> handleGetLegalActions(session, current));
+                }
+
+                // 二进制状态：/api/state?format=binary 或 Accept: application/x-stssdk-state
+                if ("/api/state".equals(uri) && wantsBinary(session)) {
+                    return versioned(session, uri, current, () -> handleGetStateBinary(current));
+                }
+
+                // 检查是否有玩家(游戏是否已开始)
+                if (!snapshot.hasPlayer()) {
+                    JsonObject error = new JsonObject();
+                    error.addProperty("error", "player is null");
+                    return newFixedLengthResponse(Response.Status.OK, "application/json", error.toString());
+                }
+
+                // lean=true时只返回ID和动态字段，静态信息见/api/dictionary
+                boolean lean = "true".equals(getParam(session, "lean"));
+                // fields=/include=时只输出请求的字段，语法见StateProjection
+                String fields = getParam(session, "fields");
+                String include = getParam(session, "include");
+                VersionedBody body = (fields != null || include != null) && StateProjection.supports(uri)
+                        ? () -> handleGetProjected(uri, current, lean, fields, include)
+                        : snapshotRoute(uri, current, lean);
+                if (body != null) {
+                    return versioned(session, uri, current, body);
                 }
                 // 检测连接状态
-                else if ("/ping".equals(uri)) {
+                if ("/ping".equals(uri)) {
                     JsonObject ok = new JsonObject();
                     ok.addProperty("status", "ok");
                     return newFixedLengthResponse(Response.Status.OK, "application/json", ok.toString());
@@ -124,144 +396,562 @@ public class SDKServer extends NanoHTTPD {
         }
     }
 
-    // 辅助方法：创建获取游戏状态的命令
-    private JsonObject createGetStateCommand() {
-        JsonObject cmd = new JsonObject();
-        cmd.addProperty("cmd", "get_state");
-        return cmd;
+    /**
+     * 按状态版本生成的响应体，只在客户端没有持有当前表示时才生成
+     */
+    private interface VersionedBody {
+        Response get() throws IOException;
+    }
+
+    /**
+     * 根据URI路径找到读取快照的处理方法
+     * @param uri 请求路径
+     * @param snapshot 游戏快照
+     * @param lean 是否使用lean模式
+     * @return 生成响应的方法，路径不匹配时返回null
+     */
+    private VersionedBody snapshotRoute(String uri, GameSnapshot snapshot, boolean lean) {
+        switch (uri) {
+            // 玩家基本信息
+            case "/api/player":
+                return () -> handleGetPlayer(snapshot);
+            // 手牌信息
+            case "/api/hand":
+                return () -> handleGetHand(snapshot, lean);
+            // 抽牌堆信息
+            case "/api/drawpile":
+                return () -> handleGetDrawPile(snapshot, lean);
+            // 弃牌堆信息
+            case "/api/discardpile":
+                return () -> handleGetDiscardPile(snapshot, lean);
+            // 完整牌组信息
+            case "/api/deck":
+                return () -> handleGetDeck(snapshot, lean);
+            // 玩家遗物信息
+            case "/api/relics":
+                return () -> handleGetRelics(snapshot, lean);
+            // 玩家药水信息
+            case "/api/potions":
+                return () -> handleGetPotions(snapshot, lean);
+            // 敌方信息
+            case "/api/monsters":
+                return () -> handleGetMonsters(snapshot, lean);
+            // 完整游戏状态
+            case "/api/state":
+                return () -> handleGetState(snapshot, lean);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 已匹配的按状态版本生成的路由：客户端已持有当前版本的同一表示时返回304，否则生成响应
+     */
+    private Response versioned(IHTTPSession session, String uri, GameSnapshot snapshot, VersionedBody body)
+            throws IOException {
+        String etag = etag(session, uri, snapshot);
+        if (etag.equals(session.getHeaders().get("if-none-match"))) {
+            return withVersion(newFixedLengthResponse(Response.Status.NOT_MODIFIED, "application/json", ""),
+                    uri, snapshot, etag);
+        }
+        return withVersion(body.get(), uri, snapshot, etag);
     }
 
     /**
-     * 处理获取玩家基本信息的请求
-     * @param p 玩家对象
-     * @return 包含玩家信息的HTTP响应
+     * 为响应添加ETag和状态版本号头；/api/state的格式由Accept决定，同时声明Vary: Accept
+     */
+    private static Response withVersion(Response response, String uri, GameSnapshot snapshot, String etag) {
+        response.addHeader("ETag", etag);
+        response.addHeader("X-State-Version", Long.toString(snapshot.version));
+        if ("/api/state".equals(uri)) {
+            response.addHeader("Vary", "Accept");
+        }
+        return response;
+    }
+
+    /**
+     * 创建304响应，表示客户端持有的版本仍是最新的
+     */
+    private static Response notModified(IHTTPSession session, String uri, GameSnapshot snapshot) {
+        return withVersion(newFixedLengthResponse(Response.Status.NOT_MODIFIED, "application/json", ""),
+                uri, snapshot, etag(session, uri, snapshot));
+    }
+
+    /**
+     * 当前版本在该请求所选表示下的ETag：/api/state为"42"，二进制状态为"42-bin"，
+     * 其他路径或带投影、观测布局等参数时为"42-<路径和参数的哈希>"
+     */
+    private static String etag(IHTTPSession session, String uri, GameSnapshot snapshot) {
+        StringBuilder params = new StringBuilder();
+        if (!"/api/state".equals(uri)) {
+            params.append(uri).append('?');
+        }
+        for (String name : "/api/state/delta".equals(uri) ? DELTA_REPRESENTATION_PARAMS : REPRESENTATION_PARAMS) {
+            String value = getParam(session, name);
+            if (value != null) {
+                params.append(name).append('=').append(value).append('&');
+            }
+        }
+        String representation = "/api/state".equals(uri) && wantsBinary(session) ? "bin" : null;
+        if (params.length() > 0) {
+            String hash = Integer.toHexString(params.toString().hashCode());
+            representation = representation != null ? representation + "-" + hash : hash;
+        }
+        return snapshot.etag(representation);
+    }
+
+    // 辅助方法：读取第一个同名查询参数
+    private static String getParam(IHTTPSession session, String name) {
+        List<String> values = session.getParameters().get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    // 辅助方法：判断客户端是否请求二进制编码
+    private static boolean wantsBinary(IHTTPSession session) {
+        if ("binary".equals(getParam(session, "format"))) {
+            return true;
+        }
+        String accept = session.getHeaders().get("accept");
+        return accept != null && accept.contains(BinaryStateEncoder.MIME_TYPE);
+    }
+
+    // 辅助方法：检查整数参数，有参数不是整数时返回错误响应，否则返回null
+    private static Response checkLongParams(IHTTPSession session, String... names) {
+        for (String name : names) {
+            String value = getParam(session, name);
+            if (value == null) {
+                continue;
+            }
+            try {
+                Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                JsonObject error = new JsonObject();
+                error.addProperty("error", "invalid " + name + ": " + value);
+                return newFixedLengthResponse(Response.Status.OK, "application/json", error.toString());
+            }
+        }
+        return null;
+    }
+
+    // 辅助方法：读取长轮询超时时间，并限制在允许范围内
+    private static long getTimeoutMs(IHTTPSession session) {
+        String value = getParam(session, "timeoutMs");
+        long timeoutMs = value != null ? Long.parseLong(value) : DEFAULT_POLL_TIMEOUT_MS;
+        return Math.max(0, Math.min(timeoutMs, MAX_POLL_TIMEOUT_MS));
+    }
+
+    /**
+     * 处理获取完整游戏状态的请求
+     * 同一版本的状态只序列化一次，之后直接返回缓存的字符串
+     * @param snapshot 游戏快照
+     * @param lean 是否使用lean模式
+     * @return 包含游戏状态的HTTP响应
+     */
+    private Response handleGetState(GameSnapshot snapshot, boolean lean) throws IOException {
+        CachedBody cached = lean ? cachedLeanState : cachedState;
+        if (cached == null || cached.version != snapshot.version) {
+            byte[] body = StreamingSerializer.render(out -> StreamingSerializer.writeState(out, snapshot, lean)).toByteArray();
+            cached = new CachedBody(snapshot.version, body);
+            if (lean) {
+                cachedLeanState = cached;
+            } else {
+                cachedState = cached;
+            }
+        }
+        return newFixedLengthResponse(Response.Status.OK, JSON_UTF8, new ByteArrayInputStream(cached.body), cached.body.length);
+    }
+
+    /**
+     * 处理带字段投影的读取请求
+     * 投影按参数编译并缓存，同一投影在同一版本上只序列化一次
+     * @param uri 请求路径
+     * @param snapshot 游戏快照
+     * @param lean 默认的元素字段是否使用lean模式
+     * @param fields 只输出的字段
+     * @param include 追加的字段
+     * @return 投影后的JSON响应，参数错误时返回error
      */
-    private Response handleGetPlayer(AbstractPlayer p) {
-        JsonObject playerInfo = new JsonObject();
-        playerInfo.addProperty("hp", p.currentHealth);
-        playerInfo.addProperty("maxHp", p.maxHealth);
+    private Response handleGetProjected(String uri, GameSnapshot snapshot, boolean lean, String fields, String include)
+            throws IOException {
+        StateProjection projection;
         try {
-            playerInfo.addProperty("energy", p.energy.energy);
-        } catch (Exception ex) {
-            playerInfo.addProperty("energy", -1);
+            projection = StateProjection.compile(uri, fields, include, lean);
+        } catch (IllegalArgumentException e) {
+            JsonObject error = new JsonObject();
+            error.addProperty("error", e.getMessage());
+            return newFixedLengthResponse(Response.Status.OK, "application/json", error.toString());
         }
-        playerInfo.addProperty("gold", p.gold);
-        playerInfo.addProperty("currentBlock", p.currentBlock);
-        playerInfo.addProperty("ascensionLevel", AbstractDungeon.ascensionLevel);
-        playerInfo.addProperty("character", p.chosenClass.name());
-        return newFixedLengthResponse(Response.Status.OK, "application/json", playerInfo.toString());
+        byte[] body = projection.render(snapshot);
+        return newFixedLengthResponse(Response.Status.OK, JSON_UTF8, new ByteArrayInputStream(body), body.length);
+    }
+
+    /**
+     * 处理轨迹相关的请求
+     * /api/trajectories返回记录器状态和已完成的运行，/api/trajectory?run=ID以分块传输返回该运行的全部分段
+     * @param uri 请求路径
+     * @param runId 运行ID
+     * @return HTTP响应对象
+     */
+    private Response handleGetTrajectory(String uri, String runId) throws IOException {
+        TrajectoryRecorder recorder = TrajectoryRecorder.get();
+        JsonObject error = new JsonObject();
+        if (recorder == null) {
+            error.addProperty("error", "trajectory recorder disabled");
+            return newFixedLengthResponse(Response.Status.OK, "application/json", error.toString());
+        }
+        if ("/api/trajectories".equals(uri)) {
+            return newFixedLengthResponse(Response.Status.OK, "application/json", recorder.list().toString());
+        }
+        Path dir = recorder.finishedRun(runId);
+        if (dir == null) {
+            error.addProperty("error", "unknown or unfinished run");
+            return newFixedLengthResponse(Response.Status.NOT_FOUND, "application/json", error.toString());
+        }
+        return newChunkedResponse(Response.Status.OK, "application/octet-stream", TrajectoryReader.openStream(dir));
+    }
+
+    /**
+     * 处理获取实例信息的请求
+     * @param uri /api/instance返回当前实例，/api/instances返回本机所有存活实例
+     * @return 包含实例信息的HTTP响应
+     */
+    private Response handleGetInstances(String uri) {
+        InstanceRegistry r = registry;
+        JsonObject res = new JsonObject();
+        if (r == null) {
+            res.addProperty("error", "instance registry disabled");
+        } else if ("/api/instance".equals(uri)) {
+            res = r.self();
+        } else {
+            JsonArray instances = r.list();
+            res.add("instances", instances);
+            res.addProperty("count", instances.size());
+        }
+        return newFixedLengthResponse(Response.Status.OK, "application/json", res.toString());
+    }
+
+    /**
+     * 处理获取静态元数据字典的请求
+     * 字典在游戏初始化后构建一次，客户端持有相同ETag时返回304
+     * @param session HTTP会话对象
+     * @return 包含卡牌、遗物、药水元数据的HTTP响应
+     */
+    private Response handleGetDictionary(IHTTPSession session) {
+        MetadataDictionary dict = MetadataDictionary.get();
+        if (dict == null) {
+            JsonObject error = new JsonObject();
+            error.addProperty("error", "dictionary not ready");
+            return newFixedLengthResponse(Response.Status.OK, "application/json", error.toString());
+        }
+        Response response = dict.etag.equals(session.getHeaders().get("if-none-match"))
+                ? newFixedLengthResponse(Response.Status.NOT_MODIFIED, "application/json", "")
+                : newFixedLengthResponse(Response.Status.OK, JSON_UTF8, new ByteArrayInputStream(dict.body), dict.body.length);
+        response.addHeader("ETag", dict.etag);
+        return response;
+    }
+
+    /**
+     * 处理获取二进制游戏状态的请求
+     * 没有玩家时同样返回头部，flags中不含hasPlayer标志
+     * @param snapshot 游戏快照
+     * @return 固定布局的小端字节流响应
+     */
+    private Response handleGetStateBinary(GameSnapshot snapshot) {
+        byte[] body = BinaryStateEncoder.encode(snapshot);
+        return newFixedLengthResponse(Response.Status.OK, BinaryStateEncoder.MIME_TYPE, new ByteArrayInputStream(body), body.length);
+    }
+
+    /**
+     * 处理获取指标的请求
+     * 包括各阶段、各命令和各路径的延迟分布与错误数，以及收件箱、连接线程池、快照和存档的当前状态
+     * @param snapshot 当前游戏快照
+     * @return Prometheus文本格式的HTTP响应
+     */
+    private Response handleGetMetrics(GameSnapshot snapshot) {
+        PrometheusWriter w = new PrometheusWriter();
+        w.gauge("stssdk_metrics_enabled", "Whether latency instrumentation is enabled.", Metrics.ENABLED ? 1 : 0);
+        w.summaries("stssdk_stage_duration_seconds", "Latency of request processing stages.", "stage", Metrics.getStages());
+        w.summaries("stssdk_command_duration_seconds", "Latency of commands.", "cmd", Metrics.getCommands());
+        w.errors("stssdk_command_errors_total", "Commands that returned an error.", "cmd", Metrics.getCommands());
+        w.summaries("stssdk_http_request_duration_seconds", "Latency of HTTP requests by path.", "endpoint", Metrics.getEndpoints());
+        w.errors("stssdk_http_errors_total", "HTTP requests answered with a 4xx or 5xx status.", "endpoint", Metrics.getEndpoints());
+
+        w.gauge("stssdk_inbox_depth", "Tasks waiting in the game-thread inbox.", CommandInbox.getDepth());
+        w.counter("stssdk_inbox_executed_total", "Tasks executed by the game-thread inbox.", CommandInbox.getExecutedCount());
+        w.gauge("stssdk_action_queue_depth", "Actions waiting in the game action queue as of the latest frame.",
+                SnapshotPublisher.getActionQueueDepth());
+        w.gauge("stssdk_worker_active", "Connection handler threads in use.", runner.getActiveCount());
+        w.gauge("stssdk_worker_queued", "Connections waiting for a handler thread.", runner.getQueuedCount());
+        w.gauge("stssdk_worker_open_connections", "Open client connections.", runner.getOpenConnections());
+        w.counter("stssdk_worker_rejected_total", "Connections rejected with 503.", runner.getRejectedCount());
+        w.gauge("stssdk_state_version", "Version of the latest published snapshot.", snapshot.version);
+        long lastCapture = SnapshotPublisher.getLastCaptureMillis();
+        w.gauge("stssdk_snapshot_age_seconds", "Time since the game thread last captured a snapshot.",
+                lastCapture == 0 ? 0 : (System.currentTimeMillis() - lastCapture) / 1000.0);
+        w.gauge("stssdk_state_age_seconds", "Time since the game state last changed.",
+                snapshot.version == 0 ? 0 : (System.currentTimeMillis() - snapshot.timestamp) / 1000.0);
+        w.gauge("stssdk_savestates", "Combat save states held in memory.", SaveStateStore.size());
+        TrajectoryRecorder recorder = TrajectoryRecorder.get();
+        if (recorder != null) {
+            w.counter("stssdk_recorder_dropped_total", "Trajectory records dropped because the writer queue was full.",
+                    recorder.getDroppedCount());
+        }
+        return newFixedLengthResponse(Response.Status.OK, PrometheusWriter.CONTENT_TYPE, w.toString());
+    }
+
+    /**
+     * 处理获取合法操作的请求
+     * @param session HTTP会话对象
+     * @param snapshot 当前游戏快照
+     * @return JSON格式的合法操作，或format=binary时的掩码字节
+     */
+    private Response handleGetLegalActions(IHTTPSession session, GameSnapshot snapshot) {
+        if ("binary".equals(getParam(session, "format"))) {
+            byte[] body = snapshot.legalActions.maskBytes();
+            return newFixedLengthResponse(Response.Status.OK, "application/octet-stream", new ByteArrayInputStream(body), body.length);
+        }
+        JsonObject legal = Serializer.legalActionsToJson(snapshot, "true".equals(getParam(session, "mask")));
+        return newFixedLengthResponse(Response.Status.OK, "application/json", legal.toString());
+    }
+
+    /**
+     * 处理获取观测向量布局的请求
+     * @param session HTTP会话对象，blocks参数指定包含的块
+     * @return 包含偏移、形状和词表的JSON响应
+     */
+    private Response handleGetObservationSpec(IHTTPSession session) {
+        JsonObject res;
+        try {
+            ObservationLayout layout = ObservationLayout.of(getParam(session, "blocks"));
+            res = layout != null ? layout.spec() : observationError("vocabulary not built");
+        } catch (IllegalArgumentException e) {
+            res = observationError(e.getMessage());
+        }
+        return newFixedLengthResponse(Response.Status.OK, "application/json", res.toString());
+    }
+
+    /**
+     * 处理获取观测向量的请求
+     * 向量写在连接线程复用的缓冲区中，响应在同一线程中发送完毕后才会被下一次请求覆盖
+     * @param session HTTP会话对象，blocks参数指定包含的块，dtype=int32时输出int32
+     * @param snapshot 当前游戏快照
+     * @return 二进制HTTP响应，出错时返回JSON
+     */
+    private Response handleGetObservation(IHTTPSession session, GameSnapshot snapshot) {
+        ObservationLayout layout;
+        try {
+            layout = ObservationLayout.of(getParam(session, "blocks"));
+        } catch (IllegalArgumentException e) {
+            return newFixedLengthResponse(Response.Status.OK, "application/json", observationError(e.getMessage()).toString());
+        }
+        if (layout == null) {
+            return newFixedLengthResponse(Response.Status.OK, "application/json", observationError("vocabulary not built").toString());
+        }
+        boolean asInt = "int32".equals(getParam(session, "dtype"));
+        int length = layout.size() * 4;
+        long stageStart = Metrics.start();
+        byte[] body = ObservationEncoder.render(snapshot, layout, asInt);
+        Metrics.stage("observation", stageStart);
+        Response response = newFixedLengthResponse(Response.Status.OK, ObservationEncoder.MIME_TYPE,
+                new ByteArrayInputStream(body, 0, length), length);
+        response.addHeader("X-Observation-Size", Integer.toString(layout.size()));
+        response.addHeader("X-Vocabulary-Hash", layout.vocabulary.hash);
+        return response;
+    }
+
+    private static JsonObject observationError(String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("error", message);
+        return error;
+    }
+
+    /**
+     * 处理获取增量状态的请求
+     * sinceVersion对应的快照仍在历史记录中时返回增量补丁，否则（或resync=true时）返回完整状态；
+     * 同时指定timeoutMs时先阻塞等待版本大于sinceVersion
+     * @param session HTTP会话对象
+     * @param snapshot 当前游戏快照
+     * @return 包含增量或完整状态的HTTP响应
+     */
+    private Response handleGetDelta(IHTTPSession session, GameSnapshot snapshot) throws InterruptedException {
+        String sinceParam = getParam(session, "sinceVersion");
+        boolean resync = "true".equals(getParam(session, "resync"));
+        GameSnapshot base = null;
+        Response invalid = checkLongParams(session, "sinceVersion", "timeoutMs");
+        if (invalid != null) {
+            return invalid;
+        }
+        if (sinceParam != null && !resync) {
+            long sinceVersion = Long.parseLong(sinceParam);
+            if (getParam(session, "timeoutMs") != null) {
+                snapshot = SnapshotPublisher.awaitNewerThan(sinceVersion, getTimeoutMs(session));
+            }
+            base = SnapshotPublisher.findVersion(sinceVersion);
+        }
+        JsonObject body = base != null && base.hasPlayer() && snapshot.hasPlayer()
+                ? DeltaEncoder.diff(base, snapshot)
+                : DeltaEncoder.full(snapshot);
+        return withVersion(newFixedLengthResponse(Response.Status.OK, "application/json", body.toString()),
+                "/api/state/delta", snapshot, etag(session, "/api/state/delta", snapshot));
+    }
+
+    /**
+     * 把流式序列化的结果作为定长响应返回
+     * @param body 写入响应体的回调
+     * @return HTTP响应对象
+     */
+    private Response streamJson(StreamingSerializer.Body body) throws IOException {
+        StreamingSerializer.ResponseBuffer buffer = StreamingSerializer.render(body);
+        return newFixedLengthResponse(Response.Status.OK, JSON_UTF8, buffer.asInputStream(), buffer.size());
+    }
+
+    /**
+     * 返回单个牌堆，牌堆较大时使用分块传输边序列化边发送
+     * @param cards 牌堆快照
+     * @param lean 是否使用lean模式
+     * @return 格式为{"cards":[...],"count":N}的HTTP响应
+     */
+    private Response pileResponse(List<CardSnapshot> cards, boolean lean) throws IOException {
+        if (cards.size() > CHUNKED_THRESHOLD) {
+            return newChunkedResponse(Response.Status.OK, JSON_UTF8,
+                    new ChunkedJsonStream().lean(lean).cards("cards", cards).number("count", cards.size()));
+        }
+        return streamJson(out -> {
+            out.beginObject();
+            out.name("cards");
+            StreamingSerializer.writeCards(out, cards, lean);
+            out.name("count").value(cards.size());
+            out.endObject();
+        });
+    }
+
+    /**
+     * 处理获取玩家基本信息的请求
+     * @param snapshot 游戏快照
+     * @return 包含玩家信息的HTTP响应
+     */
+    private Response handleGetPlayer(GameSnapshot snapshot) throws IOException {
+        return streamJson(out -> StreamingSerializer.writePlayer(out, snapshot.player));
     }
 
     /**
      * 处理获取手牌信息的请求
-     * @param p 玩家对象
+     * @param snapshot 游戏快照
+     * @param lean 是否使用lean模式
      * @return 包含手牌信息的HTTP响应
      */
-    private Response handleGetHand(AbstractPlayer p) {
-        JsonObject result = new JsonObject();
-        JsonArray handCards = Serializer.cardsToJson(p.hand.group);
-        result.add("cards", handCards);
-        result.addProperty("count", p.hand.size());
-        return newFixedLengthResponse(Response.Status.OK, "application/json", result.toString());
+    private Response handleGetHand(GameSnapshot snapshot, boolean lean) throws IOException {
+        return pileResponse(snapshot.hand, lean);
     }
 
     /**
      * 处理获取抽牌堆信息的请求
-     * @param p 玩家对象
+     * @param snapshot 游戏快照
+     * @param lean 是否使用lean模式
      * @return 包含抽牌堆信息的HTTP响应
      */
-    private Response handleGetDrawPile(AbstractPlayer p) {
-        JsonObject result = new JsonObject();
-        JsonArray drawPileCards = Serializer.cardsToJson(p.drawPile.group);
-        result.add("cards", drawPileCards);
-        result.addProperty("count", p.drawPile.size());
-        return newFixedLengthResponse(Response.Status.OK, "application/json", result.toString());
+    private Response handleGetDrawPile(GameSnapshot snapshot, boolean lean) throws IOException {
+        return pileResponse(snapshot.drawPile, lean);
     }
 
     /**
      * 处理获取弃牌堆信息的请求
-     * @param p 玩家对象
+     * @param snapshot 游戏快照
+     * @param lean 是否使用lean模式
      * @return 包含弃牌堆信息的HTTP响应
      */
-    private Response handleGetDiscardPile(AbstractPlayer p) {
-        JsonObject result = new JsonObject();
-        JsonArray discardPileCards = Serializer.cardsToJson(p.discardPile.group);
-        result.add("cards", discardPileCards);
-        result.addProperty("count", p.discardPile.size());
-        return newFixedLengthResponse(Response.Status.OK, "application/json", result.toString());
+    private Response handleGetDiscardPile(GameSnapshot snapshot, boolean lean) throws IOException {
+        return pileResponse(snapshot.discardPile, lean);
     }
 
     /**
      * 处理获取完整牌组信息的请求
-     * @param p 玩家对象
+     * allCards直接依次写出三个牌堆，不再复制一份合并数组
+     * @param snapshot 游戏快照
+     * @param lean 是否使用lean模式
      * @return 包含完整牌组信息的HTTP响应
      */
-    private Response handleGetDeck(AbstractPlayer p) {
-        JsonObject result = new JsonObject();
-
-        // 合并所有卡牌组
-        JsonArray allCards = new JsonArray();
-
-        JsonArray handCards = Serializer.cardsToJson(p.hand.group);
-        JsonArray drawPileCards = Serializer.cardsToJson(p.drawPile.group);
-        JsonArray discardPileCards = Serializer.cardsToJson(p.discardPile.group);
-
-        // 添加所有卡牌到一个数组
-        handCards.forEach(allCards::add);
-        drawPileCards.forEach(allCards::add);
-        discardPileCards.forEach(allCards::add);
-
-        result.add("allCards", allCards);
-        result.add("hand", handCards);
-        result.add("drawPile", drawPileCards);
-        result.add("discardPile", discardPileCards);
-        result.addProperty("totalCount", allCards.size());
-
-        return newFixedLengthResponse(Response.Status.OK, "application/json", result.toString());
+    private Response handleGetDeck(GameSnapshot snapshot, boolean lean) throws IOException {
+        int totalCount = snapshot.hand.size() + snapshot.drawPile.size() + snapshot.discardPile.size();
+        if (totalCount > CHUNKED_THRESHOLD) {
+            return newChunkedResponse(Response.Status.OK, JSON_UTF8, new ChunkedJsonStream()
+                    .lean(lean)
+                    .cards("allCards", snapshot.hand, snapshot.drawPile, snapshot.discardPile)
+                    .cards("hand", snapshot.hand)
+                    .cards("drawPile", snapshot.drawPile)
+                    .cards("discardPile", snapshot.discardPile)
+                    .number("totalCount", totalCount));
+        }
+        return streamJson(out -> {
+            out.beginObject();
+            out.name("allCards");
+            out.beginArray();
+            for (CardSnapshot c : snapshot.hand) {
+                StreamingSerializer.writeCard(out, c, lean);
+            }
+            for (CardSnapshot c : snapshot.drawPile) {
+                StreamingSerializer.writeCard(out, c, lean);
+            }
+            for (CardSnapshot c : snapshot.discardPile) {
+                StreamingSerializer.writeCard(out, c, lean);
+            }
+            out.endArray();
+            out.name("hand");
+            StreamingSerializer.writeCards(out, snapshot.hand, lean);
+            out.name("drawPile");
+            StreamingSerializer.writeCards(out, snapshot.drawPile, lean);
+            out.name("discardPile");
+            StreamingSerializer.writeCards(out, snapshot.discardPile, lean);
+            out.name("totalCount").value(totalCount);
+            out.endObject();
+        });
     }
     
     /**
      * 处理获取玩家遗物信息的请求
-     * @param p 玩家对象
+     * @param snapshot 游戏快照
+     * @param lean 是否使用lean模式
      * @return 包含遗物信息的HTTP响应
      */
-    private Response handleGetRelics(AbstractPlayer p) {
-        JsonObject result = new JsonObject();
-        JsonArray relics = Serializer.relicsToJson(p.relics);
-        result.add("relics", relics);
-        result.addProperty("count", relics.size());
-        return newFixedLengthResponse(Response.Status.OK, "application/json", result.toString());
+    private Response handleGetRelics(GameSnapshot snapshot, boolean lean) throws IOException {
+        return streamJson(out -> {
+            out.beginObject();
+            out.name("relics");
+            StreamingSerializer.writeRelics(out, snapshot.relics, lean);
+            out.name("count").value(snapshot.relics.size());
+            out.endObject();
+        });
     }
     
     /**
      * 处理获取玩家药水信息的请求
-     * @param p 玩家对象
+     * @param snapshot 游戏快照
+     * @param lean 是否使用lean模式
      * @return 包含药水信息的HTTP响应
      */
-    private Response handleGetPotions(AbstractPlayer p) {
-        JsonObject result = new JsonObject();
-        JsonArray potions = Serializer.potionsToJson(p.potions);
-        result.add("potions", potions);
-        result.addProperty("count", potions.size());
-        return newFixedLengthResponse(Response.Status.OK, "application/json", result.toString());
+    private Response handleGetPotions(GameSnapshot snapshot, boolean lean) throws IOException {
+        return streamJson(out -> {
+            out.beginObject();
+            out.name("potions");
+            StreamingSerializer.writePotions(out, snapshot.potions, lean);
+            out.name("count").value(snapshot.potions.size());
+            out.endObject();
+        });
     }
     
     /**
      * 处理获取敌方信息的请求
+     * @param snapshot 游戏快照
+     * @param lean 是否使用lean模式
      * @return 包含敌方信息的HTTP响应
      */
-    private Response handleGetMonsters() {
-        JsonObject result = new JsonObject();
-        JsonArray monsters = executor.execute(createGetMonstersCommand()).getAsJsonArray("monsters");
-        result.add("monsters", monsters);
-        result.addProperty("count", monsters.size());
-        return newFixedLengthResponse(Response.Status.OK, "application/json", result.toString());
-    }
-    
-    // 辅助方法：创建获取敌方信息的命令
-    private JsonObject createGetMonstersCommand() {
-        JsonObject cmd = new JsonObject();
-        cmd.addProperty("cmd", "get_monsters");
-        return cmd;
+    private Response handleGetMonsters(GameSnapshot snapshot, boolean lean) throws IOException {
+        return streamJson(out -> {
+            out.beginObject();
+            out.name("monsters");
+            StreamingSerializer.writeMonsters(out, snapshot.monsters, lean);
+            out.name("count").value(snapshot.monsters.size());
+            out.endObject();
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,138 @@
+package com.example.stssdk.server;
+
+import com.example.stssdk.core.CommandExecutor;
+import com.example.stssdk.core.DeltaEncoder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import fi.iki.elonen.NanoHTTPD.IHTTPSession;
+import fi.iki.elonen.NanoWSD.WebSocket;
+import fi.iki.elonen.NanoWSD.WebSocketFrame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * 状态推送WebSocket连接
+ * 服务器在状态变化时主动推送{"type":"state",...}消息；
+ * 客户端发送的文本消息按与POST请求相同的命令格式执行，结果以{"type":"response",...}返回，
+ * 命令中的"id"字段会原样带回，用于匹配请求和响应。
+ * 发送{"stream":"delta"}切换为增量推送，{"stream":"full"}切换回完整推送，
+ * {"stream":"resync"}立即请求一次完整状态
+ */
+public class StateSocket extends WebSocket {
+    private static final Logger logger = LoggerFactory.getLogger(StateSocket.class);
+    private static final byte[] PING_PAYLOAD = new byte[0];
+
+    private final StreamHub hub;
+    private final CommandExecutor executor;
+    // 增量推送使用的编码器，只在推送线程中访问
+    final DeltaEncoder deltaEncoder = new DeltaEncoder();
+    // 是否使用增量推送
+    volatile boolean deltaMode;
+
+    public StateSocket(IHTTPSession handshake, StreamHub hub, CommandExecutor executor) {
+        super(handshake);
+        this.hub = hub;
+        this.executor = executor;
+    }
+
+    @Override
+    protected void onOpen() {
+        logger.info("WebSocket client connected");
+        hub.register(this);
+    }
+
+    @Override
+    protected void onClose(WebSocketFrame.CloseCode code, String reason, boolean initiatedByRemote) {
+        logger.info("WebSocket client disconnected: {} {}", code, reason);
+        hub.unregister(this);
+    }
+
+    @Override
+    protected void onMessage(WebSocketFrame message) {
+        JsonObject response = new JsonObject();
+        response.addProperty("type", "response");
+        try {
+            JsonElement req = JsonParser.parseString(message.getTextPayload());
+            if (req.isJsonArray()) {
+                response.add("result", executor.executeBatch(req));
+            } else {
+                JsonObject cmd = req.getAsJsonObject();
+                if (cmd.has("stream")) {
+                    handleStreamControl(cmd.get("stream").getAsString());
+                    return;
+                }
+                if (cmd.has("id")) {
+                    response.add("id", cmd.get("id"));
+                }
+                response.add("result", cmd.has("commands") ? executor.executeBatch(cmd) : executor.execute(cmd));
+            }
+        } catch (Exception e) {
+            response.addProperty("error", e.getMessage());
+            logger.warn("Invalid WebSocket message", e);
+        }
+        sendQuietly(response.toString());
+    }
+
+    // 处理推送模式切换消息
+    private void handleStreamControl(String mode) {
+        switch (mode) {
+            case "delta":
+                deltaMode = true;
+                hub.resync(this);
+                break;
+            case "full":
+                deltaMode = false;
+                hub.resync(this);
+                break;
+            case "resync":
+                hub.resync(this);
+                break;
+            default:
+                JsonObject error = new JsonObject();
+                error.addProperty("type", "response");
+                error.addProperty("error", "unknown stream mode: " + mode);
+                sendQuietly(error.toString());
+        }
+    }
+
+    @Override
+    protected void onPong(WebSocketFrame pong) {
+    }
+
+    @Override
+    protected void onException(IOException exception) {
+        logger.debug("WebSocket error", exception);
+        hub.unregister(this);
+    }
+
+    /**
+     * 发送文本消息，发送失败时关闭连接而不抛出异常
+     * @param message 消息内容
+     */
+    void sendQuietly(String message) {
+        if (!isOpen()) {
+            return;
+        }
+        try {
+            send(message);
+        } catch (IOException e) {
+            logger.debug("Failed to send WebSocket message", e);
+            hub.unregister(this);
+        }
+    }
+
+    // 发送心跳，保持空闲连接不被读取超时关闭
+    void pingQuietly() {
+        if (!isOpen()) {
+            return;
+        }
+        try {
+            ping(PING_PAYLOAD);
+        } catch (IOException e) {
+            hub.unregister(this);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.stssdk.server;
+
+import com.example.stssdk.core.Serializer;
+import com.example.stssdk.state.CardSnapshot;
+import com.example.stssdk.state.GameSnapshot;
+import com.example.stssdk.state.MonsterSnapshot;
+import com.example.stssdk.state.SnapshotListener;
+import com.example.stssdk.state.SnapshotPublisher;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 状态推送中心，管理所有WebSocket连接
+ * 监听快照发布，在独立线程中把新状态和游戏事件推送给所有客户端，
+ * 游戏主线程只负责提交任务，不做序列化和网络写入
+ */
+public class StreamHub implements SnapshotListener {
+    private static final Logger logger = LoggerFactory.getLogger(StreamHub.class);
+
+    // 心跳间隔，必须小于NanoHTTPD的socket读取超时，否则空闲连接会被关闭
+    private static final long PING_INTERVAL_MS = 2000;
+
+    private final Set<StateSocket> sockets = new CopyOnWriteArraySet<>();
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "STSSDK-Stream-Thread");
+        t.setDaemon(true);
+        return t;
+    });
+    // 是否已有尚未执行的推送任务，用于合并同一时间内的多个版本
+    private final AtomicBoolean pushScheduled = new AtomicBoolean();
+    // 上一次推送出去的快照，只在推送线程中访问
+    private GameSnapshot lastPushed = GameSnapshot.EMPTY;
+
+    public StreamHub() {
+        worker.scheduleAtFixedRate(this::pingAll, PING_INTERVAL_MS, PING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        SnapshotPublisher.addListener(this);
+    }
+
+    /**
+     * 登记新打开的连接，并立即推送一次完整状态
+     * @param socket WebSocket连接
+     */
+    public void register(StateSocket socket) {
+        sockets.add(socket);
+        worker.execute(() -> socket.sendQuietly(stateMessage(SnapshotPublisher.latest(), new JsonArray())));
+    }
+
+    /**
+     * 立即向指定连接推送一次完整状态，之后的增量以此为基准
+     * @param socket WebSocket连接
+     */
+    public void resync(StateSocket socket) {
+        worker.execute(() -> {
+            GameSnapshot current = SnapshotPublisher.latest();
+            socket.deltaEncoder.reset();
+            socket.sendQuietly(socket.deltaMode ? deltaMessage(socket, current, new JsonArray())
+                    : stateMessage(current, new JsonArray()));
+        });
+    }
+
+    /**
+     * 移除已关闭的连接
+     * @param socket WebSocket连接
+     */
+    public void unregister(StateSocket socket) {
+        sockets.remove(socket);
+    }
+
+    /**
+     * 停止推送，服务器停止时调用
+     */
+    public void close() {
+        SnapshotPublisher.removeListener(this);
+        worker.shutdownNow();
+        sockets.clear();
+    }
+
+    /**
+     * 快照发布时在游戏主线程中调用，只提交推送任务
+     */
+    @Override
+    public void onSnapshot(GameSnapshot previous, GameSnapshot current) {
+        if (sockets.isEmpty()) {
+            return;
+        }
+        if (pushScheduled.compareAndSet(false, true)) {
+            worker.execute(this::pushLatest);
+        }
+    }
+
+    // 推送最新快照，期间发布的多个版本会被合并为一次推送
+    private void pushLatest() {
+        pushScheduled.set(false);
+        GameSnapshot current = SnapshotPublisher.latest();
+        if (current.version == lastPushed.version) {
+            return;
+        }
+        JsonArray events = detectEvents(lastPushed, current);
+        lastPushed = current;
+        // 完整推送的消息所有连接共用，只序列化一次
+        String fullMessage = null;
+        for (StateSocket socket : sockets) {
+            if (socket.deltaMode) {
+                socket.sendQuietly(deltaMessage(socket, current, events));
+            } else {
+                if (fullMessage == null) {
+                    fullMessage = stateMessage(current, events);
+                }
+                socket.sendQuietly(fullMessage);
+            }
+        }
+    }
+
+    private void pingAll() {
+        for (StateSocket socket : sockets) {
+            socket.pingQuietly();
+        }
+    }
+
+    /**
+     * 构造推送给客户端的状态消息
+     * @param snapshot 游戏快照
+     * @param events 两次推送之间发生的游戏事件
+     * @return JSON字符串
+     */
+    static String stateMessage(GameSnapshot snapshot, JsonArray events) {
+        JsonObject msg = new JsonObject();
+        msg.addProperty("type", "state");
+        msg.addProperty("version", snapshot.version);
+        msg.add("events", events);
+        msg.add("state", Serializer.stateToJson(snapshot));
+        return msg.toString();
+    }
+
+    /**
+     * 构造增量推送消息，相对于该连接上一次收到的状态
+     * @param socket WebSocket连接
+     * @param snapshot 游戏快照
+     * @param events 游戏事件
+     * @return JSON字符串
+     */
+    static String deltaMessage(StateSocket socket, GameSnapshot snapshot, JsonArray events) {
+        JsonObject msg = new JsonObject();
+        msg.addProperty("type", "delta");
+        msg.add("events", events);
+        msg.add("delta", socket.deltaEncoder.encode(snapshot, false));
+        return msg.toString();
+    }
+
+    /**
+     * 比较两个快照，推断期间发生的游戏事件
+     * @param previous 上一次推送的快照
+     * @param current 当前快照
+     * @return 事件名称数组
+     */
+    static JsonArray detectEvents(GameSnapshot previous, GameSnapshot current) {
+        JsonArray events = new JsonArray();
+        boolean wasInCombat = hasLivingMonster(previous.monsters);
+        boolean inCombat = hasLivingMonster(current.monsters);
+        if (!wasInCombat && inCombat) {
+            events.add("combat_start");
+        }
+        if (wasInCombat && !inCombat) {
+            events.add("combat_end");
+        }
+        if (inCombat && current.turn != previous.turn) {
+            events.add("turn_start");
+        }
+        if (current.turn == previous.turn && leftHand(previous.hand, current.hand)) {
+            events.add("card_played");
+        }
+        if (intentsChanged(previous.monsters, current.monsters)) {
+            events.add("monster_intent_changed");
+        }
+        if ("COMBAT_REWARD".equals(current.screen) && !"COMBAT_REWARD".equals(previous.screen)) {
+            events.add("reward_screen");
+        }
+        return events;
+    }
+
+    private static boolean hasLivingMonster(List<MonsterSnapshot> monsters) {
+        for (MonsterSnapshot m : monsters) {
+            if (!m.isDead) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 是否有卡牌离开了手牌
+    private static boolean leftHand(List<CardSnapshot> before, List<CardSnapshot> after) {
+        Set<UUID> remaining = new HashSet<>();
+        for (CardSnapshot c : after) {
+            remaining.add(c.uuid);
+        }
+        for (CardSnapshot c : before) {
+            if (!remaining.contains(c.uuid)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 同一组怪物的意图是否发生变化
+    private static boolean intentsChanged(List<MonsterSnapshot> before, List<MonsterSnapshot> after) {
+        if (before.isEmpty() || before.size() != after.size()) {
+            return false;
+        }
+        List<String> a = new ArrayList<>(before.size());
+        List<String> b = new ArrayList<>(after.size());
+        for (int i = 0; i < before.size(); i++) {
+            a.add(before.get(i).intent);
+            b.add(after.get(i).intent);
+        }
+        return !Objects.equals(a, b);
+    }
+}
@@ -0,0 +1,601 @@
+package com.example.stssdk.sim;
+
+import com.example.stssdk.state.CardSnapshot;
+import com.example.stssdk.state.GameSnapshot;
+import com.example.stssdk.state.LegalActions;
+import com.example.stssdk.state.MonsterSnapshot;
+import com.example.stssdk.state.PotionSnapshot;
+import com.example.stssdk.state.PowerSnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 纯Java的战斗前向模型，从游戏快照构建，之后完全不访问AbstractDungeon和任何游戏对象
+ * 卡牌和药水被转换为基本类型数组中的定义，step和playout只修改SimState中的数组，不分配内存
+ *
+ * 模拟范围：生命、能量、格挡、抽牌/弃牌/消耗、力量/敏捷/易伤/虚弱/脆弱/金属化/多层护甲/仪式，
+ * 卡牌的伤害、格挡、抽牌、回能和常见的施加易伤/虚弱效果，以及常见药水。
+ * 怪物只知道当前的意图，之后每回合重复同样的攻击。没有模拟的效果（充能球、姿态、中毒等）被忽略，
+ * 因此结果是对局面的近似评估，不是精确复现
+ */
+public final class CombatModel {
+    // 卡牌效果标志
+    static final int NEEDS_TARGET = 1;
+    static final int ALL_ENEMIES = 1 << 1;
+    static final int RANDOM_TARGET = 1 << 2;
+    static final int EXHAUST = 1 << 3;
+    static final int ETHEREAL = 1 << 4;
+    static final int UNPLAYABLE = 1 << 5;
+    static final int X_COST = 1 << 6;
+    static final int APPLY_VULNERABLE = 1 << 7;
+    static final int APPLY_WEAK = 1 << 8;
+    static final int GAIN_STRENGTH = 1 << 9;
+    static final int COPY_TO_DISCARD = 1 << 10;
+    static final int POWER = 1 << 11;
+    static final int ATTACK = 1 << 12;
+
+    // 药水效果
+    static final int POTION_NONE = 0;
+    static final int POTION_DAMAGE = 1;
+    static final int POTION_DAMAGE_ALL = 2;
+    static final int POTION_BLOCK = 3;
+    static final int POTION_STRENGTH = 4;
+    static final int POTION_DEXTERITY = 5;
+    static final int POTION_ENERGY = 6;
+    static final int POTION_DRAW = 7;
+    static final int POTION_WEAK = 8;
+    static final int POTION_VULNERABLE = 9;
+    static final int POTION_HEAL_PERCENT = 10;
+
+    // 表中数值为MAGIC时使用卡牌的magicNumber
+    private static final int MAGIC = -1;
+    // 每回合开始时抽牌数
+    private static final int DRAW_PER_TURN = 5;
+    // 推演中每回合最多打出的牌数，防止0费牌和抽牌组合造成死循环
+    private static final int MAX_PLAYS_PER_TURN = 60;
+    // 复制出的牌（如愤怒）预留的牌堆空间
+    private static final int EXTRA_CARD_CAPACITY = 64;
+
+    // 按卡牌ID补充的效果：{标志, 攻击段数, 抽牌数, 回能数}，未列出的卡牌只按伤害和格挡数值处理
+    private static final Map<String, int[]> CARD_EFFECTS = new HashMap<>();
+    private static final Map<String, Integer> POTION_EFFECTS = new HashMap<>();
+
+    static {
+        card("Bash", APPLY_VULNERABLE, 1, 0, 0);
+        card("Thunderclap", APPLY_VULNERABLE, 1, 0, 0);
+        card("Trip", APPLY_VULNERABLE, 1, 0, 0);
+        card("Beam Cell", APPLY_VULNERABLE, 1, 0, 0);
+        card("Neutralize", APPLY_WEAK, 1, 0, 0);
+        card("Clothesline", APPLY_WEAK, 1, 0, 0);
+        card("Sucker Punch", APPLY_WEAK, 1, 0, 0);
+        card("Leg Sweep", APPLY_WEAK, 1, 0, 0);
+        card("Uppercut", APPLY_WEAK | APPLY_VULNERABLE, 1, 0, 0);
+        card("Anger", COPY_TO_DISCARD, 1, 0, 0);
+        card("Twin Strike", 0, 2, 0, 0);
+        card("Pummel", 0, MAGIC, 0, 0);
+        card("Sword Boomerang", RANDOM_TARGET, MAGIC, 0, 0);
+        card("Whirlwind", X_COST, 1, 0, 0);
+        card("Skewer", X_COST, 1, 0, 0);
+        card("Inflame", GAIN_STRENGTH, 1, 0, 0);
+        card("Pommel Strike", 0, 1, MAGIC, 0);
+        card("Shrug It Off", 0, 1, 1, 0);
+        card("Quick Slash", 0, 1, 1, 0);
+        card("Dagger Throw", 0, 1, 1, 0);
+        card("Backflip", 0, 1, 2, 0);
+        card("Acrobatics", 0, 1, MAGIC, 0);
+        card("Battle Trance", 0, 1, MAGIC, 0);
+        card("Offering", 0, 1, MAGIC, 2);
+        card("Seeing Red", 0, 1, 0, 2);
+        card("Adrenaline", 0, 1, 2, MAGIC);
+
+        POTION_EFFECTS.put("Fire Potion", POTION_DAMAGE);
+        POTION_EFFECTS.put("Explosive Potion", POTION_DAMAGE_ALL);
+        POTION_EFFECTS.put("Block Potion", POTION_BLOCK);
+        POTION_EFFECTS.put("Strength Potion", POTION_STRENGTH);
+        POTION_EFFECTS.put("Dexterity Potion", POTION_DEXTERITY);
+        POTION_EFFECTS.put("Energy Potion", POTION_ENERGY);
+        POTION_EFFECTS.put("Swift Potion", POTION_DRAW);
+        POTION_EFFECTS.put("Weak Potion", POTION_WEAK);
+        POTION_EFFECTS.put("FearPotion", POTION_VULNERABLE);
+        POTION_EFFECTS.put("BloodPotion", POTION_HEAL_PERCENT);
+    }
+
+    private static void card(String id, int flags, int hits, int draw, int energy) {
+        CARD_EFFECTS.put(id, new int[]{flags, hits, draw, energy});
+    }
+
+    // 卡牌定义，下标即SimState牌堆中存放的值
+    private final int[] cost;
+    private final int[] flags;
+    private final int[] damage;
+    private final int[] block;
+    private final int[] magic;
+    private final int[] hits;
+    private final int[] drawCount;
+    private final int[] energyGain;
+
+    // 药水定义
+    private final int[] potionEffect;
+    private final int[] potionPotency;
+
+    private final SimState root;
+
+    private CombatModel(GameSnapshot snapshot) {
+        List<CardSnapshot> cards = new ArrayList<>();
+        List<Integer> costs = new ArrayList<>();
+        Map<String, Integer> defIndex = new HashMap<>();
+        List<MonsterSnapshot> monsters = snapshot.monsters;
+        int cardCount = snapshot.hand.size() + snapshot.drawPile.size() + snapshot.discardPile.size();
+        root = new SimState(cardCount + EXTRA_CARD_CAPACITY, monsters.size(), snapshot.potions.size());
+
+        // 手牌使用本回合费用，其余牌堆使用原始费用
+        int[] handDefs = defs(snapshot.hand, true, cards, costs, defIndex);
+        int[] drawDefs = defs(snapshot.drawPile, false, cards, costs, defIndex);
+        int[] discardDefs = defs(snapshot.discardPile, false, cards, costs, defIndex);
+
+        int n = cards.size();
+        cost = new int[n];
+        flags = new int[n];
+        damage = new int[n];
+        block = new int[n];
+        magic = new int[n];
+        hits = new int[n];
+        drawCount = new int[n];
+        energyGain = new int[n];
+        for (int i = 0; i < n; i++) {
+            define(i, cards.get(i), costs.get(i));
+        }
+
+        int handSize = Math.min(handDefs.length, SimState.HAND_LIMIT);
+        System.arraycopy(handDefs, 0, root.hand, 0, handSize);
+        root.handSize = handSize;
+        System.arraycopy(drawDefs, 0, root.draw, 0, drawDefs.length);
+        root.drawSize = drawDefs.length;
+        System.arraycopy(discardDefs, 0, root.discard, 0, discardDefs.length);
+        root.discardSize = discardDefs.length;
+
+        root.hp = snapshot.player.hp;
+        root.maxHp = snapshot.player.maxHp;
+        root.block = snapshot.player.currentBlock;
+        root.energy = Math.max(0, snapshot.player.energy);
+        root.energyPerTurn = snapshot.player.energyPerTurn;
+        readPowers(snapshot.player.powers, root.powers, 0);
+        root.turn = Math.max(1, snapshot.turn);
+
+        for (int i = 0; i < monsters.size(); i++) {
+            MonsterSnapshot m = monsters.get(i);
+            root.monsterHp[i] = m.isDead ? 0 : m.currentHp;
+            root.monsterMaxHp[i] = m.maxHp;
+            root.monsterBlock[i] = m.currentBlock;
+            root.intentHits[i] = m.intentHits;
+            root.intentBaseDamage[i] = Math.max(0, m.intentBaseDamage);
+            readPowers(m.powers, root.monsterPowers, i * SimState.POWER_COUNT);
+        }
+
+        List<PotionSnapshot> potions = snapshot.potions;
+        potionEffect = new int[potions.size()];
+        potionPotency = new int[potions.size()];
+        for (int i = 0; i < potions.size(); i++) {
+            PotionSnapshot p = potions.get(i);
+            Integer effect = p.id != null ? POTION_EFFECTS.get(p.id) : null;
+            potionEffect[i] = effect != null ? effect : POTION_NONE;
+            potionPotency[i] = p.potency;
+            // 空槽位（PotionSlot）的ID为"Potion Slot"
+            root.potions[i] = p.id != null && !"Potion Slot".equals(p.id) ? i : -1;
+        }
+    }
+
+    /**
+     * 从快照构建模型，快照必须处于战斗中
+     * @param snapshot 游戏快照
+     * @return 模型，不在战斗中（没有玩家或没有怪物）时返回null
+     */
+    public static CombatModel of(GameSnapshot snapshot) {
+        if (!snapshot.hasPlayer() || snapshot.monsters.isEmpty()) {
+            return null;
+        }
+        return new CombatModel(snapshot);
+    }
+
+    /**
+     * 快照对应的初始状态，不要修改，需要修改时先用newState()复制
+     */
+    public SimState root() {
+        return root;
+    }
+
+    /**
+     * 创建与初始状态数组长度相同的新状态
+     */
+    public SimState newState() {
+        SimState s = root.newScratch();
+        s.copyFrom(root);
+        return s;
+    }
+
+    // 辅助方法：把卡牌快照转换为定义下标，相同的定义只保存一次
+    private static int[] defs(List<CardSnapshot> pile, boolean inHand, List<CardSnapshot> cards, List<Integer> costs,
+                              Map<String, Integer> defIndex) {
+        int[] out = new int[pile.size()];
+        for (int i = 0; i < pile.size(); i++) {
+            CardSnapshot c = pile.get(i);
+            int useCost = inHand ? c.costForTurn : c.cost;
+            String key = c.id + '|' + c.upgraded + '|' + useCost + '|' + c.type + '|' + c.target + '|'
+                    + c.baseDamage + '|' + c.baseBlock + '|' + c.magicNumber + '|' + c.exhaust + '|' + c.ethereal;
+            Integer index = defIndex.get(key);
+            if (index == null) {
+                index = cards.size();
+                defIndex.put(key, index);
+                cards.add(c);
+                costs.add(useCost);
+            }
+            out[i] = index;
+        }
+        return out;
+    }
+
+    private void define(int i, CardSnapshot c, int useCost) {
+        int f = 0;
+        int[] effect = CARD_EFFECTS.get(c.id);
+        int baseHits = 1;
+        int draw = 0;
+        int energy = 0;
+        if (effect != null) {
+            f = effect[0];
+            baseHits = effect[1] == MAGIC ? c.magicNumber : effect[1];
+            draw = effect[2] == MAGIC ? c.magicNumber : effect[2];
+            energy = effect[3] == MAGIC ? c.magicNumber : effect[3];
+        }
+        if ("ENEMY".equals(c.target) || "SELF_AND_ENEMY".equals(c.target)) {
+            f |= NEEDS_TARGET;
+        } else if ("ALL_ENEMY".equals(c.target) && (f & RANDOM_TARGET) == 0) {
+            f |= ALL_ENEMIES;
+        }
+        if ("ATTACK".equals(c.type)) {
+            f |= ATTACK;
+        } else if ("POWER".equals(c.type)) {
+            f |= POWER;
+        } else if ("STATUS".equals(c.type) || "CURSE".equals(c.type)) {
+            f |= UNPLAYABLE;
+        }
+        if (useCost == -2 || c.cost == -2) {
+            f |= UNPLAYABLE;
+        } else if (c.cost == -1) {
+            f |= X_COST;
+        }
+        if (c.exhaust) {
+            f |= EXHAUST;
+        }
+        if (c.ethereal) {
+            f |= ETHEREAL;
+        }
+        flags[i] = f;
+        cost[i] = useCost;
+        damage[i] = Math.max(0, c.baseDamage);
+        block[i] = Math.max(0, c.baseBlock);
+        magic[i] = Math.max(1, c.magicNumber);
+        hits[i] = Math.max(1, baseHits);
+        drawCount[i] = Math.max(0, draw);
+        energyGain[i] = Math.max(0, energy);
+    }
+
+    private static void readPowers(List<PowerSnapshot> powers, int[] out, int offset) {
+        out[offset + SimState.STRENGTH] = PowerSnapshot.amountOf(powers, "Strength");
+        out[offset + SimState.DEXTERITY] = PowerSnapshot.amountOf(powers, "Dexterity");
+        out[offset + SimState.VULNERABLE] = PowerSnapshot.amountOf(powers, "Vulnerable");
+        out[offset + SimState.WEAK] = PowerSnapshot.amountOf(powers, "Weakened");
+        out[offset + SimState.FRAIL] = PowerSnapshot.amountOf(powers, "Frail");
+        out[offset + SimState.METALLICIZE] = PowerSnapshot.amountOf(powers, "Metallicize");
+        out[offset + SimState.PLATED_ARMOR] = PowerSnapshot.amountOf(powers, "Plated Armor");
+        out[offset + SimState.RITUAL] = PowerSnapshot.amountOf(powers, "Ritual");
+    }
+
+    /**
+     * 执行一个操作，操作编码与LegalActions的掩码下标相同
+     * @param s 状态，会被直接修改
+     * @param action 掩码下标
+     */
+    public void step(SimState s, int action) {
+        if (action == LegalActions.END_TURN_INDEX) {
+            endTurn(s);
+            return;
+        }
+        boolean potion = action >= LegalActions.POTION_OFFSET;
+        int local = potion ? action - LegalActions.POTION_OFFSET : action - LegalActions.CARD_OFFSET;
+        int slot = local / LegalActions.TARGET_COLUMNS;
+        int target = local % LegalActions.TARGET_COLUMNS - 1;
+        if (potion) {
+            usePotion(s, slot, target);
+        } else {
+            playCard(s, slot, target);
+        }
+    }
+
+    /**
+     * 手牌中指定位置的牌在模拟中是否可以打出
+     */
+    boolean canPlay(SimState s, int slot) {
+        int card = s.hand[slot];
+        int f = flags[card];
+        if ((f & UNPLAYABLE) != 0) {
+            return false;
+        }
+        return (f & X_COST) != 0 || cost[card] <= s.energy;
+    }
+
+    boolean needsTarget(SimState s, int slot) {
+        return (flags[s.hand[slot]] & NEEDS_TARGET) != 0;
+    }
+
+    /**
+     * 打出手牌
+     * @param s 状态
+     * @param slot 手牌下标
+     * @param target 目标怪物下标，不需要目标时为-1；目标已死亡时随机选择存活的怪物
+     */
+    void playCard(SimState s, int slot, int target) {
+        if (slot < 0 || slot >= s.handSize) {
+            return;
+        }
+        int card = s.removeFromHand(slot);
+        int f = flags[card];
+        int x = 1;
+        if ((f & X_COST) != 0) {
+            x = s.energy;
+            s.energy = 0;
+        } else {
+            s.energy -= Math.max(0, cost[card]);
+        }
+        if ((f & NEEDS_TARGET) != 0 && !s.isAlive(target)) {
+            target = s.randomAliveMonster();
+        }
+        s.cardsPlayedThisTurn++;
+
+        if ((f & ATTACK) != 0 && damage[card] > 0) {
+            int times = hits[card] * x;
+            for (int h = 0; h < times; h++) {
+                if ((f & ALL_ENEMIES) != 0) {
+                    for (int m = 0; m < s.monsterCount; m++) {
+                        if (s.monsterHp[m] > 0) {
+                            damageMonster(s, m, attackDamage(s, damage[card], m));
+                        }
+                    }
+                } else {
+                    int m = (f & RANDOM_TARGET) != 0 ? s.randomAliveMonster() : target;
+                    if (s.isAlive(m)) {
+                        damageMonster(s, m, attackDamage(s, damage[card], m));
+                    }
+                }
+            }
+        }
+        if (block[card] > 0) {
+            s.block += blockAmount(s, block[card]);
+        }
+        if ((f & (APPLY_VULNERABLE | APPLY_WEAK)) != 0) {
+            for (int m = 0; m < s.monsterCount; m++) {
+                if (s.monsterHp[m] > 0 && ((f & ALL_ENEMIES) != 0 || m == target)) {
+                    if ((f & APPLY_VULNERABLE) != 0) {
+                        s.addMonsterPower(m, SimState.VULNERABLE, magic[card]);
+                    }
+                    if ((f & APPLY_WEAK) != 0) {
+                        s.addMonsterPower(m, SimState.WEAK, magic[card]);
+                    }
+                }
+            }
+        }
+        if ((f & GAIN_STRENGTH) != 0) {
+            s.powers[SimState.STRENGTH] += magic[card];
+        }
+        s.energy += energyGain[card];
+
+        if ((f & POWER) != 0) {
+            // 能力牌打出后离开战斗
+        } else if ((f & EXHAUST) != 0) {
+            s.exhaustCount++;
+        } else {
+            s.addToDiscard(card);
+        }
+        if ((f & COPY_TO_DISCARD) != 0) {
+            s.addToDiscard(card);
+        }
+        if (drawCount[card] > 0) {
+            s.drawCards(drawCount[card]);
+        }
+    }
+
+    /**
+     * 使用药水
+     * @param s 状态
+     * @param slot 药水槽位
+     * @param target 目标怪物下标，不需要目标时为-1
+     */
+    void usePotion(SimState s, int slot, int target) {
+        if (slot < 0 || slot >= s.potions.length || s.potions[slot] < 0) {
+            return;
+        }
+        int potion = s.potions[slot];
+        s.potions[slot] = -1;
+        int amount = potionPotency[potion];
+        if (!s.isAlive(target)) {
+            target = s.randomAliveMonster();
+        }
+        switch (potionEffect[potion]) {
+            case POTION_DAMAGE:
+                if (target >= 0) {
+                    damageMonster(s, target, amount);
+                }
+                break;
+            case POTION_DAMAGE_ALL:
+                for (int m = 0; m < s.monsterCount; m++) {
+                    if (s.monsterHp[m] > 0) {
+                        damageMonster(s, m, amount);
+                    }
+                }
+                break;
+            case POTION_BLOCK:
+                s.block += amount;
+                break;
+            case POTION_STRENGTH:
+                s.powers[SimState.STRENGTH] += amount;
+                break;
+            case POTION_DEXTERITY:
+                s.powers[SimState.DEXTERITY] += amount;
+                break;
+            case POTION_ENERGY:
+                s.energy += amount;
+                break;
+            case POTION_DRAW:
+                s.drawCards(amount);
+                break;
+            case POTION_WEAK:
+                if (target >= 0) {
+                    s.addMonsterPower(target, SimState.WEAK, amount);
+                }
+                break;
+            case POTION_VULNERABLE:
+                if (target >= 0) {
+                    s.addMonsterPower(target, SimState.VULNERABLE, amount);
+                }
+                break;
+            case POTION_HEAL_PERCENT:
+                s.hp = Math.min(s.maxHp, s.hp + s.maxHp * amount / 100);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 结束回合：弃掉手牌，怪物按意图行动，回合结束时减少负面效果层数，然后开始下一回合
+     */
+    void endTurn(SimState s) {
+        for (int i = 0; i < s.handSize; i++) {
+            int card = s.hand[i];
+            if ((flags[card] & ETHEREAL) != 0) {
+                s.exhaustCount++;
+            } else {
+                s.addToDiscard(card);
+            }
+        }
+        s.handSize = 0;
+        s.block += s.powers[SimState.METALLICIZE] + s.powers[SimState.PLATED_ARMOR];
+
+        for (int m = 0; m < s.monsterCount && s.hp > 0; m++) {
+            if (s.monsterHp[m] <= 0) {
+                continue;
+            }
+            s.monsterBlock[m] = 0;
+            for (int h = 0; h < s.intentHits[m] && s.hp > 0; h++) {
+                damagePlayer(s, monsterDamage(s, m));
+            }
+            s.monsterBlock[m] += s.monsterPower(m, SimState.METALLICIZE) + s.monsterPower(m, SimState.PLATED_ARMOR);
+        }
+
+        // 回合结束
+        decrement(s.powers, 0);
+        for (int m = 0; m < s.monsterCount; m++) {
+            int base = m * SimState.POWER_COUNT;
+            decrement(s.monsterPowers, base);
+            s.monsterPowers[base + SimState.STRENGTH] += s.monsterPowers[base + SimState.RITUAL];
+        }
+
+        // 下一回合开始
+        s.turn++;
+        s.block = 0;
+        s.energy = s.energyPerTurn;
+        s.cardsPlayedThisTurn = 0;
+        s.drawCards(DRAW_PER_TURN);
+    }
+
+    private static void decrement(int[] powers, int base) {
+        for (int p = SimState.VULNERABLE; p <= SimState.FRAIL; p++) {
+            if (powers[base + p] > 0) {
+                powers[base + p]--;
+            }
+        }
+    }
+
+    // 玩家攻击伤害：力量、虚弱、目标易伤
+    private static int attackDamage(SimState s, int base, int monster) {
+        float d = base + s.powers[SimState.STRENGTH];
+        if (s.powers[SimState.WEAK] > 0) {
+            d *= 0.75f;
+        }
+        if (s.monsterPower(monster, SimState.VULNERABLE) > 0) {
+            d *= 1.5f;
+        }
+        return Math.max(0, (int) d);
+    }
+
+    // 怪物攻击伤害：怪物力量、虚弱、玩家易伤
+    private static int monsterDamage(SimState s, int monster) {
+        float d = s.intentBaseDamage[monster] + s.monsterPower(monster, SimState.STRENGTH);
+        if (s.monsterPower(monster, SimState.WEAK) > 0) {
+            d *= 0.75f;
+        }
+        if (s.powers[SimState.VULNERABLE] > 0) {
+            d *= 1.5f;
+        }
+        return Math.max(0, (int) d);
+    }
+
+    // 卡牌格挡：敏捷、脆弱
+    private static int blockAmount(SimState s, int base) {
+        float b = base + s.powers[SimState.DEXTERITY];
+        if (s.powers[SimState.FRAIL] > 0) {
+            b *= 0.75f;
+        }
+        return Math.max(0, (int) b);
+    }
+
+    private static void damageMonster(SimState s, int m, int amount) {
+        int absorbed = Math.min(s.monsterBlock[m], amount);
+        s.monsterBlock[m] -= absorbed;
+        s.monsterHp[m] = Math.max(0, s.monsterHp[m] - (amount - absorbed));
+    }
+
+    private static void damagePlayer(SimState s, int amount) {
+        int absorbed = Math.min(s.block, amount);
+        s.block -= absorbed;
+        s.hp = Math.max(0, s.hp - (amount - absorbed));
+    }
+
+    /**
+     * 用随机策略把状态推演到战斗结束或回合上限：
+     * 每次从可以打出的手牌中随机选一张（需要目标时随机选择存活的怪物），没有可打的牌时结束回合，推演中不使用药水
+     * @param s 状态，会被直接修改
+     * @param maxTurn 回合数达到该值时停止
+     */
+    public void playout(SimState s, int maxTurn) {
+        int[] playable = s.scratch;
+        while (!s.isTerminal() && s.turn <= maxTurn) {
+            int n = 0;
+            if (s.cardsPlayedThisTurn < MAX_PLAYS_PER_TURN) {
+                for (int i = 0; i < s.handSize; i++) {
+                    if (canPlay(s, i)) {
+                        playable[n++] = i;
+                    }
+                }
+            }
+            if (n == 0) {
+                endTurn(s);
+                continue;
+            }
+            int slot = playable[s.nextInt(n)];
+            playCard(s, slot, needsTarget(s, slot) ? s.randomAliveMonster() : -1);
+        }
+    }
+
+    /**
+     * 推演结束后的评分：胜利为1加剩余生命比例（1~2），否则为负的怪物剩余生命比例（-1~0）
+     */
+    public static double score(SimState s) {
+        if (s.isWon() && s.hp > 0) {
+            return 1.0 + (double) s.hp / Math.max(1, s.maxHp);
+        }
+        return -s.remainingMonsterHpFraction();
+    }
+}
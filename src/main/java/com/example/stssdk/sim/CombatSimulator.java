@@ -0,0 +1,271 @@
+package com.example.stssdk.sim;
+
+import com.example.stssdk.SDKConfig;
+import com.example.stssdk.state.GameSnapshot;
+import com.example.stssdk.state.LegalActions;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 并行推演：对当前快照的每个合法操作，先执行该操作，再用随机策略推演到战斗结束，统计胜率和剩余生命
+ * 推演在独立的ForkJoin线程池中执行，完全不访问游戏对象，不占用游戏主线程
+ *
+ * 每次推演开始时重新打乱抽牌堆（玩家不知道抽牌堆的顺序），
+ * 第i次推演的随机种子只由seed、操作和i决定，因此同样的参数得到同样的结果，与线程数无关
+ * （达到时间上限提前结束时除外，完成的推演次数取决于机器速度）
+ */
+public final class CombatSimulator {
+    public static final int DEFAULT_ROLLOUTS = 1000;
+    public static final int MAX_ROLLOUTS = 1_000_000;
+    // 所有操作的推演次数之和的上限，操作较多时按操作数平分
+    public static final int MAX_TOTAL_ROLLOUTS = 4_000_000;
+    public static final long DEFAULT_TIME_MS = 10_000;
+    public static final long MAX_TIME_MS = 30_000;
+    public static final int DEFAULT_MAX_TURNS = 20;
+    // 每个叶子任务的推演次数，工作状态在叶子任务开始时分配一次
+    private static final int CHUNK = 512;
+    // 叶子任务每隔这么多次推演检查一次时间上限
+    private static final int DEADLINE_CHECK_INTERVAL = 64;
+
+    private static volatile ForkJoinPool pool;
+
+    private CombatSimulator() {
+    }
+
+    /**
+     * 一个操作的推演统计，可以合并
+     */
+    static final class Stats {
+        long rollouts;
+        long wins;
+        long hpOnWin;
+        long turns;
+        double score;
+
+        Stats merge(Stats o) {
+            rollouts += o.rollouts;
+            wins += o.wins;
+            hpOnWin += o.hpOnWin;
+            turns += o.turns;
+            score += o.score;
+            return this;
+        }
+    }
+
+    /**
+     * 对一段推演编号的分治任务，超过deadline（System.nanoTime()）后不再开始新的推演，
+     * 但每个操作的第0次推演总会执行，保证每个操作都有统计
+     */
+    @SuppressWarnings("serial") // 任务只在本进程的线程池中执行，不会被序列化
+    private static final class RolloutTask extends RecursiveTask<Stats> {
+        private final CombatModel model;
+        private final int action;
+        private final long seed;
+        private final int maxTurn;
+        private final long deadline;
+        private final int from;
+        private final int to;
+
+        RolloutTask(CombatModel model, int action, long seed, int maxTurn, long deadline, int from, int to) {
+            this.model = model;
+            this.action = action;
+            this.seed = seed;
+            this.maxTurn = maxTurn;
+            this.deadline = deadline;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Stats compute() {
+            if (to - from > CHUNK) {
+                int mid = (from + to) >>> 1;
+                RolloutTask left = new RolloutTask(model, action, seed, maxTurn, deadline, from, mid);
+                left.fork();
+                Stats right = new RolloutTask(model, action, seed, maxTurn, deadline, mid, to).compute();
+                return right.merge(left.join());
+            }
+            Stats stats = new Stats();
+            SimState root = model.root();
+            SimState s = root.newScratch();
+            long actionSeed = seed * 31 + action;
+            for (int i = from; i < to; i++) {
+                if (i > 0 && (i - from) % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+                    break;
+                }
+                s.copyFrom(root);
+                s.seedRandom(actionSeed * 0x9E3779B97F4A7C15L + i);
+                s.shuffleDrawPile();
+                model.step(s, action);
+                model.playout(s, maxTurn);
+                stats.rollouts++;
+                stats.turns += s.getTurn() - root.getTurn();
+                stats.score += CombatModel.score(s);
+                if (s.isWon() && s.getHp() > 0) {
+                    stats.wins++;
+                    stats.hpOnWin += s.getHp();
+                }
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * 评估快照中的合法操作
+     * @param snapshot 游戏快照，必须处于可以操作的战斗中
+     * @param rollouts 每个操作的推演次数，所有操作之和不超过MAX_TOTAL_ROLLOUTS
+     * @param maxTurns 每次推演最多再进行的回合数
+     * @param seed 随机种子
+     * @param only 只评估这些掩码下标，为null时评估全部合法操作
+     * @param timeMs 推演的时间上限（毫秒），不超过MAX_TIME_MS，到达时已完成的推演照常统计
+     * @return 每个操作的胜率、胜利时的平均剩余生命、平均回合数和评分，以及评分最高的操作
+     */
+    public static JsonObject simulate(GameSnapshot snapshot, int rollouts, int maxTurns, long seed, int[] only,
+                                      long timeMs) {
+        JsonObject res = new JsonObject();
+        CombatModel model = CombatModel.of(snapshot);
+        if (model == null) {
+            res.addProperty("error", "not in combat");
+            return res;
+        }
+        List<JsonObject> actions = rootActions(snapshot.legalActions, only);
+        if (actions.isEmpty()) {
+            res.addProperty("error", "no legal actions");
+            return res;
+        }
+        rollouts = Math.max(1, Math.min(rollouts, Math.min(MAX_ROLLOUTS, MAX_TOTAL_ROLLOUTS / actions.size())));
+        int maxTurn = model.root().getTurn() + Math.max(1, maxTurns);
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(Math.max(1, Math.min(timeMs, MAX_TIME_MS)));
+        List<RolloutTask> tasks = new ArrayList<>(actions.size());
+        for (JsonObject a : actions) {
+            RolloutTask task = new RolloutTask(model, a.get("action").getAsInt(), seed, maxTurn, deadline, 0, rollouts);
+            tasks.add(task);
+            pool().execute(task);
+        }
+
+        JsonArray results = new JsonArray();
+        JsonObject best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        long total = 0;
+        for (int i = 0; i < actions.size(); i++) {
+            Stats stats = tasks.get(i).join();
+            JsonObject a = actions.get(i);
+            total += stats.rollouts;
+            double score = stats.score / stats.rollouts;
+            a.addProperty("rollouts", stats.rollouts);
+            a.addProperty("winRate", (double) stats.wins / stats.rollouts);
+            a.addProperty("meanHpOnWin", stats.wins > 0 ? (double) stats.hpOnWin / stats.wins : 0);
+            a.addProperty("meanTurns", (double) stats.turns / stats.rollouts);
+            a.addProperty("score", score);
+            results.add(a);
+            if (score > bestScore) {
+                bestScore = score;
+                best = a;
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        res.addProperty("stateVersion", snapshot.version);
+        res.addProperty("seed", seed);
+        res.addProperty("rollouts", rollouts);
+        res.addProperty("totalRollouts", total);
+        res.addProperty("timedOut", total < (long) rollouts * actions.size());
+        res.addProperty("elapsedMs", elapsedNanos / 1_000_000);
+        res.addProperty("rolloutsPerSecond", elapsedNanos > 0 ? (long) (total * 1e9 / elapsedNanos) : 0);
+        res.add("best", best.deepCopy());
+        res.add("actions", results);
+        return res;
+    }
+
+    // 辅助方法：把合法操作展开为掩码下标，每个（卡牌或药水, 目标）组合是一个操作
+    private static List<JsonObject> rootActions(LegalActions legal, int[] only) {
+        List<JsonObject> actions = new ArrayList<>();
+        addOptions(actions, legal.cards, LegalActions.CARD_OFFSET, LegalActions.HAND_SLOTS, "card", "uuid", only);
+        addOptions(actions, legal.potions, LegalActions.POTION_OFFSET, LegalActions.POTION_SLOTS, "potion", "potionId", only);
+        if (legal.canEndTurn && selected(LegalActions.END_TURN_INDEX, only)) {
+            JsonObject a = new JsonObject();
+            a.addProperty("action", LegalActions.END_TURN_INDEX);
+            a.addProperty("type", "end_turn");
+            actions.add(a);
+        }
+        return actions;
+    }
+
+    private static void addOptions(List<JsonObject> actions, List<LegalActions.Option> options, int offset, int slots,
+                                   String type, String idField, int[] only) {
+        for (LegalActions.Option o : options) {
+            if (o.index >= slots) {
+                continue;
+            }
+            int base = offset + o.index * LegalActions.TARGET_COLUMNS;
+            if (!o.needsTarget()) {
+                if (selected(base, only)) {
+                    actions.add(action(base, type, o, idField, -1));
+                }
+                continue;
+            }
+            for (int t = 0; t < o.targetCount(); t++) {
+                int target = o.target(t);
+                if (target < LegalActions.MONSTER_SLOTS && selected(base + 1 + target, only)) {
+                    actions.add(action(base + 1 + target, type, o, idField, target));
+                }
+            }
+        }
+    }
+
+    private static JsonObject action(int index, String type, LegalActions.Option o, String idField, int target) {
+        JsonObject a = new JsonObject();
+        a.addProperty("action", index);
+        a.addProperty("type", type);
+        a.addProperty("index", o.index);
+        a.addProperty(idField, o.id);
+        if (target >= 0) {
+            a.addProperty("targetIndex", target);
+        }
+        return a;
+    }
+
+    private static boolean selected(int index, int[] only) {
+        if (only == null) {
+            return true;
+        }
+        for (int i : only) {
+            if (i == index) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 推演线程池，第一次使用时创建，线程数见配置simParallelism（默认为CPU核数）
+    private static ForkJoinPool pool() {
+        ForkJoinPool p = pool;
+        if (p == null) {
+            synchronized (CombatSimulator.class) {
+                p = pool;
+                if (p == null) {
+                    int parallelism = SDKConfig.getInt("simParallelism", Runtime.getRuntime().availableProcessors());
+                    p = new ForkJoinPool(Math.max(1, parallelism), CombatSimulator::newThread, null, false);
+                    pool = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    private static ForkJoinWorkerThread newThread(ForkJoinPool p) {
+        ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+        t.setName("STSSDK-Sim-Thread-" + t.getPoolIndex());
+        t.setDaemon(true);
+        return t;
+    }
+}
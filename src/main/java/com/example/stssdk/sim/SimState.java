@@ -0,0 +1,265 @@
+package com.example.stssdk.sim;
+
+/**
+ * 战斗模拟器的状态，全部由基本类型和基本类型数组组成
+ * 同一个CombatModel创建的状态数组长度相同，copyFrom只复制数组，不分配内存，
+ * 因此一次推演只需要在开始时复制一次根状态
+ *
+ * 卡牌用CombatModel中的卡牌定义下标表示，牌堆的最后一个元素是牌堆顶
+ */
+public final class SimState {
+    // 能力下标，玩家和怪物共用
+    static final int STRENGTH = 0;
+    static final int DEXTERITY = 1;
+    static final int VULNERABLE = 2;
+    static final int WEAK = 3;
+    static final int FRAIL = 4;
+    static final int METALLICIZE = 5;
+    static final int PLATED_ARMOR = 6;
+    static final int RITUAL = 7;
+    static final int POWER_COUNT = 8;
+
+    static final int HAND_LIMIT = 10;
+
+    // 玩家
+    int hp;
+    int maxHp;
+    int block;
+    int energy;
+    int energyPerTurn;
+    final int[] powers = new int[POWER_COUNT];
+
+    // 牌堆
+    final int[] hand = new int[HAND_LIMIT];
+    int handSize;
+    final int[] draw;
+    int drawSize;
+    final int[] discard;
+    int discardSize;
+    int exhaustCount;
+
+    // 怪物，能力按 怪物下标*POWER_COUNT+能力下标 存放
+    final int monsterCount;
+    final int[] monsterHp;
+    final int[] monsterMaxHp;
+    final int[] monsterBlock;
+    final int[] intentBaseDamage;
+    final int[] intentHits;
+    final int[] monsterPowers;
+
+    // 药水槽位，存放药水定义下标，空槽位为-1
+    final int[] potions;
+
+    int turn;
+    // 本回合已打出的牌数，用于限制推演中的死循环
+    int cardsPlayedThisTurn;
+    long rng;
+
+    // 推演时挑选动作的临时缓冲区，不属于状态，不参与复制
+    final int[] scratch = new int[HAND_LIMIT];
+
+    SimState(int cardCapacity, int monsterCount, int potionSlots) {
+        this.draw = new int[cardCapacity];
+        this.discard = new int[cardCapacity];
+        this.monsterCount = monsterCount;
+        this.monsterHp = new int[monsterCount];
+        this.monsterMaxHp = new int[monsterCount];
+        this.monsterBlock = new int[monsterCount];
+        this.intentBaseDamage = new int[monsterCount];
+        this.intentHits = new int[monsterCount];
+        this.monsterPowers = new int[monsterCount * POWER_COUNT];
+        this.potions = new int[potionSlots];
+    }
+
+    /**
+     * 创建数组长度相同的空状态，用作推演时反复覆盖的工作状态
+     */
+    SimState newScratch() {
+        return new SimState(draw.length, monsterCount, potions.length);
+    }
+
+    /**
+     * 把另一个状态完整复制到当前状态，两者必须来自同一个CombatModel
+     * @param o 源状态
+     */
+    public void copyFrom(SimState o) {
+        hp = o.hp;
+        maxHp = o.maxHp;
+        block = o.block;
+        energy = o.energy;
+        energyPerTurn = o.energyPerTurn;
+        System.arraycopy(o.powers, 0, powers, 0, POWER_COUNT);
+        System.arraycopy(o.hand, 0, hand, 0, o.handSize);
+        handSize = o.handSize;
+        System.arraycopy(o.draw, 0, draw, 0, o.drawSize);
+        drawSize = o.drawSize;
+        System.arraycopy(o.discard, 0, discard, 0, o.discardSize);
+        discardSize = o.discardSize;
+        exhaustCount = o.exhaustCount;
+        System.arraycopy(o.monsterHp, 0, monsterHp, 0, monsterCount);
+        System.arraycopy(o.monsterMaxHp, 0, monsterMaxHp, 0, monsterCount);
+        System.arraycopy(o.monsterBlock, 0, monsterBlock, 0, monsterCount);
+        System.arraycopy(o.intentBaseDamage, 0, intentBaseDamage, 0, monsterCount);
+        System.arraycopy(o.intentHits, 0, intentHits, 0, monsterCount);
+        System.arraycopy(o.monsterPowers, 0, monsterPowers, 0, monsterPowers.length);
+        System.arraycopy(o.potions, 0, potions, 0, potions.length);
+        turn = o.turn;
+        cardsPlayedThisTurn = o.cardsPlayedThisTurn;
+        rng = o.rng;
+    }
+
+    public int getHp() {
+        return hp;
+    }
+
+    public int getMaxHp() {
+        return maxHp;
+    }
+
+    public int getTurn() {
+        return turn;
+    }
+
+    public boolean isLost() {
+        return hp <= 0;
+    }
+
+    /**
+     * 所有怪物是否都已死亡
+     */
+    public boolean isWon() {
+        for (int i = 0; i < monsterCount; i++) {
+            if (monsterHp[i] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isTerminal() {
+        return isLost() || isWon();
+    }
+
+    boolean isAlive(int monster) {
+        return monster >= 0 && monster < monsterCount && monsterHp[monster] > 0;
+    }
+
+    int monsterPower(int monster, int power) {
+        return monsterPowers[monster * POWER_COUNT + power];
+    }
+
+    void addMonsterPower(int monster, int power, int amount) {
+        monsterPowers[monster * POWER_COUNT + power] += amount;
+    }
+
+    /**
+     * 所有存活怪物剩余生命值之和占最大生命值之和的比例
+     */
+    double remainingMonsterHpFraction() {
+        int remaining = 0;
+        int total = 0;
+        for (int i = 0; i < monsterCount; i++) {
+            remaining += Math.max(0, monsterHp[i]);
+            total += monsterMaxHp[i];
+        }
+        return total > 0 ? (double) remaining / total : 0;
+    }
+
+    /**
+     * 用splitmix64重新设置随机数状态，同样的种子总是得到同样的推演
+     * @param seed 种子
+     */
+    void seedRandom(long seed) {
+        long z = seed + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        rng = (z ^ (z >>> 31)) | 1;
+    }
+
+    /**
+     * xorshift64*随机数，返回[0, bound)之间的整数
+     */
+    int nextInt(int bound) {
+        long x = rng;
+        x ^= x >>> 12;
+        x ^= x << 25;
+        x ^= x >>> 27;
+        rng = x;
+        return (int) (((x * 0x2545F4914F6CDD1DL) >>> 33) % bound);
+    }
+
+    /**
+     * 随机选择一个存活的怪物
+     * @return 怪物下标，没有存活的怪物时返回-1
+     */
+    int randomAliveMonster() {
+        int alive = 0;
+        for (int i = 0; i < monsterCount; i++) {
+            if (monsterHp[i] > 0) {
+                alive++;
+            }
+        }
+        if (alive == 0) {
+            return -1;
+        }
+        int pick = nextInt(alive);
+        for (int i = 0; i < monsterCount; i++) {
+            if (monsterHp[i] > 0 && pick-- == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 打乱抽牌堆（Fisher-Yates）
+     */
+    void shuffleDrawPile() {
+        for (int i = drawSize - 1; i > 0; i--) {
+            int j = nextInt(i + 1);
+            int t = draw[i];
+            draw[i] = draw[j];
+            draw[j] = t;
+        }
+    }
+
+    /**
+     * 抽牌，抽牌堆为空时把弃牌堆洗入抽牌堆；手牌已满时停止
+     * @param count 抽牌数量
+     */
+    void drawCards(int count) {
+        for (int n = 0; n < count && handSize < HAND_LIMIT; n++) {
+            if (drawSize == 0) {
+                if (discardSize == 0) {
+                    return;
+                }
+                System.arraycopy(discard, 0, draw, 0, discardSize);
+                drawSize = discardSize;
+                discardSize = 0;
+                shuffleDrawPile();
+            }
+            hand[handSize++] = draw[--drawSize];
+        }
+    }
+
+    /**
+     * 从手牌中移除一张牌，后面的牌依次前移，与游戏中手牌下标的变化一致
+     * @param slot 手牌下标
+     * @return 被移除的卡牌定义下标
+     */
+    int removeFromHand(int slot) {
+        int card = hand[slot];
+        System.arraycopy(hand, slot + 1, hand, slot, handSize - slot - 1);
+        handSize--;
+        return card;
+    }
+
+    /**
+     * 把一张牌放入弃牌堆，弃牌堆已满时（只可能是复制出的牌过多）丢弃
+     */
+    void addToDiscard(int card) {
+        if (discardSize + drawSize + handSize < discard.length) {
+            discard[discardSize++] = card;
+        }
+    }
+}
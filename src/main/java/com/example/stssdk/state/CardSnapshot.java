@@ -0,0 +1,106 @@
+package com.example.stssdk.state;
+
+import com.megacrit.cardcrawl.cards.AbstractCard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * 卡牌的不可变快照
+ */
+public final class CardSnapshot {
+    public final UUID uuid;
+    // 预先转换好的uuid字符串，避免每次序列化都调用toString()
+    public final String uuidString;
+    public final String id;
+    public final String name;
+    public final int cost;
+    public final String type;
+    public final String rarity;
+    public final boolean upgraded;
+    // 以下字段供战斗模拟器使用：本回合费用、目标类型、未计算能力加成的基础数值
+    public final int costForTurn;
+    public final String target;
+    public final int baseDamage;
+    public final int baseBlock;
+    public final int magicNumber;
+    public final boolean exhaust;
+    public final boolean ethereal;
+
+    private CardSnapshot(AbstractCard c) {
+        this.uuid = c.uuid;
+        this.uuidString = c.uuid.toString();
+        this.id = c.cardID;
+        this.name = c.name;
+        this.cost = c.cost;
+        this.type = c.type.name();
+        this.rarity = c.rarity.name();
+        this.upgraded = c.upgraded;
+        this.costForTurn = c.costForTurn;
+        this.target = c.target != null ? c.target.name() : null;
+        this.baseDamage = c.baseDamage;
+        this.baseBlock = c.baseBlock;
+        this.magicNumber = c.magicNumber;
+        this.exhaust = c.exhaust;
+        this.ethereal = c.isEthereal;
+    }
+
+    /**
+     * 从卡牌对象创建快照，必须在游戏主线程中调用
+     * @param c 卡牌对象
+     * @return 卡牌快照
+     */
+    public static CardSnapshot of(AbstractCard c) {
+        return new CardSnapshot(c);
+    }
+
+    /**
+     * 为整个卡牌列表创建快照，无法读取的卡牌会被忽略
+     * @param cards 卡牌对象列表
+     * @return 不可修改的卡牌快照列表
+     */
+    public static List<CardSnapshot> listOf(List<AbstractCard> cards) {
+        List<CardSnapshot> list = new ArrayList<>(cards.size());
+        for (AbstractCard c : cards) {
+            try {
+                list.add(new CardSnapshot(c));
+            } catch (Exception e) {
+                // 忽略无法读取的卡
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CardSnapshot)) {
+            return false;
+        }
+        CardSnapshot o = (CardSnapshot) obj;
+        return Objects.equals(uuid, o.uuid)
+                && Objects.equals(id, o.id)
+                && Objects.equals(name, o.name)
+                && cost == o.cost
+                && Objects.equals(type, o.type)
+                && Objects.equals(rarity, o.rarity)
+                && upgraded == o.upgraded
+                && costForTurn == o.costForTurn
+                && Objects.equals(target, o.target)
+                && baseDamage == o.baseDamage
+                && baseBlock == o.baseBlock
+                && magicNumber == o.magicNumber
+                && exhaust == o.exhaust
+                && ethereal == o.ethereal;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(uuid, id, name, cost, type, rarity, upgraded, costForTurn, baseDamage, baseBlock, magicNumber);
+    }
+}
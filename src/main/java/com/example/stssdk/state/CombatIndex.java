@@ -0,0 +1,97 @@
+package com.example.stssdk.state;
+
+import com.megacrit.cardcrawl.cards.AbstractCard;
+import com.megacrit.cardcrawl.cards.CardGroup;
+import com.megacrit.cardcrawl.characters.AbstractPlayer;
+import com.megacrit.cardcrawl.monsters.AbstractMonster;
+import com.megacrit.cardcrawl.monsters.MonsterGroup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 卡牌和怪物的查找表，由快照阶段在游戏主线程中维护，只能在游戏主线程中访问
+ *
+ * 每个怪物在一场战斗中第一次出现时分配一个句柄（从0开始递增），之后不再改变，
+ * 即使有怪物死亡、逃跑或被召唤，句柄仍然唯一对应同一个怪物；同ID的怪物（例如两只虱子）也能区分。
+ * 卡牌按uuid索引所有牌堆，出牌时不需要线性扫描和uuid字符串比较
+ */
+public final class CombatIndex {
+    // 当前战斗的怪物组，变化时重新分配句柄
+    private static MonsterGroup group;
+    private static final Map<AbstractMonster, Integer> handles = new IdentityHashMap<>();
+    private static final List<AbstractMonster> monstersByHandle = new ArrayList<>();
+    private static final Map<UUID, AbstractCard> cards = new HashMap<>();
+
+    private CombatIndex() {
+    }
+
+    /**
+     * 更新查找表，每次捕获快照前调用
+     * @param p 玩家
+     * @param monsters 当前房间的怪物组，可以为null
+     */
+    static void update(AbstractPlayer p, MonsterGroup monsters) {
+        if (monsters != group) {
+            group = monsters;
+            handles.clear();
+            monstersByHandle.clear();
+        }
+        if (monsters != null) {
+            for (AbstractMonster m : monsters.monsters) {
+                if (!handles.containsKey(m)) {
+                    handles.put(m, monstersByHandle.size());
+                    monstersByHandle.add(m);
+                }
+            }
+        }
+        cards.clear();
+        index(p.hand);
+        index(p.drawPile);
+        index(p.discardPile);
+        index(p.exhaustPile);
+        index(p.limbo);
+    }
+
+    /**
+     * 怪物在当前战斗中的句柄
+     * @param m 怪物
+     * @return 句柄，怪物还没有分配句柄时返回-1
+     */
+    public static int handleOf(AbstractMonster m) {
+        Integer handle = handles.get(m);
+        return handle != null ? handle : -1;
+    }
+
+    /**
+     * 按句柄查找当前战斗中的怪物
+     * @param handle 句柄
+     * @return 怪物，句柄无效时返回null
+     */
+    public static AbstractMonster monster(int handle) {
+        return handle >= 0 && handle < monstersByHandle.size() ? monstersByHandle.get(handle) : null;
+    }
+
+    /**
+     * 按uuid查找任意牌堆中的卡牌
+     * 查找表在上一次捕获快照时建立，本帧之后才进入牌堆的卡牌可能查不到，调用方应在查不到时回退到扫描牌堆
+     * @param uuid 卡牌uuid
+     * @return 卡牌，找不到时返回null
+     */
+    public static AbstractCard card(UUID uuid) {
+        return cards.get(uuid);
+    }
+
+    private static void index(CardGroup pile) {
+        if (pile == null) {
+            return;
+        }
+        for (AbstractCard c : pile.group) {
+            cards.put(c.uuid, c);
+        }
+    }
+}
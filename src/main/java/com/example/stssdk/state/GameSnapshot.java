@@ -0,0 +1,119 @@
+package com.example.stssdk.state;
+
+import com.megacrit.cardcrawl.characters.AbstractPlayer;
+import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
+import com.megacrit.cardcrawl.monsters.MonsterGroup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 某一帧的完整游戏状态快照
+ * 由SnapshotPublisher在游戏主线程中创建，创建后不再修改，
+ * HTTP工作线程只读取快照而不会直接访问游戏对象
+ */
+public final class GameSnapshot {
+
+    // 玩家为null（游戏尚未开始）时使用的空快照
+    public static final GameSnapshot EMPTY = new GameSnapshot(0);
+
+    // 状态版本号，内容发生变化时单调递增
+    public final long version;
+    // 玩家信息，为null表示当前没有玩家
+    public final PlayerSnapshot player;
+    public final List<CardSnapshot> hand;
+    public final List<CardSnapshot> drawPile;
+    public final List<CardSnapshot> discardPile;
+    public final List<RelicSnapshot> relics;
+    public final List<PotionSnapshot> potions;
+    public final List<MonsterSnapshot> monsters;
+    // 当前状态下的合法操作
+    public final LegalActions legalActions;
+    // 当前回合数
+    public final int turn;
+    // 当前界面（AbstractDungeon.screen），没有时为null
+    public final String screen;
+    // 快照创建时间（毫秒）
+    public final long timestamp;
+
+    private GameSnapshot(long version) {
+        this.version = version;
+        this.player = null;
+        this.hand = Collections.emptyList();
+        this.drawPile = Collections.emptyList();
+        this.discardPile = Collections.emptyList();
+        this.relics = Collections.emptyList();
+        this.potions = Collections.emptyList();
+        this.monsters = Collections.emptyList();
+        this.legalActions = LegalActions.NONE;
+        this.turn = 0;
+        this.screen = null;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    private GameSnapshot(long version, AbstractPlayer p, MonsterGroup monsterGroup) {
+        this.version = version;
+        this.player = PlayerSnapshot.of(p);
+        this.hand = CardSnapshot.listOf(p.hand.group);
+        this.drawPile = CardSnapshot.listOf(p.drawPile.group);
+        this.discardPile = CardSnapshot.listOf(p.discardPile.group);
+        this.relics = RelicSnapshot.listOf(p.relics);
+        this.potions = PotionSnapshot.listOf(p.potions);
+        this.monsters = MonsterSnapshot.listOf(monsterGroup);
+        this.legalActions = LegalActions.of(p, monsterGroup);
+        this.turn = AbstractDungeon.actionManager != null ? AbstractDungeon.actionManager.turn : 0;
+        this.screen = AbstractDungeon.screen != null ? AbstractDungeon.screen.name() : null;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * 捕获当前游戏状态，必须在游戏主线程中调用
+     * @param version 新快照使用的版本号
+     * @return 当前帧的游戏快照
+     */
+    public static GameSnapshot capture(long version) {
+        AbstractPlayer p = AbstractDungeon.player;
+        if (p == null) {
+            return new GameSnapshot(version);
+        }
+        MonsterGroup monsters = AbstractDungeon.getCurrRoom() != null ? AbstractDungeon.getCurrRoom().monsters : null;
+        // 先更新查找表，怪物快照需要读取句柄
+        CombatIndex.update(p, monsters);
+        return new GameSnapshot(version, p, monsters);
+    }
+
+    /**
+     * 是否存在玩家（游戏是否已开始）
+     */
+    public boolean hasPlayer() {
+        return player != null;
+    }
+
+    /**
+     * 比较两个快照的内容是否相同，忽略版本号和创建时间
+     * @param other 另一个快照
+     * @return 内容相同时返回true
+     */
+    public boolean sameContent(GameSnapshot other) {
+        return other != null
+                && Objects.equals(player, other.player)
+                && hand.equals(other.hand)
+                && drawPile.equals(other.drawPile)
+                && discardPile.equals(other.discardPile)
+                && relics.equals(other.relics)
+                && potions.equals(other.potions)
+                && monsters.equals(other.monsters)
+                && legalActions.equals(other.legalActions)
+                && turn == other.turn
+                && Objects.equals(screen, other.screen);
+    }
+
+    /**
+     * 用于HTTP ETag的版本标识
+     * @param representation 同一版本的不同表示（二进制、lean、投影、观测布局等）的标识，为null时表示默认的JSON
+     */
+    public String etag(String representation) {
+        return "\"" + version + (representation != null ? "-" + representation : "") + "\"";
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.stssdk.state;
+
+import com.megacrit.cardcrawl.actions.GameActionManager;
+import com.megacrit.cardcrawl.cards.AbstractCard;
+import com.megacrit.cardcrawl.characters.AbstractPlayer;
+import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
+import com.megacrit.cardcrawl.monsters.AbstractMonster;
+import com.megacrit.cardcrawl.monsters.MonsterGroup;
+import com.megacrit.cardcrawl.potions.AbstractPotion;
+import com.megacrit.cardcrawl.potions.PotionSlot;
+import com.megacrit.cardcrawl.rooms.AbstractRoom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 当前状态下所有合法操作的不可变快照，随GameSnapshot一起在游戏主线程中计算，每个版本只计算一次
+ * 考虑能量、卡牌的canUse、目标类型以及已死亡或逃跑的怪物
+ *
+ * 同时提供固定长度的掩码，便于直接作为策略网络的动作掩码：
+ * 手牌槽位i的第j列（j=0表示无目标，j=k+1表示目标为第k个怪物）对应下标 i*TARGET_COLUMNS+j，
+ * 之后是药水槽位（同样的列），最后一位是结束回合
+ */
+public final class LegalActions {
+    // 掩码布局
+    public static final int HAND_SLOTS = 10;
+    public static final int MONSTER_SLOTS = 5;
+    public static final int POTION_SLOTS = 5;
+    public static final int TARGET_COLUMNS = MONSTER_SLOTS + 1;
+    public static final int CARD_OFFSET = 0;
+    public static final int POTION_OFFSET = HAND_SLOTS * TARGET_COLUMNS;
+    public static final int END_TURN_INDEX = POTION_OFFSET + POTION_SLOTS * TARGET_COLUMNS;
+    public static final int MASK_SIZE = END_TURN_INDEX + 1;
+
+    // 不在可操作状态时使用
+    public static final LegalActions NONE = new LegalActions(
+            Collections.<Option>emptyList(), Collections.<Option>emptyList(), false);
+
+    /**
+     * 一个可用的卡牌或药水及其合法目标
+     */
+    public static final class Option {
+        // 手牌下标或药水槽位
+        public final int index;
+        // 卡牌uuid或药水ID
+        public final String id;
+        // 合法目标的怪物下标，不需要目标时为空数组
+        private final int[] targets;
+
+        Option(int index, String id, int[] targets) {
+            this.index = index;
+            this.id = id;
+            this.targets = targets;
+        }
+
+        public boolean needsTarget() {
+            return targets.length > 0;
+        }
+
+        public int targetCount() {
+            return targets.length;
+        }
+
+        public int target(int i) {
+            return targets[i];
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Option)) {
+                return false;
+            }
+            Option o = (Option) obj;
+            return index == o.index && id.equals(o.id) && Arrays.equals(targets, o.targets);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * index + id.hashCode()) + Arrays.hashCode(targets);
+        }
+    }
+
+    public final List<Option> cards;
+    public final List<Option> potions;
+    public final boolean canEndTurn;
+    private final byte[] mask;
+
+    private LegalActions(List<Option> cards, List<Option> potions, boolean canEndTurn) {
+        this.cards = cards;
+        this.potions = potions;
+        this.canEndTurn = canEndTurn;
+        this.mask = new byte[MASK_SIZE];
+        fill(cards, CARD_OFFSET, HAND_SLOTS);
+        fill(potions, POTION_OFFSET, POTION_SLOTS);
+        mask[END_TURN_INDEX] = (byte) (canEndTurn ? 1 : 0);
+    }
+
+    /**
+     * 计算当前状态下的合法操作，必须在游戏主线程中调用
+     * 只有在战斗中、没有打开界面、回合未结束且动作队列等待玩家操作时才有合法操作
+     * @param p 玩家
+     * @param group 当前房间的怪物组，可以为null
+     * @return 合法操作
+     */
+    public static LegalActions of(AbstractPlayer p, MonsterGroup group) {
+        AbstractRoom room = AbstractDungeon.getCurrRoom();
+        GameActionManager am = AbstractDungeon.actionManager;
+        if (group == null || room == null || room.phase != AbstractRoom.RoomPhase.COMBAT || am == null
+                || am.turnHasEnded || am.phase != GameActionManager.Phase.WAITING_ON_USER
+                || AbstractDungeon.isScreenUp || p.isEndingTurn) {
+            return NONE;
+        }
+        List<AbstractMonster> monsters = group.monsters;
+
+        List<Option> cards = new ArrayList<>();
+        for (int i = 0; i < p.hand.group.size(); i++) {
+            AbstractCard c = p.hand.group.get(i);
+            // canUse中包含能量检查（hasEnoughEnergy）以及缠绕等限制
+            if (needsTarget(c.target)) {
+                int[] targets = targets(monsters, c, p);
+                if (targets.length > 0) {
+                    cards.add(new Option(i, c.uuid.toString(), targets));
+                }
+            } else if (c.canUse(p, null)) {
+                cards.add(new Option(i, c.uuid.toString(), new int[0]));
+            }
+        }
+
+        List<Option> potions = new ArrayList<>();
+        for (int i = 0; i < p.potions.size(); i++) {
+            AbstractPotion potion = p.potions.get(i);
+            if (potion instanceof PotionSlot || !potion.canUse()) {
+                continue;
+            }
+            if (potion.targetRequired) {
+                int[] targets = targets(monsters, null, p);
+                if (targets.length > 0) {
+                    potions.add(new Option(i, potion.ID, targets));
+                }
+            } else {
+                potions.add(new Option(i, potion.ID, new int[0]));
+            }
+        }
+        return new LegalActions(Collections.unmodifiableList(cards), Collections.unmodifiableList(potions), true);
+    }
+
+    /**
+     * 掩码中的一位
+     * @param index 下标，布局见类注释
+     * @return 合法时为1，否则为0
+     */
+    public int maskBit(int index) {
+        return mask[index];
+    }
+
+    /**
+     * 掩码的副本，每个字节表示一个操作
+     */
+    public byte[] maskBytes() {
+        return mask.clone();
+    }
+
+    // 卡牌或药水的目标类型是否需要指定一个怪物
+    private static boolean needsTarget(AbstractCard.CardTarget target) {
+        return target == AbstractCard.CardTarget.ENEMY || target == AbstractCard.CardTarget.SELF_AND_ENEMY;
+    }
+
+    // 辅助方法：可以作为目标的怪物下标，card不为null时还要求对该怪物canUse
+    private static int[] targets(List<AbstractMonster> monsters, AbstractCard card, AbstractPlayer p) {
+        int[] found = new int[monsters.size()];
+        int n = 0;
+        for (int i = 0; i < monsters.size(); i++) {
+            AbstractMonster m = monsters.get(i);
+            if (m.isDeadOrEscaped() || m.halfDead) {
+                continue;
+            }
+            if (card == null || card.canUse(p, m)) {
+                found[n++] = i;
+            }
+        }
+        return Arrays.copyOf(found, n);
+    }
+
+    private void fill(List<Option> options, int offset, int slots) {
+        for (Option o : options) {
+            if (o.index >= slots) {
+                continue;
+            }
+            int base = offset + o.index * TARGET_COLUMNS;
+            if (!o.needsTarget()) {
+                mask[base] = 1;
+            }
+            for (int t : o.targets) {
+                if (t < MONSTER_SLOTS) {
+                    mask[base + 1 + t] = 1;
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof LegalActions)) {
+            return false;
+        }
+        LegalActions o = (LegalActions) obj;
+        return canEndTurn == o.canEndTurn && cards.equals(o.cards) && potions.equals(o.potions);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * cards.hashCode() + potions.hashCode()) + (canEndTurn ? 1 : 0);
+    }
+}
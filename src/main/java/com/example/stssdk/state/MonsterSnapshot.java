@@ -0,0 +1,140 @@
+package com.example.stssdk.state;
+
+import com.megacrit.cardcrawl.monsters.AbstractMonster;
+import com.megacrit.cardcrawl.monsters.MonsterGroup;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 敌方怪物的不可变快照
+ */
+public final class MonsterSnapshot {
+    // AbstractMonster的私有字段，多段攻击的段数只能通过反射读取，每帧都要读取，只查找一次
+    private static final Field MULTI_AMT_FIELD = privateField("intentMultiAmt");
+    private static final Field IS_MULTI_FIELD = privateField("isMultiDmg");
+
+    // 本场战斗中的稳定句柄，见CombatIndex；没有分配时为-1
+    public final int handle;
+    public final String id;
+    public final String name;
+    public final int currentHp;
+    public final int maxHp;
+    public final int currentBlock;
+    public final boolean isDead;
+    public final boolean isEscaped;
+    // 怪物的下次行动意图，可能为null
+    public final String intent;
+    public final float x;
+    public final float y;
+    // 意图为攻击时每段的伤害（已计入力量、虚弱和玩家的易伤）和未计入加成的基础伤害
+    public final int intentDamage;
+    public final int intentBaseDamage;
+    // 攻击段数，意图不是攻击时为0，此时上面两个伤害值没有意义
+    public final int intentHits;
+    public final List<PowerSnapshot> powers;
+
+    private MonsterSnapshot(AbstractMonster m) {
+        this.handle = CombatIndex.handleOf(m);
+        this.id = m.id;
+        this.name = m.name;
+        this.currentHp = m.currentHealth;
+        this.maxHp = m.maxHealth;
+        this.currentBlock = m.currentBlock;
+        this.isDead = m.isDeadOrEscaped();
+        this.isEscaped = m.isEscaping;
+        this.intent = m.intent != null ? m.intent.name() : null;
+        this.x = m.drawX;
+        this.y = m.drawY;
+        this.intentDamage = m.getIntentDmg();
+        this.intentBaseDamage = m.getIntentBaseDmg();
+        this.intentHits = intent != null && intent.startsWith("ATTACK") ? readHits(m) : 0;
+        this.powers = PowerSnapshot.listOf(m.powers);
+    }
+
+    // 辅助方法：多段攻击返回段数，否则返回1
+    private static int readHits(AbstractMonster m) {
+        if (MULTI_AMT_FIELD == null || IS_MULTI_FIELD == null) {
+            return 1;
+        }
+        try {
+            return IS_MULTI_FIELD.getBoolean(m) ? Math.max(1, MULTI_AMT_FIELD.getInt(m)) : 1;
+        } catch (IllegalAccessException e) {
+            return 1;
+        }
+    }
+
+    private static Field privateField(String name) {
+        try {
+            Field f = AbstractMonster.class.getDeclaredField(name);
+            f.setAccessible(true);
+            return f;
+        } catch (NoSuchFieldException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 从怪物对象创建快照，必须在游戏主线程中调用
+     * @param m 怪物对象
+     * @return 怪物快照
+     */
+    public static MonsterSnapshot of(AbstractMonster m) {
+        return new MonsterSnapshot(m);
+    }
+
+    /**
+     * 为整个怪物组创建快照，无法读取的怪物会被忽略
+     * @param monsters 怪物组，可以为null
+     * @return 不可修改的怪物快照列表
+     */
+    public static List<MonsterSnapshot> listOf(MonsterGroup monsters) {
+        if (monsters == null) {
+            return Collections.emptyList();
+        }
+        List<MonsterSnapshot> list = new ArrayList<>(monsters.monsters.size());
+        for (AbstractMonster m : monsters.monsters) {
+            try {
+                list.add(new MonsterSnapshot(m));
+            } catch (Exception e) {
+                // 忽略无法读取的怪物
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MonsterSnapshot)) {
+            return false;
+        }
+        MonsterSnapshot o = (MonsterSnapshot) obj;
+        return handle == o.handle
+                && Objects.equals(id, o.id)
+                && Objects.equals(name, o.name)
+                && currentHp == o.currentHp
+                && maxHp == o.maxHp
+                && currentBlock == o.currentBlock
+                && isDead == o.isDead
+                && isEscaped == o.isEscaped
+                && Objects.equals(intent, o.intent)
+                && Float.compare(x, o.x) == 0
+                && Float.compare(y, o.y) == 0
+                && intentDamage == o.intentDamage
+                && intentBaseDamage == o.intentBaseDamage
+                && intentHits == o.intentHits
+                && powers.equals(o.powers);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(handle, id, name, currentHp, maxHp, currentBlock, isDead, isEscaped, intent, x, y,
+                intentDamage, intentHits, powers);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.stssdk.state;
+
+import com.megacrit.cardcrawl.characters.AbstractPlayer;
+import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 玩家基本信息的不可变快照
+ * 在游戏主线程中创建，之后可被任意线程安全读取
+ */
+public final class PlayerSnapshot {
+    public final int hp;
+    public final int maxHp;
+    public final int energy;
+    public final int gold;
+    public final int currentBlock;
+    public final int ascensionLevel;
+    public final String character;
+    // 每回合开始时的能量
+    public final int energyPerTurn;
+    public final List<PowerSnapshot> powers;
+
+    private PlayerSnapshot(AbstractPlayer p) {
+        this.hp = p.currentHealth;
+        this.maxHp = p.maxHealth;
+        // 获取能量信息，使用try-catch处理不同版本可能的字段差异
+        int e;
+        try {
+            e = p.energy.energy;
+        } catch (Exception ex) {
+            e = -1;
+        }
+        this.energy = e;
+        this.gold = p.gold;
+        this.currentBlock = p.currentBlock;
+        this.ascensionLevel = AbstractDungeon.ascensionLevel;
+        this.character = p.chosenClass.name();
+        this.energyPerTurn = p.energy != null ? p.energy.energyMaster : 0;
+        this.powers = PowerSnapshot.listOf(p.powers);
+    }
+
+    /**
+     * 从玩家对象创建快照，必须在游戏主线程中调用
+     * @param p 玩家对象
+     * @return 玩家快照
+     */
+    public static PlayerSnapshot of(AbstractPlayer p) {
+        return new PlayerSnapshot(p);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof PlayerSnapshot)) {
+            return false;
+        }
+        PlayerSnapshot o = (PlayerSnapshot) obj;
+        return hp == o.hp
+                && maxHp == o.maxHp
+                && energy == o.energy
+                && gold == o.gold
+                && currentBlock == o.currentBlock
+                && ascensionLevel == o.ascensionLevel
+                && Objects.equals(character, o.character)
+                && energyPerTurn == o.energyPerTurn
+                && powers.equals(o.powers);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hp, maxHp, energy, gold, currentBlock, ascensionLevel, character, energyPerTurn, powers);
+    }
+}
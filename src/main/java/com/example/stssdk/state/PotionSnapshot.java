@@ -0,0 +1,78 @@
+package com.example.stssdk.state;
+
+import com.megacrit.cardcrawl.potions.AbstractPotion;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 药水的不可变快照
+ */
+public final class PotionSnapshot {
+    public final String id;
+    public final String name;
+    public final String description;
+    public final int slot;
+    // 药水效果的数值（已计入神圣树皮等加成），供战斗模拟器使用
+    public final int potency;
+    public final boolean targetRequired;
+
+    private PotionSnapshot(AbstractPotion p) {
+        this.id = p.ID;
+        this.name = p.name;
+        this.description = p.description;
+        this.slot = p.slot;
+        this.potency = p.getPotency();
+        this.targetRequired = p.targetRequired;
+    }
+
+    /**
+     * 从药水对象创建快照，必须在游戏主线程中调用
+     * @param p 药水对象
+     * @return 药水快照
+     */
+    public static PotionSnapshot of(AbstractPotion p) {
+        return new PotionSnapshot(p);
+    }
+
+    /**
+     * 为整个药水列表创建快照，无法读取的药水会被忽略
+     * @param potions 药水对象列表
+     * @return 不可修改的药水快照列表
+     */
+    public static List<PotionSnapshot> listOf(List<AbstractPotion> potions) {
+        List<PotionSnapshot> list = new ArrayList<>(potions.size());
+        for (AbstractPotion p : potions) {
+            try {
+                list.add(new PotionSnapshot(p));
+            } catch (Exception e) {
+                // 忽略无法读取的药水
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof PotionSnapshot)) {
+            return false;
+        }
+        PotionSnapshot o = (PotionSnapshot) obj;
+        return Objects.equals(id, o.id)
+                && Objects.equals(name, o.name)
+                && Objects.equals(description, o.description)
+                && slot == o.slot
+                && potency == o.potency
+                && targetRequired == o.targetRequired;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, description, slot, potency, targetRequired);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.stssdk.state;
+
+import com.megacrit.cardcrawl.powers.AbstractPower;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 能力（Buff/Debuff）的不可变快照，只保留ID和层数
+ */
+public final class PowerSnapshot {
+    public final String id;
+    public final int amount;
+
+    private PowerSnapshot(AbstractPower p) {
+        this.id = p.ID;
+        this.amount = p.amount;
+    }
+
+    /**
+     * 为生物身上的全部能力创建快照，无法读取的能力会被忽略
+     * @param powers 能力列表，可以为null
+     * @return 不可修改的能力快照列表
+     */
+    public static List<PowerSnapshot> listOf(List<AbstractPower> powers) {
+        if (powers == null || powers.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<PowerSnapshot> list = new ArrayList<>(powers.size());
+        for (AbstractPower p : powers) {
+            try {
+                list.add(new PowerSnapshot(p));
+            } catch (Exception e) {
+                // 忽略无法读取的能力
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * 在能力列表中查找指定ID的层数
+     * @param powers 能力快照列表
+     * @param id 能力ID
+     * @return 层数，没有该能力时返回0
+     */
+    public static int amountOf(List<PowerSnapshot> powers, String id) {
+        for (PowerSnapshot p : powers) {
+            if (p.id != null && p.id.equals(id)) {
+                return p.amount;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof PowerSnapshot)) {
+            return false;
+        }
+        PowerSnapshot o = (PowerSnapshot) obj;
+        return Objects.equals(id, o.id) && amount == o.amount;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, amount);
+    }
+}
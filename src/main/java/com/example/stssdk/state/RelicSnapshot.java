@@ -0,0 +1,75 @@
+package com.example.stssdk.state;
+
+import com.megacrit.cardcrawl.relics.AbstractRelic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 遗物的不可变快照
+ */
+public final class RelicSnapshot {
+    public final String id;
+    public final String name;
+    public final String description;
+    public final String tier;
+    // 遗物计数器，没有计数的遗物为-1
+    public final int counter;
+
+    private RelicSnapshot(AbstractRelic r) {
+        this.id = r.relicId;
+        this.name = r.name;
+        this.description = r.description;
+        this.tier = r.tier.name();
+        this.counter = r.counter;
+    }
+
+    /**
+     * 从遗物对象创建快照，必须在游戏主线程中调用
+     * @param r 遗物对象
+     * @return 遗物快照
+     */
+    public static RelicSnapshot of(AbstractRelic r) {
+        return new RelicSnapshot(r);
+    }
+
+    /**
+     * 为整个遗物列表创建快照，无法读取的遗物会被忽略
+     * @param relics 遗物对象列表
+     * @return 不可修改的遗物快照列表
+     */
+    public static List<RelicSnapshot> listOf(List<AbstractRelic> relics) {
+        List<RelicSnapshot> list = new ArrayList<>(relics.size());
+        for (AbstractRelic r : relics) {
+            try {
+                list.add(new RelicSnapshot(r));
+            } catch (Exception e) {
+                // 忽略无法读取的遗物
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof RelicSnapshot)) {
+            return false;
+        }
+        RelicSnapshot o = (RelicSnapshot) obj;
+        return Objects.equals(id, o.id)
+                && Objects.equals(name, o.name)
+                && Objects.equals(description, o.description)
+                && Objects.equals(tier, o.tier)
+                && counter == o.counter;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, description, tier, counter);
+    }
+}
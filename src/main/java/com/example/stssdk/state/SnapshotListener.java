@@ -0,0 +1,15 @@
+package com.example.stssdk.state;
+
+/**
+ * 快照发布监听器
+ * 在游戏主线程中被调用，实现必须足够轻量，耗时操作应转交给其他线程
+ */
+public interface SnapshotListener {
+
+    /**
+     * 新版本快照发布后调用
+     * @param previous 上一个版本的快照
+     * @param current 新发布的快照
+     */
+    void onSnapshot(GameSnapshot previous, GameSnapshot current);
+}
@@ -0,0 +1,157 @@
+package com.example.stssdk.state;
+
+import basemod.interfaces.PostUpdateSubscriber;
+import com.example.stssdk.metrics.Metrics;
+import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 快照发布器，每帧在游戏主线程中捕获一次游戏状态
+ * 通过volatile引用发布最新快照，HTTP线程读取时无需加锁
+ * 只有快照内容真正发生变化时才会发布新版本，并唤醒等待状态变化的线程
+ */
+public class SnapshotPublisher implements PostUpdateSubscriber {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotPublisher.class);
+
+    // 最新发布的快照
+    private static volatile GameSnapshot latest = GameSnapshot.EMPTY;
+
+    // 最近发布的快照，按版本号取模存放，用于计算增量
+    private static final int HISTORY_SIZE = 64;
+    private static final AtomicReferenceArray<GameSnapshot> history = new AtomicReferenceArray<>(HISTORY_SIZE);
+
+    // 用于长轮询等待的监视器
+    private static final Object versionLock = new Object();
+
+    // 新版本发布时通知的监听器
+    private static final List<SnapshotListener> listeners = new CopyOnWriteArrayList<>();
+
+    // 最近一次捕获的时间（毫秒），内容没有变化时也会更新，用于判断快照是否停止更新
+    private static volatile long lastCaptureMillis;
+    // 最近一次捕获时动作队列中的动作数
+    private static volatile int actionQueueDepth;
+
+    /**
+     * 注册快照监听器，可在任意线程中调用
+     * @param listener 监听器
+     */
+    public static void addListener(SnapshotListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 移除快照监听器
+     * @param listener 监听器
+     */
+    public static void removeListener(SnapshotListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 获取最新的游戏快照，可在任意线程中调用
+     * @return 最新快照，游戏尚未开始时返回没有玩家的快照
+     */
+    public static GameSnapshot latest() {
+        return latest;
+    }
+
+    /**
+     * 最近一次捕获快照的时间，游戏主线程停止更新时不再变化
+     * @return 时间（毫秒），还没有捕获过时返回0
+     */
+    public static long getLastCaptureMillis() {
+        return lastCaptureMillis;
+    }
+
+    /**
+     * 最近一次捕获快照时动作队列中的动作数
+     */
+    public static int getActionQueueDepth() {
+        return actionQueueDepth;
+    }
+
+    /**
+     * 查找最近发布过的指定版本的快照
+     * @param version 版本号
+     * @return 对应的快照，已被淘汰或从未发布时返回null
+     */
+    public static GameSnapshot findVersion(long version) {
+        if (version < 0) {
+            return null;
+        }
+        GameSnapshot snapshot = history.get((int) (version % HISTORY_SIZE));
+        return snapshot != null && snapshot.version == version ? snapshot : null;
+    }
+
+    /**
+     * 阻塞等待直到状态版本大于指定版本或超时
+     * @param sinceVersion 客户端已知的版本号
+     * @param timeoutMs 最长等待时间（毫秒）
+     * @return 等待结束时的最新快照，超时时版本可能仍不大于sinceVersion
+     * @throws InterruptedException 等待被中断时抛出
+     */
+    public static GameSnapshot awaitNewerThan(long sinceVersion, long timeoutMs) throws InterruptedException {
+        GameSnapshot current = latest;
+        if (current.version > sinceVersion || timeoutMs <= 0) {
+            return current;
+        }
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (versionLock) {
+            while ((current = latest).version <= sinceVersion) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                versionLock.wait(remaining);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 每帧游戏更新结束后调用，在游戏主线程中捕获快照
+     * 内容与上一版本相同时不发布，版本号保持不变
+     */
+    @Override
+    public void receivePostUpdate() {
+        publish();
+    }
+
+    /**
+     * 立即捕获并发布快照，只能在游戏主线程中调用
+     * 用于在一帧中途直接修改了游戏状态（例如恢复存档）之后，让其他线程马上读到新状态
+     */
+    public static void publish() {
+        long start = Metrics.start();
+        try {
+            GameSnapshot previous = latest;
+            GameSnapshot captured = GameSnapshot.capture(previous.version + 1);
+            lastCaptureMillis = captured.timestamp;
+            actionQueueDepth = AbstractDungeon.actionManager != null ? AbstractDungeon.actionManager.actions.size() : 0;
+            Metrics.stage("snapshot_capture", start);
+            if (captured.sameContent(previous)) {
+                return;
+            }
+            history.set((int) (captured.version % HISTORY_SIZE), captured);
+            latest = captured;
+            synchronized (versionLock) {
+                versionLock.notifyAll();
+            }
+            for (SnapshotListener listener : listeners) {
+                try {
+                    listener.onSnapshot(previous, captured);
+                } catch (Exception e) {
+                    logger.error("Snapshot listener failed", e);
+                }
+            }
+        } catch (Exception e) {
+            // 捕获失败时保留上一帧的快照
+            logger.error("Error capturing game snapshot", e);
+        }
+    }
+}
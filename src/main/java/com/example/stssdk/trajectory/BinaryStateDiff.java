@@ -0,0 +1,195 @@
+package com.example.stssdk.trajectory;
+
+import com.example.stssdk.core.BinaryStateEncoder;
+import com.example.stssdk.core.IdInterner;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 比较两份BinaryStateEncoder编码的状态
+ * 比较时忽略状态版本号和卡牌uuid：uuid在每局游戏中随机生成，重放时按牌堆中的位置建立对应关系
+ */
+public final class BinaryStateDiff {
+
+    // 头部中各字段的偏移量，与BinaryStateEncoder的布局一致
+    private static final int VERSION_OFFSET = 8;
+    private static final int FLAGS_OFFSET = 16;
+    private static final int HAND_COUNT_OFFSET = 24;
+    private static final int CARD_PILES = 3;
+    private static final int UUID_SIZE = 16;
+
+    private BinaryStateDiff() {
+    }
+
+    /**
+     * 把另一个进程记录的状态中的驻留编号转换为当前进程的编号
+     * 驻留编号按首次出现分配，不同进程中同一字符串的编号可能不同
+     * @param recorded 记录的状态
+     * @param recordedIds 记录时的编号表（schema中的ids）
+     * @return 转换后的副本
+     */
+    public static byte[] translateIds(byte[] recorded, JsonObject recordedIds) {
+        byte[] copy = recorded.clone();
+        ByteBuffer buf = wrap(copy);
+        JsonObject schema = BinaryStateEncoder.schema();
+        JsonObject header = schema.getAsJsonObject("header");
+        int position = BinaryStateEncoder.HEADER_SIZE;
+        if ((buf.getInt(FLAGS_OFFSET) & BinaryStateEncoder.FLAG_HAS_PLAYER) != 0) {
+            translateRecord(buf, position, schema.getAsJsonObject("player"), recordedIds);
+            position += BinaryStateEncoder.PLAYER_SIZE;
+        }
+        for (JsonElement element : schema.getAsJsonArray("sections")) {
+            JsonObject section = element.getAsJsonObject();
+            JsonObject record = section.getAsJsonObject("record");
+            int size = record.get("size").getAsInt();
+            int count = buf.getInt(headerOffset(header, section.get("countField").getAsString()));
+            for (int i = 0; i < count; i++) {
+                translateRecord(buf, position, record, recordedIds);
+                position += size;
+            }
+        }
+        return copy;
+    }
+
+    // 辅助方法：转换一条记录中所有带ids标记的字段
+    private static void translateRecord(ByteBuffer buf, int position, JsonObject record, JsonObject recordedIds) {
+        for (JsonElement f : record.getAsJsonArray("fields")) {
+            JsonObject field = f.getAsJsonObject();
+            if (!field.has("ids")) {
+                continue;
+            }
+            String table = field.get("ids").getAsString();
+            int offset = position + field.get("offset").getAsInt();
+            int id = buf.getInt(offset);
+            JsonArray values = recordedIds.getAsJsonArray(table);
+            if (id <= 0 || values == null || id >= values.size() || values.get(id).isJsonNull()) {
+                continue;
+            }
+            buf.putInt(offset, IdInterner.byName(table).intern(values.get(id).getAsString()));
+        }
+    }
+
+    /**
+     * 按牌堆位置把记录中的卡牌uuid对应到重放中的卡牌uuid，只处理数量相同的牌堆
+     * @param recorded 记录的状态
+     * @param replayed 重放得到的状态
+     * @param mapping 记录uuid到重放uuid的映射，结果写入其中
+     */
+    public static void mapUuids(byte[] recorded, byte[] replayed, Map<UUID, UUID> mapping) {
+        ByteBuffer a = wrap(recorded);
+        ByteBuffer b = wrap(replayed);
+        int offsetA = cardsOffset(a);
+        int offsetB = cardsOffset(b);
+        for (int pile = 0; pile < CARD_PILES; pile++) {
+            int countA = a.getInt(HAND_COUNT_OFFSET + pile * 4);
+            int countB = b.getInt(HAND_COUNT_OFFSET + pile * 4);
+            if (countA == countB) {
+                for (int i = 0; i < countA; i++) {
+                    int ra = offsetA + i * BinaryStateEncoder.CARD_SIZE;
+                    int rb = offsetB + i * BinaryStateEncoder.CARD_SIZE;
+                    mapping.put(new UUID(a.getLong(ra), a.getLong(ra + 8)), new UUID(b.getLong(rb), b.getLong(rb + 8)));
+                }
+            }
+            offsetA += countA * BinaryStateEncoder.CARD_SIZE;
+            offsetB += countB * BinaryStateEncoder.CARD_SIZE;
+        }
+    }
+
+    /**
+     * 找出第一个不同的字段
+     * @param recorded 记录的状态
+     * @param replayed 重放得到的状态
+     * @return 字段描述，例如"header.handCount"、"hand[2].cost"，相同时返回null
+     */
+    public static String firstDifference(byte[] recorded, byte[] replayed) {
+        int length = Math.min(recorded.length, replayed.length);
+        int cardsStart = cardsOffset(wrap(recorded));
+        ByteBuffer header = wrap(recorded);
+        int cardsEnd = cardsStart;
+        for (int pile = 0; pile < CARD_PILES; pile++) {
+            cardsEnd += header.getInt(HAND_COUNT_OFFSET + pile * 4) * BinaryStateEncoder.CARD_SIZE;
+        }
+        for (int i = 0; i < length; i++) {
+            if (i >= VERSION_OFFSET && i < VERSION_OFFSET + 8) {
+                continue;
+            }
+            if (i >= cardsStart && i < cardsEnd && (i - cardsStart) % BinaryStateEncoder.CARD_SIZE < UUID_SIZE) {
+                continue;
+            }
+            if (recorded[i] != replayed[i]) {
+                return describeOffset(recorded, i);
+            }
+        }
+        return recorded.length == replayed.length ? null : "length";
+    }
+
+    /**
+     * 根据schema把字节偏移量转换为字段描述
+     */
+    private static String describeOffset(byte[] state, int offset) {
+        JsonObject schema = BinaryStateEncoder.schema();
+        JsonObject header = schema.getAsJsonObject("header");
+        if (offset < BinaryStateEncoder.HEADER_SIZE) {
+            return "header." + fieldAt(header, offset);
+        }
+        ByteBuffer buf = wrap(state);
+        int position = BinaryStateEncoder.HEADER_SIZE;
+        if ((buf.getInt(FLAGS_OFFSET) & BinaryStateEncoder.FLAG_HAS_PLAYER) != 0) {
+            if (offset < position + BinaryStateEncoder.PLAYER_SIZE) {
+                return "player." + fieldAt(schema.getAsJsonObject("player"), offset - position);
+            }
+            position += BinaryStateEncoder.PLAYER_SIZE;
+        }
+        for (JsonElement element : schema.getAsJsonArray("sections")) {
+            JsonObject section = element.getAsJsonObject();
+            JsonObject record = section.getAsJsonObject("record");
+            int size = record.get("size").getAsInt();
+            int count = buf.getInt(headerOffset(header, section.get("countField").getAsString()));
+            if (offset < position + count * size) {
+                int index = (offset - position) / size;
+                return section.get("name").getAsString() + "[" + index + "]."
+                        + fieldAt(record, (offset - position) % size);
+            }
+            position += count * size;
+        }
+        return "offset " + offset;
+    }
+
+    // 辅助方法：记录内偏移量所在的字段名
+    private static String fieldAt(JsonObject record, int offset) {
+        JsonArray fields = record.getAsJsonArray("fields");
+        String name = null;
+        for (JsonElement f : fields) {
+            if (f.getAsJsonObject().get("offset").getAsInt() <= offset) {
+                name = f.getAsJsonObject().get("name").getAsString();
+            }
+        }
+        return name;
+    }
+
+    // 辅助方法：头部字段的偏移量
+    private static int headerOffset(JsonObject header, String name) {
+        for (JsonElement f : header.getAsJsonArray("fields")) {
+            if (name.equals(f.getAsJsonObject().get("name").getAsString())) {
+                return f.getAsJsonObject().get("offset").getAsInt();
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    // 辅助方法：卡牌数组的起始偏移量
+    private static int cardsOffset(ByteBuffer buf) {
+        boolean hasPlayer = (buf.getInt(FLAGS_OFFSET) & BinaryStateEncoder.FLAG_HAS_PLAYER) != 0;
+        return BinaryStateEncoder.HEADER_SIZE + (hasPlayer ? BinaryStateEncoder.PLAYER_SIZE : 0);
+    }
+
+    private static ByteBuffer wrap(byte[] state) {
+        return ByteBuffer.wrap(state).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
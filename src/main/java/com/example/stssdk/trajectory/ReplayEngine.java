@@ -0,0 +1,381 @@
+package com.example.stssdk.trajectory;
+
+import com.example.stssdk.action.CommandInbox;
+import com.example.stssdk.core.BinaryStateEncoder;
+import com.example.stssdk.core.CommandExecutor;
+import com.example.stssdk.patches.FastMode;
+import com.example.stssdk.state.GameSnapshot;
+import com.example.stssdk.state.SnapshotPublisher;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.megacrit.cardcrawl.characters.AbstractPlayer;
+import com.megacrit.cardcrawl.core.CardCrawlGame;
+import com.megacrit.cardcrawl.core.Settings;
+import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 轨迹重放引擎，不经过HTTP直接用CommandExecutor重新执行记录中的操作命令，并与记录的状态逐步比较
+ * 每条命令都以同步模式执行，等动作队列清空后把得到的状态与记录中下一条命令之前的状态比较，
+ * 报告第一个不一致的步骤和字段；重放期间自动开启快速模式，报告中的速度可作为动作管线的回归基准
+ *
+ * 指定种子时先从主菜单以该种子开始新的一局，否则从当前状态开始重放（例如restore_snapshot之后）。
+ * 注意：从种子开始的重放只能复现每一步都通过SDK命令完成的运行，地图、事件等界面操作不在记录中
+ */
+public class ReplayEngine implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(ReplayEngine.class);
+
+    // 会改变游戏状态、需要重放的命令
+    private static final Set<String> REPLAYED_COMMANDS = new HashSet<>(Arrays.asList(
+            "play_card", "end_turn", "use_potion", "execute_action"));
+    // 等待新的一局开始的最长时间
+    private static final long START_TIMEOUT_MS = 30000;
+
+    private static final AtomicReference<ReplayEngine> current = new AtomicReference<>();
+
+    private final Path runDirectory;
+    private final JsonObject metadata;
+    private final Long seed;
+    private final String character;
+    private final int ascension;
+    private final long stepTimeoutMs;
+    private final boolean stopOnDivergence;
+    private final CommandExecutor executor = new CommandExecutor();
+
+    // 记录的uuid到重放uuid的映射，只在重放线程中访问
+    private final Map<UUID, UUID> uuids = new HashMap<>();
+    private volatile JsonObject report = new JsonObject();
+
+    /**
+     * 一个需要重放的命令，以及记录中该命令执行前后的状态
+     */
+    private static final class Step {
+        final JsonObject request;
+        final long recordedVersion;
+        JsonObject recordedResult;
+        byte[] expected;
+
+        Step(JsonObject request, long recordedVersion) {
+            this.request = request;
+            this.recordedVersion = recordedVersion;
+        }
+    }
+
+    private ReplayEngine(Path runDirectory, JsonObject metadata, Long seed, String character, int ascension,
+                         long stepTimeoutMs, boolean stopOnDivergence) {
+        this.runDirectory = runDirectory;
+        this.metadata = metadata;
+        this.seed = seed;
+        this.character = character;
+        this.ascension = ascension;
+        this.stepTimeoutMs = stepTimeoutMs;
+        this.stopOnDivergence = stopOnDivergence;
+    }
+
+    /**
+     * 在后台线程中开始重放，同一时间只能有一个重放
+     * @param runDirectory 已完成运行的目录
+     * @param seed 种子，为null时从当前状态开始
+     * @param character 角色，为null时使用记录中的角色
+     * @param ascension 进阶等级
+     * @param stepTimeoutMs 每条命令等待完成的最长时间
+     * @param stopOnDivergence 出现不一致时是否停止
+     * @return 包含status的JSON对象
+     */
+    public static JsonObject start(Path runDirectory, Long seed, String character, int ascension,
+                                   long stepTimeoutMs, boolean stopOnDivergence) {
+        JsonObject res = new JsonObject();
+        JsonObject metadata = TrajectoryReader.metadata(runDirectory);
+        if (metadata == null) {
+            res.addProperty("error", "failed to read run metadata");
+            return res;
+        }
+        ReplayEngine engine = new ReplayEngine(runDirectory, metadata, seed, character, ascension,
+                stepTimeoutMs, stopOnDivergence);
+        ReplayEngine running = current.get();
+        if (running != null && "running".equals(running.report.get("status").getAsString())) {
+            res.addProperty("error", "replay already running");
+            return res;
+        }
+        engine.report = engine.progress("running", 0, 0, 0);
+        current.set(engine);
+        Thread thread = new Thread(engine, "STSSDK-Replay-Thread");
+        thread.setDaemon(true);
+        thread.start();
+        res.addProperty("status", "started");
+        res.addProperty("run", runDirectory.getFileName().toString());
+        return res;
+    }
+
+    /**
+     * 最近一次重放的进度或结果
+     * @return 报告JSON对象，没有重放过时返回错误
+     */
+    public static JsonObject status() {
+        ReplayEngine engine = current.get();
+        if (engine == null) {
+            JsonObject res = new JsonObject();
+            res.addProperty("error", "no replay");
+            return res;
+        }
+        return engine.report;
+    }
+
+    @Override
+    public void run() {
+        boolean wasFast = FastMode.isEnabled();
+        float previousSpeed = FastMode.getSpeed();
+        long startedAt = System.nanoTime();
+        List<Step> steps = new ArrayList<>();
+        int replayed = 0;
+        try {
+            byte[] initial = load(steps);
+            JsonObject ids = metadata.getAsJsonObject("ids");
+            if (!wasFast) {
+                FastMode.set(true, FastMode.MAX_SPEED);
+            }
+            if (seed != null) {
+                startRun(character != null ? character : recordedCharacter(initial, ids));
+            }
+
+            // 先比较起始状态，同时建立卡牌uuid的对应关系
+            JsonObject divergence = compare(-1, null, initial, ids);
+            if (divergence != null && stopOnDivergence) {
+                finish("diverged", steps.size(), replayed, startedAt, divergence);
+                return;
+            }
+            JsonArray divergences = new JsonArray();
+            if (divergence != null) {
+                divergences.add(divergence);
+            }
+
+            for (int i = 0; i < steps.size(); i++) {
+                Step step = steps.get(i);
+                JsonObject request = rewrite(step.request);
+                JsonObject result = executor.execute(request);
+                replayed++;
+                divergence = result.has("error") && (step.recordedResult == null || !step.recordedResult.has("error"))
+                        ? resultDivergence(i, step, result)
+                        : compare(i, step, step.expected, ids);
+                if (divergence != null) {
+                    if (stopOnDivergence) {
+                        finish("diverged", steps.size(), replayed, startedAt, divergence);
+                        return;
+                    }
+                    divergences.add(divergence);
+                }
+                report = progress("running", steps.size(), replayed, startedAt);
+            }
+            JsonObject done = progress(divergences.size() == 0 ? "completed" : "diverged", steps.size(), replayed, startedAt);
+            if (divergences.size() > 0) {
+                done.add("divergences", divergences);
+            }
+            report = done;
+            logger.info("Replay of {} finished: {}", runDirectory.getFileName(), done);
+        } catch (Exception e) {
+            logger.error("Replay failed", e);
+            JsonObject failed = progress("failed", steps.size(), replayed, startedAt);
+            failed.addProperty("error", e.toString());
+            report = failed;
+        } finally {
+            if (!wasFast) {
+                FastMode.set(false, previousSpeed);
+            }
+        }
+    }
+
+    /**
+     * 读取轨迹，得到需要重放的命令，以及每条命令执行前后记录的状态
+     * 命令执行后的状态取下一条重放命令之前的最后一个状态，即Agent做下一个决策时看到的状态
+     * @param steps 需要重放的命令，结果写入其中
+     * @return 第一条命令之前的状态
+     */
+    private byte[] load(List<Step> steps) {
+        byte[] lastState = null;
+        byte[] initial = null;
+        Step pending = null;
+        boolean awaitingResult = false;
+        for (TrajectoryReader.Record r : new TrajectoryReader(runDirectory)) {
+            switch (r.type) {
+                case TrajectoryLog.TYPE_STATE:
+                    lastState = r.payload;
+                    break;
+                case TrajectoryLog.TYPE_COMMAND:
+                    JsonObject request = r.json().getAsJsonObject();
+                    awaitingResult = request.has("cmd") && REPLAYED_COMMANDS.contains(request.get("cmd").getAsString());
+                    if (!awaitingResult) {
+                        break;
+                    }
+                    if (pending == null) {
+                        initial = lastState;
+                    } else {
+                        pending.expected = lastState;
+                    }
+                    pending = new Step(request, r.stateVersion);
+                    steps.add(pending);
+                    break;
+                case TrajectoryLog.TYPE_RESULT:
+                    if (awaitingResult) {
+                        pending.recordedResult = r.json().getAsJsonObject();
+                        awaitingResult = false;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (pending != null) {
+            pending.expected = lastState;
+        }
+        if (initial == null) {
+            initial = lastState;
+        }
+        if (initial == null) {
+            throw new IllegalStateException("trajectory has no state records");
+        }
+        return initial;
+    }
+
+    /**
+     * 在游戏主线程中从主菜单以指定种子开始新的一局，并等待玩家出现
+     */
+    private void startRun(String characterName) throws Exception {
+        AbstractPlayer.PlayerClass playerClass = AbstractPlayer.PlayerClass.valueOf(characterName);
+        CompletableFuture<String> started = new CompletableFuture<>();
+        CommandInbox.submit(() -> {
+            if (CardCrawlGame.isInARun() || CardCrawlGame.mainMenuScreen == null) {
+                started.complete("a new run can only be started from the main menu");
+                return;
+            }
+            Settings.isDailyRun = false;
+            Settings.isTrial = false;
+            Settings.isEndless = false;
+            CardCrawlGame.chosenCharacter = playerClass;
+            AbstractDungeon.isAscensionMode = ascension > 0;
+            AbstractDungeon.ascensionLevel = ascension;
+            Settings.seed = seed;
+            Settings.seedSet = true;
+            AbstractDungeon.generateSeeds();
+            CardCrawlGame.mainMenuScreen.isFadingOut = true;
+            CardCrawlGame.mainMenuScreen.fadeOutMusic();
+            started.complete(null);
+        });
+        String error = started.get(START_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        if (error != null) {
+            throw new IllegalStateException(error);
+        }
+        long deadline = System.currentTimeMillis() + START_TIMEOUT_MS;
+        GameSnapshot snapshot = SnapshotPublisher.latest();
+        while (!snapshot.hasPlayer()) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new IllegalStateException("timed out waiting for the new run to start");
+            }
+            snapshot = SnapshotPublisher.awaitNewerThan(snapshot.version, remaining);
+        }
+    }
+
+    /**
+     * 把当前状态与记录的状态比较，并更新卡牌uuid的对应关系
+     * @return 不一致时返回描述，一致或没有可比较的记录时返回null
+     */
+    private JsonObject compare(int index, Step step, byte[] recorded, JsonObject ids) {
+        if (recorded == null) {
+            return null;
+        }
+        byte[] expected = ids != null ? BinaryStateDiff.translateIds(recorded, ids) : recorded;
+        GameSnapshot snapshot = SnapshotPublisher.latest();
+        byte[] actual = BinaryStateEncoder.encode(snapshot);
+        BinaryStateDiff.mapUuids(expected, actual, uuids);
+        String field = BinaryStateDiff.firstDifference(expected, actual);
+        if (field == null) {
+            return null;
+        }
+        JsonObject divergence = new JsonObject();
+        divergence.addProperty("step", index);
+        if (step != null) {
+            divergence.add("command", step.request);
+            divergence.addProperty("recordedVersion", step.recordedVersion);
+        }
+        divergence.addProperty("field", field);
+        divergence.addProperty("stateVersion", snapshot.version);
+        return divergence;
+    }
+
+    // 辅助方法：记录中成功的命令在重放中返回了错误
+    private static JsonObject resultDivergence(int index, Step step, JsonObject result) {
+        JsonObject divergence = new JsonObject();
+        divergence.addProperty("step", index);
+        divergence.add("command", step.request);
+        divergence.addProperty("recordedVersion", step.recordedVersion);
+        divergence.addProperty("field", "result");
+        divergence.add("result", result);
+        return divergence;
+    }
+
+    // 辅助方法：复制命令，改为同步执行，并把卡牌uuid换成重放中对应的uuid
+    private JsonObject rewrite(JsonObject request) {
+        JsonObject copy = request.deepCopy();
+        copy.addProperty("wait", true);
+        copy.addProperty("timeoutMs", stepTimeoutMs);
+        if (copy.has("uuid")) {
+            try {
+                UUID mapped = uuids.get(UUID.fromString(copy.get("uuid").getAsString()));
+                if (mapped != null) {
+                    copy.addProperty("uuid", mapped.toString());
+                }
+            } catch (IllegalArgumentException e) {
+                // 不是合法的uuid，原样执行
+            }
+        }
+        return copy;
+    }
+
+    // 辅助方法：从记录的起始状态中读取角色
+    private static String recordedCharacter(byte[] state, JsonObject ids) {
+        ByteBuffer buf = ByteBuffer.wrap(state).order(ByteOrder.LITTLE_ENDIAN);
+        if ((buf.getInt(16) & BinaryStateEncoder.FLAG_HAS_PLAYER) == 0 || ids == null) {
+            throw new IllegalArgumentException("character is required");
+        }
+        // character是玩家记录的最后一个字段
+        int id = buf.getInt(BinaryStateEncoder.HEADER_SIZE + BinaryStateEncoder.PLAYER_SIZE - 4);
+        return ids.getAsJsonArray("character").get(id).getAsString();
+    }
+
+    private JsonObject progress(String status, int total, int replayed, long startedAt) {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("status", status);
+        obj.addProperty("run", runDirectory.getFileName().toString());
+        obj.addProperty("steps", total);
+        obj.addProperty("replayed", replayed);
+        if (startedAt > 0) {
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            obj.addProperty("elapsedMs", elapsedMs);
+            obj.addProperty("stepsPerSecond", elapsedMs > 0 ? replayed * 1000.0 / elapsedMs : 0);
+        }
+        return obj;
+    }
+
+    private void finish(String status, int total, int replayed, long startedAt, JsonObject divergence) {
+        JsonObject done = progress(status, total, replayed, startedAt);
+        done.add("divergence", divergence);
+        report = done;
+        logger.info("Replay of {} diverged: {}", runDirectory.getFileName(), divergence);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.stssdk.trajectory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一次运行的轨迹日志写入器，只能在单个线程中使用
+ * 记录追加写入内存映射的分段文件 segment-00000.bin、segment-00001.bin ...，当前分段写满后切换到下一个分段
+ *
+ * 分段格式（小端）：
+ * 分段头 SEGMENT_HEADER_SIZE 字节：magic "STSTRAJ1"、int32 格式版本、int32 分段序号
+ * 之后是若干条记录，每条记录头 RECORD_HEADER_SIZE 字节：
+ * int32 负载长度、int32 记录类型、int64 时间戳（毫秒）、int64 状态版本，随后是负载
+ * 负载长度为0的记录头表示分段结束（文件预先以0填充，所以崩溃后留下的分段同样以此结束）
+ */
+public class TrajectoryLog implements Closeable {
+
+    public static final byte[] MAGIC = "STSTRAJ1".getBytes(StandardCharsets.US_ASCII);
+    public static final int FORMAT_VERSION = 1;
+    public static final int SEGMENT_HEADER_SIZE = 16;
+    public static final int RECORD_HEADER_SIZE = 24;
+    // 分段末尾为结束标记保留的字节数
+    private static final int END_MARKER_SIZE = 4;
+
+    // 记录类型：负载为BinaryStateEncoder编码的状态
+    public static final int TYPE_STATE = 1;
+    // 记录类型：负载为UTF-8 JSON格式的命令请求
+    public static final int TYPE_COMMAND = 2;
+    // 记录类型：负载为UTF-8 JSON格式的命令响应
+    public static final int TYPE_RESULT = 3;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<Long> segmentLengths = new ArrayList<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int segmentIndex = -1;
+    private long recordCount;
+
+    /**
+     * @param directory 本次运行的目录，必须不存在，上级目录不存在时自动创建
+     * @param segmentSize 每个分段文件的大小（字节）
+     * @throws java.nio.file.FileAlreadyExistsException 目录已存在（同名的运行）时抛出
+     */
+    public TrajectoryLog(Path directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory.getParent());
+        Files.createDirectory(directory);
+    }
+
+    /**
+     * 追加一条记录，当前分段剩余空间不足时切换到新分段
+     * @param type 记录类型
+     * @param timestamp 时间戳（毫秒）
+     * @param stateVersion 记录时的状态版本
+     * @param payload 负载
+     */
+    public void append(int type, long timestamp, long stateVersion, byte[] payload) throws IOException {
+        int needed = RECORD_HEADER_SIZE + payload.length + END_MARKER_SIZE;
+        if (buffer == null || buffer.remaining() < needed) {
+            rotate(needed);
+        }
+        buffer.putInt(payload.length);
+        buffer.putInt(type);
+        buffer.putLong(timestamp);
+        buffer.putLong(stateVersion);
+        buffer.put(payload);
+        recordCount++;
+    }
+
+    /**
+     * 结束当前分段，打开新的分段文件
+     * @param needed 新分段至少需要容纳的字节数，超过分段大小的记录单独占用一个更大的分段
+     */
+    private void rotate(int needed) throws IOException {
+        closeSegment();
+        segmentIndex++;
+        int size = Math.max(segmentSize, SEGMENT_HEADER_SIZE + needed);
+        channel = FileChannel.open(segmentPath(directory, segmentIndex),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putInt(segmentIndex);
+    }
+
+    // 辅助方法：把当前分段写回磁盘并记录已使用的长度（含结束标记）
+    private void closeSegment() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        buffer.putInt(0);
+        segmentLengths.add((long) buffer.position());
+        buffer.force();
+        channel.close();
+        buffer = null;
+        channel = null;
+    }
+
+    /**
+     * 把已写入的记录刷新到磁盘
+     */
+    public void flush() {
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * 关闭日志，之后各分段已使用的长度见getSegmentLengths()
+     */
+    @Override
+    public void close() throws IOException {
+        closeSegment();
+    }
+
+    /**
+     * 各分段已使用的字节数（含分段头和结束标记），只有close()之后才完整
+     */
+    public List<Long> getSegmentLengths() {
+        return Collections.unmodifiableList(segmentLengths);
+    }
+
+    /**
+     * 分段文件路径
+     * @param directory 运行目录
+     * @param index 分段序号
+     * @return 分段文件路径
+     */
+    public static Path segmentPath(Path directory, int index) {
+        return directory.resolve(String.format("segment-%05d.bin", index));
+    }
+}
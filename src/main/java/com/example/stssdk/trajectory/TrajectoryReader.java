@@ -0,0 +1,262 @@
+package com.example.stssdk.trajectory;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 轨迹日志读取工具，按顺序遍历一次运行中的所有记录，格式见TrajectoryLog
+ * 也可以作为命令行工具使用，把记录输出为JSON行：
+ * java -cp STS-SDK.jar com.example.stssdk.trajectory.TrajectoryReader 运行目录 [--payload]
+ */
+public class TrajectoryReader implements Iterable<TrajectoryReader.Record> {
+
+    public static final String METADATA_FILE = "run.json";
+
+    private final Path directory;
+
+    /**
+     * 轨迹中的一条记录
+     */
+    public static final class Record {
+        public final int type;
+        public final long timestamp;
+        public final long stateVersion;
+        public final byte[] payload;
+
+        Record(int type, long timestamp, long stateVersion, byte[] payload) {
+            this.type = type;
+            this.timestamp = timestamp;
+            this.stateVersion = stateVersion;
+            this.payload = payload;
+        }
+
+        /**
+         * 记录类型名称：state、command、result
+         */
+        public String typeName() {
+            switch (type) {
+                case TrajectoryLog.TYPE_STATE:
+                    return "state";
+                case TrajectoryLog.TYPE_COMMAND:
+                    return "command";
+                case TrajectoryLog.TYPE_RESULT:
+                    return "result";
+                default:
+                    return "unknown";
+            }
+        }
+
+        /**
+         * 命令和结果记录的JSON负载
+         * @return JSON对象，状态记录返回null
+         */
+        public JsonElement json() {
+            if (type != TrajectoryLog.TYPE_COMMAND && type != TrajectoryLog.TYPE_RESULT) {
+                return null;
+            }
+            return JsonParser.parseString(new String(payload, StandardCharsets.UTF_8));
+        }
+
+        /**
+         * 状态记录的负载，按小端字节序读取，布局见/api/schema
+         */
+        public ByteBuffer state() {
+            return ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * @param directory 运行目录，包含segment-*.bin分段文件
+     */
+    public TrajectoryReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * 按分段序号依次遍历所有记录，遇到未写完的分段（例如进程崩溃）时在结束标记处停止
+     */
+    @Override
+    public Iterator<Record> iterator() {
+        return new Iterator<Record>() {
+            private int segmentIndex = -1;
+            private ByteBuffer segment;
+            private Record next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Record next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Record r = next;
+                next = advance();
+                return r;
+            }
+
+            private Record advance() {
+                while (true) {
+                    if (segment != null && segment.remaining() >= TrajectoryLog.RECORD_HEADER_SIZE) {
+                        int length = segment.getInt();
+                        if (length > 0 && segment.remaining() >= TrajectoryLog.RECORD_HEADER_SIZE - 4 + length) {
+                            int type = segment.getInt();
+                            long timestamp = segment.getLong();
+                            long version = segment.getLong();
+                            byte[] payload = new byte[length];
+                            segment.get(payload);
+                            return new Record(type, timestamp, version, payload);
+                        }
+                    }
+                    segment = openSegment(++segmentIndex);
+                    if (segment == null) {
+                        return null;
+                    }
+                }
+            }
+        };
+    }
+
+    // 辅助方法：映射分段文件并跳过分段头，文件不存在时返回null
+    private ByteBuffer openSegment(int index) {
+        Path path = TrajectoryLog.segmentPath(directory, index);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            byte[] magic = new byte[TrajectoryLog.MAGIC.length];
+            buffer.get(magic);
+            if (!Arrays.equals(magic, TrajectoryLog.MAGIC)) {
+                throw new IOException("not a trajectory segment: " + path);
+            }
+            buffer.position(TrajectoryLog.SEGMENT_HEADER_SIZE);
+            return buffer;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 读取运行目录中的run.json
+     * @param directory 运行目录
+     * @return 元数据，不存在或无法解析时返回null
+     */
+    public static JsonObject metadata(Path directory) {
+        Path file = directory.resolve(METADATA_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return JsonParser.parseString(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)).getAsJsonObject();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 把已完成运行的所有分段按顺序拼接为一个输入流，每个分段只包含已使用的部分（含结束标记）
+     * @param directory 运行目录，必须包含run.json
+     * @return 输入流，调用方负责关闭
+     */
+    public static InputStream openStream(Path directory) throws IOException {
+        JsonObject meta = JsonParser.parseString(new String(
+                Files.readAllBytes(directory.resolve(METADATA_FILE)), StandardCharsets.UTF_8)).getAsJsonObject();
+        JsonArray lengths = meta.getAsJsonArray("segmentLengths");
+        List<InputStream> streams = new ArrayList<>(lengths.size());
+        for (int i = 0; i < lengths.size(); i++) {
+            streams.add(new LimitedInputStream(
+                    Files.newInputStream(TrajectoryLog.segmentPath(directory, i)), lengths.get(i).getAsLong()));
+        }
+        return new SequenceInputStream(Collections.enumeration(streams));
+    }
+
+    /**
+     * 只读取前limit个字节的输入流
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+    }
+
+    /**
+     * 命令行入口，把运行目录中的记录逐行输出为JSON
+     * 默认只输出状态记录的字节数，指定--payload时输出Base64编码的状态负载
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("usage: TrajectoryReader <run directory> [--payload]");
+            System.exit(1);
+        }
+        boolean payload = args.length > 1 && "--payload".equals(args[1]);
+        for (Record r : new TrajectoryReader(Paths.get(args[0]))) {
+            JsonObject line = new JsonObject();
+            line.addProperty("type", r.typeName());
+            line.addProperty("timestamp", r.timestamp);
+            line.addProperty("stateVersion", r.stateVersion);
+            JsonElement json = r.json();
+            if (json != null) {
+                line.add("data", json);
+            } else {
+                line.addProperty("bytes", r.payload.length);
+                if (payload) {
+                    line.addProperty("payload", Base64.getEncoder().encodeToString(r.payload));
+                }
+            }
+            System.out.println(line);
+        }
+    }
+}
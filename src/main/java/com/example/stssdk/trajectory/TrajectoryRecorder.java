@@ -0,0 +1,335 @@
+package com.example.stssdk.trajectory;
+
+import com.example.stssdk.core.BinaryStateEncoder;
+import com.example.stssdk.state.GameSnapshot;
+import com.example.stssdk.state.SnapshotListener;
+import com.example.stssdk.state.SnapshotPublisher;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.megacrit.cardcrawl.core.Settings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 轨迹记录器，按运行记录每个状态、命令和命令结果，用于离线强化学习和调试
+ * 状态记录来自快照发布（SnapshotListener），命令和结果记录来自CommandExecutor.execute；
+ * 游戏主线程和HTTP线程只把不可变的快照或JSON交给记录线程，编码和写文件都在记录线程中完成，
+ * 记录线程的队列已满时丢弃记录并计数，不会阻塞游戏主线程
+ *
+ * 每次运行写入轨迹根目录下以runId命名的子目录，结束后写入run.json，分段文件格式见TrajectoryLog
+ * 自动模式下，玩家出现（开始新的一局）时开始新的运行，玩家消失时结束
+ */
+public class TrajectoryRecorder implements SnapshotListener {
+    private static final Logger logger = LoggerFactory.getLogger(TrajectoryRecorder.class);
+
+    // 记录线程队列容量
+    private static final int QUEUE_CAPACITY = 4096;
+    // 记录线程空闲时刷新到磁盘的间隔
+    private static final long FLUSH_INTERVAL_MS = 1000;
+    // 等待记录线程完成手动开始、结束操作的最长时间
+    private static final long CONTROL_TIMEOUT_MS = 5000;
+    private static final Pattern RUN_ID = Pattern.compile("[A-Za-z0-9_.-]{1,64}");
+
+    private static volatile TrajectoryRecorder instance;
+
+    private final Path baseDirectory;
+    private final int segmentSize;
+    private final boolean automatic;
+    private final AtomicLong dropped = new AtomicLong();
+    private final ThreadPoolExecutor writer;
+
+    // 以下字段只在记录线程中访问
+    private TrajectoryLog log;
+    private String runId;
+    private long runStartedAt;
+    private long runDroppedAtStart;
+    private long lastFlush;
+    private long lastStateVersion = -1;
+    // 开始记录时的种子，供重放使用
+    private Long runSeed;
+    // 当前是否有运行正在记录，供其他线程快速判断
+    private volatile boolean recording;
+
+    private TrajectoryRecorder(Path baseDirectory, int segmentSize, boolean automatic) {
+        this.baseDirectory = baseDirectory;
+        this.segmentSize = segmentSize;
+        this.automatic = automatic;
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                    Thread t = new Thread(r, "STSSDK-Recorder-Thread");
+                    t.setDaemon(true);
+                    return t;
+                }, (r, executor) -> dropped.incrementAndGet());
+    }
+
+    /**
+     * 启用记录器并订阅快照发布
+     * @param baseDirectory 轨迹根目录
+     * @param segmentSize 分段文件大小（字节）
+     * @param automatic 是否在每局开始和结束时自动开始、结束记录
+     */
+    public static void enable(Path baseDirectory, int segmentSize, boolean automatic) {
+        if (instance != null) {
+            return;
+        }
+        TrajectoryRecorder recorder = new TrajectoryRecorder(baseDirectory, segmentSize, automatic);
+        instance = recorder;
+        SnapshotPublisher.addListener(recorder);
+        Runtime.getRuntime().addShutdownHook(new Thread(recorder::stop, "STSSDK-Recorder-Cleanup"));
+        logger.info("Trajectory recorder enabled at {} (automatic={})", baseDirectory, automatic);
+    }
+
+    /**
+     * 获取记录器
+     * @return 记录器，未启用时返回null
+     */
+    public static TrajectoryRecorder get() {
+        return instance;
+    }
+
+    /**
+     * 记录一条命令及其响应，未启用或没有正在记录的运行时直接返回
+     * 请求和响应在调用方线程中转成字符串，之后不再访问JSON对象
+     * @param stateVersion 执行命令前的状态版本
+     * @param request 命令请求
+     * @param response 命令响应
+     */
+    public static void recordCommand(long stateVersion, JsonObject request, JsonObject response) {
+        TrajectoryRecorder recorder = instance;
+        if (recorder == null || !recorder.recording) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        byte[] req = request.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] res = response.toString().getBytes(StandardCharsets.UTF_8);
+        long resultVersion = SnapshotPublisher.latest().version;
+        recorder.submit(() -> {
+            recorder.append(TrajectoryLog.TYPE_COMMAND, now, stateVersion, req);
+            recorder.append(TrajectoryLog.TYPE_RESULT, now, resultVersion, res);
+        });
+    }
+
+    /**
+     * 快照发布时在游戏主线程中调用，只提交记录任务
+     */
+    @Override
+    public void onSnapshot(GameSnapshot previous, GameSnapshot current) {
+        if (automatic && !previous.hasPlayer() && current.hasPlayer()) {
+            submit(() -> startRun(null));
+        }
+        if (automatic && previous.hasPlayer() && !current.hasPlayer()) {
+            submit(this::finishRun);
+            return;
+        }
+        if (!recording && !(automatic && current.hasPlayer())) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        submit(() -> append(TrajectoryLog.TYPE_STATE, now, current.version, BinaryStateEncoder.encode(current)));
+    }
+
+    /**
+     * 手动开始新的运行，正在记录的运行会先结束
+     * @param name 运行名称，为null时按时间生成；已有同名运行时返回错误，正在记录的运行不受影响
+     * @return 包含runId的JSON对象
+     */
+    public JsonObject start(String name) {
+        if (name != null && !RUN_ID.matcher(name).matches()) {
+            JsonObject error = new JsonObject();
+            error.addProperty("error", "invalid run name");
+            return error;
+        }
+        if (name != null && Files.exists(baseDirectory.resolve(name))) {
+            JsonObject error = new JsonObject();
+            error.addProperty("error", "run already exists");
+            return error;
+        }
+        JsonObject res = new JsonObject();
+        try {
+            String id = writer.submit(() -> startRun(name)).get(CONTROL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            res.addProperty("status", id != null ? "recording" : "failed");
+            res.addProperty("runId", id);
+        } catch (Exception e) {
+            res.addProperty("error", e.toString());
+        }
+        return res;
+    }
+
+    /**
+     * 手动结束正在记录的运行
+     * @return 包含已结束运行信息的JSON对象
+     */
+    public JsonObject stop() {
+        JsonObject res = new JsonObject();
+        try {
+            JsonObject meta = writer.submit(this::finishRun).get(CONTROL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (meta == null) {
+                res.addProperty("error", "not recording");
+                return res;
+            }
+            res.addProperty("status", "stopped");
+            res.add("run", meta);
+        } catch (Exception e) {
+            res.addProperty("error", e.toString());
+        }
+        return res;
+    }
+
+    /**
+     * 列出已完成的运行以及记录器状态
+     * @return 包含recording、runId、dropped、runs的JSON对象
+     */
+    public JsonObject list() {
+        JsonObject res = new JsonObject();
+        res.addProperty("recording", recording);
+        res.addProperty("automatic", automatic);
+        res.addProperty("dropped", dropped.get());
+        res.addProperty("queued", writer.getQueue().size());
+        JsonArray runs = new JsonArray();
+        if (Files.isDirectory(baseDirectory)) {
+            try (DirectoryStream<Path> dirs = Files.newDirectoryStream(baseDirectory)) {
+                for (Path dir : dirs) {
+                    JsonObject meta = TrajectoryReader.metadata(dir);
+                    if (meta != null) {
+                        runs.add(meta);
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to list trajectories: {}", e.toString());
+            }
+        }
+        res.add("runs", runs);
+        return res;
+    }
+
+    /**
+     * 写入队列已满而丢弃的记录总数
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * 查找已完成运行的目录
+     * @param id 运行ID
+     * @return 运行目录，ID无效、不存在或仍在记录时返回null
+     */
+    public Path finishedRun(String id) {
+        if (id == null || !RUN_ID.matcher(id).matches()) {
+            return null;
+        }
+        Path dir = baseDirectory.resolve(id);
+        return Files.exists(dir.resolve(TrajectoryReader.METADATA_FILE)) ? dir : null;
+    }
+
+    // 辅助方法：提交到记录线程，队列已满时由拒绝策略计数丢弃
+    private void submit(Runnable task) {
+        writer.execute(task);
+    }
+
+    // 以下方法只在记录线程中调用
+
+    private String startRun(String name) {
+        String id = name != null ? name : new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+        // 不覆盖已有运行的记录和run.json；检查之后才创建的同名目录由TrajectoryLog拒绝
+        if (Files.exists(baseDirectory.resolve(id))) {
+            logger.warn("Trajectory {} already exists, not starting a new run", id);
+            return null;
+        }
+        finishRun();
+        try {
+            log = new TrajectoryLog(baseDirectory.resolve(id), segmentSize);
+            runId = id;
+            runStartedAt = System.currentTimeMillis();
+            runDroppedAtStart = dropped.get();
+            lastFlush = runStartedAt;
+            lastStateVersion = -1;
+            runSeed = Settings.seed;
+            recording = true;
+            // 以当前状态作为第一条记录
+            GameSnapshot current = SnapshotPublisher.latest();
+            append(TrajectoryLog.TYPE_STATE, runStartedAt, current.version, BinaryStateEncoder.encode(current));
+            logger.info("Recording trajectory {}", id);
+            return id;
+        } catch (IOException e) {
+            logger.error("Failed to start trajectory " + id, e);
+            log = null;
+            recording = false;
+            return null;
+        }
+    }
+
+    private JsonObject finishRun() {
+        if (log == null) {
+            return null;
+        }
+        recording = false;
+        JsonObject meta = new JsonObject();
+        try {
+            log.close();
+            meta.addProperty("runId", runId);
+            meta.addProperty("startedAt", runStartedAt);
+            meta.addProperty("endedAt", System.currentTimeMillis());
+            meta.addProperty("records", log.getRecordCount());
+            if (runSeed != null) {
+                meta.addProperty("seed", runSeed);
+            }
+            meta.addProperty("dropped", dropped.get() - runDroppedAtStart);
+            meta.addProperty("formatVersion", TrajectoryLog.FORMAT_VERSION);
+            meta.addProperty("stateLayoutVersion", BinaryStateEncoder.LAYOUT_VERSION);
+            JsonArray segments = new JsonArray();
+            for (Long length : log.getSegmentLengths()) {
+                segments.add(length);
+            }
+            meta.add("segmentLengths", segments);
+            // 状态记录中的驻留编号表，重放时据此转换为重放进程的编号
+            meta.add("ids", BinaryStateEncoder.schema().getAsJsonObject("ids"));
+            Files.write(log.getDirectory().resolve(TrajectoryReader.METADATA_FILE),
+                    meta.toString().getBytes(StandardCharsets.UTF_8));
+            logger.info("Finished trajectory {} ({} records)", runId, log.getRecordCount());
+        } catch (IOException e) {
+            logger.error("Failed to finish trajectory " + runId, e);
+        }
+        log = null;
+        runId = null;
+        return meta;
+    }
+
+    private void append(int type, long timestamp, long version, byte[] payload) {
+        if (log == null) {
+            return;
+        }
+        // 开始运行时已写入当前状态，触发开始的同一版本不再重复写入
+        if (type == TrajectoryLog.TYPE_STATE) {
+            if (version == lastStateVersion) {
+                return;
+            }
+            lastStateVersion = version;
+        }
+        try {
+            log.append(type, timestamp, version, payload);
+            // 队列空闲时定期刷新，崩溃时最多丢失最近一秒的记录
+            if (writer.getQueue().isEmpty() && timestamp - lastFlush >= FLUSH_INTERVAL_MS) {
+                log.flush();
+                lastFlush = timestamp;
+            }
+        } catch (IOException e) {
+            logger.error("Failed to append trajectory record, stopping run " + runId, e);
+            finishRun();
+        }
+    }
+
+}